@@ -18,6 +18,7 @@
 
 package org.apache.atlas.hive.bridge;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -94,9 +95,18 @@ public class HiveMetaStoreBridge {
     public static final String LAST_ACCESS_TIME = "lastAccessTime";
     public static final String HDFS_PATH = "hdfs_path";
 
+    public static final String IMPORT_CONF_PREFIX = "atlas.hive.import.";
+    public static final String IMPORT_THREADS = IMPORT_CONF_PREFIX + "threads";
+    public static final String IMPORT_BATCH_SIZE = IMPORT_CONF_PREFIX + "batchSize";
+    public static final String IMPORT_MAX_IN_FLIGHT_REQUESTS = IMPORT_CONF_PREFIX + "maxInFlightRequests";
+    public static final String IMPORT_CHECKPOINT_FILE = IMPORT_CONF_PREFIX + "checkpointFile";
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 100;
+    public static final String DEFAULT_IMPORT_CHECKPOINT_FILE = "hive-import.checkpoint";
+
     private static final Logger LOG = LoggerFactory.getLogger(HiveMetaStoreBridge.class);
 
     public final Hive hiveClient;
+    private HiveConf hiveConf = null;
     private AtlasClient atlasClient = null;
 
     HiveMetaStoreBridge(String clusterName, Hive hiveClient, AtlasClient atlasClient) {
@@ -123,12 +133,23 @@ public class HiveMetaStoreBridge {
      */
     public HiveMetaStoreBridge(Configuration atlasProperties, HiveConf hiveConf, AtlasClient atlasClient) throws Exception {
         this(atlasProperties.getString(HIVE_CLUSTER_NAME, DEFAULT_CLUSTER_NAME), Hive.get(hiveConf), atlasClient);
+        this.hiveConf = hiveConf;
     }
 
     AtlasClient getAtlasClient() {
         return atlasClient;
     }
 
+    /**
+     * Hive clients are not thread safe; each thread gets a client of its own when the bridge was
+     * constructed with a {@link HiveConf}.
+     * @return Hive client for the current thread
+     * @throws HiveException
+     */
+    Hive getHiveClient() throws HiveException {
+        return hiveConf != null ? Hive.get(hiveConf) : hiveClient;
+    }
+
     void importHiveMetadata(boolean failOnError) throws Exception {
         LOG.info("Importing hive metadata");
         importDatabases(failOnError);
@@ -161,7 +182,7 @@ public class HiveMetaStoreBridge {
      * @return
      * @throws Exception
      */
-    private Referenceable registerDatabase(String databaseName) throws Exception {
+    Referenceable registerDatabase(String databaseName) throws Exception {
         Referenceable dbRef = getDatabaseReference(clusterName, databaseName);
         Database db = hiveClient.getDatabase(databaseName);
 
@@ -292,31 +313,7 @@ public class HiveMetaStoreBridge {
                 Referenceable process = getProcessReference(tableQualifiedName);
                 if (process == null) {
                     LOG.info("Attempting to register create table process for {}", tableQualifiedName);
-                    Referenceable lineageProcess = new Referenceable(HiveDataTypes.HIVE_PROCESS.getName());
-                    ArrayList<Referenceable> sourceList = new ArrayList<>();
-                    ArrayList<Referenceable> targetList = new ArrayList<>();
-                    String tableLocation = table.getDataLocation().toString();
-                    Referenceable path = fillHDFSDataSet(tableLocation);
-                    String query = getCreateTableString(table, tableLocation);
-                    sourceList.add(path);
-                    targetList.add(tableReferenceable);
-                    lineageProcess.set("inputs", sourceList);
-                    lineageProcess.set("outputs", targetList);
-                    lineageProcess.set("userName", table.getOwner());
-                    lineageProcess.set("startTime", new Date(System.currentTimeMillis()));
-                    lineageProcess.set("endTime", new Date(System.currentTimeMillis()));
-                    lineageProcess.set("operationType", "CREATETABLE");
-                    lineageProcess.set("queryText", query);
-                    lineageProcess.set("queryId", query);
-                    lineageProcess.set("queryPlan", "{}");
-                    lineageProcess.set("clusterName", clusterName);
-                    List<String> recentQueries = new ArrayList<>(1);
-                    recentQueries.add(query);
-                    lineageProcess.set("recentQueries", recentQueries);
-                    String processQualifiedName = getTableProcessQualifiedName(clusterName, table);
-                    lineageProcess.set(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, processQualifiedName);
-                    lineageProcess.set(AtlasClient.NAME, query);
-                    registerInstance(lineageProcess);
+                    registerInstance(createTableProcessInstance(table, tableReferenceable));
                 } else {
                     LOG.info("Process {} is already registered", process.toString());
                 }
@@ -331,6 +328,40 @@ public class HiveMetaStoreBridge {
         }
     }
 
+    /**
+     * Create the process that created an external table from its location
+     * @param table the external Hive {@link Table}
+     * @param tableReference reference to the table entity, the output of the process
+     * @return new Hive process entity
+     */
+    Referenceable createTableProcessInstance(Table table, Object tableReference) {
+        Referenceable lineageProcess = new Referenceable(HiveDataTypes.HIVE_PROCESS.getName());
+        ArrayList<Referenceable> sourceList = new ArrayList<>();
+        ArrayList<Object> targetList = new ArrayList<>();
+        String tableLocation = table.getDataLocation().toString();
+        Referenceable path = fillHDFSDataSet(tableLocation);
+        String query = getCreateTableString(table, tableLocation);
+        sourceList.add(path);
+        targetList.add(tableReference);
+        lineageProcess.set("inputs", sourceList);
+        lineageProcess.set("outputs", targetList);
+        lineageProcess.set("userName", table.getOwner());
+        lineageProcess.set("startTime", new Date(System.currentTimeMillis()));
+        lineageProcess.set("endTime", new Date(System.currentTimeMillis()));
+        lineageProcess.set("operationType", "CREATETABLE");
+        lineageProcess.set("queryText", query);
+        lineageProcess.set("queryId", query);
+        lineageProcess.set("queryPlan", "{}");
+        lineageProcess.set("clusterName", clusterName);
+        List<String> recentQueries = new ArrayList<>(1);
+        recentQueries.add(query);
+        lineageProcess.set("recentQueries", recentQueries);
+        String processQualifiedName = getTableProcessQualifiedName(clusterName, table);
+        lineageProcess.set(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, processQualifiedName);
+        lineageProcess.set(AtlasClient.NAME, query);
+        return lineageProcess;
+    }
+
     /**
      * Gets reference for the table
      *
@@ -639,6 +670,16 @@ public class HiveMetaStoreBridge {
         }
 
         HiveMetaStoreBridge hiveMetaStoreBridge = new HiveMetaStoreBridge(atlasConf, new HiveConf(), atlasClient);
-        hiveMetaStoreBridge.importHiveMetadata(failOnError);
+
+        int importThreads = atlasConf.getInt(IMPORT_THREADS, 1);
+        if (importThreads > 1) {
+            HiveMetaStoreBulkImporter importer = new HiveMetaStoreBulkImporter(hiveMetaStoreBridge, importThreads,
+                    atlasConf.getInt(IMPORT_BATCH_SIZE, DEFAULT_IMPORT_BATCH_SIZE),
+                    atlasConf.getInt(IMPORT_MAX_IN_FLIGHT_REQUESTS, importThreads),
+                    new File(atlasConf.getString(IMPORT_CHECKPOINT_FILE, DEFAULT_IMPORT_CHECKPOINT_FILE)));
+            importer.importHiveMetadata(failOnError);
+        } else {
+            hiveMetaStoreBridge.importHiveMetadata(failOnError);
+        }
     }
 }
@@ -0,0 +1,307 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.ql.metadata.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Imports the Hive metadata like {@link HiveMetaStoreBridge#importHiveMetadata(boolean)}, with a pool of workers.
+ *
+ * Databases are registered one after the other. Their tables are split in batches, and each worker reads the tables
+ * of a batch from the metastore and registers them, along with the process that created the external tables, in
+ * one createOrUpdate request. This saves the lookup of each table and process before registering it; a process
+ * that is already registered is updated. When a batch fails, its tables are registered one at a time, so that a
+ * single bad table doesn't fail the rest of the batch.
+ *
+ * Imported tables are recorded in a checkpoint file, and are skipped when the import is run again after an
+ * interruption or failures. The checkpoint is removed once all tables are imported.
+ */
+public class HiveMetaStoreBulkImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(HiveMetaStoreBulkImporter.class);
+
+    private static final long PROGRESS_LOG_INTERVAL_MS = 30000;
+
+    private final HiveMetaStoreBridge bridge;
+    private final int threads;
+    private final int batchSize;
+    private final int maxInFlightRequests;
+    private final Semaphore inFlightRequests;
+    private final File checkpointFile;
+
+    private final AtomicInteger importedTables = new AtomicInteger();
+    private final AtomicInteger failedTables = new AtomicInteger();
+    private final AtomicLong lastProgressLogTime = new AtomicLong();
+    private final AtomicReference<Exception> firstError = new AtomicReference<>();
+    private long startTime;
+
+    /**
+     * @param bridge bridge that maps the Hive metadata to entities
+     * @param threads number of workers
+     * @param batchSize number of tables registered in one request
+     * @param maxInFlightRequests maximum number of registration requests sent to Atlas at the same time
+     * @param checkpointFile file to record the imported tables in
+     */
+    public HiveMetaStoreBulkImporter(HiveMetaStoreBridge bridge, int threads, int batchSize, int maxInFlightRequests,
+                                     File checkpointFile) {
+        this.bridge = bridge;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+        this.checkpointFile = checkpointFile;
+    }
+
+    public int getImportedTableCount() {
+        return importedTables.get();
+    }
+
+    public int getFailedTableCount() {
+        return failedTables.get();
+    }
+
+    public void importHiveMetadata(boolean failOnError) throws Exception {
+        LOG.info("Importing hive metadata with {} threads, {} tables per batch and at most {} requests in flight",
+                threads, batchSize, maxInFlightRequests);
+
+        startTime = System.currentTimeMillis();
+        lastProgressLogTime.set(startTime);
+
+        // the bounded queue makes the submitting thread run batches itself when the workers fall behind
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 2),
+                new ThreadFactoryBuilder().setNameFormat("Atlas Hive Import %d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try (ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile)) {
+            if (checkpoint.size() > 0) {
+                LOG.info("Resuming import: {} tables were imported earlier as per checkpoint {}", checkpoint.size(),
+                        checkpointFile);
+            }
+
+            for (String databaseName : bridge.getHiveClient().getAllDatabases()) {
+                if (firstError.get() != null) {
+                    break;
+                }
+
+                Referenceable dbReference = bridge.registerDatabase(databaseName);
+
+                if (dbReference != null) {
+                    submitTables(executor, checkpoint, dbReference, databaseName, failOnError);
+                }
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            logProgress(true);
+
+            if (firstError.get() != null) {
+                throw firstError.get();
+            }
+
+            if (failedTables.get() == 0) {
+                checkpoint.delete();
+            } else {
+                LOG.error("Import failed for {} tables. Please check logs for import errors and run the import again "
+                        + "to retry them", failedTables.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitTables(ThreadPoolExecutor executor, ImportCheckpoint checkpoint, Referenceable dbReference,
+                              String databaseName, boolean failOnError) throws Exception {
+        List<String> hiveTables = bridge.getHiveClient().getAllTables(databaseName);
+        Referenceable dbId = new Referenceable(dbReference.getId().id, dbReference.getTypeName(), null);
+        List<String> batch = new ArrayList<>(batchSize);
+        int skipped = 0;
+
+        for (String tableName : hiveTables) {
+            String tableQualifiedName =
+                    HiveMetaStoreBridge.getTableQualifiedName(bridge.getClusterName(), databaseName, tableName);
+
+            if (checkpoint.isImported(tableQualifiedName)) {
+                skipped++;
+                continue;
+            }
+
+            batch.add(tableName);
+
+            if (batch.size() == batchSize) {
+                executor.execute(new ImportBatch(checkpoint, dbId, databaseName, batch, failOnError));
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            executor.execute(new ImportBatch(checkpoint, dbId, databaseName, batch, failOnError));
+        }
+
+        LOG.info("Submitted {} tables of db {} for import; {} tables were imported earlier", hiveTables.size() - skipped,
+                databaseName, skipped);
+    }
+
+    private List<Referenceable> createTableEntities(Referenceable dbId, Table table) throws Exception {
+        List<Referenceable> ret = new ArrayList<>(2);
+        Referenceable tableReference = bridge.createTableInstance(dbId, table);
+
+        ret.add(tableReference);
+
+        if (table.getTableType() == TableType.EXTERNAL_TABLE) {
+            ret.add(bridge.createTableProcessInstance(table, tableReference.getId()));
+        }
+
+        return ret;
+    }
+
+    private void register(List<Referenceable> entities) throws Exception {
+        inFlightRequests.acquire();
+
+        try {
+            bridge.getAtlasClient().updateEntities(entities);
+        } finally {
+            inFlightRequests.release();
+        }
+    }
+
+    private void onImported(ImportCheckpoint checkpoint, List<String> tableQualifiedNames) {
+        importedTables.addAndGet(tableQualifiedNames.size());
+
+        try {
+            checkpoint.markImported(tableQualifiedNames);
+        } catch (IOException e) {
+            LOG.error("Failed to record imported tables {} in checkpoint {}", tableQualifiedNames, checkpointFile, e);
+        }
+
+        logProgress(false);
+    }
+
+    private void onFailure(String databaseName, String tableName, Exception e, boolean failOnError) {
+        LOG.error("Import failed for hive_table {}.{} ", databaseName, tableName, e);
+
+        failedTables.incrementAndGet();
+
+        if (failOnError) {
+            firstError.compareAndSet(null, e);
+        }
+    }
+
+    private void logProgress(boolean force) {
+        long now = System.currentTimeMillis();
+        long lastLogTime = lastProgressLogTime.get();
+
+        if (force || (now - lastLogTime >= PROGRESS_LOG_INTERVAL_MS && lastProgressLogTime.compareAndSet(lastLogTime, now))) {
+            int imported = importedTables.get();
+            double elapsedSecs = Math.max(now - startTime, 1) / 1000.0;
+
+            LOG.info(String.format("Imported %d tables, %d failed, in %.0f seconds (%.1f tables/sec)", imported,
+                    failedTables.get(), elapsedSecs, imported / elapsedSecs));
+        }
+    }
+
+    private class ImportBatch implements Runnable {
+        private final ImportCheckpoint checkpoint;
+        private final Referenceable dbId;
+        private final String databaseName;
+        private final List<String> tableNames;
+        private final boolean failOnError;
+
+        ImportBatch(ImportCheckpoint checkpoint, Referenceable dbId, String databaseName, List<String> tableNames,
+                    boolean failOnError) {
+            this.checkpoint = checkpoint;
+            this.dbId = dbId;
+            this.databaseName = databaseName;
+            this.tableNames = tableNames;
+            this.failOnError = failOnError;
+        }
+
+        @Override
+        public void run() {
+            if (firstError.get() != null) {
+                return;
+            }
+
+            List<String> readTableNames = new ArrayList<>(tableNames.size());
+            List<String> qualifiedNames = new ArrayList<>(tableNames.size());
+            List<List<Referenceable>> tableEntities = new ArrayList<>(tableNames.size());
+            List<Referenceable> entities = new ArrayList<>();
+
+            for (String tableName : tableNames) {
+                try {
+                    Table table = bridge.getHiveClient().getTable(databaseName, tableName);
+                    List<Referenceable> tableEntity = createTableEntities(dbId, table);
+
+                    readTableNames.add(tableName);
+                    qualifiedNames.add(HiveMetaStoreBridge.getTableQualifiedName(bridge.getClusterName(), table));
+                    tableEntities.add(tableEntity);
+                    entities.addAll(tableEntity);
+                } catch (Exception e) {
+                    onFailure(databaseName, tableName, e, failOnError);
+                }
+            }
+
+            if (entities.isEmpty()) {
+                return;
+            }
+
+            try {
+                register(entities);
+                onImported(checkpoint, qualifiedNames);
+
+                return;
+            } catch (Exception e) {
+                LOG.warn("Import failed for a batch of {} tables of db {}; importing them one at a time",
+                        tableEntities.size(), databaseName, e);
+            }
+
+            for (int i = 0; i < tableEntities.size(); i++) {
+                if (firstError.get() != null) {
+                    return;
+                }
+
+                try {
+                    register(tableEntities.get(i));
+                    onImported(checkpoint, Collections.singletonList(qualifiedNames.get(i)));
+                } catch (Exception e) {
+                    onFailure(databaseName, readTableNames.get(i), e, failOnError);
+                }
+            }
+        }
+    }
+}
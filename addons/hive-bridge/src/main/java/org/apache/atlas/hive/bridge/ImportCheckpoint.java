@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Local file of the qualified names of the tables imported so far, one per line, so that an interrupted import
+ * resumes with the tables not imported yet.
+ */
+class ImportCheckpoint implements Closeable {
+    private final File file;
+    private final Set<String> imported = new HashSet<>();
+    private final BufferedWriter writer;
+
+    ImportCheckpoint(File file) throws IOException {
+        this.file = file;
+
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    imported.add(line);
+                }
+            }
+        }
+
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    int size() {
+        return imported.size();
+    }
+
+    synchronized boolean isImported(String tableQualifiedName) {
+        return imported.contains(tableQualifiedName);
+    }
+
+    /**
+     * Records the tables as imported; the file is flushed before returning.
+     */
+    synchronized void markImported(Collection<String> tableQualifiedNames) throws IOException {
+        for (String tableQualifiedName : tableQualifiedNames) {
+            if (imported.add(tableQualifiedName)) {
+                writer.write(tableQualifiedName);
+                writer.newLine();
+            }
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Removes the checkpoint, once all tables are imported, so that the next import starts over.
+     */
+    synchronized void delete() throws IOException {
+        writer.close();
+
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
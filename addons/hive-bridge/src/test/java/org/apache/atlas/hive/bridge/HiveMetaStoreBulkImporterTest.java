@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasServiceException;
+import org.apache.atlas.hive.model.HiveDataTypes;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.ql.metadata.Hive;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.metadata.Table;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HiveMetaStoreBulkImporterTest {
+
+    private static final String TEST_DB_NAME = "default";
+    private static final String CLUSTER_NAME = "primary";
+
+    @Mock
+    private Hive hiveClient;
+
+    @Mock
+    private AtlasClient atlasClient;
+
+    private File checkpointFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        checkpointFile = File.createTempFile("hive-import", ".checkpoint");
+        checkpointFile.delete();
+
+        when(hiveClient.getAllDatabases()).thenReturn(Arrays.asList(TEST_DB_NAME));
+        when(hiveClient.getDatabase(TEST_DB_NAME)).thenReturn(
+                new Database(TEST_DB_NAME, "Default database", "/user/hive/default", null));
+        when(atlasClient.getEntity(HiveDataTypes.HIVE_DB.getName(), AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME,
+                HiveMetaStoreBridge.getDBQualifiedName(CLUSTER_NAME, TEST_DB_NAME))).thenReturn(
+                new Referenceable("72e06b34-9151-4023-aa9d-b82103a50e76", HiveDataTypes.HIVE_DB.getName(), null));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        checkpointFile.delete();
+    }
+
+    @Test
+    public void testImportRegistersTablesInBatches() throws Exception {
+        setupTables("t1", "t2", "t3");
+
+        HiveMetaStoreBulkImporter importer = createImporter(2);
+        importer.importHiveMetadata(true);
+
+        // 2 batches, each registering the tables with their create table processes
+        verify(atlasClient, times(1)).updateEntities((Collection<Referenceable>) argThat(new HasEntities(4)));
+        verify(atlasClient, times(1)).updateEntities((Collection<Referenceable>) argThat(new HasEntities(2)));
+        verify(atlasClient, never()).getEntity(HiveDataTypes.HIVE_TABLE.getName(),
+                AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, HiveMetaStoreBridge.getTableQualifiedName(CLUSTER_NAME, TEST_DB_NAME, "t1"));
+
+        Assert.assertEquals(importer.getImportedTableCount(), 3);
+        Assert.assertFalse(checkpointFile.exists(), "checkpoint should be removed once all tables are imported");
+    }
+
+    @Test
+    public void testImportResumesFromCheckpoint() throws Exception {
+        setupTables("t1", "t2");
+
+        Files.write(checkpointFile.toPath(),
+                Collections.singletonList(HiveMetaStoreBridge.getTableQualifiedName(CLUSTER_NAME, TEST_DB_NAME, "t1")),
+                StandardCharsets.UTF_8);
+
+        HiveMetaStoreBulkImporter importer = createImporter(10);
+        importer.importHiveMetadata(true);
+
+        verify(hiveClient, never()).getTable(TEST_DB_NAME, "t1");
+        verify(hiveClient).getTable(TEST_DB_NAME, "t2");
+        Assert.assertEquals(importer.getImportedTableCount(), 1);
+    }
+
+    @Test
+    public void testImportRetriesFailedBatchOneTableAtATime() throws Exception {
+        setupTables("t1", "t2");
+
+        // the batch of both tables fails, each table on its own succeeds
+        when(atlasClient.updateEntities((Collection<Referenceable>) argThat(new HasEntities(4))))
+                .thenThrow(new AtlasServiceException(AtlasClient.API.UPDATE_ENTITY, new RuntimeException("timeout")));
+
+        HiveMetaStoreBulkImporter importer = createImporter(2);
+        importer.importHiveMetadata(false);
+
+        verify(atlasClient, times(2)).updateEntities((Collection<Referenceable>) argThat(new HasEntities(2)));
+        Assert.assertEquals(importer.getImportedTableCount(), 2);
+        Assert.assertEquals(importer.getFailedTableCount(), 0);
+    }
+
+    @Test
+    public void testImportKeepsCheckpointWhenTablesFail() throws Exception {
+        setupTables("t1", "t2");
+        when(hiveClient.getTable(TEST_DB_NAME, "t1")).thenThrow(new RuntimeException("Timeout while reading data from hive metastore"));
+
+        HiveMetaStoreBulkImporter importer = createImporter(1);
+        importer.importHiveMetadata(false);
+
+        Assert.assertEquals(importer.getImportedTableCount(), 1);
+        Assert.assertEquals(importer.getFailedTableCount(), 1);
+        Assert.assertEquals(Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8),
+                Collections.singletonList(HiveMetaStoreBridge.getTableQualifiedName(CLUSTER_NAME, TEST_DB_NAME, "t2")));
+    }
+
+    @Test
+    public void testImportFailsWhenTableRegistrationFails() throws Exception {
+        setupTables("t1", "t2");
+        when(hiveClient.getTable(TEST_DB_NAME, "t1")).thenThrow(new RuntimeException("Timeout while reading data from hive metastore"));
+
+        try {
+            createImporter(1).importHiveMetadata(true);
+            Assert.fail("Table registration is supposed to fail");
+        } catch (Exception e) {
+            //Expected
+        }
+    }
+
+    private HiveMetaStoreBulkImporter createImporter(int batchSize) {
+        HiveMetaStoreBridge bridge = new HiveMetaStoreBridge(CLUSTER_NAME, hiveClient, atlasClient);
+
+        return new HiveMetaStoreBulkImporter(bridge, 2, batchSize, 1, checkpointFile);
+    }
+
+    private void setupTables(String... tableNames) throws HiveException {
+        when(hiveClient.getAllTables(TEST_DB_NAME)).thenReturn(Arrays.asList(tableNames));
+
+        for (String tableName : tableNames) {
+            when(hiveClient.getTable(TEST_DB_NAME, tableName)).thenReturn(createTestTable(TEST_DB_NAME, tableName));
+        }
+    }
+
+    private Table createTestTable(String databaseName, String tableName) throws HiveException {
+        Table table = new Table(databaseName, tableName);
+        table.setInputFormatClass(TextInputFormat.class);
+        table.setFields(new ArrayList<FieldSchema>() {{
+            add(new FieldSchema("col1", "string", "comment1"));
+        }
+        });
+        table.setTableType(TableType.EXTERNAL_TABLE);
+        table.setDataLocation(new Path("somehdfspath"));
+        return table;
+    }
+
+    private class HasEntities extends ArgumentMatcher<Object> {
+        private final int count;
+
+        public HasEntities(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean matches(Object o) {
+            return o instanceof List && ((List) o).size() == count;
+        }
+    }
+}
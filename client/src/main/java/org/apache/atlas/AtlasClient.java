@@ -91,6 +91,7 @@ public class AtlasClient extends AtlasBaseClient {
     public static final String QUERY = "query";
     public static final String LIMIT = "limit";
     public static final String OFFSET = "offset";
+    public static final String CURSOR = "cursor";
     public static final String QUERY_TYPE = "queryType";
     public static final String ATTRIBUTE_NAME = "property";
     public static final String ATTRIBUTE_VALUE = "value";
@@ -899,6 +900,27 @@ public class AtlasClient extends AtlasBaseClient {
         });
     }
 
+    /**
+     * Search given full text search, reading the page of results that follows the given cursor
+     * @param query Query
+     * @param limit number of rows to be returned in the result, used for pagination. maxlimit > limit > 0. -1 maps to atlas.search.defaultlimit property value
+     * @param cursor cursor returned with the previous page of results for the same query
+     * @return result json object, with the cursor for the next page if there may be more results
+     * @throws AtlasServiceException
+     */
+    public JSONObject searchByFullText(final String query, final int limit, final String cursor) throws AtlasServiceException {
+        return callAPIWithRetries(API.SEARCH_FULL_TEXT, null, new ResourceCreator() {
+            @Override
+            public WebResource createResource() {
+                WebResource resource = getResource(API.SEARCH_FULL_TEXT);
+                resource = resource.queryParam(QUERY, query);
+                resource = resource.queryParam(LIMIT, String.valueOf(limit));
+                resource = resource.queryParam(CURSOR, cursor);
+                return resource;
+            }
+        });
+    }
+
     public JSONObject getInputGraph(String datasetName) throws AtlasServiceException {
         JSONObject response = callAPI(API.NAME_LINEAGE_INPUTS_GRAPH, null, datasetName, "/inputs/graph");
         try {
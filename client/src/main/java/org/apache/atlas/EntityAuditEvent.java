@@ -66,7 +66,7 @@ public class EntityAuditEvent {
                     (timestamp == otherEvent.timestamp) &&
                     StringUtils.equals(user, otherEvent.user) &&
                     (action == otherEvent.action) &&
-                    StringUtils.equals(details, otherEvent.details) &&
+                    StringUtils.equals(getDetails(), otherEvent.getDetails()) &&
                     StringUtils.equals(eventKey, otherEvent.eventKey) &&
                     StringUtils.equals(getEntityDefinitionString(), otherEvent.getEntityDefinitionString());
     }
@@ -33,7 +33,35 @@ public enum AtlasConfiguration {
 
     //search configuration
     SEARCH_MAX_LIMIT("atlas.search.maxlimit", 10000),
-    SEARCH_DEFAULT_LIMIT("atlas.search.defaultlimit", 100);
+    SEARCH_DEFAULT_LIMIT("atlas.search.defaultlimit", 100),
+    DSL_QUERY_PLAN_CACHE_SIZE("atlas.search.dsl.plan.cache.size", 500),
+
+    //full text configuration
+    FULLTEXT_DEFERRED_ENABLED("atlas.fulltext.deferred.enabled", false),
+    FULLTEXT_DEFERRED_INTERVAL_MS("atlas.fulltext.deferred.interval.ms", 1000),
+    FULLTEXT_DEFERRED_MAX_ATTEMPTS("atlas.fulltext.deferred.max.attempts", 5),
+    FULLTEXT_DEFERRED_RETRY_DELAY_MS("atlas.fulltext.deferred.retry.delay.ms", 1000),
+
+    //entity retrieval configuration
+    ENTITY_MULTIGET_THREADS("atlas.entity.multiget.threads", 4),
+    UNIQUE_ATTRIBUTE_CACHE_ENABLED("atlas.graph.unique.attribute.cache.enabled", true),
+    UNIQUE_ATTRIBUTE_CACHE_SIZE("atlas.graph.unique.attribute.cache.size", 10000),
+
+    //index backfill configuration
+    GRAPH_REINDEX_THREADS("atlas.graph.reindex.threads", 4),
+    GRAPH_REINDEX_CHUNK_SIZE("atlas.graph.reindex.chunk.size", 1000),
+
+    //lineage configuration
+    LINEAGE_MAX_NODES("atlas.lineage.max.nodes", 0),
+
+    //gremlin script execution configuration
+    GREMLIN_SCRIPT_CACHE_SIZE("atlas.gremlin.script.cache.size", 1000),
+    GREMLIN_ENGINE_POOL_SIZE("atlas.gremlin.engine.pool.size", 16),
+    GREMLIN_ENGINE_RECYCLE_THRESHOLD("atlas.gremlin.engine.recycle.threshold", 5000),
+
+    //entity audit configuration
+    ENTITY_AUDIT_DELTA_ENABLED("atlas.audit.delta.enabled", false),
+    ENTITY_AUDIT_SNAPSHOT_INTERVAL("atlas.audit.delta.snapshot.interval", 10);
 
     private static final Configuration APPLICATION_PROPERTIES;
 
@@ -61,6 +89,10 @@ public enum AtlasConfiguration {
         return APPLICATION_PROPERTIES.getLong(propertyName, Long.valueOf(defaultValue.toString()).longValue());
     }
 
+    public boolean getBoolean() {
+        return APPLICATION_PROPERTIES.getBoolean(propertyName, Boolean.valueOf(defaultValue.toString()).booleanValue());
+    }
+
     public String getString() {
         return APPLICATION_PROPERTIES.getString(propertyName, defaultValue.toString());
     }
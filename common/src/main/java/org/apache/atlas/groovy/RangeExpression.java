@@ -24,10 +24,14 @@ package org.apache.atlas.groovy;
 public class RangeExpression extends AbstractGroovyExpression {
 
     private GroovyExpression parent;
-    private int offset;
-    private int count;
+    private GroovyExpression offset;
+    private GroovyExpression count;
 
     public RangeExpression(GroovyExpression parent, int offset, int count) {
+        this(parent, new LiteralExpression(offset), new LiteralExpression(count));
+    }
+
+    public RangeExpression(GroovyExpression parent, GroovyExpression offset, GroovyExpression count) {
         this.parent = parent;
         this.offset = offset;
         this.count = count;
@@ -37,9 +41,9 @@ public class RangeExpression extends AbstractGroovyExpression {
     public void generateGroovy(GroovyGenerationContext context) {
         parent.generateGroovy(context);
         context.append(" [");
-        new LiteralExpression(offset).generateGroovy(context);
+        offset.generateGroovy(context);
         context.append("..<");
-        new LiteralExpression(count).generateGroovy(context);
+        count.generateGroovy(context);
         context.append("]");
     }
 }
@@ -47,6 +47,11 @@ public final class Constants {
     //weird issue in TitanDB if __ added to this property key. Not adding it for now
     public static final String ENTITY_TEXT_PROPERTY_KEY = "entityText";
 
+    /**
+     * Set on entities whose full-text is still to be computed by the deferred full-text indexer.
+     */
+    public static final String ENTITY_TEXT_PENDING_PROPERTY_KEY = INTERNAL_PROPERTY_KEY_PREFIX + "entityTextPending";
+
     /**
      * Properties for type store graph.
      */
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values, like latencies in nanoseconds.
+ *
+ * Values are counted in log-linear buckets: each power of two is split in 32 buckets of equal width, so a percentile
+ * is reported within about 3% of the recorded values, in a fixed amount of memory whatever their range. Recording a
+ * value only updates a few atomic counters; readers see the counts recorded so far, without stopping the writers.
+ */
+public final class AtlasHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT    = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong      count   = new AtomicLong();
+    private final AtomicLong      sum     = new AtomicLong();
+    private final AtomicLong      max     = new AtomicLong();
+
+    /**
+     * @param value value to record; negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax = max.get();
+
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+
+        return n > 0 ? (double) sum.get() / n : 0;
+    }
+
+    /**
+     * @param percentiles percentiles to compute, between 0 and 100
+     * @return for each percentile, the upper bound of the bucket it falls in, capped by the maximum recorded value;
+     * 0 if no value was recorded
+     */
+    public long[] getPercentiles(double... percentiles) {
+        long[] counts = new long[BUCKET_COUNT];
+        long   total  = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total    += counts[i];
+        }
+
+        long[] ret = new long[percentiles.length];
+
+        if (total == 0) {
+            return ret;
+        }
+
+        long maxValue = max.get();
+
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * total));
+            long seen = 0;
+
+            ret[p] = maxValue;
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    ret[p] = Math.min(bucketUpperBound(i), maxValue);
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int  shift = index / SUB_BUCKETS - 1;
+        long next  = (long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift;
+
+        // the last bucket ends at Long.MAX_VALUE, where next overflows
+        return next > 0 ? next - 1 : Long.MAX_VALUE;
+    }
+}
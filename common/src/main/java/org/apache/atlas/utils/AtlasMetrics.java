@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process registry of metrics, by name: latency histograms, counters and gauges.
+ *
+ * The operations timed with AtlasPerfTracer are recorded in a histogram named after the operation, whether or not
+ * perf logging is enabled. Histograms record nanoseconds and are reported in milliseconds.
+ */
+public final class AtlasMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(AtlasMetrics.class);
+
+    public static final String HISTOGRAMS = "histograms";
+    public static final String COUNTERS   = "counters";
+    public static final String GAUGES     = "gauges";
+
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private static final ConcurrentMap<String, AtlasHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicLong>     counters   = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge>          gauges     = new ConcurrentHashMap<>();
+
+    /**
+     * Value read when the metrics are reported, like the size of a queue or the hit rate of a cache.
+     */
+    public interface Gauge {
+        Object getValue();
+    }
+
+    private AtlasMetrics() {
+    }
+
+    public static AtlasHistogram histogram(String name) {
+        AtlasHistogram ret = histograms.get(name);
+
+        if (ret == null) {
+            AtlasHistogram histogram = new AtlasHistogram();
+
+            ret = histograms.putIfAbsent(name, histogram);
+
+            if (ret == null) {
+                ret = histogram;
+            }
+        }
+
+        return ret;
+    }
+
+    public static AtomicLong counter(String name) {
+        AtomicLong ret = counters.get(name);
+
+        if (ret == null) {
+            AtomicLong counter = new AtomicLong();
+
+            ret = counters.putIfAbsent(name, counter);
+
+            if (ret == null) {
+                ret = counter;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Registers a gauge, replacing the gauge registered earlier with the same name.
+     */
+    public static void registerGauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * @return current values of the metrics, by kind and then by name: the count, mean, 50th, 90th and 99th
+     * percentiles and maximum (in milliseconds) of each histogram, the value of each counter and of each gauge
+     */
+    public static Map<String, Map<String, Object>> snapshot() {
+        Map<String, Object> histogramValues = new TreeMap<>();
+        Map<String, Object> counterValues   = new TreeMap<>();
+        Map<String, Object> gaugeValues     = new TreeMap<>();
+
+        for (Map.Entry<String, AtlasHistogram> entry : histograms.entrySet()) {
+            AtlasHistogram      histogram   = entry.getValue();
+            long[]              percentiles = histogram.getPercentiles(PERCENTILES);
+            Map<String, Object> values      = new LinkedHashMap<>();
+
+            values.put("count", histogram.getCount());
+            values.put("meanMs", toMillis(histogram.getMean()));
+            values.put("p50Ms", toMillis(percentiles[0]));
+            values.put("p90Ms", toMillis(percentiles[1]));
+            values.put("p99Ms", toMillis(percentiles[2]));
+            values.put("maxMs", toMillis(histogram.getMax()));
+
+            histogramValues.put(entry.getKey(), values);
+        }
+
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().get());
+        }
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            try {
+                gaugeValues.put(entry.getKey(), entry.getValue().getValue());
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to read gauge {}", entry.getKey(), e);
+            }
+        }
+
+        Map<String, Map<String, Object>> ret = new LinkedHashMap<>();
+
+        ret.put(HISTOGRAMS, histogramValues);
+        ret.put(COUNTERS, counterValues);
+        ret.put(GAUGES, gaugeValues);
+
+        return ret;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
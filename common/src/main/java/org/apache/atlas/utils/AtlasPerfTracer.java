@@ -20,14 +20,19 @@ package org.apache.atlas.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 
 /**
- * Handles logging of performance measurements.
+ * Handles performance measurements: the elapsed time of each operation is recorded in the AtlasMetrics histogram
+ * of the operation and, when the perf logger is enabled, logged as PERF|tag|ms.
  */
 public final class AtlasPerfTracer {
-    protected final Logger logger;
-    protected final String tag;
-    private   final long   startTimeMs;
+    protected final Logger   logger;
+    protected final String   name;
+    private   final Object[] args;
+    private   final long     startTimeNanos;
 
     private static long reportingThresholdMs = 0L;
 
@@ -43,8 +48,16 @@ public final class AtlasPerfTracer {
         return logger.isDebugEnabled();
     }
 
-    public static AtlasPerfTracer getPerfTracer(Logger logger, String tag) {
-        return new AtlasPerfTracer(logger, tag);
+    /**
+     * Starts timing an operation. The arguments are only formatted, into the tag name(arg1, arg2, ...), when the
+     * measurement is logged; a name that already includes its arguments, like Class.method(arg), is recorded in
+     * the histogram of Class.method.
+     *
+     * @param name name of the operation, like Class.method
+     * @param args arguments of the operation, to be logged with the measurement
+     */
+    public static AtlasPerfTracer getPerfTracer(Logger logger, String name, Object... args) {
+        return new AtlasPerfTracer(logger, name, args);
     }
 
     public static void log(AtlasPerfTracer tracer) {
@@ -53,28 +66,64 @@ public final class AtlasPerfTracer {
         }
     }
 
-    private AtlasPerfTracer(Logger logger, String tag) {
-        this.logger = logger;
-        this.tag    = tag;
-        startTimeMs = System.currentTimeMillis();
+    /**
+     * Logs counters of an operation, like cache hits and misses, as PERF|tag|name=count, ...
+     */
+    public static void logCounts(Logger logger, String tag, Map<String, ? extends Number> counts) {
+        if (isPerfTraceEnabled(logger)) {
+            logger.debug("PERF|" + tag + "|" + counts);
+        }
     }
 
-    public String getTag() {
-        return tag;
+    private AtlasPerfTracer(Logger logger, String name, Object[] args) {
+        this.logger    = logger;
+        this.name      = name;
+        this.args      = args;
+        startTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * @return name of the operation, without its arguments
+     */
+    public String getName() {
+        int idx = name.indexOf('(');
+
+        return idx < 0 ? name : name.substring(0, idx);
     }
 
-    public long getStartTime() {
-        return startTimeMs;
+    public String getTag() {
+        if (name.indexOf('(') >= 0) {
+            return name;
+        }
+
+        StringBuilder sb = new StringBuilder(name).append('(');
+
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+
+            sb.append(args[i]);
+        }
+
+        return sb.append(')').toString();
     }
 
     public long getElapsedTime() {
-        return System.currentTimeMillis() - startTimeMs;
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
     }
 
     public void log() {
-        long elapsedTime = getElapsedTime();
-        if (elapsedTime > reportingThresholdMs) {
-            logger.debug("PERF|" + tag + "|" + elapsedTime);
+        long elapsedNanos = System.nanoTime() - startTimeNanos;
+
+        AtlasMetrics.histogram(getName()).record(elapsedNanos);
+
+        if (isPerfTraceEnabled(logger)) {
+            long elapsedTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+            if (elapsedTime > reportingThresholdMs) {
+                logger.debug("PERF|" + getTag() + "|" + elapsedTime);
+            }
         }
     }
 }
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AtlasHistogramTest {
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        assertEquals(AtlasHistogram.bucketIndex(0), 0);
+        assertEquals(AtlasHistogram.bucketIndex(31), 31);
+        assertEquals(AtlasHistogram.bucketIndex(32), 32);
+        assertEquals(AtlasHistogram.bucketUpperBound(AtlasHistogram.bucketIndex(Long.MAX_VALUE)), Long.MAX_VALUE);
+
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            int index = AtlasHistogram.bucketIndex(value);
+
+            assertTrue(value <= AtlasHistogram.bucketUpperBound(index));
+            assertTrue(index == 0 || value > AtlasHistogram.bucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        AtlasHistogram histogram = new AtlasHistogram();
+
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        long[] percentiles = histogram.getPercentiles(50, 90, 99, 100);
+
+        assertEquals(histogram.getCount(), 10000);
+        assertEquals(histogram.getMax(), 10000000);
+        assertEquals(histogram.getMean(), 5000500d, 0.1);
+        assertWithin(percentiles[0], 5000000);
+        assertWithin(percentiles[1], 9000000);
+        assertWithin(percentiles[2], 9900000);
+        assertEquals(percentiles[3], 10000000);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        AtlasHistogram histogram = new AtlasHistogram();
+
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getMean(), 0d);
+        assertEquals(histogram.getPercentiles(50, 99), new long[] { 0, 0 });
+    }
+
+    @Test
+    public void testPerfTracerRecordsHistogramOfOperation() {
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(LoggerFactory.getLogger(AtlasHistogramTest.class),
+                                                             "AtlasHistogramTest.operation", "arg1", 2);
+
+        assertEquals(perf.getName(), "AtlasHistogramTest.operation");
+        assertEquals(perf.getTag(), "AtlasHistogramTest.operation(arg1, 2)");
+
+        long count = AtlasMetrics.histogram("AtlasHistogramTest.operation").getCount();
+
+        AtlasPerfTracer.log(perf);
+
+        assertEquals(AtlasMetrics.histogram("AtlasHistogramTest.operation").getCount(), count + 1);
+
+        Map<String, Object> histograms = AtlasMetrics.snapshot().get(AtlasMetrics.HISTOGRAMS);
+
+        assertTrue(histograms.containsKey("AtlasHistogramTest.operation"));
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + ", got " + actual);
+    }
+}
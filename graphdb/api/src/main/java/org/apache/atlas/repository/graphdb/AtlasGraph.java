@@ -19,6 +19,7 @@ package org.apache.atlas.repository.graphdb;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
 import java.util.Set;
 
 import javax.script.ScriptException;
@@ -264,6 +265,21 @@ public interface AtlasGraph<V, E> {
      */
     Object executeGremlinScript(String query, boolean isPath) throws ScriptException;
 
+    /**
+     * Executes a Gremlin script with the given variable bindings, returns an object with the result.
+     * Literal values should be passed as bindings rather than spliced into the script text, so
+     * that implementations can reuse the compiled form of the script across calls.
+     *
+     * @param query the Gremlin script
+     * @param bindings values of the variables referenced by the script
+     * @param isPath whether this is a path query
+     *
+     * @return the result from executing the script
+     *
+     * @throws ScriptException
+     */
+    Object executeGremlinScript(String query, Map<String, Object> bindings, boolean isPath) throws ScriptException;
+
     /**
      * Convenience method to check whether the given property is
      * a multi-property.
@@ -56,6 +56,22 @@ public interface AtlasGraphIndex {
 
     boolean isUnique();
 
+    /**
+     * Indicates if queries use the index for all of its keys. Keys added to an index
+     * after values existed for them are enabled only once these values are reindexed.
+     *
+     * @return
+     */
+    boolean isEnabled();
+
+    /**
+     * Indicates if values written for all the keys of the index are added to the index,
+     * i.e. the index is registered or enabled for all of its keys.
+     *
+     * @return
+     */
+    boolean isRegistered();
+
     Set<AtlasPropertyKey> getFieldKeys();
 
 }
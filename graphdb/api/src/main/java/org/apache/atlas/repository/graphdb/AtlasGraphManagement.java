@@ -110,4 +110,19 @@ public interface AtlasGraphManagement {
      */
     void createEdgeIndex(String index, String backingIndex);
 
+    /**
+     * Registers the keys of the index that are not registered yet, so that values
+     * written for them from now on are added to the index.
+     *
+     * @param indexName the name of the index
+     */
+    void registerIndex(String indexName);
+
+    /**
+     * Enables the registered keys of the index, so that queries use the index for them.
+     *
+     * @param indexName the name of the index
+     */
+    void enableIndex(String indexName);
+
 }
@@ -35,6 +35,37 @@ public interface AtlasIndexQuery<V, E> {
      */
     Iterator<Result<V, E>> vertices();
 
+    /**
+     * Gets a page of the query results. Offset and limit are passed to the index
+     * backend with the query; the backend may still read the results before the
+     * offset (Titan 0.5.4 with Solr reads the first offset + limit results), so
+     * the cost of a page grows with its offset. Use vertices(String, int) to read
+     * deep pages.
+     *
+     * @param offset number of results to skip
+     * @param limit maximum number of results to return
+     * @return
+     */
+    Iterator<Result<V, E>> vertices(int offset, int limit);
+
+    /**
+     * Gets the page of the query results that follows the given cursor. The index
+     * backend reads the page from the position of the cursor, so the cost of a page
+     * does not grow with the number of pages read before it.
+     *
+     * The page must be read in a single thread: the backend may hand the next cursor
+     * over in a thread local (Titan 0.5.4 with Solr does), so the index is queried
+     * by the calling thread, and this method must not run concurrently with another
+     * cursor query of the same thread, as from a nested call.
+     *
+     * @param cursor next cursor of the previous page; null for the first page
+     * @param limit maximum number of results to return
+     * @return
+     * @throws UnsupportedOperationException if a cursor is given and the index backend
+     *         does not support cursors
+     */
+    Page<V, E> vertices(String cursor, int limit);
+
     /**
      * Query result from an index query.
      *
@@ -56,4 +87,25 @@ public interface AtlasIndexQuery<V, E> {
 
     }
 
+    /**
+     * Page of results from an index query.
+     *
+     * @param <V>
+     * @param <E>
+     */
+    public interface Page<V, E> {
+
+        /**
+         * Gets the results of this page.
+         */
+        Iterator<Result<V, E>> getResults();
+
+        /**
+         * Gets the cursor of the next page; null if the index backend does not
+         * support cursors.
+         */
+        String getNextCursor();
+
+    }
+
 }
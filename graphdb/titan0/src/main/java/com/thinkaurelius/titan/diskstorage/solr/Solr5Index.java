@@ -24,6 +24,7 @@ import com.thinkaurelius.titan.core.attribute.Geo;
 import com.thinkaurelius.titan.core.attribute.Geoshape;
 import com.thinkaurelius.titan.core.attribute.Text;
 import com.thinkaurelius.titan.core.schema.Mapping;
+import com.thinkaurelius.titan.core.schema.Parameter;
 import com.thinkaurelius.titan.diskstorage.BackendException;
 import com.thinkaurelius.titan.diskstorage.BaseTransaction;
 import com.thinkaurelius.titan.diskstorage.BaseTransactionConfig;
@@ -73,16 +74,19 @@ import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -105,6 +109,18 @@ public class Solr5Index implements IndexProvider {
 
     private static final String DEFAULT_ID_FIELD = "id";
 
+    /**
+     * Parameter of a raw query with the Solr cursorMark to read the results from, instead of an offset.
+     * The results are sorted by score and key field, which must be the unique key of the collection.
+     * The cursorMark of the next page is available from {@link #takeNextCursorMark(String)}, in the
+     * thread that ran the query.
+     */
+    public static final String CURSOR_MARK_PARAMETER = "cursorMark";
+    public static final String CURSOR_MARK_START     = CursorMarkParams.CURSOR_MARK_START;
+
+    // cursorMark of the last raw query of the thread, and the cursorMark of its next page
+    private static final ThreadLocal<String[]> NEXT_CURSOR_MARK = new ThreadLocal<String[]>();
+
     private enum Mode {
         HTTP, CLOUD;
 
@@ -181,7 +197,23 @@ public class Solr5Index implements IndexProvider {
             "When mutating - wait for the index to reflect new mutations before returning. This can have a negative impact on performance.",
             ConfigOption.Type.LOCAL, false);
 
+    public static final ConfigOption<Boolean> WRITE_BEHIND = new ConfigOption<Boolean>(SOLR_NS, "write-behind",
+            "When mutating - queue the mutations and send them to Solr in batches from a background thread, instead of in the transaction commit. " +
+            "Searches don't reflect the mutations until they are sent.",
+            ConfigOption.Type.LOCAL, false);
+
+    public static final ConfigOption<Integer> WRITE_BEHIND_BATCH_SIZE = new ConfigOption<Integer>(SOLR_NS, "write-behind-batch-size",
+            "Maximum number of documents per collection sent in one update request by the write-behind queue. The queue is flushed when this many documents are pending.",
+            ConfigOption.Type.LOCAL, 1000);
+
+    public static final ConfigOption<Integer> WRITE_BEHIND_FLUSH_INTERVAL = new ConfigOption<Integer>(SOLR_NS, "write-behind-flush-interval",
+            "Interval, in milliseconds, at which the write-behind queue is flushed.",
+            ConfigOption.Type.LOCAL, 1000);
 
+    public static final ConfigOption<String> WRITE_BEHIND_QUEUE_DIR = new ConfigOption<String>(SOLR_NS, "write-behind-queue-dir",
+            "Local directory of the journal of the write-behind queue. Mutations not yet sent to Solr are sent from it after a failure or a restart. " +
+            "Defaults to solr-write-behind under the Atlas data directory.",
+            ConfigOption.Type.LOCAL, String.class);
 
     private static final IndexFeatures SOLR_FEATURES = new IndexFeatures.Builder().supportsDocumentTTL()
             .setDefaultStringMapping(TEXT).supportedStringMappings(TEXT, STRING).build();
@@ -194,6 +226,7 @@ public class Solr5Index implements IndexProvider {
     private final String ttlField;
     private final int maxResults;
     private final boolean waitSearcher;
+    private final SolrWriteBehindQueue writeBehindQueue;
 
     public Solr5Index(final Configuration config) throws BackendException {
         Preconditions.checkArgument(config!=null);
@@ -227,6 +260,17 @@ public class Solr5Index implements IndexProvider {
         } else {
             throw new IllegalArgumentException("Unsupported Solr operation mode: " + mode);
         }
+
+        if (config.get(WRITE_BEHIND)) {
+            try {
+                writeBehindQueue = new SolrWriteBehindQueue(solrClient, config.get(WRITE_BEHIND_BATCH_SIZE),
+                        config.get(WRITE_BEHIND_FLUSH_INTERVAL), getWriteBehindQueueDir(config));
+            } catch (IOException e) {
+                throw new PermanentBackendException("Unable to create the Solr write-behind queue", e);
+            }
+        } else {
+            writeBehindQueue = null;
+        }
     }
 
     private Map<String, String> parseKeyFieldsForCollections(Configuration config) throws BackendException {
@@ -283,6 +327,10 @@ public class Solr5Index implements IndexProvider {
     @Override
     public void mutate(Map<String, Map<String, IndexMutation>> mutations, KeyInformation.IndexRetriever informations, BaseTransaction tx) throws BackendException {
         logger.debug("Mutating SOLR");
+        if (writeBehindQueue != null) {
+            queueMutations(mutations);
+            return;
+        }
         try {
             for (Map.Entry<String, Map<String, IndexMutation>> stores : mutations.entrySet()) {
                 String collectionName = stores.getKey();
@@ -346,6 +394,73 @@ public class Solr5Index implements IndexProvider {
         }
     }
 
+    /**
+     * Adds the mutations to the write-behind queue, as full documents, atomic updates and deletes. Field deletions
+     * are atomic updates that set the fields to null.
+     */
+    private void queueMutations(Map<String, Map<String, IndexMutation>> mutations) throws BackendException {
+        try {
+            List<SolrWriteBehindQueue.SolrMutation> solrMutations = new ArrayList<SolrWriteBehindQueue.SolrMutation>();
+
+            for (Map.Entry<String, Map<String, IndexMutation>> stores : mutations.entrySet()) {
+                String collectionName = stores.getKey();
+                String keyIdField = getKeyFieldId(collectionName);
+
+                for (Map.Entry<String, IndexMutation> entry : stores.getValue().entrySet()) {
+                    String docId = entry.getKey();
+                    IndexMutation mutation = entry.getValue();
+                    Preconditions.checkArgument(!(mutation.isNew() && mutation.isDeleted()));
+                    Preconditions.checkArgument(!mutation.isNew() || !mutation.hasDeletions());
+                    Preconditions.checkArgument(!mutation.isDeleted() || !mutation.hasAdditions());
+
+                    if (mutation.hasDeletions()) {
+                        if (mutation.isDeleted()) {
+                            solrMutations.add(SolrWriteBehindQueue.SolrMutation.delete(collectionName, docId));
+                        } else {
+                            HashSet<IndexEntry> fieldDeletions = Sets.newHashSet(mutation.getDeletions());
+                            if (mutation.hasAdditions()) {
+                                for (IndexEntry indexEntry : mutation.getAdditions()) {
+                                    fieldDeletions.remove(indexEntry);
+                                }
+                            }
+                            if (!fieldDeletions.isEmpty()) {
+                                SolrInputDocument doc = new SolrInputDocument();
+                                doc.setField(keyIdField, docId);
+                                for (IndexEntry fieldToDelete : fieldDeletions) {
+                                    doc.setField(fieldToDelete.field, Collections.singletonMap("set", null));
+                                }
+                                solrMutations.add(SolrWriteBehindQueue.SolrMutation.update(collectionName, docId, doc));
+                            }
+                        }
+                    }
+
+                    if (mutation.hasAdditions()) {
+                        int ttl = mutation.determineTTL();
+                        boolean isNewDoc = mutation.isNew();
+
+                        SolrInputDocument doc = new SolrInputDocument();
+                        doc.setField(keyIdField, docId);
+
+                        for (IndexEntry e : mutation.getAdditions()) {
+                            Object fieldValue = convertValue(e.value);
+                            doc.setField(e.field, isNewDoc ? fieldValue : Collections.singletonMap("set", fieldValue));
+                        }
+                        if (ttl>0) {
+                            Preconditions.checkArgument(isNewDoc,"Solr only supports TTL on new documents [%s]",docId);
+                            doc.setField(ttlField, String.format("+%dSECONDS", ttl));
+                        }
+                        solrMutations.add(isNewDoc ? SolrWriteBehindQueue.SolrMutation.add(collectionName, docId, doc)
+                                                   : SolrWriteBehindQueue.SolrMutation.update(collectionName, docId, doc));
+                    }
+                }
+            }
+
+            writeBehindQueue.add(solrMutations);
+        } catch (Exception e) {
+            throw storageException(e);
+        }
+    }
+
     private Object convertValue(Object value) throws BackendException {
         if (value instanceof Geoshape)
             return GeoToWktConverter.convertToWktString((Geoshape) value);
@@ -362,6 +477,11 @@ public class Solr5Index implements IndexProvider {
     @Override
     public void restore(Map<String, Map<String, List<IndexEntry>>> documents, KeyInformation.IndexRetriever informations, BaseTransaction tx) throws BackendException {
         try {
+            if (writeBehindQueue != null) {
+                // restored documents must not be overwritten by older queued mutations
+                writeBehindQueue.flush();
+            }
+
             for (Map.Entry<String, Map<String, List<IndexEntry>>> stores : documents.entrySet()) {
                 final String collectionName = stores.getKey();
 
@@ -451,6 +571,8 @@ public class Solr5Index implements IndexProvider {
         SolrQuery solrQuery = new SolrQuery("*:*");
         String queryFilter = buildQueryFilter(query.getCondition(), informations.get(collection));
         solrQuery.addFilterQuery(queryFilter);
+        // only the key of the matching documents is read
+        solrQuery.setFields(keyIdField);
         if (!query.getOrder().isEmpty()) {
             List<IndexQuery.OrderEntry> orders = query.getOrder();
             for (IndexQuery.OrderEntry order1 : orders) {
@@ -500,12 +622,25 @@ public class Solr5Index implements IndexProvider {
                 .setIncludeScore(true)
                 .setStart(query.getOffset())
                 .setRows(query.hasLimit() ? query.getLimit() : maxResults);
+        String cursorMark = getCursorMark(query);
+
+        if (cursorMark != null) {
+            // a cursorMark replaces the offset, and needs a sort that ends with the unique key
+            solrQuery.setStart(0)
+                     .addSort(SolrQuery.SortClause.desc("score"))
+                     .addSort(SolrQuery.SortClause.asc(keyIdField))
+                     .set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        }
 
         try {
             QueryResponse response = solrClient.query(collection, solrQuery);
             if (logger.isDebugEnabled())
                 logger.debug("Executed query [{}] in {} ms", query.getQuery(), response.getElapsedTime());
 
+            if (cursorMark != null) {
+                setNextCursorMark(cursorMark, response.getNextCursorMark());
+            }
+
             int totalHits = response.getResults().size();
             if (!query.hasLimit() && totalHits >= maxResults) {
                 logger.warn("Query result set truncated to first [{}] elements for query: {}", maxResults, query);
@@ -526,6 +661,55 @@ public class Solr5Index implements IndexProvider {
         return result;
     }
 
+    /**
+     * Takes the cursorMark of the next page of the last raw query run by this thread with a
+     * {@link #CURSOR_MARK_PARAMETER}. The cursorMark is kept in a thread local until it is taken, so the
+     * query must be run, and its next cursorMark taken, by the same thread, with no other cursor query
+     * in between.
+     *
+     * @param cursorMark cursorMark the query was run with
+     * @return the cursorMark of the next page; null if no cursor query was run by this thread since the
+     *         last call, as when the index backend is not Solr
+     * @throws IllegalStateException if the last cursor query of this thread was run with another cursorMark
+     */
+    public static String takeNextCursorMark(String cursorMark) {
+        String[] ret = NEXT_CURSOR_MARK.get();
+
+        NEXT_CURSOR_MARK.remove();
+
+        if (ret == null) {
+            return null;
+        }
+
+        if (!ret[0].equals(cursorMark)) {
+            throw new IllegalStateException("Next cursorMark is of a query run with cursorMark " + ret[0]
+                    + ", not " + cursorMark);
+        }
+
+        return ret[1];
+    }
+
+    /**
+     * Clears the next cursorMark of this thread, left by a query whose next cursorMark was not taken.
+     */
+    public static void clearNextCursorMark() {
+        NEXT_CURSOR_MARK.remove();
+    }
+
+    static void setNextCursorMark(String cursorMark, String nextCursorMark) {
+        NEXT_CURSOR_MARK.set(new String[] { cursorMark, nextCursorMark });
+    }
+
+    private static String getCursorMark(RawQuery query) {
+        for (Parameter parameter : query.getParameters()) {
+            if (CURSOR_MARK_PARAMETER.equals(parameter.getKey())) {
+                return parameter.getValue().toString();
+            }
+        }
+
+        return null;
+    }
+
     private static String escapeValue(Object value) {
         return ClientUtils.escapeQueryChars(value.toString());
     }
@@ -746,6 +930,9 @@ public class Solr5Index implements IndexProvider {
     @Override
     public void close() throws BackendException {
         logger.trace("Shutting down connection to Solr", solrClient);
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
         try {
             solrClient.close();
         } catch (IOException e) {
@@ -870,6 +1057,26 @@ public class Solr5Index implements IndexProvider {
         return map;
     }
 
+    /**
+     * The journal of the write-behind queue must survive restarts, so it is kept under the Atlas data directory
+     * (atlas.data, or data under atlas.home) unless configured, instead of under java.io.tmpdir.
+     */
+    static File getWriteBehindQueueDir(Configuration config) {
+        if (config.has(WRITE_BEHIND_QUEUE_DIR)) {
+            return new File(config.get(WRITE_BEHIND_QUEUE_DIR));
+        }
+
+        String dataDir = System.getProperty("atlas.data");
+
+        if (StringUtils.isEmpty(dataDir)) {
+            String homeDir = System.getProperty("atlas.home");
+
+            dataDir = (StringUtils.isEmpty(homeDir) ? "." : homeDir) + File.separator + "data";
+        }
+
+        return new File(dataDir, "solr-write-behind");
+    }
+
     private UpdateRequest newUpdateRequest() {
         UpdateRequest req = new UpdateRequest();
         req.setAction(UpdateRequest.ACTION.COMMIT, true, true);
@@ -0,0 +1,565 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkaurelius.titan.diskstorage.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue of the mutations of Solr5Index.
+ *
+ * Mutations are added by the transactions that commit to the graph, and are sent to Solr by a background thread, in
+ * batches of up to batchSize documents per collection, when batchSize documents are pending or every flushInterval
+ * milliseconds. The mutations of a batch are coalesced per document id: the last full document, atomic update or
+ * delete of a document wins, and atomic updates following a full document are applied to it.
+ *
+ * Every added mutation is first appended to a journal segment file in the queue directory. The segment is deleted
+ * once its batch is sent; segments of batches that failed, or that were left by a previous run, are sent again,
+ * oldest first, before any newer batch. Mutations survive a crash of the process, not of the host.
+ *
+ * Searches don't see the mutations that are not sent yet; see getLagMillis().
+ */
+public class SolrWriteBehindQueue {
+    private static final Logger logger = LoggerFactory.getLogger(SolrWriteBehindQueue.class);
+
+    private static final String SEGMENT_PREFIX    = "segment-";
+    private static final String SEGMENT_SUFFIX    = ".log";
+    private static final long   MAX_RETRY_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile SolrWriteBehindQueue instance;
+
+    private final SolrClient               solrClient;
+    private final int                      batchSize;
+    private final long                     flushInterval;
+    private final File                     queueDir;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean            flushRequested = new AtomicBoolean();
+    private final AtomicInteger            segmentSeq     = new AtomicInteger();
+    private final LinkedList<File>         backlog        = new LinkedList<>();
+
+    private final AtomicLong addedMutations = new AtomicLong();
+    private final AtomicLong sentDocuments  = new AtomicLong();
+    private final AtomicLong sentBatches    = new AtomicLong();
+    private final AtomicLong failedBatches  = new AtomicLong();
+
+    private final Object       lock = new Object();
+    private Batch              pending;
+    private File               segment;
+    private ObjectOutputStream segmentOut;
+
+    private volatile long oldestPendingTime = 0;
+    private volatile long oldestBacklogTime = 0;
+    private volatile int  backlogSize       = 0;
+    private long          retryBackoff      = 0;
+    private long          nextRetryTime     = 0;
+
+    public SolrWriteBehindQueue(SolrClient solrClient, int batchSize, long flushInterval, File queueDir) throws IOException {
+        this.solrClient    = solrClient;
+        this.batchSize     = Math.max(batchSize, 1);
+        this.flushInterval = Math.max(flushInterval, 1);
+        this.queueDir      = queueDir;
+
+        if (!queueDir.isDirectory() && !queueDir.mkdirs()) {
+            throw new IOException("Unable to create Solr write-behind queue directory " + queueDir);
+        }
+
+        File[] segmentFiles = queueDir.listFiles();
+
+        if (segmentFiles != null) {
+            Arrays.sort(segmentFiles);
+
+            for (File file : segmentFiles) {
+                if (file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX)) {
+                    backlog.add(file);
+                }
+            }
+
+            if (!backlog.isEmpty()) {
+                logger.info("Found {} unsent Solr write-behind segments in {}; they will be sent first", backlog.size(), queueDir);
+            }
+        }
+
+        synchronized (lock) {
+            pending = new Batch();
+
+            openSegment();
+        }
+
+        updateBacklogTime();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread ret = new Thread(r, "solr-write-behind");
+
+                ret.setDaemon(true);
+
+                return ret;
+            }
+        });
+
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        }, this.flushInterval, this.flushInterval, TimeUnit.MILLISECONDS);
+
+        instance = this;
+
+        logger.info("Solr write-behind enabled (batchSize={}, flushInterval={} ms, queueDir={})", this.batchSize,
+                this.flushInterval, queueDir);
+    }
+
+    /**
+     * @return the write-behind queue of the Solr index opened last; null if write-behind is not enabled
+     */
+    public static SolrWriteBehindQueue getInstance() {
+        return instance;
+    }
+
+    /**
+     * Journals the mutations of a transaction and queues them to be sent to Solr
+     */
+    public void add(List<SolrMutation> mutations) throws IOException {
+        if (mutations.isEmpty()) {
+            return;
+        }
+
+        boolean requestFlush;
+
+        synchronized (lock) {
+            segmentOut.writeObject(new ArrayList<>(mutations));
+            segmentOut.flush();
+            segmentOut.reset();
+
+            for (SolrMutation mutation : mutations) {
+                pending.add(mutation);
+            }
+
+            if (oldestPendingTime == 0) {
+                oldestPendingTime = System.currentTimeMillis();
+            }
+
+            requestFlush = pending.size() >= batchSize;
+        }
+
+        addedMutations.addAndGet(mutations.size());
+
+        if (requestFlush && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushRequested.set(false);
+                    flushQuietly();
+                }
+            });
+        }
+    }
+
+    /**
+     * Sends the pending mutations to Solr, after the mutations of earlier failed batches
+     *
+     * @throws IOException if the mutations could not be sent; they are sent again on the next flush
+     */
+    public synchronized void flush() throws IOException {
+        File  closedSegment;
+        Batch batch;
+
+        synchronized (lock) {
+            if (pending.isEmpty() && backlog.isEmpty()) {
+                return;
+            }
+
+            batch         = pending;
+            closedSegment = segment;
+
+            segmentOut.close();
+
+            pending           = new Batch();
+            oldestPendingTime = 0;
+
+            openSegment();
+        }
+
+        if (batch.isEmpty()) {
+            delete(closedSegment);
+        } else {
+            // once the segment is closed, its mutations are sent from the backlog if they can't be sent now
+            backlog.add(closedSegment);
+            updateBacklogTime();
+        }
+
+        if (System.currentTimeMillis() < nextRetryTime) {
+            return;
+        }
+
+        try {
+            while (!backlog.isEmpty()) {
+                File oldest = backlog.getFirst();
+
+                // the batch of the segment just closed is still in memory; earlier segments are read back
+                send(oldest == closedSegment ? batch : read(oldest));
+
+                backlog.removeFirst();
+                delete(oldest);
+                updateBacklogTime();
+            }
+
+            retryBackoff  = 0;
+            nextRetryTime = 0;
+        } catch (IOException | SolrServerException | RuntimeException e) {
+            failedBatches.incrementAndGet();
+
+            retryBackoff  = Math.min(retryBackoff == 0 ? flushInterval : retryBackoff * 2, MAX_RETRY_BACKOFF);
+            nextRetryTime = System.currentTimeMillis() + retryBackoff;
+
+            throw new IOException("Unable to send " + backlog.size() + " write-behind segments to Solr; retrying in "
+                    + retryBackoff + " ms", e);
+        }
+    }
+
+    /**
+     * Stops the background flushes and sends the pending mutations; mutations that can't be sent stay in the queue
+     * directory, and are sent when the index is opened again
+     */
+    public void close() {
+        flusher.shutdown();
+
+        try {
+            flusher.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        nextRetryTime = 0;
+
+        flushQuietly();
+
+        synchronized (lock) {
+            try {
+                segmentOut.close();
+            } catch (IOException e) {
+                logger.warn("Error closing Solr write-behind segment {}", segment, e);
+            }
+
+            if (pending.isEmpty()) {
+                delete(segment);
+            }
+        }
+
+        if (instance == this) {
+            instance = null;
+        }
+    }
+
+    /**
+     * @return time, in milliseconds, since the oldest mutation not yet sent to Solr was added; 0 if all mutations
+     * were sent. Searches may not reflect the graph updates of that period.
+     */
+    public long getLagMillis() {
+        long oldest = oldestBacklogTime;
+
+        if (oldest == 0 || (oldestPendingTime != 0 && oldestPendingTime < oldest)) {
+            oldest = oldestPendingTime;
+        }
+
+        return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * @return number of documents to be sent in the next batch
+     */
+    public int getPendingDocumentCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * @return number of journal segments of batches that failed or were left by a previous run
+     */
+    public int getBacklogSegmentCount() {
+        return backlogSize;
+    }
+
+    public long getAddedMutationCount() {
+        return addedMutations.get();
+    }
+
+    public long getSentDocumentCount() {
+        return sentDocuments.get();
+    }
+
+    public long getSentBatchCount() {
+        return sentBatches.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.warn("Solr write-behind flush failed; lag is {} ms", getLagMillis(), e);
+        } catch (RuntimeException e) {
+            logger.error("Solr write-behind flush failed", e);
+        }
+    }
+
+    private void send(Batch batch) throws IOException, SolrServerException {
+        for (Map.Entry<String, Map<String, PendingDocument>> entry : batch.collections.entrySet()) {
+            String                  collection = entry.getKey();
+            List<String>            deleteIds  = new ArrayList<>();
+            List<SolrInputDocument> documents  = new ArrayList<>();
+
+            for (Map.Entry<String, PendingDocument> docEntry : entry.getValue().entrySet()) {
+                PendingDocument document = docEntry.getValue();
+
+                if (document.deleted) {
+                    deleteIds.add(docEntry.getKey());
+                }
+
+                if (document.doc != null) {
+                    documents.add(document.doc);
+                }
+            }
+
+            for (int i = 0; i < deleteIds.size(); i += batchSize) {
+                solrClient.request(newUpdateRequest().deleteById(deleteIds.subList(i, Math.min(i + batchSize, deleteIds.size()))), collection);
+            }
+
+            for (int i = 0; i < documents.size(); i += batchSize) {
+                solrClient.request(newUpdateRequest().add(documents.subList(i, Math.min(i + batchSize, documents.size()))), collection);
+            }
+
+            sentDocuments.addAndGet(deleteIds.size() + documents.size());
+        }
+
+        sentBatches.incrementAndGet();
+    }
+
+    private UpdateRequest newUpdateRequest() {
+        UpdateRequest req = new UpdateRequest();
+        req.setAction(UpdateRequest.ACTION.COMMIT, true, true);
+        return req;
+    }
+
+    /*
+     * Segment names start with their creation time, so that the segments left by previous runs sort in the order
+     * they were written
+     */
+    private void openSegment() throws IOException {
+        String name = String.format("%s%015d-%010d%s", SEGMENT_PREFIX, System.currentTimeMillis(),
+                                    segmentSeq.incrementAndGet(), SEGMENT_SUFFIX);
+
+        segment    = new File(queueDir, name);
+        segmentOut = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(segment)));
+    }
+
+    private static long getCreationTime(File segment) {
+        String name = segment.getName();
+
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), SEGMENT_PREFIX.length() + 15));
+        } catch (RuntimeException e) {
+            return segment.lastModified();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Batch read(File segment) throws IOException {
+        Batch ret = new Batch();
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            while (true) {
+                List<SolrMutation> mutations;
+
+                try {
+                    mutations = (List<SolrMutation>) in.readObject();
+                } catch (EOFException | StreamCorruptedException | OptionalDataException e) {
+                    // end of the segment; a truncated last record is the write interrupted by a crash
+                    break;
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Invalid Solr write-behind segment " + segment, e);
+                }
+
+                for (SolrMutation mutation : mutations) {
+                    ret.add(mutation);
+                }
+            }
+        } catch (EOFException | StreamCorruptedException e) {
+            // segment closed before its stream header was written
+        }
+
+        return ret;
+    }
+
+    private void delete(File segment) {
+        if (segment.exists() && !segment.delete()) {
+            logger.warn("Unable to delete Solr write-behind segment {}", segment);
+        }
+    }
+
+    private void updateBacklogTime() {
+        oldestBacklogTime = backlog.isEmpty() ? 0 : getCreationTime(backlog.getFirst());
+        backlogSize       = backlog.size();
+    }
+
+    /**
+     * A full document, an atomic update or a delete of a document of a collection
+     */
+    public static class SolrMutation implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String            collection;
+        private final String            docId;
+        private final boolean           delete;
+        private final boolean           atomic;
+        private final SolrInputDocument doc;
+
+        private SolrMutation(String collection, String docId, boolean delete, boolean atomic, SolrInputDocument doc) {
+            this.collection = collection;
+            this.docId      = docId;
+            this.delete     = delete;
+            this.atomic     = atomic;
+            this.doc        = doc;
+        }
+
+        public static SolrMutation delete(String collection, String docId) {
+            return new SolrMutation(collection, docId, true, false, null);
+        }
+
+        public static SolrMutation add(String collection, String docId, SolrInputDocument doc) {
+            return new SolrMutation(collection, docId, false, false, doc);
+        }
+
+        /**
+         * @param doc document with the key field and the updated fields, with values as Solr atomic update maps
+         */
+        public static SolrMutation update(String collection, String docId, SolrInputDocument doc) {
+            return new SolrMutation(collection, docId, false, true, doc);
+        }
+    }
+
+    private static class PendingDocument {
+        boolean           deleted;
+        boolean           atomic;
+        SolrInputDocument doc;
+
+        void merge(SolrMutation mutation) {
+            if (mutation.delete) {
+                deleted = true;
+                atomic  = false;
+                doc     = null;
+            } else if (!mutation.atomic) {
+                // a full document replaces the earlier one, if any
+                deleted = false;
+                atomic  = false;
+                doc     = mutation.doc;
+            } else if (doc == null) {
+                // after a delete, the atomic update is sent after the delete
+                atomic = true;
+                doc    = mutation.doc;
+            } else {
+                for (SolrInputField field : mutation.doc) {
+                    Object value = field.getValue();
+
+                    if (!atomic && value instanceof Map) {
+                        Object setValue = ((Map<?, ?>) value).get("set");
+
+                        if (setValue == null) {
+                            doc.removeField(field.getName());
+                        } else {
+                            doc.setField(field.getName(), setValue);
+                        }
+                    } else {
+                        doc.setField(field.getName(), value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Batch {
+        private final Map<String, Map<String, PendingDocument>> collections = new LinkedHashMap<>();
+        private int                                             size        = 0;
+
+        void add(SolrMutation mutation) {
+            Map<String, PendingDocument> documents = collections.get(mutation.collection);
+
+            if (documents == null) {
+                documents = new LinkedHashMap<>();
+
+                collections.put(mutation.collection, documents);
+            }
+
+            PendingDocument document = documents.get(mutation.docId);
+
+            if (document == null) {
+                document = new PendingDocument();
+
+                documents.put(mutation.docId, document);
+                size++;
+            }
+
+            document.merge(mutation);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb.titan0;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.apache.atlas.utils.AtlasMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded pool of pre-warmed gremlin-groovy engines, each with a bounded cache of compiled
+ * Gremlin scripts keyed by the normalized script text.
+ *
+ * Each script is compiled by the engine its hash routes it to, so that the engines share
+ * the key space of the compiled scripts: a script is compiled by a single engine, instead of
+ * once by each engine it happens to be evaluated on. An engine compiles one script at a time;
+ * compiled scripts are evaluated concurrently, without any lock, so that the frequent
+ * scripts are not serialized on their engine. Scripts are evaluated with per-call bindings,
+ * so queries that only differ in their literal values (passed as bindings) reuse the same
+ * compiled script.
+ *
+ * Each engine loads the classes of the scripts it compiles in its own classloader. Once an
+ * engine has compiled the configured number of scripts, a new engine is created and warmed
+ * up in the background, and then replaces it, so that its classloader and the script
+ * classes can be unloaded. The current engine keeps evaluating scripts until then.
+ */
+public class GremlinScriptCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GremlinScriptCache.class);
+
+    public static final String GREMLIN_ENGINE_NAME = "gremlin-groovy";
+
+    private static final String WARM_UP_SCRIPT = "1";
+
+    private final ScriptEngineFactory engineFactory;
+    private final int                 maxSize;
+    private final int                 recycleThreshold;
+    private final boolean             compilable;
+    private final EngineSlot[]        slots;
+    private final ExecutorService     engineCreator;
+
+    private final AtomicLong borrowCount     = new AtomicLong();
+    private final AtomicLong borrowWaitCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong recycledCount   = new AtomicLong();
+    private CacheStats       recycledStats   = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    /**
+     * @param maxSize maximum number of compiled scripts cached by each engine; 0 to disable the cache
+     * @param poolSize number of engines
+     * @param recycleThreshold number of scripts an engine compiles before it is replaced; 0 to never replace engines
+     */
+    public GremlinScriptCache(int maxSize, int poolSize, int recycleThreshold) {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName(GREMLIN_ENGINE_NAME);
+
+        if (engine == null) {
+            throw new IllegalStateException("Script engine " + GREMLIN_ENGINE_NAME + " not found");
+        }
+
+        this.engineFactory    = engine.getFactory();
+        this.maxSize          = maxSize;
+        this.recycleThreshold = recycleThreshold;
+        this.compilable       = engine instanceof Compilable;
+        this.slots            = new EngineSlot[Math.max(poolSize, 1)];
+
+        if (maxSize <= 0 || !compilable) {
+            LOG.info("Gremlin script cache is disabled (maxSize={}, engine={})", maxSize, engine);
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new EngineSlot(i == 0 ? new PooledEngine(engine) : new PooledEngine(engineFactory.getScriptEngine()));
+        }
+
+        if (recycleThreshold > 0) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setNameFormat("atlas-gremlin-engine-%d").setDaemon(true).build());
+
+            executor.allowCoreThreadTimeOut(true);
+
+            this.engineCreator = executor;
+        } else {
+            this.engineCreator = null;
+        }
+
+        LOG.info("Created {} gremlin script engines (cache size={}, recycle threshold={})", slots.length, maxSize,
+                recycleThreshold);
+    }
+
+    /**
+     * Registers the AtlasMetrics gauges of this cache. Called once, by the owner of the cache shared by the
+     * graphs, so that the gauges report that cache rather than the last one created.
+     */
+    public void registerGauges() {
+        if (isEnabled()) {
+            AtlasMetrics.registerGauge("GremlinScriptCache.hitRate", new AtlasMetrics.Gauge() {
+                @Override
+                public Object getValue() {
+                    return getStats().hitRate();
+                }
+            });
+        }
+
+        AtlasMetrics.registerGauge("GremlinScriptCache.borrowWaitCount", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getBorrowWaitCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("GremlinScriptCache.borrowWaitTimeMillis", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getBorrowWaitTimeMillis();
+            }
+        });
+
+        AtlasMetrics.registerGauge("GremlinScriptCache.scriptClassCount", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getScriptClassCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("GremlinScriptCache.loadedClassCount", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getLoadedClassCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("GremlinScriptCache.unloadedClassCount", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getUnloadedClassCount();
+            }
+        });
+    }
+
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    /**
+     * Evaluates the given script, compiling it on the engine it is routed to only if the
+     * engine has no compiled form cached yet. The engine is locked only while it compiles.
+     *
+     * @param script the Gremlin script
+     * @param bindings variable bindings for this evaluation
+     * @return result of the evaluation
+     * @throws ScriptException
+     */
+    public Object eval(String script, Bindings bindings) throws ScriptException {
+        String     key  = normalize(script);
+        EngineSlot slot = slots[(key.hashCode() & Integer.MAX_VALUE) % slots.length];
+
+        borrowCount.incrementAndGet();
+
+        try {
+            return slot.engine.eval(slot, script, key, bindings);
+        } finally {
+            replaceIfExhausted(slot);
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && compilable;
+    }
+
+    /**
+     * @return number of compiled scripts cached by all the engines
+     */
+    public long size() {
+        long ret = 0;
+
+        for (EngineSlot slot : slots) {
+            ret += slot.engine.size();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the caches of all the engines, including the recycled ones
+     */
+    public synchronized CacheStats getStats() {
+        CacheStats ret = recycledStats;
+
+        for (EngineSlot slot : slots) {
+            ret = ret.plus(slot.engine.getStats());
+        }
+
+        return ret;
+    }
+
+    public void clear() {
+        for (EngineSlot slot : slots) {
+            slot.engine.clear();
+        }
+    }
+
+    public int getPoolSize() {
+        return slots.length;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * @return number of compilations that waited for their engine to finish compiling another script
+     */
+    public long getBorrowWaitCount() {
+        return borrowWaitCount.get();
+    }
+
+    /**
+     * @return total time, in milliseconds, compilations waited for their engine
+     */
+    public long getBorrowWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(borrowWaitNanos.get());
+    }
+
+    public long getRecycledEngineCount() {
+        return recycledCount.get();
+    }
+
+    /**
+     * @return number of scripts compiled by the engines in the pool, whose classes are loaded
+     */
+    public long getScriptClassCount() {
+        long ret = 0;
+
+        for (EngineSlot slot : slots) {
+            ret += slot.engine.compileCount.get();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return number of classes currently loaded in the JVM
+     */
+    public int getLoadedClassCount() {
+        return ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+    }
+
+    /**
+     * @return number of classes unloaded since the JVM started
+     */
+    public long getUnloadedClassCount() {
+        return ManagementFactory.getClassLoadingMXBean().getUnloadedClassCount();
+    }
+
+    private void lock(EngineSlot slot) throws ScriptException {
+        if (!slot.lock.tryLock()) {
+            long start = System.nanoTime();
+
+            try {
+                slot.lock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new ScriptException("Interrupted while waiting for a gremlin script engine");
+            } finally {
+                borrowWaitCount.incrementAndGet();
+                borrowWaitNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /*
+     * The replacement is created and warmed up by the engineCreator thread, outside of the
+     * slot lock; it is swapped in under the lock, so that the old engine is not compiling
+     * when its stats are added to the recycled ones. Scripts it compiled earlier can still be
+     * running; their classes are unloaded once they complete.
+     */
+    private void replaceIfExhausted(final EngineSlot slot) {
+        if (engineCreator == null || slot.engine.compileCount.get() < recycleThreshold
+                || !slot.replacing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            engineCreator.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        PooledEngine replacement = new PooledEngine(engineFactory.getScriptEngine());
+                        PooledEngine replaced;
+
+                        slot.lock.lock();
+
+                        try {
+                            replaced = slot.engine;
+
+                            synchronized (GremlinScriptCache.this) {
+                                recycledStats = recycledStats.plus(replaced.getStats());
+                                slot.engine   = replacement;
+                            }
+                        } finally {
+                            slot.lock.unlock();
+                        }
+
+                        recycledCount.incrementAndGet();
+
+                        if (LOG.isInfoEnabled()) {
+                            ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+
+                            LOG.info("Replaced gremlin script engine after {} compiled scripts (loaded classes={}, unloaded classes={})",
+                                    replaced.compileCount, classLoading.getLoadedClassCount(), classLoading.getUnloadedClassCount());
+                        }
+                    } catch (RuntimeException e) {
+                        LOG.warn("Failed to create gremlin script engine; the current engine will be reused", e);
+                    } finally {
+                        slot.replacing.set(false);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to schedule the replacement of a gremlin script engine", e);
+
+            slot.replacing.set(false);
+        }
+    }
+
+    /*
+     * Only surrounding whitespace is stripped: whitespace inside the script can be part of
+     * a string literal and is significant.
+     */
+    static String normalize(String script) {
+        return script == null ? "" : script.trim();
+    }
+
+    /**
+     * The engine the scripts of a share of the key space are compiled by; the lock is held while it compiles.
+     */
+    private static final class EngineSlot {
+        private final ReentrantLock   lock      = new ReentrantLock();
+        private final AtomicBoolean   replacing = new AtomicBoolean();
+        private volatile PooledEngine engine;
+
+        EngineSlot(PooledEngine engine) {
+            this.engine = engine;
+        }
+    }
+
+    /**
+     * An engine with its compiled scripts. Compiles while its slot is locked; its compiled scripts are evaluated by
+     * any number of threads.
+     */
+    private final class PooledEngine {
+        private final ScriptEngine                  engine;
+        private final Cache<String, CompiledScript> compiledScripts;
+        private final Set<String>                   evaluatedScripts;
+        private final AtomicInteger                 compileCount = new AtomicInteger();
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine          = engine;
+            this.compiledScripts = maxSize > 0 && compilable
+                                      ? CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().<String, CompiledScript>build()
+                                      : null;
+            this.evaluatedScripts = compiledScripts == null ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
+                                                            : null;
+
+            try {
+                engine.eval(WARM_UP_SCRIPT);
+            } catch (ScriptException e) {
+                LOG.warn("Failed to warm up gremlin script engine", e);
+            }
+        }
+
+        Object eval(EngineSlot slot, String script, String key, Bindings bindings) throws ScriptException {
+            if (compiledScripts == null) {
+                // the engine loads a class for each distinct script it evaluates, and reuses it afterwards
+                if (evaluatedScripts.add(key)) {
+                    compileCount.incrementAndGet();
+                }
+
+                return engine.eval(script, bindings);
+            }
+
+            return compile(slot, key).eval(bindings);
+        }
+
+        /*
+         * Concurrent callers of a script that is not cached yet wait for the compilation of the
+         * first one; the slot lock only keeps the engine from compiling two scripts at a time.
+         */
+        private CompiledScript compile(final EngineSlot slot, final String key) throws ScriptException {
+            try {
+                return compiledScripts.get(key, new Callable<CompiledScript>() {
+                    @Override
+                    public CompiledScript call() throws ScriptException {
+                        lock(slot);
+
+                        try {
+                            CompiledScript ret = ((Compilable) engine).compile(key);
+
+                            compileCount.incrementAndGet();
+
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Compiled gremlin script; cache stats: {}", GremlinScriptCache.this.getStats());
+                            }
+
+                            return ret;
+                        } finally {
+                            slot.lock.unlock();
+                        }
+                    }
+                });
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ScriptException) {
+                    throw (ScriptException) e.getCause();
+                }
+
+                throw new ScriptException(e);
+            } catch (UncheckedExecutionException e) {
+                throw new ScriptException(e);
+            }
+        }
+
+        long size() {
+            return compiledScripts != null ? compiledScripts.size() : 0;
+        }
+
+        CacheStats getStats() {
+            return compiledScripts != null ? compiledScripts.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+        }
+
+        void clear() {
+            if (compiledScripts != null) {
+                compiledScripts.invalidateAll();
+            }
+        }
+    }
+}
@@ -30,10 +30,9 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.script.Bindings;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.groovy.GroovyExpression;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
@@ -261,8 +260,13 @@ public class Titan0Graph implements AtlasGraph<Titan0Vertex, Titan0Edge> {
 
     @Override
     public Object executeGremlinScript(String query, boolean isPath) throws ScriptException {
+        return executeGremlinScript(query, Collections.<String, Object>emptyMap(), isPath);
+    }
+
+    @Override
+    public Object executeGremlinScript(String query, Map<String, Object> bindings, boolean isPath) throws ScriptException {
 
-        Object result = executeGremlinScript(query);
+        Object result = executeGremlinScript(query, bindings);
         if (isPath) {
             List<Object> path = convertPathQueryResultToList(result);
 
@@ -276,16 +280,39 @@ public class Titan0Graph implements AtlasGraph<Titan0Vertex, Titan0Edge> {
         }
     }
 
-    private Object executeGremlinScript(String gremlinQuery) throws ScriptException {
+    private Object executeGremlinScript(String gremlinQuery, Map<String, Object> parameters) throws ScriptException {
 
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = manager.getEngineByName("gremlin-groovy");
-        Bindings bindings = engine.createBindings();
+        GremlinScriptCache scriptCache = getScriptCache();
+        Bindings bindings = scriptCache.createBindings();
+        if (parameters != null) {
+            bindings.putAll(parameters);
+        }
         bindings.put("g", getGraph());
-        Object result = engine.eval(gremlinQuery, bindings);
+        Object result = scriptCache.eval(gremlinQuery, bindings);
         return result;
     }
 
+    /**
+     * Returns the script engine pool, with its compiled script caches, shared by all Titan0Graph instances.
+     */
+    public static GremlinScriptCache getScriptCache() {
+        return ScriptCacheHolder.INSTANCE;
+    }
+
+    private static class ScriptCacheHolder {
+        private static final GremlinScriptCache INSTANCE = createScriptCache();
+
+        private static GremlinScriptCache createScriptCache() {
+            GremlinScriptCache ret = new GremlinScriptCache(AtlasConfiguration.GREMLIN_SCRIPT_CACHE_SIZE.getInt(),
+                                                            AtlasConfiguration.GREMLIN_ENGINE_POOL_SIZE.getInt(),
+                                                            AtlasConfiguration.GREMLIN_ENGINE_RECYCLE_THRESHOLD.getInt());
+
+            ret.registerGauges();
+
+            return ret;
+        }
+    }
+
     @Override
     public GroovyExpression generatePersisentToLogicalConversionExpression(GroovyExpression expr, IDataType<?> type) {
 
@@ -27,6 +27,7 @@ import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.GraphDatabase;
+import org.apache.atlas.utils.AtlasMetrics;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,7 @@ import com.thinkaurelius.titan.core.schema.TitanManagement;
 import com.thinkaurelius.titan.core.util.TitanCleanup;
 import com.thinkaurelius.titan.diskstorage.StandardIndexProvider;
 import com.thinkaurelius.titan.diskstorage.solr.Solr5Index;
+import com.thinkaurelius.titan.diskstorage.solr.SolrWriteBehindQueue;
 
 /**
  * Titan 0.5.4 implementation of GraphDatabase.
@@ -67,6 +69,7 @@ public class Titan0GraphDatabase implements GraphDatabase<Titan0Vertex, Titan0Ed
 
     static {
         addSolr5Index();
+        registerWriteBehindGauges();
     }
 
     /**
@@ -101,6 +104,29 @@ public class Titan0GraphDatabase implements GraphDatabase<Titan0Vertex, Titan0Ed
         }
     }
 
+    /**
+     * Reports the lag and the pending documents of the Solr write-behind queue, when write-behind is enabled.
+     */
+    private static void registerWriteBehindGauges() {
+        AtlasMetrics.registerGauge("SolrWriteBehindQueue.lagMs", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                SolrWriteBehindQueue queue = SolrWriteBehindQueue.getInstance();
+
+                return queue != null ? queue.getLagMillis() : 0L;
+            }
+        });
+
+        AtlasMetrics.registerGauge("SolrWriteBehindQueue.pendingDocuments", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                SolrWriteBehindQueue queue = SolrWriteBehindQueue.getInstance();
+
+                return queue != null ? queue.getPendingDocumentCount() : 0;
+            }
+        });
+    }
+
     public static TitanGraph getGraphInstance() {
         if (graphInstance == null) {
             synchronized (Titan0GraphDatabase.class) {
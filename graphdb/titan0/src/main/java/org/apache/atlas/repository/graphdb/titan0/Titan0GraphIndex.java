@@ -25,6 +25,7 @@ import org.apache.atlas.repository.graphdb.AtlasGraphIndex;
 import org.apache.atlas.repository.graphdb.AtlasPropertyKey;
 
 import com.thinkaurelius.titan.core.PropertyKey;
+import com.thinkaurelius.titan.core.schema.SchemaStatus;
 import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -80,6 +81,34 @@ public class Titan0GraphIndex implements AtlasGraphIndex {
         return wrappedIndex.isUnique();
     }
 
+    /* (non-Javadoc)
+     * @see org.apache.atlas.repository.graphdb.AtlasGraphIndex#isEnabled()
+     */
+    @Override
+    public boolean isEnabled() {
+        for (PropertyKey key : wrappedIndex.getFieldKeys()) {
+            if (wrappedIndex.getIndexStatus(key) != SchemaStatus.ENABLED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.atlas.repository.graphdb.AtlasGraphIndex#isRegistered()
+     */
+    @Override
+    public boolean isRegistered() {
+        for (PropertyKey key : wrappedIndex.getFieldKeys()) {
+            SchemaStatus status = wrappedIndex.getIndexStatus(key);
+
+            if (status != SchemaStatus.REGISTERED && status != SchemaStatus.ENABLED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /* (non-Javadoc)
      * @see org.apache.atlas.repository.graphdb.AtlasGraphIndex#getFieldKeys()
      */
@@ -32,6 +32,7 @@ import com.thinkaurelius.titan.core.Cardinality;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.schema.Mapping;
 import com.thinkaurelius.titan.core.schema.PropertyKeyMaker;
+import com.thinkaurelius.titan.core.schema.SchemaAction;
 import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
 import com.tinkerpop.blueprints.Edge;
@@ -151,6 +152,16 @@ public class Titan0GraphManagement implements AtlasGraphManagement {
         management.addIndexKey(vertexIndex, titanKey);
     }
 
+    @Override
+    public void registerIndex(String indexName) {
+        management.updateIndex(management.getGraphIndex(indexName), SchemaAction.REGISTER_INDEX);
+    }
+
+    @Override
+    public void enableIndex(String indexName) {
+        management.updateIndex(management.getGraphIndex(indexName), SchemaAction.ENABLE_INDEX);
+    }
+
     /*
      * (non-Javadoc)
      *
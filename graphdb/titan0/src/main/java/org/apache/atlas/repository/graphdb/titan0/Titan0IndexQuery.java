@@ -18,19 +18,26 @@
 package org.apache.atlas.repository.graphdb.titan0;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.utils.AtlasPerfTracer;
+import org.slf4j.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.thinkaurelius.titan.core.TitanIndexQuery;
+import com.thinkaurelius.titan.core.schema.Parameter;
+import com.thinkaurelius.titan.diskstorage.solr.Solr5Index;
 import com.tinkerpop.blueprints.Vertex;
 
 /**
  * Titan 0.5.4 implementation of AtlasIndexQuery.
  */
 public class Titan0IndexQuery implements AtlasIndexQuery<Titan0Vertex, Titan0Edge> {
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("Titan0IndexQuery");
 
     private Titan0Graph graph;
     private TitanIndexQuery wrappedIndexQuery;
@@ -43,8 +50,62 @@ public class Titan0IndexQuery implements AtlasIndexQuery<Titan0Vertex, Titan0Edg
 
     @Override
     public Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> vertices() {
-        Iterator<TitanIndexQuery.Result<Vertex>> results = wrappedIndexQuery.vertices().iterator();
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "Titan0IndexQuery.vertices");
 
+        try {
+            Iterator<TitanIndexQuery.Result<Vertex>> results = wrappedIndexQuery.vertices().iterator();
+
+            return transform(results);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    @Override
+    public Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> vertices(int offset, int limit) {
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "Titan0IndexQuery.vertices", offset, limit);
+
+        try {
+            // Titan doesn't start the Solr query at the offset: the first offset + limit results are read, and the
+            // ones before the offset skipped
+            Iterator<TitanIndexQuery.Result<Vertex>> results =
+                    wrappedIndexQuery.offset(offset).limit(limit).vertices().iterator();
+
+            return transform(results);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    @Override
+    public AtlasIndexQuery.Page<Titan0Vertex, Titan0Edge> vertices(String cursor, int limit) {
+        String    cursorMark = cursor == null ? Solr5Index.CURSOR_MARK_START : cursor;
+        Parameter parameter  = Parameter.of(Solr5Index.CURSOR_MARK_PARAMETER, cursorMark);
+
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "Titan0IndexQuery.vertices", cursor, limit);
+
+        try {
+            // the index is queried by this thread when vertices() is called; Solr5Index keeps the next cursorMark
+            // in a thread local, which is cleared first so that a mark left by an earlier query isn't taken
+            Solr5Index.clearNextCursorMark();
+
+            List<TitanIndexQuery.Result<Vertex>> results =
+                    Lists.newArrayList(wrappedIndexQuery.addParameter(parameter).limit(limit).vertices());
+            String nextCursorMark = Solr5Index.takeNextCursorMark(cursorMark);
+
+            // other index backends ignore the cursorMark, and would return the first page again
+            if (nextCursorMark == null && cursor != null) {
+                throw new UnsupportedOperationException("The index backend doesn't support cursors");
+            }
+
+            return new PageImpl(transform(results.iterator()), nextCursorMark);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    private Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> transform(
+            Iterator<TitanIndexQuery.Result<Vertex>> results) {
         Function<TitanIndexQuery.Result<Vertex>, AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> function =
                 new Function<TitanIndexQuery.Result<Vertex>, AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>>() {
 
@@ -56,6 +117,26 @@ public class Titan0IndexQuery implements AtlasIndexQuery<Titan0Vertex, Titan0Edg
         return Iterators.transform(results, function);
     }
 
+    private static final class PageImpl implements AtlasIndexQuery.Page<Titan0Vertex, Titan0Edge> {
+        private final Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> results;
+        private final String                                                   nextCursor;
+
+        PageImpl(Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> results, String nextCursor) {
+            this.results    = results;
+            this.nextCursor = nextCursor;
+        }
+
+        @Override
+        public Iterator<AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge>> getResults() {
+            return results;
+        }
+
+        @Override
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
     private final class ResultImpl implements AtlasIndexQuery.Result<Titan0Vertex, Titan0Edge> {
         private TitanIndexQuery.Result<Vertex> wrappedResult;
 
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkaurelius.titan.diskstorage.solr;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
+import org.apache.atlas.repository.graphdb.titan0.Titan0Edge;
+import org.apache.atlas.repository.graphdb.titan0.Titan0Graph;
+import org.apache.atlas.repository.graphdb.titan0.Titan0IndexQuery;
+import org.apache.atlas.repository.graphdb.titan0.Titan0Vertex;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.thinkaurelius.titan.core.TitanIndexQuery;
+import com.thinkaurelius.titan.core.schema.Parameter;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests the cursor pages of Titan0IndexQuery, with an index query that hands the next cursorMark
+ * over the way Solr5Index does.
+ */
+public class Solr5IndexCursorTest {
+
+    @AfterMethod
+    public void tearDown() {
+        Solr5Index.clearNextCursorMark();
+    }
+
+    @Test
+    public void testPagesAreReadWithTheCursorMarkOfThePreviousPage() {
+        // the next cursorMark of the mock is "next:" followed by the cursorMark the query was run with
+        AtlasIndexQuery.Page<Titan0Vertex, Titan0Edge> page =
+                indexQuery(mockIndexQuery(CursorBackend.SOLR)).vertices(null, 10);
+
+        assertTrue(page.getResults().hasNext());
+        assertEquals(page.getNextCursor(), "next:" + Solr5Index.CURSOR_MARK_START);
+
+        String cursor = page.getNextCursor();
+
+        page = indexQuery(mockIndexQuery(CursorBackend.SOLR)).vertices(cursor, 10);
+
+        assertEquals(page.getNextCursor(), "next:" + cursor);
+    }
+
+    @Test
+    public void testCursorMarkLeftByAnEarlierQueryIsNotTaken() {
+        // an earlier query whose next cursorMark was not taken
+        Solr5Index.setNextCursorMark(Solr5Index.CURSOR_MARK_START, "stale");
+
+        AtlasIndexQuery.Page<Titan0Vertex, Titan0Edge> page =
+                indexQuery(mockIndexQuery(CursorBackend.NONE)).vertices(null, 10);
+
+        assertNull(page.getNextCursor());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCursorMarkOfAnotherQueryIsRejected() {
+        indexQuery(mockIndexQuery(CursorBackend.OTHER_QUERY)).vertices("AoE1", 10);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCursorIsRejectedByBackendWithoutCursors() {
+        indexQuery(mockIndexQuery(CursorBackend.NONE)).vertices("AoE1", 10);
+    }
+
+    @Test
+    public void testFirstPageWithBackendWithoutCursors() {
+        AtlasIndexQuery.Page<Titan0Vertex, Titan0Edge> page =
+                indexQuery(mockIndexQuery(CursorBackend.NONE)).vertices(null, 10);
+
+        assertTrue(page.getResults().hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testNextCursorMarkIsTakenOnce() {
+        Solr5Index.setNextCursorMark("AoE1", "AoE2");
+
+        assertEquals(Solr5Index.takeNextCursorMark("AoE1"), "AoE2");
+        assertNull(Solr5Index.takeNextCursorMark("AoE1"));
+    }
+
+    private enum CursorBackend {
+        // records the next cursorMark of the cursorMark the query was run with
+        SOLR,
+        // records the next cursorMark of another cursorMark, as a nested query would
+        OTHER_QUERY,
+        // ignores the cursorMark, like the other index backends
+        NONE
+    }
+
+    private static Titan0IndexQuery indexQuery(TitanIndexQuery query) {
+        return new Titan0IndexQuery(mock(Titan0Graph.class), query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TitanIndexQuery mockIndexQuery(final CursorBackend backend) {
+        final TitanIndexQuery                      query      = mock(TitanIndexQuery.class);
+        final String[]                             cursorMark = new String[1];
+        final List<TitanIndexQuery.Result<Vertex>> results    =
+                Collections.singletonList((TitanIndexQuery.Result<Vertex>) mock(TitanIndexQuery.Result.class));
+
+        when(query.limit(anyInt())).thenReturn(query);
+        when(query.addParameter(any(Parameter.class))).thenAnswer(new Answer<TitanIndexQuery>() {
+            @Override
+            public TitanIndexQuery answer(InvocationOnMock invocation) {
+                Parameter parameter = (Parameter) invocation.getArguments()[0];
+
+                if (Solr5Index.CURSOR_MARK_PARAMETER.equals(parameter.getKey())) {
+                    cursorMark[0] = parameter.getValue().toString();
+                }
+
+                return query;
+            }
+        });
+        when(query.vertices()).thenAnswer(new Answer<Iterable<TitanIndexQuery.Result<Vertex>>>() {
+            @Override
+            public Iterable<TitanIndexQuery.Result<Vertex>> answer(InvocationOnMock invocation) {
+                switch (backend) {
+                    case SOLR:
+                        Solr5Index.setNextCursorMark(cursorMark[0], "next:" + cursorMark[0]);
+                        break;
+
+                    case OTHER_QUERY:
+                        Solr5Index.setNextCursorMark("other:" + cursorMark[0], "next:other");
+                        break;
+
+                    default:
+                        break;
+                }
+
+                return results;
+            }
+        });
+
+        return query;
+    }
+}
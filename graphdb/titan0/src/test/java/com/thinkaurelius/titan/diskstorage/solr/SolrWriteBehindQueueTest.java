@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkaurelius.titan.diskstorage.solr;
+
+import com.thinkaurelius.titan.diskstorage.solr.SolrWriteBehindQueue.SolrMutation;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SolrWriteBehindQueueTest {
+
+    private static final String COLLECTION = "vertex_index";
+    private static final long   NO_FLUSH   = 3600 * 1000;
+
+    private File                 queueDir;
+    private SolrClient           solrClient;
+    private SolrWriteBehindQueue queue;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        queueDir   = Files.createTempDirectory("solr-write-behind").toFile();
+        solrClient = Mockito.mock(SolrClient.class);
+        queue      = new SolrWriteBehindQueue(solrClient, 100, NO_FLUSH, queueDir);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        queue.close();
+
+        File[] files = queueDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        queueDir.delete();
+    }
+
+    @Test
+    public void testCoalescesMutationsOfDocument() throws Exception {
+        queue.add(Arrays.asList(SolrMutation.add(COLLECTION, "1", document("1", "name", "t1")),
+                                SolrMutation.add(COLLECTION, "2", document("2", "name", "t2"))));
+        queue.add(Collections.singletonList(SolrMutation.update(COLLECTION, "1",
+                                document("1", "name", Collections.singletonMap("set", "t1-renamed")))));
+        queue.add(Collections.singletonList(SolrMutation.delete(COLLECTION, "2")));
+
+        Assert.assertEquals(queue.getPendingDocumentCount(), 2);
+        Assert.assertTrue(queue.getLagMillis() >= 0);
+
+        queue.flush();
+
+        List<UpdateRequest> requests = captureRequests(2);
+
+        Assert.assertEquals(requests.get(0).getDeleteById(), Collections.singletonList("2"));
+        Assert.assertEquals(requests.get(1).getDocuments().size(), 1);
+        Assert.assertEquals(requests.get(1).getDocuments().get(0).getFieldValue("name"), "t1-renamed");
+
+        Assert.assertEquals(queue.getPendingDocumentCount(), 0);
+        Assert.assertEquals(queue.getLagMillis(), 0);
+        Assert.assertEquals(queue.getSentDocumentCount(), 2);
+    }
+
+    @Test
+    public void testFailedBatchIsSentAfterRestart() throws Exception {
+        Mockito.when(solrClient.request(Mockito.any(SolrRequest.class), Mockito.anyString()))
+               .thenThrow(new SolrServerException("unavailable"));
+
+        queue.add(Collections.singletonList(SolrMutation.add(COLLECTION, "1", document("1", "name", "t1"))));
+
+        try {
+            queue.flush();
+            Assert.fail("Expected the flush to fail");
+        } catch (IOException e) {
+            // expected
+        }
+
+        Assert.assertEquals(queue.getBacklogSegmentCount(), 1);
+        Assert.assertEquals(queue.getFailedBatchCount(), 1);
+
+        queue.close();
+
+        solrClient = Mockito.mock(SolrClient.class);
+        queue      = new SolrWriteBehindQueue(solrClient, 100, NO_FLUSH, queueDir);
+
+        Assert.assertEquals(queue.getBacklogSegmentCount(), 1);
+
+        queue.flush();
+
+        List<UpdateRequest> requests = captureRequests(1);
+
+        Assert.assertEquals(requests.get(0).getDocuments().get(0).getFieldValue("name"), "t1");
+        Assert.assertEquals(queue.getBacklogSegmentCount(), 0);
+    }
+
+    private List<UpdateRequest> captureRequests(int count) throws Exception {
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+
+        Mockito.verify(solrClient, Mockito.times(count)).request(captor.capture(), Mockito.eq(COLLECTION));
+
+        return captor.getAllValues();
+    }
+
+    private static SolrInputDocument document(String id, String field, Object value) {
+        SolrInputDocument ret = new SolrInputDocument();
+
+        ret.setField("id", id);
+        ret.setField(field, value);
+
+        return ret;
+    }
+}
@@ -32,6 +32,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.ScriptException;
 
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.repository.Constants;
@@ -45,6 +51,7 @@ import org.apache.atlas.repository.graphdb.AtlasGraphQuery.ComparisionOperator;
 import org.apache.atlas.repository.graphdb.AtlasPropertyKey;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.typesystem.types.DataTypes.TypeCategory;
+import org.apache.atlas.utils.AtlasMetrics;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
@@ -410,6 +417,174 @@ public class Titan0DatabaseTest {
         validateDuplicatePropertyVertex(graph.getVertex(vertexId));
     }
 
+    @Test
+    public <V, E> void testExecuteGremlinScriptWithBindings() throws ScriptException {
+
+        AtlasGraph<V, E> graph = getGraph();
+
+        AtlasVertex<V, E> v1 = graph.addVertex();
+        AtlasVertex<V, E> v2 = graph.addVertex();
+        v1.setProperty("scriptName", "first");
+        v2.setProperty("scriptName", "second");
+
+        String script = "g.V('scriptName', name).toList()";
+
+        List<?> result = (List<?>) graph.executeGremlinScript(script, Collections.<String, Object>singletonMap("name", "first"), false);
+        assertEquals(1, result.size());
+        assertEquals(v1, result.get(0));
+
+        result = (List<?>) graph.executeGremlinScript(script, Collections.<String, Object>singletonMap("name", "second"), false);
+        assertEquals(1, result.size());
+        assertEquals(v2, result.get(0));
+
+        // the second evaluation must reuse the script compiled by the first one
+        GremlinScriptCache scriptCache = new GremlinScriptCache(10, 1, 0);
+        Bindings bindings = scriptCache.createBindings();
+
+        assertTrue(scriptCache.isEnabled());
+
+        bindings.put("g", Titan0GraphDatabase.getGraphInstance());
+        bindings.put("name", "first");
+        assertEquals(1, ((List<?>) scriptCache.eval(script, bindings)).size());
+
+        bindings.put("name", "second");
+        assertEquals(1, ((List<?>) scriptCache.eval(script, bindings)).size());
+
+        assertEquals(1, scriptCache.getStats().missCount());
+        assertEquals(1, scriptCache.getStats().hitCount());
+        assertEquals(1, scriptCache.size());
+    }
+
+    @Test
+    public void testScriptEnginePoolRecycling() throws Exception {
+        GremlinScriptCache scriptCache = new GremlinScriptCache(10, 1, 2);
+
+        assertEquals(1, scriptCache.getPoolSize());
+
+        Bindings bindings = scriptCache.createBindings();
+        bindings.put("x", 1);
+
+        assertEquals(2, scriptCache.eval("x + 1", bindings));
+        assertEquals(3, scriptCache.eval("x + 2", bindings));
+
+        // the engine that compiled both scripts is replaced in the background; its stats are kept
+        waitForRecycledEngines(scriptCache, 1);
+
+        assertEquals(1, scriptCache.getPoolSize());
+        assertEquals(0, scriptCache.size());
+        assertEquals(2, scriptCache.getStats().missCount());
+
+        assertEquals(2, scriptCache.eval("x + 1", bindings));
+        assertEquals(2, scriptCache.eval("x + 1", bindings));
+
+        assertEquals(3, scriptCache.getStats().missCount());
+        assertEquals(1, scriptCache.getStats().hitCount());
+        assertEquals(1, scriptCache.getScriptClassCount());
+        assertEquals(4, scriptCache.getBorrowCount());
+        assertEquals(0, scriptCache.getBorrowWaitCount());
+
+        scriptCache.registerGauges();
+
+        Map<String, Object> gauges = AtlasMetrics.snapshot().get(AtlasMetrics.GAUGES);
+
+        assertEquals(1L, gauges.get("GremlinScriptCache.scriptClassCount"));
+        assertEquals(0L, gauges.get("GremlinScriptCache.borrowWaitTimeMillis"));
+        assertTrue(gauges.containsKey("GremlinScriptCache.loadedClassCount"));
+        assertTrue(gauges.containsKey("GremlinScriptCache.unloadedClassCount"));
+    }
+
+    @Test
+    public void testScriptIsCompiledByOneEngineOfThePool() throws Exception {
+        final GremlinScriptCache scriptCache = new GremlinScriptCache(10, 4, 0);
+        final CountDownLatch     done        = new CountDownLatch(8);
+
+        for (int i = 0; i < 8; i++) {
+            final int x = i;
+
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            Bindings bindings = scriptCache.createBindings();
+                            bindings.put("x", x);
+
+                            assertEquals(x + 1, scriptCache.eval("x + 1", bindings));
+                        }
+                    } catch (ScriptException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+
+        // the threads that miss the cache wait for the compilation of the first one
+        assertEquals(80, scriptCache.getStats().requestCount());
+        assertEquals(1, scriptCache.getScriptClassCount());
+        assertEquals(80, scriptCache.getBorrowCount());
+    }
+
+    @Test
+    public void testCompiledScriptIsEvaluatedConcurrently() throws Exception {
+        final GremlinScriptCache scriptCache = new GremlinScriptCache(10, 1, 0);
+        final CountDownLatch     running     = new CountDownLatch(2);
+        final CountDownLatch     done        = new CountDownLatch(2);
+        final String             script      = "latch.countDown(); latch.await(30, java.util.concurrent.TimeUnit.SECONDS)";
+
+        for (int i = 0; i < 2; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Bindings bindings = scriptCache.createBindings();
+                        bindings.put("latch", running);
+
+                        scriptCache.eval(script, bindings);
+                    } catch (ScriptException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        // each evaluation waits until both are running, which an engine lock held during evaluation would prevent
+        assertTrue(running.await(30, TimeUnit.SECONDS));
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(1, scriptCache.getScriptClassCount());
+    }
+
+    @Test
+    public void testUncachedScriptIsCountedOnce() throws Exception {
+        GremlinScriptCache scriptCache = new GremlinScriptCache(0, 1, 0);
+        Bindings           bindings    = scriptCache.createBindings();
+
+        assertFalse(scriptCache.isEnabled());
+
+        bindings.put("x", 1);
+
+        assertEquals(2, scriptCache.eval("x + 1", bindings));
+        assertEquals(2, scriptCache.eval("x + 1", bindings));
+        assertEquals(3, scriptCache.eval("x + 2", bindings));
+
+        assertEquals(2, scriptCache.getScriptClassCount());
+    }
+
+    private static void waitForRecycledEngines(GremlinScriptCache scriptCache, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+
+        while (scriptCache.getRecycledEngineCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(count, scriptCache.getRecycledEngineCount());
+    }
+
     private <V, E> void validateDuplicatePropertyVertex(AtlasVertex<V, E> vertex) {
         assertEquals(2, vertex.getPropertyValues(Constants.TRAIT_NAMES_PROPERTY_KEY, String.class).size());
         assertTrue(vertex.getPropertyKeys().contains(Constants.TRAIT_NAMES_PROPERTY_KEY));
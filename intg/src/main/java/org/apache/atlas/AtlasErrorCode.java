@@ -64,7 +64,10 @@ public enum AtlasErrorCode {
     PATCH_FOR_UNKNOWN_TYPE(500, "ATLAS5005E", "{0} - patch references unknown type {1}"),
     ATTRIBUTE_UNIQUE_INVALID(400, "ATLAS40015E", "Type {0} with unique attribute {1} does not exist"),
     TYPE_NAME_INVALID(400, "ATLAS40016E", "Type {0} with name {1} does not exist"),
-    TYPE_CATEGORY_INVALID(400, "ATLAS40017E", "Type Category {0} does not match {1} or is invalid");
+    TYPE_CATEGORY_INVALID(400, "ATLAS40017E", "Type Category {0} does not match {1} or is invalid"),
+    INSTANCE_ATTRIBUTE_VALUE_INVALID(400, "ATLAS40018E", "Invalid value for attribute {0}.{1}: {2}"),
+    INSTANCE_UNIQUE_ATTRIBUTE_DUPLICATE(400, "ATLAS40019E", "More than one entity with {0}.{1}={2} in the request"),
+    INSTANCE_REFERENCE_TYPE_INVALID(400, "ATLAS40020E", "Invalid reference for attribute {0}.{1}: entity {2} of type {3} is not a {4}");
 
     private String errorCode;
     private String errorMessage;
@@ -42,10 +42,16 @@ public class EntityMutations implements Serializable {
 
     private List<EntityMutation> entityMutations = new ArrayList<>();
 
+    /**
+     * Mutations are requested as CREATE_OR_UPDATE, PARTIAL_UPDATE or DELETE. The response reports the entities
+     * written as CREATE or UPDATE, depending on whether the entity existed.
+     */
     public enum EntityOperation {
         CREATE_OR_UPDATE,
         PARTIAL_UPDATE,
         DELETE,
+        CREATE,
+        UPDATE,
     }
 
     public static final class EntityMutation implements Serializable {
@@ -57,6 +63,14 @@ public class EntityMutations implements Serializable {
             this.entity = entity;
         }
 
+        public EntityOperation getOp() {
+            return op;
+        }
+
+        public AtlasEntity getEntity() {
+            return entity;
+        }
+
         public StringBuilder toString(StringBuilder sb) {
             if ( sb == null) {
                 sb = new StringBuilder();
@@ -102,6 +116,10 @@ public class EntityMutations implements Serializable {
         this.entityMutations = entityMutations;
     }
 
+    public List<EntityMutation> getEntityMutations() {
+        return entityMutations;
+    }
+
     public StringBuilder toString(StringBuilder sb) {
         if ( sb == null) {
             sb = new StringBuilder();
@@ -38,6 +38,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.apache.atlas.model.typedef.AtlasBaseTypeDef.ATLAS_TYPE_ARRAY_PREFIX;
 import static org.apache.atlas.model.typedef.AtlasBaseTypeDef.ATLAS_TYPE_ARRAY_SUFFIX;
@@ -73,7 +74,12 @@ public class AtlasTypeRegistry {
             LOG.debug("==> AtlasTypeRegistry.getType({})", typeName);
         }
 
-        AtlasType ret = registryData.allTypes.getTypeByName(typeName);
+        TypeCache allTypes = registryData.allTypes;
+        AtlasType ret      = allTypes.getTypeByName(typeName);
+
+        if (ret == null) {
+            ret = allTypes.getCollectionType(typeName);
+        }
 
         if (ret == null) {
             if (typeName.startsWith(ATLAS_TYPE_ARRAY_PREFIX) && typeName.endsWith(ATLAS_TYPE_ARRAY_SUFFIX)) {
@@ -93,6 +99,8 @@ public class AtlasTypeRegistry {
             } else {
                 throw new AtlasBaseException(AtlasErrorCode.UNKNOWN_TYPENAME, typeName);
             }
+
+            ret = allTypes.addCollectionType(typeName, ret);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -168,7 +176,12 @@ public class AtlasTypeRegistry {
     }
 
     public void commitTransientTypeRegistry(AtlasTransientTypeRegistry transientTypeRegistry) {
-        this.registryData = transientTypeRegistry.registryData;
+        RegistryData registryData = transientTypeRegistry.registryData;
+
+        // collection types looked up in the transient registry are resolved again on first lookup in this registry
+        registryData.allTypes.clearCollectionTypes();
+
+        this.registryData = registryData;
     }
 
     static class RegistryData {
@@ -281,6 +294,8 @@ public class AtlasTypeRegistry {
         }
 
         private void resolveReferences() throws AtlasBaseException {
+            registryData.allTypes.clearCollectionTypes();
+
             for (AtlasType type : registryData.allTypes.getAllTypes()) {
                 type.resolveReferences(this);
             }
@@ -648,17 +663,23 @@ public class AtlasTypeRegistry {
 }
 
 class TypeCache {
-    private final Map<String, AtlasType> typeGuidMap;
-    private final Map<String, AtlasType> typeNameMap;
+    private final Map<String, AtlasType>           typeGuidMap;
+    private final Map<String, AtlasType>           typeNameMap;
+    private final ConcurrentMap<String, AtlasType> collectionTypeMap;
 
     public TypeCache() {
-        typeGuidMap = new ConcurrentHashMap<>();
-        typeNameMap = new ConcurrentHashMap<>();
+        typeGuidMap       = new ConcurrentHashMap<>();
+        typeNameMap       = new ConcurrentHashMap<>();
+        collectionTypeMap = new ConcurrentHashMap<>();
     }
 
+    /*
+     * collection types of the other cache are not copied, as they are resolved against the types of the other cache
+     */
     public TypeCache(TypeCache other) {
-        typeGuidMap = new ConcurrentHashMap<>(other.typeGuidMap);
-        typeNameMap = new ConcurrentHashMap<>(other.typeNameMap);
+        typeGuidMap       = new ConcurrentHashMap<>(other.typeGuidMap);
+        typeNameMap       = new ConcurrentHashMap<>(other.typeNameMap);
+        collectionTypeMap = new ConcurrentHashMap<>();
     }
 
     public void addType(AtlasType type) {
@@ -705,6 +726,23 @@ class TypeCache {
         return ret;
     }
 
+    public AtlasType getCollectionType(String typeName) {
+        return collectionTypeMap.get(typeName);
+    }
+
+    /**
+     * @return the given type, or the type added earlier with the same name by a concurrent lookup
+     */
+    public AtlasType addCollectionType(String typeName, AtlasType type) {
+        AtlasType ret = collectionTypeMap.putIfAbsent(typeName, type);
+
+        return ret != null ? ret : type;
+    }
+
+    public void clearCollectionTypes() {
+        collectionTypeMap.clear();
+    }
+
     public void updateGuid(String typeName, String currGuid, String newGuid) {
         if (currGuid != null) {
             typeGuidMap.remove(currGuid);
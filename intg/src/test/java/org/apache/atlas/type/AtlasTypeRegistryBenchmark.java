@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.type;
+
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
+import org.apache.atlas.type.AtlasTypeRegistry.AtlasTransientTypeRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookup of collection types in AtlasTypeRegistry:
+ * - uncached: the type is parsed and resolved on every lookup, as getType() did before collection types were cached
+ * - cached: the shared type created on the first lookup is returned
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.type.AtlasTypeRegistryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AtlasTypeRegistryBenchmark {
+    private static final String ENTITY_TYPE = "benchmark_entity";
+
+    @Param({"array<string>",
+            "map<string,array<" + ENTITY_TYPE + ">>",
+            "array<map<string,array<map<string," + ENTITY_TYPE + ">>>>"})
+    private String typeName;
+
+    private AtlasTypeRegistry typeRegistry;
+
+    @Setup
+    public void setup() throws AtlasBaseException {
+        AtlasEntityDef entityDef = new AtlasEntityDef(ENTITY_TYPE);
+
+        entityDef.addAttribute(new AtlasAttributeDef("name", AtlasBaseTypeDef.ATLAS_TYPE_STRING));
+        entityDef.addAttribute(new AtlasAttributeDef("values", "array<string>"));
+
+        typeRegistry = new AtlasTypeRegistry();
+
+        AtlasTransientTypeRegistry ttr = typeRegistry.createTransientTypeRegistry();
+
+        ttr.addType(entityDef);
+
+        typeRegistry.commitTransientTypeRegistry(ttr);
+    }
+
+    @Benchmark
+    public AtlasType uncached() throws AtlasBaseException {
+        typeRegistry.registryData.allTypes.clearCollectionTypes();
+
+        return typeRegistry.getType(typeName);
+    }
+
+    @Benchmark
+    public AtlasType cached() throws AtlasBaseException {
+        return typeRegistry.getType(typeName);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(AtlasTypeRegistryBenchmark.class.getSimpleName()).build();
+
+        new Runner(options).run();
+    }
+}
@@ -326,6 +326,43 @@ public class TestAtlasTypeRegistry {
         assertNotNull(failureMsg, "expected invalid supertype failure");
     }
 
+    @Test
+    public void testCollectionTypesAreShared() throws AtlasBaseException {
+        AtlasTypeRegistry typeRegistry = new AtlasTypeRegistry();
+        String            typeName     = "map<string,array<int>>";
+
+        AtlasType mapType = typeRegistry.getType(typeName);
+
+        assertTrue(mapType instanceof AtlasMapType);
+        assertSame(typeRegistry.getType(typeName), mapType);
+        assertSame(((AtlasMapType) mapType).getValueType(), typeRegistry.getType("array<int>"));
+        assertFalse(typeRegistry.isRegisteredType(typeName));
+    }
+
+    @Test
+    public void testCollectionTypesAreResolvedAgainAfterCommit() throws AtlasBaseException {
+        AtlasTypeRegistry typeRegistry = new AtlasTypeRegistry();
+        AtlasEntityDef    entDef       = new AtlasEntityDef("entDef-collection");
+
+        AtlasTransientTypeRegistry ttr = typeRegistry.createTransientTypeRegistry();
+        ttr.addType(entDef);
+        typeRegistry.commitTransientTypeRegistry(ttr);
+
+        AtlasArrayType arrayType = (AtlasArrayType) typeRegistry.getType("array<entDef-collection>");
+        assertSame(arrayType.getElementType(), typeRegistry.getType(entDef.getName()));
+
+        AtlasEntityDef updatedEntDef = new AtlasEntityDef(entDef.getName());
+        updatedEntDef.addAttribute(new AtlasAttributeDef("a1", AtlasBaseTypeDef.ATLAS_TYPE_INT));
+
+        ttr = typeRegistry.createTransientTypeRegistry();
+        ttr.updateType(updatedEntDef);
+        typeRegistry.commitTransientTypeRegistry(ttr);
+
+        AtlasArrayType updatedArrayType = (AtlasArrayType) typeRegistry.getType("array<entDef-collection>");
+        assertNotSame(updatedArrayType, arrayType);
+        assertSame(updatedArrayType.getElementType(), typeRegistry.getType(entDef.getName()));
+    }
+
     private void validateSuperTypes(AtlasTypeRegistry typeRegistry, String typeName, Set<String> expectedSuperTypes) {
         AtlasType type = null;
 
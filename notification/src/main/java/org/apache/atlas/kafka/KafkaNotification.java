@@ -26,6 +26,9 @@ import kafka.serializer.StringDecoder;
 import kafka.server.KafkaConfig;
 import kafka.server.KafkaServer;
 import kafka.utils.Time;
+import kafka.utils.ZkUtils;
+import org.I0Itec.zkclient.ZkClient;
+import org.I0Itec.zkclient.ZkConnection;
 import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.notification.AbstractNotification;
@@ -36,17 +39,22 @@ import org.apache.atlas.service.Service;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationConverter;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.zookeeper.server.NIOServerCnxnFactory;
 import org.apache.zookeeper.server.ServerCnxnFactory;
 import org.apache.zookeeper.server.ZooKeeperServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Option;
+import scala.Tuple2;
 
 import java.io.File;
 import java.io.IOException;
@@ -77,9 +85,22 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
     protected static final String CONSUMER_GROUP_ID_PROPERTY = "group.id";
 
+    private static final String OFFSETS_STORAGE_PROPERTY = "offsets.storage";
+    private static final String OFFSETS_STORAGE_KAFKA    = "kafka";
+
+    private static final String CONSUMER_TIMEOUT_PROPERTY   = "consumer.timeout.ms";
+    private static final String HOOK_BATCH_SIZE_PROPERTY    = "atlas.notification.hook.batch.size";
+    private static final String HOOK_BATCH_TIMEOUT_PROPERTY = "atlas.notification.hook.batch.timeout.ms";
+    private static final String HOOK_LANES_PROPERTY         = "atlas.notification.hook.lanes";
+
+    // longest a hook consumer that applies messages in batches blocks waiting for the next message, so that a
+    // partially filled batch is applied at most this long after its batch timeout
+    private static final long HOOK_BATCH_MAX_POLL_MS = 100;
+
     private KafkaServer kafkaServer;
     private ServerCnxnFactory factory;
     private Properties properties;
+    private long       hookConsumerTimeoutMs = -1;
 
     private KafkaProducer producer = null;
     private List<ConsumerConnector> consumerConnectors = new ArrayList<>();
@@ -124,6 +145,28 @@ public class KafkaNotification extends AbstractNotification implements Service {
                 "org.apache.kafka.common.serialization.StringDeserializer");
         properties.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, "roundrobin");
         properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "smallest");
+
+        if (applicationProperties.getInt(HOOK_BATCH_SIZE_PROPERTY, 1) > 1
+                || applicationProperties.getInt(HOOK_LANES_PROPERTY, 1) > 1) {
+            hookConsumerTimeoutMs = getHookConsumerTimeoutMs(
+                    Long.parseLong(properties.getProperty(CONSUMER_TIMEOUT_PROPERTY, "-1")),
+                    applicationProperties.getLong(HOOK_BATCH_TIMEOUT_PROPERTY, 1000));
+        }
+    }
+
+    /**
+     * Gets the consumer timeout of the hook consumers when hook messages are applied in batches: the configured
+     * timeout, if any, bounded by the batch timeout and HOOK_BATCH_MAX_POLL_MS. Without it, the consumer would block
+     * on a partially filled batch until the next message arrives.
+     *
+     * @param configuredTimeoutMs  atlas.kafka.consumer.timeout.ms; negative if not set (wait forever)
+     * @param batchTimeoutMs       atlas.notification.hook.batch.timeout.ms
+     */
+    @VisibleForTesting
+    static long getHookConsumerTimeoutMs(long configuredTimeoutMs, long batchTimeoutMs) {
+        long ret = Math.max(1, Math.min(batchTimeoutMs, HOOK_BATCH_MAX_POLL_MS));
+
+        return configuredTimeoutMs >= 0 ? Math.min(configuredTimeoutMs, ret) : ret;
     }
 
     @VisibleForTesting
@@ -212,6 +255,94 @@ public class KafkaNotification extends AbstractNotification implements Service {
     }
 
 
+    /**
+     * Gets the number of messages of the topic of the given notification type that its consumer group has not
+     * committed yet: the sum, over the partitions of the topic, of the end offset minus the committed offset. The
+     * end offsets are read from the brokers; the committed offsets from ZooKeeper, where the consumers created by
+     * createConsumers() commit them, unless offsets.storage=kafka. A partition the group never committed an offset
+     * for counts from offset 0.
+     *
+     * @param notificationType the notification type
+     * @return the number of messages not committed yet by the consumer group
+     */
+    public long getConsumerLag(NotificationType notificationType) {
+        String     topic              = TOPIC_MAP.get(notificationType);
+        Properties consumerProperties = getConsumerProperties(notificationType);
+        String     groupId            = consumerProperties.getProperty(ConsumerConfig.GROUP_ID_CONFIG);
+        boolean    kafkaOffsets       = OFFSETS_STORAGE_KAFKA.equals(consumerProperties.getProperty(OFFSETS_STORAGE_PROPERTY));
+
+        // the offsets are read with the new consumer, which doesn't accept the settings of the old one
+        consumerProperties.remove(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG);
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+
+        org.apache.kafka.clients.consumer.KafkaConsumer<String, String> consumer =
+                new org.apache.kafka.clients.consumer.KafkaConsumer<>(consumerProperties);
+        ZkUtils zkUtils = null;
+
+        try {
+            List<TopicPartition> partitions = new ArrayList<>();
+
+            for (PartitionInfo partitionInfo : consumer.partitionsFor(topic)) {
+                partitions.add(new TopicPartition(topic, partitionInfo.partition()));
+            }
+
+            // partitions are assigned, not subscribed to, so that the group is not rebalanced
+            consumer.assign(partitions);
+            consumer.seekToEnd(partitions);
+
+            if (!kafkaOffsets) {
+                zkUtils = createZkUtils(consumerProperties);
+            }
+
+            long ret = 0;
+
+            for (TopicPartition partition : partitions) {
+                Long committedOffset = kafkaOffsets ? getCommittedOffset(consumer, partition)
+                                                    : getCommittedOffset(zkUtils, groupId, partition);
+
+                ret += consumer.position(partition) - (committedOffset != null ? committedOffset : 0);
+            }
+
+            return ret;
+        } finally {
+            if (zkUtils != null) {
+                zkUtils.close();
+            }
+
+            consumer.close();
+        }
+    }
+
+    private static Long getCommittedOffset(org.apache.kafka.clients.consumer.KafkaConsumer<String, String> consumer,
+                                           TopicPartition partition) {
+        OffsetAndMetadata ret = consumer.committed(partition);
+
+        return ret != null ? ret.offset() : null;
+    }
+
+    private static Long getCommittedOffset(ZkUtils zkUtils, String groupId, TopicPartition partition) {
+        String path = ZkUtils.ConsumersPath() + "/" + groupId + "/offsets/" + partition.topic() + "/"
+                      + partition.partition();
+        Option<String> ret = zkUtils.readDataMaybeNull(path)._1();
+
+        return ret.isDefined() ? Long.valueOf(ret.get()) : null;
+    }
+
+    private static ZkUtils createZkUtils(Properties consumerProperties) {
+        String zkConnect         = consumerProperties.getProperty("zookeeper.connect");
+        int    sessionTimeout    = Integer.parseInt(consumerProperties.getProperty("zookeeper.session.timeout.ms", "6000"));
+        int    connectionTimeout = Integer.parseInt(consumerProperties.getProperty("zookeeper.connection.timeout.ms", "6000"));
+
+        Tuple2<ZkClient, ZkConnection> zkClientAndConnection =
+                ZkUtils.createZkClientAndConnection(zkConnect, sessionTimeout, connectionTimeout);
+
+        return new ZkUtils(zkClientAndConnection._1(), zkClientAndConnection._2(), false);
+    }
+
+
     // ----- AbstractNotification --------------------------------------------
 
     @Override
@@ -294,6 +425,10 @@ public class KafkaNotification extends AbstractNotification implements Service {
         consumerProperties.putAll(properties);
         consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
 
+        if (type == NotificationType.HOOK && hookConsumerTimeoutMs >= 0) {
+            consumerProperties.put(CONSUMER_TIMEOUT_PROPERTY, String.valueOf(hookConsumerTimeoutMs));
+        }
+
         LOG.info("Consumer property: auto.commit.enable: " + consumerProperties.getProperty("auto.commit.enable"));
         return consumerProperties;
     }
@@ -162,6 +162,18 @@ public class KafkaNotificationMockTest {
         }
     }
 
+    @Test
+    public void shouldBoundHookConsumerTimeoutWhenBatching() {
+        // not configured: wait at most the batch timeout, polling for the deadline
+        assertEquals(KafkaNotification.getHookConsumerTimeoutMs(-1, 1000), 100);
+        assertEquals(KafkaNotification.getHookConsumerTimeoutMs(-1, 50), 50);
+        assertEquals(KafkaNotification.getHookConsumerTimeoutMs(-1, 0), 1);
+
+        // a lower configured timeout is kept
+        assertEquals(KafkaNotification.getHookConsumerTimeoutMs(20, 1000), 20);
+        assertEquals(KafkaNotification.getHookConsumerTimeoutMs(5000, 1000), 100);
+    }
+
     class TestKafkaNotification extends KafkaNotification {
 
         private final ConsumerConnector consumerConnector;
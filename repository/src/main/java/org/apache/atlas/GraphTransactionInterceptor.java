@@ -20,9 +20,12 @@ package org.apache.atlas;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.RequestGraphCache;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.typesystem.exception.EntityNotFoundException;
 import org.apache.atlas.typesystem.exception.SchemaNotFoundException;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.apache.atlas.utils.AtlasPerfTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +33,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class GraphTransactionInterceptor implements MethodInterceptor {
-    private static final Logger LOG = LoggerFactory.getLogger(GraphTransactionInterceptor.class);
+    private static final Logger LOG      = LoggerFactory.getLogger(GraphTransactionInterceptor.class);
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("GraphTransaction");
 
     private static final ThreadLocal<List<PostTransactionHook>> postTransactionHooks = new ThreadLocal<>();
 
@@ -48,7 +52,7 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         try {
             try {
                 Object response = invocation.proceed();
-                graph.commit();
+                commit();
                 isSuccess = true;
                 LOG.info("graph commit");
                 return response;
@@ -59,6 +63,9 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
                     LOG.error("graph rollback due to exception " + t.getClass().getSimpleName() + ":" + t.getMessage());
                 }
                 graph.rollback();
+                AtlasMetrics.counter("GraphTransaction.rollbacks").incrementAndGet();
+                // vertices read or created in the transaction may not exist anymore
+                RequestGraphCache.get().clear();
                 throw t;
             }
         } finally {
@@ -78,6 +85,16 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         }
     }
 
+    private void commit() {
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "GraphTransaction.commit");
+
+        try {
+            graph.commit();
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
     boolean logException(Throwable t) {
         if ((t instanceof SchemaNotFoundException) || (t instanceof EntityNotFoundException)) {
             return false;
@@ -28,6 +28,7 @@ import org.apache.atlas.discovery.DataSetLineageService;
 import org.apache.atlas.discovery.DiscoveryService;
 import org.apache.atlas.discovery.EntityLineageService;
 import org.apache.atlas.discovery.LineageService;
+import org.apache.atlas.discovery.graph.DSLQueryPlanCache;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
 import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.listener.TypeDefChangeListener;
@@ -37,6 +38,7 @@ import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.audit.EntityAuditListener;
 import org.apache.atlas.repository.audit.EntityAuditRepository;
 import org.apache.atlas.repository.graph.DeleteHandler;
+import org.apache.atlas.repository.graph.FullTextIndexerService;
 import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
 import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
@@ -80,12 +82,14 @@ public class RepositoryMetadataModule extends com.google.inject.AbstractModule {
         Multibinder<TypesChangeListener> typesChangeListenerBinder =
                 Multibinder.newSetBinder(binder(), TypesChangeListener.class);
         typesChangeListenerBinder.addBinding().to(GraphBackedSearchIndexer.class).asEagerSingleton();
+        typesChangeListenerBinder.addBinding().to(DSLQueryPlanCache.class);
 
         // New typesdef/instance change listener should also be bound to the corresponding implementation
         Multibinder<TypeDefChangeListener> typeDefChangeListenerMultibinder =
                 Multibinder.newSetBinder(binder(), TypeDefChangeListener.class);
         typeDefChangeListenerMultibinder.addBinding().to(DefaultMetadataService.class);
         typeDefChangeListenerMultibinder.addBinding().to(GraphBackedSearchIndexer.class).asEagerSingleton();
+        typeDefChangeListenerMultibinder.addBinding().to(DSLQueryPlanCache.class);
 
         bind(AtlasEntityStore.class).to(AtlasEntityStoreV1.class);
 
@@ -101,6 +105,8 @@ public class RepositoryMetadataModule extends com.google.inject.AbstractModule {
         Configuration configuration = getConfiguration();
         bindAuditRepository(binder(), configuration);
 
+        Multibinder.newSetBinder(binder(), Service.class).addBinding().to(FullTextIndexerService.class);
+
         bind(DeleteHandler.class).to((Class<? extends DeleteHandler>) AtlasRepositoryConfiguration.getDeleteHandlerImpl()).asEagerSingleton();
 
         bind(TypeCache.class).to((Class<? extends TypeCache>) AtlasRepositoryConfiguration.getTypeCache()).asEagerSingleton();
@@ -19,7 +19,10 @@
 package org.apache.atlas.discovery;
 
 import org.apache.atlas.query.QueryParams;
+import org.codehaus.jettison.json.JSONObject;
 
+import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +40,26 @@ public interface DiscoveryService {
      */
     String searchByFullText(String query, QueryParams queryParams) throws DiscoveryException;
 
+    /**
+     * Searches using Full text query, passing the result rows to the handler as they are read from the index
+     * @param query query string
+     * @param queryParams Default query parameters like limit, offset
+     * @param cursor cursor returned by the previous search with the same query, to get the next page of results;
+     *               null to start at queryParams.offset()
+     * @param handler called for each result row
+     * @return cursor to get the next page of results, null if there are no more results
+     * @throws DiscoveryException
+     */
+    String searchByFullText(String query, QueryParams queryParams, String cursor, FullTextResultHandler handler)
+            throws DiscoveryException;
+
+    /**
+     * Receives the rows of a full text search
+     */
+    interface FullTextResultHandler {
+        void onResult(JSONObject row) throws DiscoveryException;
+    }
+
     /**
      * Searches using DSL query
      * @param dslQuery query string
@@ -46,6 +69,30 @@ public interface DiscoveryService {
      */
     String searchByDSL(String dslQuery, QueryParams queryParams) throws DiscoveryException;
 
+    /**
+     * Runs the DSL query, and returns its results without reading them: each row is read from the graph when it is
+     * iterated, so that the rows don't have to be held in memory together. Errors in the query are thrown by this
+     * method, before any row is read. The results are read in the graph transaction of the calling thread, which
+     * is ended when they are closed.
+     * @param dslQuery query string
+     * @param queryParams Default query parameters like limit, offset
+     * @return results, to be read and closed in the calling thread
+     * @throws DiscoveryException
+     */
+    DSLResults startDSLSearch(String dslQuery, QueryParams queryParams) throws DiscoveryException;
+
+    /**
+     * Results of a DSL search, in the json of the results of searchByDSL()
+     */
+    interface DSLResults extends Closeable {
+        String getDataTypeJson();
+
+        Iterator<String> getRows();
+
+        @Override
+        void close();
+    }
+
     /**
      * Assumes the User is familiar with the persistence structure of the Repository.
      * The given query is run uninterpreted against the underlying Graph Store.
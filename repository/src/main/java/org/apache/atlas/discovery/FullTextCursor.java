@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+/**
+ * Continuation token of a full text search, returned with a page of results to get the next page.
+ *
+ * Clients treat the token as opaque. It starts with a format version, so that the position it holds
+ * can change without breaking tokens handed out earlier:
+ * - version 1 holds the offset of the next result
+ * - version 2 holds the cursor of the index backend, with which the next page is read without
+ *   skipping over the results of the previous pages
+ */
+public final class FullTextCursor {
+    private static final String VERSION_OFFSET       = "1";
+    private static final String VERSION_INDEX_CURSOR = "2";
+    private static final String SEPARATOR            = ".";
+
+    private final int    offset;
+    private final String indexCursor;
+
+    private FullTextCursor(int offset, String indexCursor) {
+        this.offset      = offset;
+        this.indexCursor = indexCursor;
+    }
+
+    public static String toCursor(int offset) {
+        return VERSION_OFFSET + SEPARATOR + offset;
+    }
+
+    public static String toCursor(String indexCursor) {
+        return VERSION_INDEX_CURSOR + SEPARATOR + indexCursor;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static FullTextCursor parse(String cursor) {
+        int idx = cursor.indexOf(SEPARATOR);
+
+        if (idx < 0 || idx == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        String version  = cursor.substring(0, idx);
+        String position = cursor.substring(idx + 1);
+
+        if (VERSION_INDEX_CURSOR.equals(version)) {
+            return new FullTextCursor(0, position);
+        }
+
+        if (!VERSION_OFFSET.equals(version)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        try {
+            int offset = Integer.parseInt(position);
+
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+
+            return new FullTextCursor(offset, null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * @return offset of the next result; 0 for an index cursor
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return cursor of the index backend; null for an offset
+     */
+    public String getIndexCursor() {
+        return indexCursor;
+    }
+}
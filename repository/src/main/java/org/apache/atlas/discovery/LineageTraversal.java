@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.model.instance.AtlasEntity.Status;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.lineage.AtlasLineageInfo;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageRelation;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Computes the lineage of a DataSet entity by a breadth-first traversal of the process input/output edges.
+ *
+ * One hop goes from a DataSet to the processes that produce it (INPUT) or consume it (OUTPUT), and on to the
+ * DataSets these processes consume (INPUT) or produce (OUTPUT). Each vertex is expanded at most once per direction,
+ * at its shortest distance from the base entity, so the cost is linear in the number of edges in the lineage
+ * instead of in the number of paths. BOTH lineage is computed in the same traversal.
+ *
+ * The result is the same as collecting the vertices and relations of all the lineage paths of at most depth hops
+ * (depth < 1: no limit). If maxNodes > 0, the traversal stops once the lineage has that many entities.
+ */
+public class LineageTraversal {
+    private static final Logger LOG = LoggerFactory.getLogger(LineageTraversal.class);
+
+    public static final String INPUT_PROCESS_EDGE  = "__Process.inputs";
+    public static final String OUTPUT_PROCESS_EDGE = "__Process.outputs";
+
+    private final int maxNodes;
+
+    public LineageTraversal(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public AtlasLineageInfo getLineageInfo(String guid, AtlasVertex baseVertex, LineageDirection direction, int depth) {
+        Traversal traversal = new Traversal(depth);
+
+        if (direction == LineageDirection.BOTH) {
+            traversal.run(baseVertex, LineageDirection.INPUT, LineageDirection.OUTPUT);
+        } else {
+            traversal.run(baseVertex, direction);
+        }
+
+        if (traversal.truncated) {
+            LOG.info("Lineage of {} truncated at {} entities (depth={}, direction={})", guid, maxNodes, depth, direction);
+        }
+
+        return new AtlasLineageInfo(guid, traversal.entities, traversal.relations, direction, depth);
+    }
+
+    private class Traversal {
+        private final int                            depth;
+        private final Map<String, AtlasEntityHeader> entities   = new HashMap<>();
+        private final Set<LineageRelation>           relations  = new HashSet<>();
+        private final Map<Object, AtlasEntityHeader> headers    = new HashMap<>();
+        private final Map<Object, List<AtlasVertex>> inputSets  = new HashMap<>();
+        private final Map<Object, List<AtlasVertex>> outputSets = new HashMap<>();
+        private boolean                              truncated;
+
+        Traversal(int depth) {
+            this.depth = depth;
+        }
+
+        void run(AtlasVertex baseVertex, LineageDirection... directions) {
+            Queue<Step>  queue          = new ArrayDeque<>();
+            Set<Object>  visitedInputs  = new HashSet<>();
+            Set<Object>  visitedOutputs = new HashSet<>();
+
+            for (LineageDirection direction : directions) {
+                queue.add(new Step(baseVertex, direction, 0));
+                visited(direction, visitedInputs, visitedOutputs).add(baseVertex.getId());
+            }
+
+            while (!queue.isEmpty()) {
+                Step             step        = queue.poll();
+                LineageDirection direction   = step.direction;
+                Set<Object>      visited     = visited(direction, visitedInputs, visitedOutputs);
+                String           processEdge = direction == LineageDirection.INPUT ? OUTPUT_PROCESS_EDGE : INPUT_PROCESS_EDGE;
+                boolean          expandNext  = depth < 1 || step.level + 1 < depth;
+
+                Iterable<AtlasEdge> edges = step.vertex.getEdges(AtlasEdgeDirection.IN, processEdge);
+
+                for (AtlasEdge edge : edges) {
+                    AtlasVertex       process  = edge.getOutVertex();
+                    List<AtlasVertex> datasets = getDataSets(process, direction);
+
+                    // like a lineage path, a process is part of the lineage only if it leads to a DataSet
+                    if (datasets.isEmpty()) {
+                        continue;
+                    }
+
+                    addRelation(process, step.vertex, direction);
+
+                    for (AtlasVertex dataset : datasets) {
+                        addRelation(dataset, process, direction);
+
+                        if (expandNext && visited.add(dataset.getId())) {
+                            queue.add(new Step(dataset, direction, step.level + 1));
+                        }
+                    }
+
+                    if (maxNodes > 0 && entities.size() >= maxNodes) {
+                        truncated = true;
+
+                        return;
+                    }
+                }
+            }
+        }
+
+        private Set<Object> visited(LineageDirection direction, Set<Object> visitedInputs, Set<Object> visitedOutputs) {
+            return direction == LineageDirection.INPUT ? visitedInputs : visitedOutputs;
+        }
+
+        /**
+         * @return DataSets consumed (INPUT) or produced (OUTPUT) by the process; read once per process
+         */
+        private List<AtlasVertex> getDataSets(AtlasVertex process, LineageDirection direction) {
+            Map<Object, List<AtlasVertex>> cache = direction == LineageDirection.INPUT ? inputSets : outputSets;
+            List<AtlasVertex>              ret   = cache.get(process.getId());
+
+            if (ret == null) {
+                String              datasetEdge = direction == LineageDirection.INPUT ? INPUT_PROCESS_EDGE : OUTPUT_PROCESS_EDGE;
+                Iterable<AtlasEdge> edges       = process.getEdges(AtlasEdgeDirection.OUT, datasetEdge);
+
+                for (AtlasEdge edge : edges) {
+                    if (ret == null) {
+                        ret = new ArrayList<>();
+                    }
+
+                    ret.add(edge.getInVertex());
+                }
+
+                if (ret == null) {
+                    ret = Collections.emptyList();
+                }
+
+                cache.put(process.getId(), ret);
+            }
+
+            return ret;
+        }
+
+        /**
+         * Adds the relation between a vertex and the vertex one step closer to the base entity
+         */
+        private void addRelation(AtlasVertex vertex, AtlasVertex closerVertex, LineageDirection direction) {
+            String guid       = getHeader(vertex).getGuid();
+            String closerGuid = getHeader(closerVertex).getGuid();
+
+            if (direction == LineageDirection.INPUT) {
+                relations.add(new LineageRelation(guid, closerGuid));
+            } else {
+                relations.add(new LineageRelation(closerGuid, guid));
+            }
+        }
+
+        private AtlasEntityHeader getHeader(AtlasVertex vertex) {
+            AtlasEntityHeader ret = headers.get(vertex.getId());
+
+            if (ret == null) {
+                ret = toAtlasEntityHeader(vertex);
+
+                headers.put(vertex.getId(), ret);
+                entities.put(ret.getGuid(), ret);
+            }
+
+            return ret;
+        }
+    }
+
+    private static class Step {
+        final AtlasVertex      vertex;
+        final LineageDirection direction;
+        final int              level;
+
+        Step(AtlasVertex vertex, LineageDirection direction, int level) {
+            this.vertex    = vertex;
+            this.direction = direction;
+            this.level     = level;
+        }
+    }
+
+    static AtlasEntityHeader toAtlasEntityHeader(AtlasVertex vertex) {
+        AtlasEntityHeader ret = new AtlasEntityHeader();
+
+        ret.setTypeName(vertex.getProperty(Constants.TYPE_NAME_PROPERTY_KEY, String.class));
+        ret.setGuid(vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class));
+        ret.setDisplayText(vertex.getProperty(Constants.QUALIFIED_NAME, String.class));
+
+        String state  = vertex.getProperty(Constants.STATE_PROPERTY_KEY, String.class);
+        Status status = ("ACTIVE".equalsIgnoreCase(state) ? Status.STATUS_ACTIVE : Status.STATUS_DELETED);
+        ret.setStatus(status);
+
+        return ret;
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.discovery.DiscoveryException;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.listener.ChangedTypeDefs;
+import org.apache.atlas.listener.TypeDefChangeListener;
+import org.apache.atlas.listener.TypesChangeListener;
+import org.apache.atlas.query.Expressions;
+import org.apache.atlas.query.GraphPersistenceStrategies;
+import org.apache.atlas.query.GremlinQuery;
+import org.apache.atlas.query.GremlinTranslator;
+import org.apache.atlas.query.LimitParameter;
+import org.apache.atlas.query.QueryParams;
+import org.apache.atlas.query.QueryParser;
+import org.apache.atlas.query.QueryProcessor;
+import org.apache.atlas.typesystem.types.IDataType;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.apache.atlas.utils.AtlasPerfTracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import scala.util.Either;
+import scala.util.parsing.combinator.Parsers;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+
+/**
+ * Bounded cache of DSL query plans: the parsed, validated and translated form of a query, keyed by the
+ * normalized query text.
+ *
+ * The Gremlin query of a plan reads its limits from script bindings, so a plan serves requests with any limit and
+ * offset. Validation and translation depend on the types, so the plans are dropped when types are added or changed.
+ */
+@Singleton
+public class DSLQueryPlanCache implements TypesChangeListener, TypeDefChangeListener {
+    private static final Logger LOG      = LoggerFactory.getLogger(DSLQueryPlanCache.class);
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("DSLQueryPlanCache");
+
+    // parsed with these, the limits in the plan are those of the query text; see LimitParameter
+    private static final QueryParams PLAN_QUERY_PARAMS = new QueryParams(Integer.MAX_VALUE, 0);
+
+    private final Cache<String, Plan> plans;
+
+    public DSLQueryPlanCache() {
+        this(AtlasConfiguration.DSL_QUERY_PLAN_CACHE_SIZE.getInt());
+    }
+
+    DSLQueryPlanCache(int maxSize) {
+        if (maxSize > 0) {
+            this.plans = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+
+            AtlasMetrics.registerGauge("DSLQueryPlanCache.hitRate", new AtlasMetrics.Gauge() {
+                @Override
+                public Object getValue() {
+                    return getStats().hitRate();
+                }
+            });
+        } else {
+            LOG.info("DSL query plan cache is disabled (maxSize={})", maxSize);
+
+            this.plans = null;
+        }
+    }
+
+    /**
+     * @return plan of the query, from the cache if the query was planned before
+     * @throws DiscoveryException if the query is not valid
+     */
+    public Plan getPlan(String dslQuery, GraphPersistenceStrategies persistenceStrategy) throws DiscoveryException {
+        if (plans == null) {
+            return createPlan(dslQuery, persistenceStrategy);
+        }
+
+        String key = normalize(dslQuery);
+        Plan   ret = plans.getIfPresent(key);
+
+        if (ret == null) {
+            ret = createPlan(key, persistenceStrategy);
+
+            plans.put(key, ret);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Planned dsl query={}; cache stats: {}", key, getStats());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the cache
+     */
+    public CacheStats getStats() {
+        return plans != null ? plans.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    public long size() {
+        return plans != null ? plans.size() : 0;
+    }
+
+    public void clear() {
+        if (plans != null) {
+            plans.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onAdd(Collection<? extends IDataType> dataTypes) throws AtlasException {
+        clear();
+    }
+
+    @Override
+    public void onChange(Collection<? extends IDataType> dataTypes) throws AtlasException {
+        clear();
+    }
+
+    @Override
+    public void onChange(ChangedTypeDefs changedTypeDefs) throws AtlasBaseException {
+        clear();
+    }
+
+    private Plan createPlan(String dslQuery, GraphPersistenceStrategies persistenceStrategy)
+            throws DiscoveryException {
+        AtlasPerfTracer perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DSLQueryPlanCache.createPlan", dslQuery);
+
+        try {
+            Either<Parsers.NoSuccess, Expressions.Expression> either = QueryParser.apply(dslQuery, PLAN_QUERY_PARAMS);
+
+            if (either.isLeft()) {
+                throw new DiscoveryException("Invalid expression : " + dslQuery + ". " + either.left());
+            }
+
+            Expressions.Expression validatedExpression = QueryProcessor.validate(either.right().get());
+            GremlinQuery           gremlinQuery        =
+                    new GremlinTranslator(validatedExpression, persistenceStrategy, true).translate();
+
+            LOG.debug("Query = {}", validatedExpression);
+            LOG.debug("Expression Tree = {}", validatedExpression.treeString());
+            LOG.debug("Gremlin Query = {}", gremlinQuery.queryStr());
+
+            return new Plan(validatedExpression, gremlinQuery);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    /*
+     * Runs of whitespace outside of quoted strings are replaced by a single space. Whitespace inside quotes is part of
+     * a literal or an identifier and is kept.
+     */
+    static String normalize(String dslQuery) {
+        String        query = dslQuery.trim();
+        StringBuilder ret   = new StringBuilder(query.length());
+        char          quote = 0;
+
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && i + 1 < query.length()) {
+                    ret.append(c);
+
+                    c = query.charAt(++i);
+                }
+            } else if (c == '"' || c == '\'' || c == '`') {
+                quote = c;
+            } else if (Character.isWhitespace(c)) {
+                if (ret.charAt(ret.length() - 1) != ' ') {
+                    ret.append(' ');
+                }
+
+                continue;
+            }
+
+            ret.append(c);
+        }
+
+        return ret.toString();
+    }
+
+    /**
+     * Validated expression and Gremlin query of a DSL query, for any limit and offset.
+     */
+    public static class Plan {
+        private final Expressions.Expression validatedExpression;
+        private final GremlinQuery           gremlinQuery;
+
+        Plan(Expressions.Expression validatedExpression, GremlinQuery gremlinQuery) {
+            this.validatedExpression = validatedExpression;
+            this.gremlinQuery        = gremlinQuery;
+        }
+
+        public Expressions.Expression getValidatedExpression() {
+            return validatedExpression;
+        }
+
+        /**
+         * @return the Gremlin query, with the limit and offset of the request
+         */
+        public GremlinQuery getGremlinQuery(QueryParams queryParams) {
+            return gremlinQuery.withLimits(queryParams);
+        }
+
+        /**
+         * @return true if the query returns no rows with the limit and offset of the request
+         */
+        public boolean isEmpty(QueryParams queryParams) {
+            if (!(validatedExpression instanceof Expressions.LimitExpression)) {
+                return false;
+            }
+
+            Expressions.LimitExpression limitExpression = (Expressions.LimitExpression) validatedExpression;
+            LimitParameter              limit           = new LimitParameter(null, null,
+                    (Integer) limitExpression.limit().rawValue(), (Integer) limitExpression.offset().rawValue());
+
+            return limit.limitFor(queryParams) == 0;
+        }
+    }
+}
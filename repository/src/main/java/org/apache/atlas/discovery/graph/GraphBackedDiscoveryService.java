@@ -20,6 +20,7 @@ package org.apache.atlas.discovery.graph;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -33,14 +34,12 @@ import org.apache.atlas.AtlasClient;
 import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.discovery.DiscoveryException;
 import org.apache.atlas.discovery.DiscoveryService;
-import org.apache.atlas.query.Expressions;
+import org.apache.atlas.discovery.FullTextCursor;
 import org.apache.atlas.query.GremlinEvaluator;
 import org.apache.atlas.query.GremlinQuery;
 import org.apache.atlas.query.GremlinQueryResult;
-import org.apache.atlas.query.GremlinTranslator;
+import org.apache.atlas.query.JsonHelper;
 import org.apache.atlas.query.QueryParams;
-import org.apache.atlas.query.QueryParser;
-import org.apache.atlas.query.QueryProcessor;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.graph.AtlasGraphProvider;
@@ -55,9 +54,6 @@ import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import scala.util.Either;
-import scala.util.parsing.combinator.Parsers;
-
 /**
  * Graph backed implementation of Search.
  */
@@ -68,14 +64,16 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
 
     private final AtlasGraph graph;
     private final DefaultGraphPersistenceStrategy graphPersistenceStrategy;
+    private final DSLQueryPlanCache queryPlanCache;
 
     public final static String SCORE = "score";
 
     @Inject
-    GraphBackedDiscoveryService(MetadataRepository metadataRepository)
+    GraphBackedDiscoveryService(MetadataRepository metadataRepository, DSLQueryPlanCache queryPlanCache)
     throws DiscoveryException {
         this.graph = AtlasGraphProvider.getGraphInstance();
         this.graphPersistenceStrategy = new DefaultGraphPersistenceStrategy(metadataRepository);
+        this.queryPlanCache = queryPlanCache;
     }
 
     //For titan 0.5.4, refer to http://s3.thinkaurelius.com/docs/titan/0.5.4/index-backends.html for indexed query
@@ -84,25 +82,64 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
     @Override
     @GraphTransaction
     public String searchByFullText(String query, QueryParams queryParams) throws DiscoveryException {
-        String graphQuery = String.format("v.\"%s\":(%s)", Constants.ENTITY_TEXT_PROPERTY_KEY, query);
-        LOG.debug("Full text query: {}", graphQuery);
-        Iterator<AtlasIndexQuery.Result<?, ?>> results =graph.indexQuery(Constants.FULLTEXT_INDEX, graphQuery).vertices();
-        JSONArray response = new JSONArray();
-
-        int index = 0;
-        while (results.hasNext() && index < queryParams.offset()) {
-            results.next();
-            index++;
+        final JSONArray response = new JSONArray();
+
+        searchByFullText(query, queryParams, null, new FullTextResultHandler() {
+            @Override
+            public void onResult(JSONObject row) {
+                response.put(row);
+            }
+        });
+
+        return response.toString();
+    }
+
+    @Override
+    @GraphTransaction
+    public String searchByFullText(String query, QueryParams queryParams, String cursor, FullTextResultHandler handler)
+            throws DiscoveryException {
+        String         graphQuery  = String.format("v.\"%s\":(%s)", Constants.ENTITY_TEXT_PROPERTY_KEY, query);
+        FullTextCursor position    = cursor == null ? null : FullTextCursor.parse(cursor);
+        String         indexCursor = position == null ? null : position.getIndexCursor();
+        int            offset      = position == null ? queryParams.offset() : position.getOffset();
+        int            limit       = queryParams.limit();
+
+        LOG.debug("Full text query: {}, offset: {}, index cursor: {}, limit: {}", graphQuery, offset, indexCursor, limit);
+
+        AtlasIndexQuery                        indexQuery      = graph.indexQuery(Constants.FULLTEXT_INDEX, graphQuery);
+        String                                 nextIndexCursor = null;
+        Iterator<AtlasIndexQuery.Result<?, ?>> results;
+
+        // pages are read with the cursor of the index backend from the first page on; an offset is applied by
+        // the index backend, which still reads the results before it
+        if (indexCursor != null || offset == 0) {
+            AtlasIndexQuery.Page page;
+
+            try {
+                page = indexQuery.vertices(indexCursor, limit);
+            } catch (UnsupportedOperationException e) {
+                // an index cursor given to an index backend that doesn't support cursors, like a cursor handed out
+                // before the index backend was changed
+                throw new DiscoveryException("Invalid cursor: " + cursor + ": " + e.getMessage(), e);
+            }
+
+            results         = page.getResults();
+            nextIndexCursor = page.getNextCursor();
+        } else {
+            results = indexQuery.vertices(offset, limit);
         }
 
-        while (results.hasNext() && response.length() < queryParams.limit()) {
-            
+        int count = 0;
+
+        while (results.hasNext()) {
             AtlasIndexQuery.Result<?,?> result = results.next();
             AtlasVertex<?,?> vertex = result.getVertex();
 
-            JSONObject row = new JSONObject();
+            count++;
+
             String guid = GraphHelper.getIdFromVertex(vertex);
             if (guid != null) { //Filter non-class entities
+                JSONObject row = new JSONObject();
                 try {
                     row.put("guid", guid);
                     row.put(AtlasClient.TYPENAME, GraphHelper.getTypeName(vertex));
@@ -112,10 +149,16 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
                     throw new DiscoveryException("Unable to create response");
                 }
 
-                response.put(row);
+                handler.onResult(row);
             }
         }
-        return response.toString();
+
+        // a full page: there may be more results
+        if (count < limit) {
+            return null;
+        }
+
+        return nextIndexCursor != null ? FullTextCursor.toCursor(nextIndexCursor) : FullTextCursor.toCursor(offset + count);
     }
 
     @Override
@@ -125,37 +168,122 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
         return queryResult.toJson();
     }
 
-    public GremlinQueryResult evaluate(String dslQuery, QueryParams queryParams) throws DiscoveryException {
-        LOG.debug("Executing dsl query={}", dslQuery);
+    @Override
+    public DSLResults startDSLSearch(String dslQuery, QueryParams queryParams) throws DiscoveryException {
+        LOG.debug("Executing dsl query={} with streamed results", dslQuery);
+
+        boolean started = false;
+
         try {
-            Either<Parsers.NoSuccess, Expressions.Expression> either = QueryParser.apply(dslQuery, queryParams);
-            if (either.isRight()) {
-                Expressions.Expression expression = either.right().get();
-                return evaluate(dslQuery, expression);
+            DSLQueryPlanCache.Plan plan         = getPlan(dslQuery);
+            String                 dataTypeJson = JsonHelper.dataTypeToJson(plan.getValidatedExpression().dataType());
+            Iterator<Object>       rows;
+
+            //If the final limit is 0, don't launch the query, return with 0 rows
+            if (plan.isEmpty(queryParams)) {
+                rows = Collections.emptyIterator();
             } else {
-                throw new DiscoveryException("Invalid expression : " + dslQuery + ". " + either.left());
+                GremlinQuery gremlinQuery = plan.getGremlinQuery(queryParams);
+                LOG.debug("Gremlin Query Parameters = {}", gremlinQuery.queryParams());
+
+                try {
+                    rows = new GremlinEvaluator(gremlinQuery, graphPersistenceStrategy, graph).evaluateRows();
+                } catch (Exception e) { // unable to catch ExpressionException
+                    throw new DiscoveryException("Invalid expression : " + dslQuery, e);
+                }
             }
+
+            started = true;
+
+            return new GraphDSLResults(dataTypeJson, rows);
+        } finally {
+            if (!started) {
+                graph.rollback();
+            }
+        }
+    }
+
+    private DSLQueryPlanCache.Plan getPlan(String dslQuery) throws DiscoveryException {
+        try {
+            return queryPlanCache.getPlan(dslQuery, graphPersistenceStrategy);
+        } catch (DiscoveryException e) {
+            throw e;
         } catch (Exception e) { // unable to catch ExpressionException
             throw new DiscoveryException("Invalid expression : " + dslQuery, e);
         }
     }
 
-    private GremlinQueryResult evaluate(String dslQuery, Expressions.Expression expression) {
-        Expressions.Expression validatedExpression = QueryProcessor.validate(expression);
+    public GremlinQueryResult evaluate(String dslQuery, QueryParams queryParams) throws DiscoveryException {
+        LOG.debug("Executing dsl query={}", dslQuery);
+        try {
+            DSLQueryPlanCache.Plan plan = queryPlanCache.getPlan(dslQuery, graphPersistenceStrategy);
+            return evaluate(dslQuery, plan, queryParams);
+        } catch (Exception e) { // unable to catch ExpressionException
+            throw new DiscoveryException("Invalid expression : " + dslQuery, e);
+        }
+    }
 
+    private GremlinQueryResult evaluate(String dslQuery, DSLQueryPlanCache.Plan plan, QueryParams queryParams) {
         //If the final limit is 0, don't launch the query, return with 0 rows
-        if (validatedExpression instanceof Expressions.LimitExpression
-                && ((Integer)((Expressions.LimitExpression) validatedExpression).limit().rawValue()) == 0) {
-            return new GremlinQueryResult(dslQuery, validatedExpression.dataType());
+        if (plan.isEmpty(queryParams)) {
+            return new GremlinQueryResult(dslQuery, plan.getValidatedExpression().dataType());
         }
 
-        GremlinQuery gremlinQuery = new GremlinTranslator(validatedExpression, graphPersistenceStrategy).translate();
-        LOG.debug("Query = {}", validatedExpression);
-        LOG.debug("Expression Tree = {}", validatedExpression.treeString());
-        LOG.debug("Gremlin Query = {}", gremlinQuery.queryStr());
+        GremlinQuery gremlinQuery = plan.getGremlinQuery(queryParams);
+        LOG.debug("Gremlin Query Parameters = {}", gremlinQuery.queryParams());
         return new GremlinEvaluator(gremlinQuery, graphPersistenceStrategy, graph).evaluate();
     }
 
+    /*
+     * Rows of a DSL query, converted to json as they are read. Closing ends the graph transaction the rows were read
+     * in, as GraphTransactionInterceptor does at the end of the other search methods.
+     */
+    private final class GraphDSLResults implements DSLResults {
+        private final String           dataTypeJson;
+        private final Iterator<Object> rows;
+
+        GraphDSLResults(String dataTypeJson, Iterator<Object> rows) {
+            this.dataTypeJson = dataTypeJson;
+            this.rows         = rows;
+        }
+
+        @Override
+        public String getDataTypeJson() {
+            return dataTypeJson;
+        }
+
+        @Override
+        public Iterator<String> getRows() {
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return rows.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return JsonHelper.rowToJson(rows.next());
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            try {
+                graph.commit();
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to end the transaction of a dsl query", e);
+
+                graph.rollback();
+            }
+        }
+    }
+
     /**
      * Assumes the User is familiar with the persistence structure of the Repository.
      * The given query is run uninterpreted against the underlying Graph Store.
@@ -171,7 +171,8 @@ public class Gremlin2ExpressionFactory extends GremlinExpressionFactory {
     }
 
     @Override
-    public GroovyExpression generateLimitExpression(GroovyExpression parent, int offset, int totalRows) {
+    public GroovyExpression generateLimitExpression(GroovyExpression parent, GroovyExpression offset,
+            GroovyExpression totalRows) {
         return new RangeExpression(parent, offset, totalRows);
     }
 
@@ -263,8 +263,9 @@ public class Gremlin3ExpressionFactory extends GremlinExpressionFactory {
     }
 
     @Override
-    public GroovyExpression generateLimitExpression(GroovyExpression parent, int offset, int totalRows) {
-        return new FunctionCallExpression(parent, RANGE_METHOD, new LiteralExpression(offset), new LiteralExpression(totalRows));
+    public GroovyExpression generateLimitExpression(GroovyExpression parent, GroovyExpression offset,
+            GroovyExpression totalRows) {
+        return new FunctionCallExpression(parent, RANGE_METHOD, offset, totalRows);
     }
 
     @Override
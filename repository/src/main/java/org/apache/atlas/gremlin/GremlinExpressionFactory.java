@@ -171,7 +171,21 @@ public abstract class GremlinExpressionFactory {
      * @param totalRows
      * @return
      */
-    public abstract GroovyExpression generateLimitExpression(GroovyExpression parent, int offset, int totalRows);
+    public GroovyExpression generateLimitExpression(GroovyExpression parent, int offset, int totalRows) {
+        return generateLimitExpression(parent, new LiteralExpression(offset), new LiteralExpression(totalRows));
+    }
+
+    /**
+     * Generates a limit expression whose offset and total rows are given by expressions, like
+     * identifiers of script bindings
+     *
+     * @param parent
+     * @param offset
+     * @param totalRows
+     * @return
+     */
+    public abstract GroovyExpression generateLimitExpression(GroovyExpression parent, GroovyExpression offset,
+            GroovyExpression totalRows);
 
     /**
      * Generates an order by expression
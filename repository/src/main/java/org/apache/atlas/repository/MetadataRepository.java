@@ -20,6 +20,7 @@ package org.apache.atlas.repository;
 
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.ITypedStruct;
 import org.apache.atlas.typesystem.exception.EntityExistsException;
@@ -101,6 +102,30 @@ public interface MetadataRepository {
      */
     ITypedReferenceableInstance getEntityDefinition(String guid) throws RepositoryException, EntityNotFoundException;
 
+    /**
+     * Fetch the projected part of the definition of an entity given its GUID.
+     *
+     * @param guid globally unique identifier for the entity
+     * @param projection attributes, traits and depth of composite entities to read
+     * @return entity (typed instance) definition, with only the projected attributes set
+     * @throws RepositoryException
+     */
+    ITypedReferenceableInstance getEntityDefinition(String guid, EntityProjection projection)
+            throws RepositoryException, EntityNotFoundException;
+
+    /**
+     * Fetch the projected part of the definitions of entities given their GUIDs. The vertices of the entities are
+     * looked up together and mapped in parallel.
+     *
+     * @param guids globally unique identifiers for the entities
+     * @param projection attributes, traits and depth of composite entities to read
+     * @return entity (typed instance) definitions, in the order of the guids
+     * @throws RepositoryException
+     * @throws EntityNotFoundException if any of the entities is not found
+     */
+    List<ITypedReferenceableInstance> getEntityDefinitions(List<String> guids, EntityProjection projection)
+            throws RepositoryException, EntityNotFoundException;
+
     /**
      * Gets the list of entities for a given entity type.
      *
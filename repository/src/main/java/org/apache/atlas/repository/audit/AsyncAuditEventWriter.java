@@ -0,0 +1,562 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.audit;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.EntityAuditEvent;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit events to an EventSink on a background thread.
+ *
+ * Events are queued in a bounded buffer and written in batches of up to batchSize events, at least once every
+ * flushIntervalMs. When the buffer is full, or a batch can't be written, the events are appended to a spill file
+ * (if a spill directory is configured) and written again, a batch at a time between the batches of new events, or on
+ * restart. Without a spill directory such events are dropped and counted. A FailureListener is told about the events that weren't written
+ * when expected, whether they were spilled or dropped.
+ */
+public class AsyncAuditEventWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAuditEventWriter.class);
+
+    static final String SPILL_FILE_NAME  = "atlas-entity-audit.spill";
+    static final String REPLAY_FILE_NAME = "atlas-entity-audit.replay";
+
+    /**
+     * Destination of the audit events, e.g. the HBase table.
+     */
+    public interface EventSink {
+        void write(List<EntityAuditEvent> events) throws AtlasException;
+    }
+
+    /**
+     * Notified, on the thread that failed to write them, of the events that were spilled or dropped.
+     */
+    public interface FailureListener {
+        void onEventsNotWritten(List<EntityAuditEvent> events);
+    }
+
+    private final EventSink                  sink;
+    private final BlockingQueue<QueuedEvent> queue;
+    private final int                        batchSize;
+    private final long                       flushIntervalMs;
+    private final File                       spillFile;
+    private final File                       replayFile;
+    private final Object                     spillLock = new Object();
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong writtenCount  = new AtomicLong();
+    private final AtomicLong spilledCount  = new AtomicLong();
+    private final AtomicLong droppedCount  = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile boolean         running;
+    private volatile boolean         hasSpilledEvents;
+    private volatile FailureListener failureListener;
+    private Thread                   writerThread;
+    private BufferedReader           replayReader;
+    private int                      replayedCount;
+    private long                     replayPausedUntil;
+
+    public AsyncAuditEventWriter(EventSink sink, int queueSize, int batchSize, long flushIntervalMs, String spillDir) {
+        this.sink            = sink;
+        this.queue           = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize       = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+
+        if (spillDir != null) {
+            File dir = new File(spillDir);
+
+            if (!dir.exists() && !dir.mkdirs()) {
+                LOG.warn("Failed to create audit spill directory {}", spillDir);
+            }
+
+            this.spillFile  = new File(dir, SPILL_FILE_NAME);
+            this.replayFile = new File(dir, REPLAY_FILE_NAME);
+        } else {
+            this.spillFile  = null;
+            this.replayFile = null;
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        LOG.info("Starting audit writer: queueSize={}, batchSize={}, flushIntervalMs={}, spillFile={}",
+                queue.remainingCapacity() + queue.size(), batchSize, flushIntervalMs, spillFile);
+
+        hasSpilledEvents = spillFile != null && (spillFile.exists() || replayFile.exists());
+        running          = true;
+        writerThread     = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "atlas-audit-writer");
+
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer thread, after writing (or spilling) the events still in the buffer.
+     */
+    public void stop() {
+        Thread thread;
+
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+
+            running = false;
+            thread  = writerThread;
+
+            writerThread = null;
+        }
+
+        // the writer thread notices within flushIntervalMs, not interrupted to let an in-flight write complete
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // anything left over (writer thread didn't finish in time) goes to the spill file
+        List<QueuedEvent> remaining = new ArrayList<>();
+
+        queue.drainTo(remaining);
+
+        if (!remaining.isEmpty()) {
+            spillOrDrop(toEvents(remaining));
+        }
+
+        LOG.info("Stopped audit writer: {}", getMetrics());
+    }
+
+    /**
+     * Adds the events to the buffer; events that don't fit are spilled. Doesn't block.
+     */
+    public void add(List<EntityAuditEvent> events) {
+        long                   now      = System.currentTimeMillis();
+        List<EntityAuditEvent> overflow = null;
+
+        for (EntityAuditEvent event : events) {
+            if (queue.offer(new QueuedEvent(event, now))) {
+                enqueuedCount.incrementAndGet();
+            } else {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+
+                overflow.add(event);
+            }
+        }
+
+        if (overflow != null) {
+            LOG.warn("Audit buffer is full: spilling {} events", overflow.size());
+
+            spillOrDrop(overflow);
+        }
+    }
+
+    public void setFailureListener(FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return time, in milliseconds, the oldest buffered event has been waiting to be written
+     */
+    public long getLagMs() {
+        QueuedEvent oldest = queue.peek();
+
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.enqueueTime);
+    }
+
+    /**
+     * Registers the AtlasMetrics gauges of the writer: the lag and size of the buffer, and the counts of the events
+     * written, spilled and dropped.
+     */
+    public void registerGauges() {
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.lagMs", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getLagMs();
+            }
+        });
+
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.queueSize", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getQueueSize();
+            }
+        });
+
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.written", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getWrittenCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.spilled", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getSpilledCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.dropped", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return getDroppedCount();
+            }
+        });
+
+        AtlasMetrics.registerGauge("AsyncAuditEventWriter.failedBatches", new AtlasMetrics.Gauge() {
+            @Override
+            public Object getValue() {
+                return failedBatches.get();
+            }
+        });
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+
+        ret.put("enqueued", getEnqueuedCount());
+        ret.put("written", getWrittenCount());
+        ret.put("spilled", getSpilledCount());
+        ret.put("dropped", getDroppedCount());
+        ret.put("failedBatches", failedBatches.get());
+        ret.put("queueSize", getQueueSize());
+        ret.put("lagMs", getLagMs());
+
+        return ret;
+    }
+
+    /*
+     * Spilled events are written a batch at a time after each batch of new events, so that the spill file is
+     * drained under steady load as well.
+     */
+    private void writeLoop() {
+        try {
+            while (running || !queue.isEmpty()) {
+                List<QueuedEvent> batch = new ArrayList<>(batchSize);
+
+                try {
+                    fillBatch(batch, running && isReplayPending());
+                } catch (InterruptedException e) {
+                    LOG.warn("Audit writer interrupted; stopping");
+
+                    running = false;
+                }
+
+                if (!batch.isEmpty()) {
+                    writeBatch(toEvents(batch));
+                }
+
+                if (running && isReplayPending()) {
+                    replayNextBatch();
+                }
+            }
+        } finally {
+            closeReplayReader();
+        }
+    }
+
+    /**
+     * Waits for the first event, then collects more events until the batch is full or flushIntervalMs has passed.
+     * Doesn't wait for the first event when spilled events are to be written.
+     */
+    private void fillBatch(List<QueuedEvent> batch, boolean replayPending) throws InterruptedException {
+        QueuedEvent first = replayPending ? queue.poll() : queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        if (first == null) {
+            return;
+        }
+
+        batch.add(first);
+
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                break;
+            }
+
+            QueuedEvent next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+
+            if (next == null) {
+                break;
+            }
+
+            batch.add(next);
+        }
+    }
+
+    private boolean writeBatch(List<EntityAuditEvent> events) {
+        try {
+            sink.write(events);
+
+            writtenCount.addAndGet(events.size());
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Wrote {} audit events: {}", events.size(), getMetrics());
+            }
+
+            return true;
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+
+            LOG.error("Failed to write {} audit events", events.size(), e);
+
+            spillOrDrop(events);
+
+            return false;
+        }
+    }
+
+    private void spillOrDrop(List<EntityAuditEvent> events) {
+        notifyNotWritten(events);
+
+        if (spillFile == null) {
+            droppedCount.addAndGet(events.size());
+
+            LOG.warn("Dropped {} audit events; set {} to keep them", events.size(),
+                    HBaseBasedAuditRepository.CONFIG_ASYNC_SPILL_DIR);
+
+            return;
+        }
+
+        synchronized (spillLock) {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(spillFile, true), StandardCharsets.UTF_8))) {
+                for (EntityAuditEvent event : events) {
+                    // details of events created by EntityAuditListener are computed on first read
+                    event.setDetails(event.getDetails());
+
+                    writer.write(event.toString());
+                    writer.newLine();
+                }
+
+                spilledCount.addAndGet(events.size());
+                hasSpilledEvents = true;
+            } catch (IOException e) {
+                droppedCount.addAndGet(events.size());
+
+                LOG.error("Failed to spill {} audit events to {}", events.size(), spillFile, e);
+            }
+        }
+    }
+
+    private void notifyNotWritten(List<EntityAuditEvent> events) {
+        FailureListener listener = failureListener;
+
+        if (listener != null) {
+            try {
+                listener.onEventsNotWritten(events);
+            } catch (RuntimeException e) {
+                LOG.warn("Audit failure listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Writes all the events from the spill file. Events that still can't be written are spilled again.
+     */
+    void replaySpilledEvents() {
+        replayPausedUntil = 0;
+
+        while (isReplayPending()) {
+            if (!replayNextBatch()) {
+                break;
+            }
+        }
+    }
+
+    private boolean isReplayPending() {
+        return spillFile != null && (replayReader != null || hasSpilledEvents)
+               && System.currentTimeMillis() >= replayPausedUntil;
+    }
+
+    /**
+     * Writes the next batch of events from the spill file; the events spilled so far are moved to the replay file
+     * first, so that events spilled while replaying go to a new spill file. After a failed write, replaying pauses
+     * for flushIntervalMs, to not spin on a sink that is down.
+     *
+     * @return false if the batch couldn't be written
+     */
+    private boolean replayNextBatch() {
+        if (replayReader == null && !openReplayFile()) {
+            return true;
+        }
+
+        List<EntityAuditEvent> batch = new ArrayList<>(batchSize);
+        boolean                eof   = false;
+
+        try {
+            while (batch.size() < batchSize) {
+                String line = replayReader.readLine();
+
+                if (line == null) {
+                    eof = true;
+                    break;
+                }
+
+                if (!line.isEmpty()) {
+                    batch.add(EntityAuditEvent.fromString(line));
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to read audit events from {}", replayFile, e);
+
+            closeReplayReader();
+
+            return true;
+        }
+
+        boolean ret = batch.isEmpty() || writeBatch(batch);
+
+        replayedCount += batch.size();
+
+        if (!ret) {
+            replayPausedUntil = System.currentTimeMillis() + flushIntervalMs;
+        }
+
+        if (eof) {
+            closeReplayReader();
+
+            if (!replayFile.delete()) {
+                LOG.error("Failed to delete {}; its events will be written again", replayFile);
+            }
+
+            LOG.info("Processed {} audit events from {}", replayedCount, replayFile);
+        }
+
+        return ret;
+    }
+
+    private boolean openReplayFile() {
+        synchronized (spillLock) {
+            hasSpilledEvents = false;
+
+            if (!replayFile.exists() && spillFile.exists() && !spillFile.renameTo(replayFile)) {
+                LOG.error("Failed to rename {} to {}", spillFile, replayFile);
+
+                return false;
+            }
+        }
+
+        if (!replayFile.exists()) {
+            return false;
+        }
+
+        LOG.info("Writing audit events from {}", replayFile);
+
+        try {
+            replayReader  = new BufferedReader(new InputStreamReader(new FileInputStream(replayFile),
+                                                                     StandardCharsets.UTF_8));
+            replayedCount = 0;
+
+            return true;
+        } catch (IOException e) {
+            LOG.error("Failed to read audit events from {}", replayFile, e);
+
+            return false;
+        }
+    }
+
+    private void closeReplayReader() {
+        if (replayReader != null) {
+            try {
+                replayReader.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close {}", replayFile, e);
+            }
+
+            replayReader = null;
+        }
+    }
+
+    private static List<EntityAuditEvent> toEvents(List<QueuedEvent> queuedEvents) {
+        List<EntityAuditEvent> ret = new ArrayList<>(queuedEvents.size());
+
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            ret.add(queuedEvent.event);
+        }
+
+        return ret;
+    }
+
+    private static class QueuedEvent {
+        final EntityAuditEvent event;
+        final long             enqueueTime;
+
+        QueuedEvent(EntityAuditEvent event, long enqueueTime) {
+            this.event       = event;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
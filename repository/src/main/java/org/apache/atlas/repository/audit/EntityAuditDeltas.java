@@ -0,0 +1,404 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.audit;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.EntityAuditEvent;
+import org.apache.atlas.typesystem.IStruct;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attribute-level deltas for ENTITY_UPDATE audit events.
+ *
+ * The details of a delta event are "Updated (delta): " followed by a JSON object with the changed attributes and
+ * traits of the entity ("entity", a referenceable with only the changed attributes and the added or changed traits),
+ * the names of the attributes that were removed ("removed") and the names of the traits that were removed
+ * ("removedTraits"). Create events, and update events without a delta, contain the complete entity. The full view
+ * of a delta event is rebuilt by applying the deltas, oldest first, to the closest preceding complete entity.
+ *
+ * Each delta also records the timestamp of the complete entity it is based on ("base") and its position in the
+ * deltas since ("sequence"). A delta whose base or preceding delta is not in the repository, e.g. because its event
+ * was dropped, is not applied to another version of the entity: it is returned as is.
+ */
+public final class EntityAuditDeltas {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityAuditDeltas.class);
+
+    public static final String CREATE_PREFIX       = "Created: ";
+    public static final String UPDATE_PREFIX       = "Updated: ";
+    public static final String UPDATE_DELTA_PREFIX = "Updated (delta): ";
+
+    private static final String DELTA_ENTITY   = "entity";
+    private static final String DELTA_REMOVED        = "removed";
+    private static final String DELTA_REMOVED_TRAITS = "removedTraits";
+    private static final String DELTA_BASE           = "base";
+    private static final String DELTA_SEQUENCE       = "sequence";
+
+    // number of events read per call while looking for the complete entity preceding a delta
+    private static final short SNAPSHOT_SEARCH_PAGE_SIZE = 25;
+
+    private EntityAuditDeltas() {
+    }
+
+    /**
+     * @param baseTimestamp timestamp of the event with the complete entity the deltas since are based on
+     * @param sequence      position of this delta in the deltas since that event, starting at 1
+     * @return details of a delta event that changes previous into current
+     */
+    public static String getDeltaDetails(ITypedReferenceableInstance previous, ITypedReferenceableInstance current,
+                                         long baseTimestamp, int sequence) throws AtlasException {
+        Map<String, Object> previousValues = previous.getValuesMap();
+        Map<String, Object> currentValues  = current.getValuesMap();
+        Map<String, Object> changed        = new HashMap<>();
+        List<String>        removed        = new ArrayList<>();
+        Set<String>         attrNames      = new LinkedHashSet<>(currentValues.keySet());
+
+        attrNames.addAll(previousValues.keySet());
+
+        for (String attrName : attrNames) {
+            Object previousValue = previousValues.get(attrName);
+            Object currentValue  = currentValues.get(attrName);
+
+            if (valuesEqual(previousValue, currentValue)) {
+                continue;
+            }
+
+            if (currentValue == null) {
+                removed.add(attrName);
+            } else {
+                changed.put(attrName, currentValue);
+            }
+        }
+
+        List<String>         changedTraitNames = new ArrayList<>();
+        Map<String, IStruct> changedTraits     = new HashMap<>();
+        List<String>         removedTraits     = new ArrayList<>();
+
+        for (String traitName : current.getTraits()) {
+            IStruct currentTrait = current.getTrait(traitName);
+
+            if (!previous.getTraits().contains(traitName) || !valuesEqual(previous.getTrait(traitName), currentTrait)) {
+                changedTraitNames.add(traitName);
+                changedTraits.put(traitName, new Struct(traitName, currentTrait.getValuesMap()));
+            }
+        }
+
+        for (String traitName : previous.getTraits()) {
+            if (!current.getTraits().contains(traitName)) {
+                removedTraits.add(traitName);
+            }
+        }
+
+        Referenceable delta = new Referenceable(current.getId()._getId(), current.getTypeName(), changed,
+                                                changedTraitNames, changedTraits);
+
+        try {
+            JSONObject details = new JSONObject();
+
+            details.put(DELTA_ENTITY, new JSONObject(InstanceSerialization.toJson(delta, true)));
+            details.put(DELTA_REMOVED, new JSONArray(removed));
+            details.put(DELTA_REMOVED_TRAITS, new JSONArray(removedTraits));
+            details.put(DELTA_BASE, baseTimestamp);
+            details.put(DELTA_SEQUENCE, sequence);
+
+            return UPDATE_DELTA_PREFIX + details.toString();
+        } catch (JSONException e) {
+            throw new AtlasException(e);
+        }
+    }
+
+    public static boolean isDelta(EntityAuditEvent event) {
+        return event.getAction() == EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE && event.getDetails() != null
+                && event.getDetails().startsWith(UPDATE_DELTA_PREFIX);
+    }
+
+    /**
+     * Replaces the delta events with events that contain the complete entity. The events are of one entity, in
+     * decreasing order of timestamp, as returned by EntityAuditRepository.listEvents(). Delta events for which no
+     * complete entity is found are returned as is.
+     */
+    public static List<EntityAuditEvent> toFullView(EntityAuditRepository repository, List<EntityAuditEvent> events)
+            throws AtlasException {
+        if (events.isEmpty()) {
+            return events;
+        }
+
+        List<EntityAuditEvent> ret     = new ArrayList<>(events);
+        EntityAuditEvent       oldest  = events.get(events.size() - 1);
+        EntityVersion          current = isDelta(oldest) ? getEntityBefore(repository, oldest) : null;
+
+        for (int i = events.size() - 1; i >= 0; i--) {
+            EntityAuditEvent event = events.get(i);
+
+            if (isDelta(event)) {
+                if (current == null) {
+                    continue;
+                }
+
+                if (!current.apply(event)) {
+                    LOG.warn("Audit event {} of entity {} is not based on the preceding events; returning its delta",
+                            event.getEventKey(), event.getEntityId());
+
+                    current = null;
+
+                    continue;
+                }
+
+                EntityAuditEvent fullEvent = new EntityAuditEvent(event.getEntityId(), event.getTimestamp(),
+                        event.getUser(), event.getAction(),
+                        UPDATE_PREFIX + InstanceSerialization.toJson(current.entity, true),
+                        event.getEntityDefinition());
+
+                fullEvent.setEventKey(event.getEventKey());
+                ret.set(i, fullEvent);
+            } else {
+                Referenceable entity = getEntity(event);
+
+                if (entity != null) {
+                    current = new EntityVersion(event.getTimestamp(), entity);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * Complete entity as of just before the given event: the closest preceding complete entity with the deltas in
+     * between applied. Null if there is no such entity, or a delta in between is not based on it.
+     */
+    private static EntityVersion getEntityBefore(EntityAuditRepository repository, EntityAuditEvent event)
+            throws AtlasException {
+        List<EntityAuditEvent> deltas   = new ArrayList<>();
+        String                 startKey = event.getEventKey();
+        EntityVersion          ret      = null;
+
+        while (ret == null && startKey != null) {
+            List<EntityAuditEvent> page = repository.listEvents(event.getEntityId(), startKey, SNAPSHOT_SEARCH_PAGE_SIZE);
+
+            startKey = null;
+
+            for (EntityAuditEvent older : page) {
+                // startKey is inclusive; skip the event already seen
+                if (older.getEventKey().equals(event.getEventKey())) {
+                    continue;
+                }
+
+                if (isDelta(older)) {
+                    deltas.add(older);
+                } else {
+                    Referenceable entity = getEntity(older);
+
+                    if (entity != null) {
+                        ret = new EntityVersion(older.getTimestamp(), entity);
+
+                        break;
+                    }
+                }
+
+                event = older;
+            }
+
+            if (ret == null && page.size() == SNAPSHOT_SEARCH_PAGE_SIZE) {
+                startKey = event.getEventKey();
+            }
+        }
+
+        if (ret == null) {
+            LOG.warn("No complete entity found for audit events of entity {}", event.getEntityId());
+
+            return null;
+        }
+
+        Collections.reverse(deltas);
+
+        for (EntityAuditEvent delta : deltas) {
+            if (!ret.apply(delta)) {
+                LOG.warn("Audit event {} of entity {} is not based on the preceding events", delta.getEventKey(),
+                        delta.getEntityId());
+
+                return null;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the complete entity in the event details, null if the event doesn't contain the complete entity
+     */
+    private static Referenceable getEntity(EntityAuditEvent event) {
+        String details = event.getDetails();
+        String json    = null;
+
+        if (details == null) {
+            return null;
+        } else if (event.getAction() == EntityAuditEvent.EntityAuditAction.ENTITY_CREATE && details.startsWith(CREATE_PREFIX)) {
+            json = details.substring(CREATE_PREFIX.length());
+        } else if (event.getAction() == EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE && details.startsWith(UPDATE_PREFIX)) {
+            json = details.substring(UPDATE_PREFIX.length());
+        }
+
+        return json != null ? InstanceSerialization.fromJsonReferenceable(json, true) : null;
+    }
+
+    private static boolean valuesEqual(Object v1, Object v2) throws AtlasException {
+        if (v1 == v2) {
+            return true;
+        }
+
+        if (v1 == null || v2 == null) {
+            return false;
+        }
+
+        if (v1 instanceof Id || v2 instanceof Id) {
+            return v1.equals(v2);
+        }
+
+        if (v1 instanceof IStruct && v2 instanceof IStruct) { // structs and composite entities
+            return InstanceSerialization.toJson((IStruct) v1, true).equals(InstanceSerialization.toJson((IStruct) v2, true));
+        }
+
+        if (v1 instanceof List && v2 instanceof List) {
+            List<?> l1 = (List<?>) v1;
+            List<?> l2 = (List<?>) v2;
+
+            if (l1.size() != l2.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < l1.size(); i++) {
+                if (!valuesEqual(l1.get(i), l2.get(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (v1 instanceof Map && v2 instanceof Map) {
+            Map<?, ?> m1 = (Map<?, ?>) v1;
+            Map<?, ?> m2 = (Map<?, ?>) v2;
+
+            if (!m1.keySet().equals(m2.keySet())) {
+                return false;
+            }
+
+            for (Map.Entry<?, ?> entry : m1.entrySet()) {
+                if (!valuesEqual(entry.getValue(), m2.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return v1.equals(v2);
+    }
+
+    /*
+     * Complete entity rebuilt from the event with timestamp baseTimestamp and the deltas applied since.
+     */
+    private static final class EntityVersion {
+        private final long          baseTimestamp;
+        private Referenceable       entity;
+        private int                 sequence;
+
+        EntityVersion(long baseTimestamp, Referenceable entity) {
+            this.baseTimestamp = baseTimestamp;
+            this.entity        = entity;
+        }
+
+        /**
+         * @return false, leaving the entity unchanged, if the delta is not the next one after this version
+         */
+        boolean apply(EntityAuditEvent deltaEvent) throws AtlasException {
+            try {
+                JSONObject delta = new JSONObject(deltaEvent.getDetails().substring(UPDATE_DELTA_PREFIX.length()));
+
+                if (delta.getLong(DELTA_BASE) != baseTimestamp || delta.getInt(DELTA_SEQUENCE) != sequence + 1) {
+                    return false;
+                }
+
+                sequence++;
+
+                Referenceable changed       = InstanceSerialization.fromJsonReferenceable(delta.getJSONObject(DELTA_ENTITY).toString(), true);
+                JSONArray     removed       = delta.getJSONArray(DELTA_REMOVED);
+                JSONArray     removedTraits = delta.getJSONArray(DELTA_REMOVED_TRAITS);
+
+                for (Map.Entry<String, Object> entry : changed.getValuesMap().entrySet()) {
+                    entity.set(entry.getKey(), entry.getValue());
+                }
+
+                for (int i = 0; i < removed.length(); i++) {
+                    entity.set(removed.getString(i), null);
+                }
+
+                if (!changed.getTraits().isEmpty() || removedTraits.length() > 0) {
+                    applyTraits(changed, removedTraits);
+                }
+
+                return true;
+            } catch (JSONException e) {
+                throw new AtlasException(e);
+            }
+        }
+
+        // the traits of a referenceable can't be changed: the entity is copied with its new traits
+        private void applyTraits(Referenceable changed, JSONArray removedTraits) throws JSONException {
+            List<String>         traitNames = new ArrayList<>(entity.getTraits());
+            Map<String, IStruct> traits     = new HashMap<>();
+
+            for (String traitName : traitNames) {
+                traits.put(traitName, entity.getTrait(traitName));
+            }
+
+            for (String traitName : changed.getTraits()) {
+                if (!traitNames.contains(traitName)) {
+                    traitNames.add(traitName);
+                }
+
+                traits.put(traitName, changed.getTrait(traitName));
+            }
+
+            for (int i = 0; i < removedTraits.length(); i++) {
+                traitNames.remove(removedTraits.getString(i));
+                traits.remove(removedTraits.getString(i));
+            }
+
+            entity = new Referenceable(entity.getId(), entity.getTypeName(), entity.getValuesMap(), traitNames, traits);
+        }
+    }
+}
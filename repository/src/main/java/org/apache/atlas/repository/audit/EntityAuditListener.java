@@ -18,7 +18,10 @@
 
 package org.apache.atlas.repository.audit;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.EntityAuditEvent;
 import org.apache.atlas.RequestContext;
@@ -26,20 +29,45 @@ import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.typesystem.IStruct;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Listener on entity create/update/delete, tag add/delete. Adds the corresponding audit event to the audit repository.
  */
 public class EntityAuditListener implements EntityChangeListener {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityAuditListener.class);
+
     private EntityAuditRepository auditRepository;
 
+    private final boolean auditDeltas;
+    private final int     snapshotInterval;
+
+    // last complete snapshot audited per entity, with the number of delta events since
+    private final Cache<String, Snapshot> snapshots;
+
     @Inject
     public EntityAuditListener(EntityAuditRepository auditRepository) {
-        this.auditRepository = auditRepository;
+        this.auditRepository  = auditRepository;
+        this.auditDeltas      = AtlasConfiguration.ENTITY_AUDIT_DELTA_ENABLED.getBoolean();
+        this.snapshotInterval = AtlasConfiguration.ENTITY_AUDIT_SNAPSHOT_INTERVAL.getInt();
+        this.snapshots        = CacheBuilder.newBuilder().maximumSize(100000).build();
+
+        // deltas are based on the snapshot the repository has: a snapshot or delta that isn't written is forgotten,
+        // so that the next update of the entity writes a complete snapshot
+        if (auditDeltas && auditRepository instanceof HBaseBasedAuditRepository) {
+            ((HBaseBasedAuditRepository) auditRepository).addFailureListener(new AsyncAuditEventWriter.FailureListener() {
+                @Override
+                public void onEventsNotWritten(List<EntityAuditEvent> events) {
+                    forgetSnapshots(events);
+                }
+            });
+        }
     }
 
     @Override
@@ -48,10 +76,32 @@ public class EntityAuditListener implements EntityChangeListener {
         long currentTime = RequestContext.get().getRequestTime();
         for (ITypedReferenceableInstance entity : entities) {
             EntityAuditEvent event = createEvent(entity, currentTime, EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
-                    "Created: " + InstanceSerialization.toJson(entity, true));
+                    EntityAuditDeltas.CREATE_PREFIX, entity);
             events.add(event);
+
+            if (auditDeltas) {
+                snapshots.put(entity.getId()._getId(), new Snapshot(currentTime));
+            }
+        }
+        putEvents(events);
+    }
+
+    private void putEvents(List<EntityAuditEvent> events) throws AtlasException {
+        try {
+            auditRepository.putEvents(events);
+        } catch (AtlasException | RuntimeException e) {
+            forgetSnapshots(events);
+
+            throw e;
+        }
+    }
+
+    private void forgetSnapshots(List<EntityAuditEvent> events) {
+        if (auditDeltas) {
+            for (EntityAuditEvent event : events) {
+                snapshots.invalidate(event.getEntityId());
+            }
         }
-        auditRepository.putEvents(events);
     }
 
     private EntityAuditEvent createEvent(ITypedReferenceableInstance entity, long ts,
@@ -60,23 +110,57 @@ public class EntityAuditListener implements EntityChangeListener {
         return new EntityAuditEvent(entity.getId()._getId(), ts, RequestContext.get().getUser(), action, details, entity);
     }
 
+    private EntityAuditEvent createEvent(ITypedReferenceableInstance entity, long ts,
+                                         EntityAuditEvent.EntityAuditAction action, String detailsPrefix,
+                                         IStruct detailsInstance) throws AtlasException {
+        return new DeferredDetailsEvent(entity.getId()._getId(), ts, RequestContext.get().getUser(), action,
+                detailsPrefix, detailsInstance, null, 0, 0, entity);
+    }
+
+    /**
+     * @return update event of the entity: a delta from its previous version, or the complete entity on the first
+     * update seen by this server and after snapshotInterval deltas
+     */
+    private EntityAuditEvent createUpdateEvent(ITypedReferenceableInstance entity, long ts) throws AtlasException {
+        String                      guid            = entity.getId()._getId();
+        ITypedReferenceableInstance previousVersion = null;
+        long                        baseTimestamp   = 0;
+        int                         sequence        = 0;
+
+        if (auditDeltas) {
+            Snapshot snapshot = snapshots.getIfPresent(guid);
+
+            previousVersion = RequestContext.get().getEntityPreviousVersion(guid);
+
+            if (previousVersion == null || snapshot == null
+                    || (sequence = snapshot.deltas.incrementAndGet()) > snapshotInterval) {
+                snapshots.put(guid, new Snapshot(ts));
+
+                previousVersion = null;
+            } else {
+                baseTimestamp = snapshot.timestamp;
+            }
+        }
+
+        return new DeferredDetailsEvent(guid, ts, RequestContext.get().getUser(),
+                EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE, EntityAuditDeltas.UPDATE_PREFIX, entity,
+                previousVersion, baseTimestamp, sequence, entity);
+    }
+
     @Override
     public void onEntitiesUpdated(Collection<ITypedReferenceableInstance> entities) throws AtlasException {
         List<EntityAuditEvent> events = new ArrayList<>();
         long currentTime = RequestContext.get().getRequestTime();
         for (ITypedReferenceableInstance entity : entities) {
-            EntityAuditEvent event = createEvent(entity, currentTime, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
-                    "Updated: " + InstanceSerialization.toJson(entity, true));
-            events.add(event);
+            events.add(createUpdateEvent(entity, currentTime));
         }
-        auditRepository.putEvents(events);
+        putEvents(events);
     }
 
     @Override
     public void onTraitAdded(ITypedReferenceableInstance entity, IStruct trait) throws AtlasException {
         EntityAuditEvent event = createEvent(entity, RequestContext.get().getRequestTime(),
-                EntityAuditEvent.EntityAuditAction.TAG_ADD,
-                "Added trait: " + InstanceSerialization.toJson(trait, true));
+                EntityAuditEvent.EntityAuditAction.TAG_ADD, "Added trait: ", trait);
         auditRepository.putEvents(event);
     }
 
@@ -96,6 +180,93 @@ public class EntityAuditListener implements EntityChangeListener {
                     EntityAuditEvent.EntityAuditAction.ENTITY_DELETE, "Deleted entity");
             events.add(event);
         }
-        auditRepository.putEvents(events);
+        putEvents(events);
+    }
+
+    /**
+     * Audit event with details "prefix + json of the instance", or the delta from previousVersion to the instance.
+     * The details are computed only when first read, so an asynchronous audit repository does the serialization on
+     * its writer thread instead of the request thread.
+     */
+    static class DeferredDetailsEvent extends EntityAuditEvent {
+        private final transient String                 detailsPrefix;
+        private transient IStruct                      detailsInstance;
+        private transient ITypedReferenceableInstance previousVersion;
+        private final transient long                   baseTimestamp;
+        private final transient int                    sequence;
+
+        DeferredDetailsEvent(String entityId, long ts, String user, EntityAuditAction action, String detailsPrefix,
+                             IStruct detailsInstance, ITypedReferenceableInstance previousVersion,
+                             long baseTimestamp, int sequence, ITypedReferenceableInstance entity)
+                throws AtlasException {
+            super(entityId, ts, user, action, null, entity);
+
+            this.detailsPrefix   = detailsPrefix;
+            this.detailsInstance = detailsInstance;
+            this.previousVersion = previousVersion;
+            this.baseTimestamp   = baseTimestamp;
+            this.sequence        = sequence;
+        }
+
+        @Override
+        public synchronized String getDetails() {
+            if (detailsInstance != null) {
+                String details = null;
+
+                if (previousVersion != null) {
+                    try {
+                        details = EntityAuditDeltas.getDeltaDetails(previousVersion, (ITypedReferenceableInstance) detailsInstance,
+                                baseTimestamp, sequence);
+                    } catch (AtlasException e) {
+                        LOG.warn("Failed to compute audit delta for entity {}; auditing complete entity", getEntityId(), e);
+                    }
+                }
+
+                if (details == null) {
+                    details = detailsPrefix + InstanceSerialization.toJson(detailsInstance, true);
+                }
+
+                setDetails(details);
+
+                detailsInstance = null;
+                previousVersion = null;
+            }
+
+            return super.getDetails();
+        }
+
+        /*
+         * The details field of EntityAuditEvent is read directly by its equals(), hashCode() and toString(); it is
+         * computed first, so the result doesn't depend on whether the details were already read.
+         */
+        @Override
+        public boolean equals(Object other) {
+            getDetails();
+
+            return super.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            getDetails();
+
+            return super.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            getDetails();
+
+            return super.toString();
+        }
+    }
+
+    private static final class Snapshot {
+        private final long          timestamp;
+        private final AtomicInteger deltas = new AtomicInteger();
+
+        Snapshot(long timestamp) {
+            this.timestamp = timestamp;
+        }
     }
 }
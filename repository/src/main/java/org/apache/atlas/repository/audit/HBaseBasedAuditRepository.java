@@ -54,6 +54,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * HBase based repository for entity audit events
@@ -79,6 +80,12 @@ public class HBaseBasedAuditRepository implements Service, EntityAuditRepository
 
     public static final String CONFIG_PERSIST_ENTITY_DEFINITION = CONFIG_PREFIX + ".persistEntityDefinition";
 
+    public static final String CONFIG_ASYNC_ENABLED           = CONFIG_PREFIX + ".hbase.async.enabled";
+    public static final String CONFIG_ASYNC_QUEUE_SIZE        = CONFIG_PREFIX + ".hbase.async.queue.size";
+    public static final String CONFIG_ASYNC_BATCH_SIZE        = CONFIG_PREFIX + ".hbase.async.batch.size";
+    public static final String CONFIG_ASYNC_FLUSH_INTERVAL_MS = CONFIG_PREFIX + ".hbase.async.flush.interval.ms";
+    public static final String CONFIG_ASYNC_SPILL_DIR         = CONFIG_PREFIX + ".hbase.async.spill.dir";
+
     public static final byte[] COLUMN_FAMILY = Bytes.toBytes("dt");
     public static final byte[] COLUMN_ACTION = Bytes.toBytes("a");
     public static final byte[] COLUMN_DETAIL = Bytes.toBytes("d");
@@ -96,6 +103,9 @@ public class HBaseBasedAuditRepository implements Service, EntityAuditRepository
     }
     private TableName tableName;
     private Connection connection;
+    private AsyncAuditEventWriter asyncWriter;
+
+    private final List<AsyncAuditEventWriter.FailureListener> failureListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Add events to the event repository
@@ -114,6 +124,19 @@ public class HBaseBasedAuditRepository implements Service, EntityAuditRepository
      * @throws AtlasException
      */
     public void putEvents(List<EntityAuditEvent> events) throws AtlasException {
+        if (asyncWriter != null) {
+            asyncWriter.add(events);
+        } else {
+            writeEvents(events);
+        }
+    }
+
+    /**
+     * Writes the events to the HBase table as one multi-row put
+     * @param events events to be written
+     * @throws AtlasException
+     */
+    void writeEvents(List<EntityAuditEvent> events) throws AtlasException {
         LOG.info("Putting {} events", events.size());
         Table table = null;
         try {
@@ -315,6 +338,54 @@ public class HBaseBasedAuditRepository implements Service, EntityAuditRepository
             LOG.info("HA is disabled. Hence creating table on startup.");
             createTableIfNotExists();
         }
+
+        startAsyncWriter(atlasConf);
+    }
+
+    /**
+     * Async mode: putEvents() only queues the events, a background writer puts them to HBase in batches.
+     * Sync mode (default): the events are in HBase when putEvents() returns.
+     */
+    private void startAsyncWriter(Configuration atlasConf) {
+        if (!atlasConf.getBoolean(CONFIG_ASYNC_ENABLED, false)) {
+            LOG.info("Entity audit events are written synchronously");
+            return;
+        }
+
+        asyncWriter = new AsyncAuditEventWriter(new AsyncAuditEventWriter.EventSink() {
+            @Override
+            public void write(List<EntityAuditEvent> events) throws AtlasException {
+                writeEvents(events);
+            }
+        }, atlasConf.getInt(CONFIG_ASYNC_QUEUE_SIZE, 10000), atlasConf.getInt(CONFIG_ASYNC_BATCH_SIZE, 1000),
+           atlasConf.getLong(CONFIG_ASYNC_FLUSH_INTERVAL_MS, 1000), atlasConf.getString(CONFIG_ASYNC_SPILL_DIR));
+
+        asyncWriter.setFailureListener(new AsyncAuditEventWriter.FailureListener() {
+            @Override
+            public void onEventsNotWritten(List<EntityAuditEvent> events) {
+                for (AsyncAuditEventWriter.FailureListener listener : failureListeners) {
+                    listener.onEventsNotWritten(events);
+                }
+            }
+        });
+
+        asyncWriter.start();
+        asyncWriter.registerGauges();
+    }
+
+    /**
+     * Adds a listener told about the events the asynchronous writer failed to write, or dropped. The events that
+     * putEvents() fails to write synchronously are reported to its caller by the exception.
+     */
+    public void addFailureListener(AsyncAuditEventWriter.FailureListener listener) {
+        failureListeners.add(listener);
+    }
+
+    /**
+     * @return the asynchronous writer, null if events are written synchronously
+     */
+    public AsyncAuditEventWriter getAsyncWriter() {
+        return asyncWriter;
     }
 
     @VisibleForTesting
@@ -324,6 +395,11 @@ public class HBaseBasedAuditRepository implements Service, EntityAuditRepository
 
     @Override
     public void stop() throws AtlasException {
+        if (asyncWriter != null) {
+            asyncWriter.stop();
+            asyncWriter = null;
+        }
+
         close(connection);
     }
 
@@ -23,7 +23,6 @@ import static org.apache.atlas.repository.graph.GraphHelper.string;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -73,31 +72,46 @@ public abstract class DeleteHandler {
     public void deleteEntities(List<AtlasVertex> instanceVertices) throws AtlasException {
        RequestContext requestContext = RequestContext.get();
 
-       Set<AtlasVertex> deletionCandidateVertices = new HashSet<>();
+       List<AtlasVertex> rootVertices = new ArrayList<>(instanceVertices.size());
 
        for (AtlasVertex instanceVertex : instanceVertices) {
             String guid = GraphHelper.getIdFromVertex(instanceVertex);
             Id.EntityState state = GraphHelper.getState(instanceVertex);
-            if (requestContext.getDeletedEntityIds().contains(guid) || state == Id.EntityState.DELETED) {
+            if (requestContext.isDeletedEntity(guid) || state == Id.EntityState.DELETED) {
                    LOG.debug("Skipping deletion of {} as it is already deleted", guid);
                    continue;
             }
 
-           // Get GUIDs and vertices for all deletion candidates.
-           Set<VertexInfo> compositeVertices = graphHelper.getCompositeVertices(instanceVertex);
+           rootVertices.add(instanceVertex);
+       }
 
-           // Record all deletion candidate GUIDs in RequestContext
-           // and gather deletion candidate vertices.
-           for (VertexInfo vertexInfo : compositeVertices) {
-               requestContext.recordEntityDelete(vertexInfo.getGuid(), vertexInfo.getTypeName());
-               deletionCandidateVertices.add(vertexInfo.getVertex());
-           }
+       if (rootVertices.isEmpty()) {
+           return;
        }
 
-       // Delete traits and vertices.
-       for (AtlasVertex deletionCandidateVertex : deletionCandidateVertices) {
-           deleteAllTraits(deletionCandidateVertex);
-           deleteTypeVertex(deletionCandidateVertex, false);
+       // Get GUIDs and vertices for all deletion candidates, with one traversal of the composite entities of all
+       // the deleted entities.
+       Set<VertexInfo> compositeVertices = graphHelper.getCompositeVertices(rootVertices);
+
+       // Record all deletion candidate GUIDs in RequestContext
+       // and gather deletion candidate vertices.
+       List<AtlasVertex> deletionCandidateVertices = new ArrayList<>(compositeVertices.size());
+
+       for (VertexInfo vertexInfo : compositeVertices) {
+           requestContext.recordEntityDelete(vertexInfo.getGuid(), vertexInfo.getTypeName());
+           deletionCandidateVertices.add(vertexInfo.getVertex());
+       }
+
+       // Delete traits and vertices. Soft deletes keep the vertices, so the entities cached for the request are
+       // dropped here for both delete handlers.
+       try {
+           for (AtlasVertex deletionCandidateVertex : deletionCandidateVertices) {
+               graphHelper.invalidateUniqueAttributes(deletionCandidateVertex);
+               deleteAllTraits(deletionCandidateVertex);
+               deleteTypeVertex(deletionCandidateVertex, false);
+           }
+       } finally {
+           RequestGraphCache.get().invalidateEntities();
        }
     }
 
@@ -249,6 +263,7 @@ public abstract class DeleteHandler {
     protected void deleteVertex(AtlasVertex instanceVertex, boolean force) throws AtlasException {
         //Update external references(incoming edges) to this vertex
         LOG.debug("Setting the external references to {} to null(removing edges)", string(instanceVertex));
+        RequestContext requestContext = RequestContext.get();
         Iterator<AtlasEdge> edges = instanceVertex.getEdges(AtlasEdgeDirection.IN).iterator();
 
         while(edges.hasNext()) {
@@ -256,9 +271,17 @@ public abstract class DeleteHandler {
             Id.EntityState edgeState = GraphHelper.getState(edge);
             if (edgeState == Id.EntityState.ACTIVE) {
                 //Delete only the active edge references
+                AtlasVertex outVertex = edge.getOutVertex();
+                String outId = GraphHelper.getIdFromVertex(outVertex);
+                if (outId != null && requestContext.isDeletedEntity(outId)) {
+                    //References from entities deleted in this request are removed with them, like the edges from
+                    //a deleted table to its deleted columns. Skip them before resolving the attribute of the edge
+                    continue;
+                }
+
                 AttributeInfo attribute = getAttributeForEdge(edge.getLabel());
                 //TODO use delete edge instead??
-                deleteEdgeBetweenVertices(edge.getOutVertex(), edge.getInVertex(), attribute.name);
+                deleteEdgeBetweenVertices(outVertex, edge.getInVertex(), attribute.name);
             }
         }
         _deleteVertex(instanceVertex, force);
@@ -0,0 +1,445 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.typesystem.exception.EntityNotFoundException;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the full text property of entities on a background thread, used when
+ * atlas.fulltext.deferred.enabled is true.
+ *
+ * Entities are flagged as pending in the transaction that changes them, and queued once it commits. Repeated updates
+ * of an entity that are queued before its full text is computed result in a single computation, from the latest
+ * state of the entity. The queue is drained when the server stops; entities still flagged when the indexer starts,
+ * e.g. after a crash, are queued again.
+ *
+ * The entities of a batch are indexed in one transaction. If it fails to commit, each entity of the batch is indexed
+ * in a transaction of its own, so that one failing entity doesn't hold back the others. A failed entity is retried
+ * after a delay that doubles on every failure, and dropped, still flagged, after maxAttempts failures.
+ */
+public class FullTextIndexer {
+    private static final Logger LOG = LoggerFactory.getLogger(FullTextIndexer.class);
+
+    private static final long STOP_TIMEOUT_SECONDS = 60;
+    private static final long MAX_RETRY_DELAY_MS   = TimeUnit.MINUTES.toMillis(5);
+
+    private static volatile FullTextIndexer INSTANCE;
+
+    private final AtlasGraph  graph;
+    private final GraphHelper graphHelper;
+    private final long        intervalMs;
+    private final int         maxAttempts;
+    private final long        retryDelayMs;
+    private final Set<String> pendingGuids = new LinkedHashSet<>();
+    private final AtomicLong  droppedCount = new AtomicLong();
+
+    // failed entities waiting for a retry, guarded by pendingGuids
+    private final Map<String, Failure> failures = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread           indexerThread;
+
+    FullTextIndexer(AtlasGraph graph, long intervalMs, int maxAttempts, long retryDelayMs) {
+        this.graph        = graph;
+        this.graphHelper  = GraphHelper.getInstance();
+        this.intervalMs   = intervalMs;
+        this.maxAttempts  = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    public static boolean isEnabled() {
+        return AtlasConfiguration.FULLTEXT_DEFERRED_ENABLED.getBoolean();
+    }
+
+    public static FullTextIndexer getInstance() {
+        if (INSTANCE == null) {
+            synchronized (FullTextIndexer.class) {
+                if (INSTANCE == null) {
+                    final FullTextIndexer indexer = new FullTextIndexer(AtlasGraphProvider.getGraphInstance(),
+                            AtlasConfiguration.FULLTEXT_DEFERRED_INTERVAL_MS.getLong(),
+                            AtlasConfiguration.FULLTEXT_DEFERRED_MAX_ATTEMPTS.getInt(),
+                            AtlasConfiguration.FULLTEXT_DEFERRED_RETRY_DELAY_MS.getLong());
+
+                    indexer.start();
+
+                    AtlasMetrics.registerGauge("FullTextIndexer.pendingCount", new AtlasMetrics.Gauge() {
+                        @Override
+                        public Object getValue() {
+                            return indexer.getPendingCount();
+                        }
+                    });
+
+                    AtlasMetrics.registerGauge("FullTextIndexer.droppedCount", new AtlasMetrics.Gauge() {
+                        @Override
+                        public Object getValue() {
+                            return indexer.getDroppedCount();
+                        }
+                    });
+
+                    INSTANCE = indexer;
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Stops the indexer, if it was started, after computing the full text of the queued entities.
+     */
+    public static void stopInstance() {
+        synchronized (FullTextIndexer.class) {
+            if (INSTANCE != null) {
+                INSTANCE.stop();
+
+                INSTANCE = null;
+            }
+        }
+    }
+
+    /**
+     * Flags the entity vertices as pending in the current graph transaction, and queues them when it commits
+     * successfully.
+     */
+    public void addAfterCommit(Collection<AtlasVertex> vertices) {
+        final List<String> guids = new ArrayList<>(vertices.size());
+
+        for (AtlasVertex vertex : vertices) {
+            GraphHelper.setProperty(vertex, Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY, Boolean.TRUE);
+
+            guids.add(GraphHelper.getIdFromVertex(vertex));
+        }
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    add(guids);
+                }
+            }
+        };
+    }
+
+    /**
+     * Queues the entities. An entity that failed before is retried right away, with its attempts reset, as the update
+     * may have fixed it.
+     */
+    public void add(Collection<String> guids) {
+        synchronized (pendingGuids) {
+            pendingGuids.addAll(guids);
+            failures.keySet().removeAll(guids);
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pendingGuids) {
+            return pendingGuids.size();
+        }
+    }
+
+    /**
+     * @return number of entities dropped after failing maxAttempts times
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        addFlaggedEntities();
+
+        running       = true;
+        indexerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    synchronized (pendingGuids) {
+                        try {
+                            pendingGuids.wait(intervalMs);
+                        } catch (InterruptedException e) {
+                            LOG.info("Full text indexer interrupted; stopping");
+
+                            running = false;
+                        }
+                    }
+
+                    indexPending();
+                }
+            }
+        }, "atlas-fulltext-indexer");
+
+        indexerThread.setDaemon(true);
+        indexerThread.start();
+    }
+
+    /**
+     * Stops the indexer thread, then computes the full text of the entities still queued.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+
+        synchronized (pendingGuids) {
+            pendingGuids.notifyAll();
+        }
+
+        // not interrupted, to let a batch in progress commit
+        try {
+            indexerThread.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (indexerThread.isAlive()) {
+            LOG.warn("Full text indexer didn't stop in {} seconds; {} entities will be indexed on restart",
+                    STOP_TIMEOUT_SECONDS, getPendingCount());
+        } else {
+            indexPending();
+        }
+
+        indexerThread = null;
+
+        LOG.info("Stopped full text indexer");
+    }
+
+    /*
+     * Queues the entities flagged by transactions that committed without their full text being computed.
+     */
+    private void addFlaggedEntities() {
+        List<String> guids = new ArrayList<>();
+
+        try {
+            AtlasGraphQuery query = graph.query().has(Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY, Boolean.TRUE);
+
+            for (AtlasVertex vertex : (Iterable<AtlasVertex>) query.vertices()) {
+                guids.add(GraphHelper.getIdFromVertex(vertex));
+            }
+
+            graph.commit();
+        } catch (Exception e) {
+            LOG.error("Failed to find entities pending full text computation", e);
+
+            graph.rollback();
+        }
+
+        if (!guids.isEmpty()) {
+            LOG.info("Queued {} entities pending full text computation", guids.size());
+
+            add(guids);
+        }
+    }
+
+    /**
+     * Computes the full text of the queued entities that aren't waiting for a retry, in one graph transaction; if it
+     * fails, in one transaction per entity.
+     */
+    void indexPending() {
+        List<String> guids = takePendingGuids();
+
+        if (guids.isEmpty()) {
+            return;
+        }
+
+        // entities read for a batch are cached in a request context of their own, dropped when the batch completes
+        RequestContext.createContext();
+
+        try {
+            Set<String> failedGuids;
+
+            try {
+                failedGuids = index(guids);
+            } catch (Exception e) {
+                LOG.warn("Failed to save full text of {} entities; indexing them one at a time", guids.size(), e);
+
+                failedGuids = new LinkedHashSet<>();
+
+                for (String guid : guids) {
+                    try {
+                        failedGuids.addAll(index(Collections.singletonList(guid)));
+                    } catch (Exception e2) {
+                        LOG.warn("Failed to save full text of entity {}", guid, e2);
+
+                        failedGuids.add(guid);
+                    }
+                }
+            }
+
+            onIndexed(guids, failedGuids);
+
+            LOG.debug("Computed full text of {} entities; {} failed", guids.size() - failedGuids.size(),
+                    failedGuids.size());
+        } finally {
+            RequestContext.clear();
+        }
+    }
+
+    /*
+     * Takes the queued entities, except those whose retry isn't due yet.
+     */
+    private List<String> takePendingGuids() {
+        List<String> ret = new ArrayList<>();
+        long         now = System.currentTimeMillis();
+
+        synchronized (pendingGuids) {
+            for (Iterator<String> iter = pendingGuids.iterator(); iter.hasNext(); ) {
+                String  guid    = iter.next();
+                Failure failure = failures.get(guid);
+
+                if (failure == null || failure.retryTime <= now) {
+                    ret.add(guid);
+                    iter.remove();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * Computes the full text of the entities in one graph transaction. Entities whose full text couldn't be computed
+     * are left flagged as pending.
+     *
+     * @return guids of the entities whose full text couldn't be computed
+     * @throws Exception if the transaction failed; it is rolled back
+     */
+    private Set<String> index(List<String> guids) throws Exception {
+        Set<String>    ret            = new LinkedHashSet<>();
+        FullTextMapper fullTextMapper = new FullTextMapper(new GraphToTypedInstanceMapper(graph));
+
+        try {
+            for (String guid : guids) {
+                AtlasVertex instanceVertex;
+
+                try {
+                    instanceVertex = graphHelper.getVertexForGUID(guid);
+                } catch (EntityNotFoundException e) {
+                    LOG.debug("Entity {} no longer exists; skipping full text", guid);
+
+                    continue;
+                }
+
+                try {
+                    String fullText = fullTextMapper.mapRecursive(instanceVertex, true);
+                    GraphHelper.setProperty(instanceVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
+                } catch (Exception e) {
+                    LOG.warn("Failed to compute full text of entity {}", guid, e);
+
+                    ret.add(guid);
+
+                    continue;
+                }
+
+                instanceVertex.removeProperty(Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY);
+            }
+
+            graph.commit();
+        } catch (Exception e) {
+            graph.rollback();
+
+            // vertices read in the transaction may not exist anymore
+            RequestGraphCache.get().clear();
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /*
+     * Forgets the failures of the entities indexed, and queues the failed entities for a retry, or drops them after
+     * maxAttempts failures.
+     */
+    private void onIndexed(List<String> guids, Set<String> failedGuids) {
+        long now = System.currentTimeMillis();
+
+        synchronized (pendingGuids) {
+            for (String guid : guids) {
+                if (!failedGuids.contains(guid)) {
+                    failures.remove(guid);
+
+                    continue;
+                }
+
+                // the entity was updated, and queued afresh, while it was being indexed
+                if (pendingGuids.contains(guid) && !failures.containsKey(guid)) {
+                    continue;
+                }
+
+                Failure failure = failures.get(guid);
+
+                if (failure == null) {
+                    failure = new Failure();
+
+                    failures.put(guid, failure);
+                }
+
+                failure.attempts++;
+
+                if (failure.attempts >= maxAttempts) {
+                    LOG.error("Failed to compute full text of entity {} in {} attempts; dropped until it is updated "
+                            + "again or the server restarts", guid, failure.attempts);
+
+                    failures.remove(guid);
+                    pendingGuids.remove(guid);
+                    droppedCount.incrementAndGet();
+                } else {
+                    failure.retryTime = now + getRetryDelay(failure.attempts);
+
+                    pendingGuids.add(guid);
+                }
+            }
+        }
+    }
+
+    private long getRetryDelay(int attempts) {
+        return Math.min(retryDelayMs << Math.min(attempts - 1, 20), MAX_RETRY_DELAY_MS);
+    }
+
+    private static class Failure {
+        int  attempts;
+        long retryTime;
+    }
+}
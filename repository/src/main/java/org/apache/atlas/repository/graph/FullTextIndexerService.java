@@ -0,0 +1,41 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import com.google.inject.Singleton;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.service.Service;
+
+/**
+ * Starts the deferred full text indexer with the server, so that the entities left pending by the previous run are
+ * indexed, and drains its queue when the server stops.
+ */
+@Singleton
+public class FullTextIndexerService implements Service {
+    @Override
+    public void start() throws AtlasException {
+        if (FullTextIndexer.isEnabled()) {
+            FullTextIndexer.getInstance();
+        }
+    }
+
+    @Override
+    public void stop() throws AtlasException {
+        FullTextIndexer.stopInstance();
+    }
+}
@@ -21,15 +21,22 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.typesystem.ITypedInstance;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.persistence.Id;
 import org.apache.atlas.typesystem.types.AttributeInfo;
+import org.apache.atlas.typesystem.types.ClassType;
 import org.apache.atlas.typesystem.types.DataTypes;
 import org.apache.atlas.typesystem.types.EnumValue;
 import org.apache.atlas.typesystem.types.IDataType;
+import org.apache.atlas.typesystem.types.TypeSystem;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,13 +51,32 @@ public class FullTextMapper {
     private static final String FULL_TEXT_DELIMITER = " ";
     private final Map<String, ITypedReferenceableInstance> instanceCache;
 
-    FullTextMapper(GraphToTypedInstanceMapper graphToTypedInstanceMapper) {
+    // vertices of the entities created in this request, for references with unassigned ids
+    private final Map<Id, AtlasVertex> idToVertexMap;
+
+    // per entity guid: full text without followed references, as used for references to the entity
+    private final Map<String, String> referenceTextCache = new HashMap<>();
+
+    // per entity guid: full text fragments of the attributes and traits, for incremental updates
+    private final Map<String, EntityFragments> fragmentCache = new HashMap<>();
+
+    public FullTextMapper(GraphToTypedInstanceMapper graphToTypedInstanceMapper) {
+        this(graphToTypedInstanceMapper, Collections.<Id, AtlasVertex>emptyMap());
+    }
+
+    FullTextMapper(GraphToTypedInstanceMapper graphToTypedInstanceMapper, Map<Id, AtlasVertex> idToVertexMap) {
         this.graphToTypedInstanceMapper = graphToTypedInstanceMapper;
+        this.idToVertexMap = idToVertexMap;
         instanceCache = new HashMap<>();
     }
 
     public String mapRecursive(AtlasVertex instanceVertex, boolean followReferences) throws AtlasException {
         String guid = GraphHelper.getIdFromVertex(instanceVertex);
+
+        if (!followReferences && referenceTextCache.containsKey(guid)) {
+            return referenceTextCache.get(guid);
+        }
+
         ITypedReferenceableInstance typedReference;
         if (instanceCache.containsKey(guid)) {
             typedReference = instanceCache.get(guid);
@@ -71,9 +97,142 @@ public class FullTextMapper {
             fullTextBuilder.append(FULL_TEXT_DELIMITER).append(traitName).append(FULL_TEXT_DELIMITER)
                 .append(traitText);
         }
+
+        String ret = fullTextBuilder.toString();
+
+        if (!followReferences) {
+            referenceTextCache.put(guid, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Full text of an entity that was just written to its vertex. The same text as mapRecursive(instanceVertex, true),
+     * but only the fragments of the written attributes are computed from the instance; the fragments of the other
+     * attributes and of the traits are taken from earlier computations in this request, or read from the vertex
+     * one attribute/trait at a time, instead of mapping the complete entity (and its composite entities) back from
+     * the graph.
+     *
+     * @param writtenAttributes names of the attributes written to the vertex; null if all attributes were written
+     * @param traitsWritten true if the instance has all the traits of the entity, as on create
+     */
+    public String mapInstance(ITypedReferenceableInstance instance, AtlasVertex instanceVertex,
+                              Collection<String> writtenAttributes, boolean traitsWritten) throws AtlasException {
+        String          guid      = GraphHelper.getIdFromVertex(instanceVertex);
+        String          typeName  = instance.getTypeName();
+        EntityFragments fragments = fragmentCache.get(guid);
+
+        if (fragments == null) {
+            fragments = new EntityFragments();
+
+            fragmentCache.put(guid, fragments);
+        }
+
+        // the entity has changed: full text computed for references to it, or from the graph, is stale
+        referenceTextCache.remove(guid);
+        instanceCache.remove(guid);
+
+        ITypedInstance storedInstance = null;
+        StringBuilder  attrsText      = new StringBuilder();
+
+        for (AttributeInfo attributeInfo : instance.fieldMapping().fields.values()) {
+            if (!hasFullText(attributeInfo.dataType(), true)) {
+                continue;
+            }
+
+            String attrText;
+
+            if (writtenAttributes == null || writtenAttributes.contains(attributeInfo.name)) {
+                attrText = forAttribute(attributeInfo.dataType(), instance.get(attributeInfo.name), true);
+
+                fragments.attributes.put(attributeInfo.name, attrText);
+            } else if (fragments.attributes.containsKey(attributeInfo.name)) {
+                attrText = fragments.attributes.get(attributeInfo.name);
+            } else {
+                if (storedInstance == null) {
+                    storedInstance = TypeSystem.getInstance().getDataType(ClassType.class, typeName).createInstance();
+                }
+
+                graphToTypedInstanceMapper.mapVertexToAttribute(instanceVertex, storedInstance, attributeInfo);
+
+                attrText = forAttribute(attributeInfo.dataType(), storedInstance.get(attributeInfo.name), true);
+
+                fragments.attributes.put(attributeInfo.name, attrText);
+            }
+
+            if (StringUtils.isNotEmpty(attrText)) {
+                attrsText.append(FULL_TEXT_DELIMITER).append(attributeInfo.name).append(FULL_TEXT_DELIMITER)
+                        .append(attrText);
+            }
+        }
+
+        if (traitsWritten) {
+            fragments.traits = new LinkedHashMap<>();
+
+            for (String traitName : instance.getTraits()) {
+                fragments.traits.put(traitName, forInstance((ITypedInstance) instance.getTrait(traitName), false));
+            }
+        } else if (fragments.traits == null) {
+            fragments.traits = new LinkedHashMap<>();
+
+            for (String traitName : GraphHelper.getTraitNames(instanceVertex)) {
+                ITypedStruct trait = graphToTypedInstanceMapper.mapVertexToTrait(instanceVertex, typeName, traitName);
+
+                fragments.traits.put(traitName, forInstance(trait, false));
+            }
+        }
+
+        StringBuilder fullTextBuilder =
+            new StringBuilder(typeName).append(FULL_TEXT_DELIMITER).append(attrsText);
+
+        for (Map.Entry<String, String> trait : fragments.traits.entrySet()) {
+            fullTextBuilder.append(FULL_TEXT_DELIMITER).append(trait.getKey()).append(FULL_TEXT_DELIMITER)
+                .append(trait.getValue());
+        }
+
         return fullTextBuilder.toString();
     }
 
+    /**
+     * Full text of an entity whose attributes were just written to its vertex by a writer that doesn't have the
+     * entity as a typed instance, like the v2 entity store. As mapInstance(), with the written attributes read back
+     * from the vertex one attribute at a time; the traits are taken from the vertex.
+     *
+     * @param writtenAttributes names of the attributes written to the vertex; null if all attributes were written
+     */
+    public String mapVertex(AtlasVertex instanceVertex, Collection<String> writtenAttributes) throws AtlasException {
+        ClassType                   type     = TypeSystem.getInstance().getDataType(ClassType.class,
+                                                                                    GraphHelper.getTypeName(instanceVertex));
+        ITypedReferenceableInstance instance = type.createInstance();
+
+        for (AttributeInfo attributeInfo : type.fieldMapping().fields.values()) {
+            if ((writtenAttributes == null || writtenAttributes.contains(attributeInfo.name))
+                    && hasFullText(attributeInfo.dataType(), true)) {
+                graphToTypedInstanceMapper.mapVertexToAttribute(instanceVertex, instance, attributeInfo);
+            }
+        }
+
+        return mapInstance(instance, instanceVertex, writtenAttributes, false);
+    }
+
+    /**
+     * @return false if values of the type never add to the full text, so that they needn't be read
+     */
+    private static boolean hasFullText(IDataType type, boolean followReferences) {
+        switch (type.getTypeCategory()) {
+        case ARRAY:
+            return hasFullText(((DataTypes.ArrayType) type).getElemType(), false);
+
+        case CLASS:
+        case STRUCT:
+            return followReferences;
+
+        default:
+            return true;
+        }
+    }
+
     private String forAttribute(IDataType type, Object value, boolean followReferences)
         throws AtlasException {
         if (value == null) {
@@ -120,9 +279,10 @@ public class FullTextMapper {
 
         case CLASS:
             if (followReferences) {
-                String refGuid = ((ITypedReferenceableInstance) value).getId()._getId();
-                AtlasVertex refVertex = graphHelper.getVertexForGUID(refGuid);
-                return mapRecursive(refVertex, false);
+                Id refId = ((ITypedReferenceableInstance) value).getId();
+                AtlasVertex refVertex = refId.isAssigned() ? graphHelper.getVertexForGUID(refId._getId())
+                        : idToVertexMap.get(refId);
+                return refVertex != null ? mapRecursive(refVertex, false) : null;
             }
             break;
 
@@ -157,4 +317,9 @@ public class FullTextMapper {
         }
         return fullText.toString();
     }
+
+    private static class EntityFragments {
+        final Map<String, String> attributes = new HashMap<>();
+        Map<String, String>       traits;
+    }
 }
@@ -21,10 +21,20 @@ package org.apache.atlas.repository.graph;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.RequestContext;
@@ -35,12 +45,12 @@ import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.ITypedStruct;
 import org.apache.atlas.typesystem.exception.EntityExistsException;
 import org.apache.atlas.typesystem.exception.EntityNotFoundException;
 import org.apache.atlas.typesystem.exception.TraitNotFoundException;
-import org.apache.atlas.typesystem.persistence.Id;
 import org.apache.atlas.typesystem.types.AttributeInfo;
 import org.apache.atlas.typesystem.types.ClassType;
 import org.apache.atlas.typesystem.types.DataTypes;
@@ -50,6 +60,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -72,11 +83,20 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
 
     private GraphToTypedInstanceMapper graphToInstanceMapper;
 
+    private final int multiGetThreads;
+
+    // maps the entities of a multi-get; null if they are mapped in the request thread
+    private final ExecutorService multiGetExecutor;
+
     @Inject
     public GraphBackedMetadataRepository(DeleteHandler deleteHandler) {
         this.graph = AtlasGraphProvider.getGraphInstance();
         graphToInstanceMapper = new GraphToTypedInstanceMapper(graph);
         this.deleteHandler = deleteHandler;
+
+        multiGetThreads  = AtlasConfiguration.ENTITY_MULTIGET_THREADS.getInt();
+        multiGetExecutor = multiGetThreads > 1 ? Executors.newFixedThreadPool(multiGetThreads,
+                new ThreadFactoryBuilder().setNameFormat("atlas-entity-multiget-%d").setDaemon(true).build()) : null;
     }
 
     public GraphToTypedInstanceMapper getGraphToInstanceMapper() {
@@ -148,17 +168,158 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
     @Override
     @GraphTransaction
     public ITypedReferenceableInstance getEntityDefinition(String guid) throws RepositoryException, EntityNotFoundException {
-        LOG.debug("Retrieving entity with guid={}", guid);
+        return getEntityDefinition(guid, EntityProjection.ALL);
+    }
+
+    @Override
+    @GraphTransaction
+    public ITypedReferenceableInstance getEntityDefinition(String guid, EntityProjection projection)
+            throws RepositoryException, EntityNotFoundException {
+        LOG.debug("Retrieving entity with guid={}, projection={}", guid, projection);
 
         AtlasVertex instanceVertex = graphHelper.getVertexForGUID(guid);
 
         try {
-            return graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
+            return graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex, projection);
         } catch (AtlasException e) {
             throw new RepositoryException(e);
         }
     }
 
+    @Override
+    @GraphTransaction
+    public List<ITypedReferenceableInstance> getEntityDefinitions(List<String> guids, EntityProjection projection)
+            throws RepositoryException, EntityNotFoundException {
+        LOG.debug("Retrieving entities with guids={}, projection={}", guids, projection);
+
+        Map<String, AtlasVertex>                 vertices = graphHelper.getVerticesForGUIDs(guids);
+        Map<String, ITypedReferenceableInstance> instances;
+
+        try {
+            if (multiGetExecutor == null || vertices.size() == 1) {
+                instances = mapVertices(vertices, projection);
+            } else {
+                instances = mapVerticesInParallel(vertices, projection);
+            }
+        } catch (EntityNotFoundException | RepositoryException e) {
+            throw e;
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+
+        List<ITypedReferenceableInstance> ret = new ArrayList<>(guids.size());
+
+        for (String guid : guids) {
+            ret.add(instances.get(guid));
+        }
+
+        return ret;
+    }
+
+    private Map<String, ITypedReferenceableInstance> mapVertices(Map<String, AtlasVertex> vertices,
+                                                                 EntityProjection projection) throws AtlasException {
+        Map<String, ITypedReferenceableInstance> ret = new HashMap<>();
+
+        for (Map.Entry<String, AtlasVertex> entry : vertices.entrySet()) {
+            ret.put(entry.getKey(), graphToInstanceMapper.mapGraphToTypedInstance(entry.getKey(), entry.getValue(),
+                    projection));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Maps the vertices on the multi-get threads, each with a part of the guids. Graph transactions are per thread,
+     * so a worker reads the vertices again by id in its own transaction, which it rolls back when done. The entities
+     * mapped by the workers, including the composite entities they refer to, are shared in one instance cache, so
+     * an entity referred to by several of the requested entities is mapped once.
+     */
+    private Map<String, ITypedReferenceableInstance> mapVerticesInParallel(Map<String, AtlasVertex> vertices,
+                                                                           final EntityProjection projection)
+            throws AtlasException {
+        final RequestContext                           context             = RequestContext.get();
+        final Map<String, ITypedReferenceableInstance> sharedInstanceCache = new ConcurrentHashMap<>();
+
+        int                       numWorkers = Math.min(multiGetThreads, vertices.size());
+        List<Map<String, String>> partitions = new ArrayList<>(numWorkers);
+
+        for (int i = 0; i < numWorkers; i++) {
+            partitions.add(new LinkedHashMap<String, String>());
+        }
+
+        int idx = 0;
+
+        for (Map.Entry<String, AtlasVertex> entry : vertices.entrySet()) {
+            partitions.get(idx++ % numWorkers).put(entry.getKey(), entry.getValue().getId().toString());
+        }
+
+        List<Future<Map<String, ITypedReferenceableInstance>>> futures = new ArrayList<>(numWorkers);
+
+        for (final Map<String, String> partition : partitions) {
+            futures.add(multiGetExecutor.submit(new Callable<Map<String, ITypedReferenceableInstance>>() {
+                @Override
+                public Map<String, ITypedReferenceableInstance> call() throws AtlasException {
+                    RequestContext.createWorkerContext(context.getUser(), context.getRequestTime());
+                    RequestGraphCache.createWorkerCache(sharedInstanceCache);
+
+                    try {
+                        Map<String, ITypedReferenceableInstance> ret = new HashMap<>();
+
+                        for (Map.Entry<String, String> entry : partition.entrySet()) {
+                            String      guid   = entry.getKey();
+                            AtlasVertex vertex = graph.getVertex(entry.getValue());
+
+                            if (vertex == null) {
+                                throw new EntityNotFoundException("Could not find an entity in the repository with "
+                                        + Constants.GUID_PROPERTY_KEY + " = " + guid);
+                            }
+
+                            ret.put(guid, graphToInstanceMapper.mapGraphToTypedInstance(guid, vertex, projection));
+                        }
+
+                        return ret;
+                    } finally {
+                        graph.rollback();
+                        RequestContext.clear();
+                    }
+                }
+            }));
+        }
+
+        Map<String, ITypedReferenceableInstance> ret = new HashMap<>();
+
+        try {
+            for (Future<Map<String, ITypedReferenceableInstance>> future : futures) {
+                ret.putAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new RepositoryException("Interrupted while retrieving entities", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AtlasException) {
+                throw (AtlasException) e.getCause();
+            }
+
+            throw new RepositoryException(e.getCause());
+        } finally {
+            for (Future<Map<String, ITypedReferenceableInstance>> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        // like the entities mapped in the request thread, complete entities are cached for the rest of the request
+        if (projection.isAll()) {
+            RequestGraphCache cache = RequestGraphCache.get();
+
+            for (Map.Entry<String, ITypedReferenceableInstance> entry : ret.entrySet()) {
+                cache.putInstance(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     @GraphTransaction
     public ITypedReferenceableInstance getEntityDefinition(String entityType, String attribute, Object value)
@@ -166,9 +327,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
         LOG.debug("Retrieving entity with type={} and {}={}", entityType, attribute, value);
         IDataType type = typeSystem.getDataType(IDataType.class, entityType);
         String propertyKey = getFieldNameInVertex(type, attribute);
-        AtlasVertex instanceVertex = graphHelper.findVertex(propertyKey, value,
-                Constants.ENTITY_TYPE_PROPERTY_KEY, entityType,
-                Constants.STATE_PROPERTY_KEY, Id.EntityState.ACTIVE.name());
+        AtlasVertex instanceVertex = graphHelper.findVertexByUniqueAttribute(entityType, propertyKey, value);
 
         String guid = GraphHelper.getIdFromVertex(instanceVertex);
         return graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
@@ -239,7 +398,8 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             GraphHelper.setProperty(instanceVertex, Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY,
                     RequestContext.get().getRequestTime());
             GraphHelper.setProperty(instanceVertex, Constants.MODIFIED_BY_KEY, RequestContext.get().getUser());
-            
+
+            RequestGraphCache.get().invalidateEntities();
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -277,6 +437,8 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
                 // update the traits in entity once trait removal is successful
                 traitNames.remove(traitNameToBeDeleted);
                 updateTraits(instanceVertex, traitNames);
+
+                RequestGraphCache.get().invalidateEntities();
             }
         } catch (Exception e) {
             throw new RepositoryException(e);
@@ -353,14 +515,17 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             }
         }
 
+        RequestContext requestContext = RequestContext.get();
+
         try {
             deleteHandler.deleteEntities(vertices);
         }
         catch (AtlasException e) {
             throw new RepositoryException(e);
+        } finally {
+            RequestGraphCache.get().invalidateEntities();
         }
 
-        RequestContext requestContext = RequestContext.get();
         return new AtlasClient.EntityResult(requestContext.getCreatedEntityIds(),
                 requestContext.getUpdatedEntityIds(), requestContext.getDeletedEntityIds());
     }
@@ -67,8 +67,11 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -106,19 +109,36 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
 
     //allows injection of a dummy graph for testing
     private IAtlasGraphProvider provider;
-    
-    @Inject
+
+    private final GraphIndexReindexer reindexer;
+
+    // property keys, by type, with indexes created in the current type change that must be backfilled
+    private final Map<String, Set<String>> keysToReindex = new HashMap<>();
+
     public GraphBackedSearchIndexer(AtlasTypeRegistry typeRegistry) throws AtlasException {
-        this(new AtlasGraphProvider(), ApplicationProperties.get(), typeRegistry);
+        this(typeRegistry, new GraphIndexReindexer());
+    }
+
+    @Inject
+    public GraphBackedSearchIndexer(AtlasTypeRegistry typeRegistry, GraphIndexReindexer reindexer) throws AtlasException {
+        this(new AtlasGraphProvider(), ApplicationProperties.get(), typeRegistry, reindexer);
     }
 
     @VisibleForTesting
     GraphBackedSearchIndexer( IAtlasGraphProvider provider, Configuration configuration, AtlasTypeRegistry typeRegistry)
             throws IndexException, RepositoryException {
+        this(provider, configuration, typeRegistry, new GraphIndexReindexer(provider, 1, 1000));
+    }
+
+    private GraphBackedSearchIndexer(IAtlasGraphProvider provider, Configuration configuration,
+                                     AtlasTypeRegistry typeRegistry, GraphIndexReindexer reindexer)
+            throws IndexException, RepositoryException {
         this.provider = provider;
         this.typeRegistry = typeRegistry;
+        this.reindexer = reindexer;
         if (!HAConfiguration.isHAEnabled(configuration)) {
             initialize(provider.get());
+            reindexer.resume();
         }
     }
 
@@ -139,6 +159,12 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
         try {
             if (management.containsPropertyKey(Constants.VERTEX_TYPE_PROPERTY_KEY)) {
                 LOG.info("Global indexes already exist for graph");
+
+                // added after the other global keys: no vertex has it yet, so the index is usable without a reindex
+                if (!management.containsPropertyKey(Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY)) {
+                    createFullTextPendingIndex(management);
+                }
+
                 management.commit();
                 return;
             }
@@ -191,6 +217,8 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
             // Index for full text search
             createFullTextIndex(management);
 
+            createFullTextPendingIndex(management);
+
             //Indexes for graph backed type system store
             createTypeStoreIndexes(management);
       
@@ -212,6 +240,12 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
 
     }
 
+    // entities whose full text is to be computed by FullTextIndexer, looked up when it starts
+    private void createFullTextPendingIndex(AtlasGraphManagement management) {
+        createIndexes(management, Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY, Boolean.class, false,
+                AtlasCardinality.SINGLE, false, false);
+    }
+
     private void createTypeStoreIndexes(AtlasGraphManagement management) {
         //Create unique index on typeName
         createIndexes(management, Constants.TYPENAME_PROPERTY_KEY, String.class, true, AtlasCardinality.SINGLE,
@@ -229,24 +263,29 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
      * @throws org.apache.atlas.AtlasException
      */
     @Override
-    public void onAdd(Collection<? extends IDataType> dataTypes) throws AtlasException {
+    public synchronized void onAdd(Collection<? extends IDataType> dataTypes) throws AtlasException {
         AtlasGraphManagement management = provider.get().getManagementSystem();
-               
-        for (IDataType dataType : dataTypes) {
-            LOG.debug("Creating indexes for type name={}, definition={}", dataType.getName(), dataType.getClass());
-            try {
-                addIndexForType(management, dataType);
-                LOG.info("Index creation for type {} complete", dataType.getName());
-            } catch (Throwable throwable) {
-                LOG.error("Error creating index for type {}", dataType, throwable);
-                //Rollback indexes if any failure
-                rollback(management);
-                throw new IndexCreationException("Error while creating index for type " + dataType, throwable);
+
+        try {
+            for (IDataType dataType : dataTypes) {
+                LOG.debug("Creating indexes for type name={}, definition={}", dataType.getName(), dataType.getClass());
+                try {
+                    addIndexForType(management, dataType);
+                    LOG.info("Index creation for type {} complete", dataType.getName());
+                } catch (Throwable throwable) {
+                    LOG.error("Error creating index for type {}", dataType, throwable);
+                    //Rollback indexes if any failure
+                    rollback(management);
+                    throw new IndexCreationException("Error while creating index for type " + dataType, throwable);
+                }
             }
-        }
 
-        //Commit indexes
-        commit(management);
+            //Commit indexes
+            commit(management);
+            submitReindex();
+        } finally {
+            keysToReindex.clear();
+        }
     }
 
     @Override
@@ -291,8 +330,10 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
                 LOG.warn("Ignoring non-indexable attribute {}", attribTypeName);
             } else if (isBuiltInType) {
                 createIndexes(management, propertyName, getPrimitiveClass(attribTypeName), isUnique, cardinality, false, isIndexable);
+                addPendingIndexes(management, typeName, propertyName);
             } else if (isEnumType(atlasType)) {
                 createIndexes(management, propertyName, String.class, isUnique, cardinality, false, isIndexable);
+                addPendingIndexes(management, typeName, propertyName);
             } else if (isStructType(atlasType)) {
                 AtlasStructDef structDef = typeRegistry.getStructDefByName(attribTypeName);
                 updateIndexForTypeDef(management, structDef);
@@ -402,11 +443,13 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
             AtlasCardinality cardinality = getCardinality(field.multiplicity);
             createIndexes(management, propertyName, getPrimitiveClass(field.dataType()), field.isUnique,
                     cardinality, false, field.isIndexable);
+            addPendingIndexes(management, typeName, propertyName);
             break;
 
         case ENUM:
             cardinality = getCardinality(field.multiplicity);
             createIndexes(management, propertyName, String.class, field.isUnique, cardinality, false, field.isIndexable);
+            addPendingIndexes(management, typeName, propertyName);
             break;
 
         case ARRAY:
@@ -573,6 +616,35 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
     private boolean checkIfVertexIndexApplicable(Class propertyClass, AtlasCardinality cardinality) {
         return !(VERTEX_INDEX_EXCLUSIONS.contains(propertyClass) || cardinality.isMany());
     }
+
+    /*
+     * Indexes created for a property key that already had values are not enabled by the graph: the values of the key
+     * are reindexed by a background job once the index changes are committed, which then enables the indexes.
+     */
+    private void addPendingIndexes(AtlasGraphManagement management, String typeName, String propertyName) {
+        for (String indexName : GraphIndexReindexer.getIndexNames(propertyName)) {
+            AtlasGraphIndex index = management.getGraphIndex(indexName);
+
+            if (index != null && !index.isEnabled()) {
+                Set<String> keys = keysToReindex.get(typeName);
+
+                if (keys == null) {
+                    keys = new LinkedHashSet<>();
+                    keysToReindex.put(typeName, keys);
+                }
+
+                keys.add(propertyName);
+
+                return;
+            }
+        }
+    }
+
+    private void submitReindex() {
+        for (Map.Entry<String, Set<String>> entry : keysToReindex.entrySet()) {
+            reindexer.submit(entry.getKey(), entry.getValue());
+        }
+    }
     
 
 
@@ -604,6 +676,7 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
         LOG.info("Reacting to active: initializing index");
         try {
             initialize();
+            reindexer.resume();
         } catch (RepositoryException | IndexException e) {
             throw new AtlasException("Error in reacting to active on initialization", e);
         }
@@ -615,7 +688,7 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
     }
 
     @Override
-    public void onChange(ChangedTypeDefs changedTypeDefs) throws AtlasBaseException {
+    public synchronized void onChange(ChangedTypeDefs changedTypeDefs) throws AtlasBaseException {
         LOG.info("Adding indexes for changed typedefs");
         AtlasGraphManagement management = null;
         try {
@@ -637,9 +710,12 @@ public class    GraphBackedSearchIndexer implements SearchIndexer, ActiveStateCh
 
             //Commit indexes
             commit(management);
+            submitReindex();
         } catch (RepositoryException | IndexException e) {
             LOG.error("Failed to update indexes for changed typedefs", e);
             attemptRollback(changedTypeDefs, management);
+        } finally {
+            keysToReindex.clear();
         }
 
     }
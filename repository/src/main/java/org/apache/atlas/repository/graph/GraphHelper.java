@@ -18,18 +18,24 @@
 
 package org.apache.atlas.repository.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.UUID;
 import java.util.Date;
 
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.repository.Constants;
@@ -88,9 +94,14 @@ public final class GraphHelper {
     private static int maxRetries;
     public static long retrySleepTimeMillis;
 
+    private final UniqueAttributeVertexCache uniqueAttributeVertexCache;
+
     @VisibleForTesting
     GraphHelper(AtlasGraph graph) {
         this.graph = graph;
+        this.uniqueAttributeVertexCache = new UniqueAttributeVertexCache(graph,
+                AtlasConfiguration.UNIQUE_ATTRIBUTE_CACHE_ENABLED.getBoolean(),
+                AtlasConfiguration.UNIQUE_ATTRIBUTE_CACHE_SIZE.getInt());
         try {
             maxRetries = ApplicationProperties.get().getInt(RETRY_COUNT, 3);
             retrySleepTimeMillis = ApplicationProperties.get().getLong(RETRY_DELAY, 1000);
@@ -124,16 +135,20 @@ public final class GraphHelper {
 
 
     public AtlasVertex createVertexWithIdentity(ITypedReferenceableInstance typedInstance, Set<String> superTypeNames) {
+        return createVertexWithIdentity(typedInstance.getTypeName(), typedInstance.getId().version, superTypeNames);
+    }
+
+    public AtlasVertex createVertexWithIdentity(String typeName, int version, Set<String> superTypeNames) {
         final String guid = UUID.randomUUID().toString();
 
-        final AtlasVertex vertexWithIdentity = createVertexWithoutIdentity(typedInstance.getTypeName(),
-                new Id(guid, 0, typedInstance.getTypeName()), superTypeNames);
+        final AtlasVertex vertexWithIdentity = createVertexWithoutIdentity(typeName, new Id(guid, 0, typeName),
+                superTypeNames);
 
         // add identity
         setProperty(vertexWithIdentity, Constants.GUID_PROPERTY_KEY, guid);
 
         // add version information
-        setProperty(vertexWithIdentity, Constants.VERSION_PROPERTY_KEY, typedInstance.getId().version);
+        setProperty(vertexWithIdentity, Constants.VERSION_PROPERTY_KEY, version);
 
         return vertexWithIdentity;
     }
@@ -454,13 +469,110 @@ public final class GraphHelper {
      */
     public void removeVertex(AtlasVertex vertex) {
         String vertexString = string(vertex);
+        String guid         = vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class);
         LOG.debug("Removing {}", vertexString);
         graph.removeVertex(vertex);
+        if (guid != null) {
+            RequestGraphCache.get().removeVertex(guid);
+        }
         LOG.info("Removed {}", vertexString);
     }
 
+    /**
+     * Finds the vertex of the entity with the guid. Vertices found are cached for the rest of the request.
+     */
     public AtlasVertex getVertexForGUID(String guid) throws EntityNotFoundException {
-        return findVertex(Constants.GUID_PROPERTY_KEY, guid);
+        RequestGraphCache cache = RequestGraphCache.get();
+        AtlasVertex       ret   = cache.getVertex(guid);
+
+        if (ret == null) {
+            ret = findVertex(Constants.GUID_PROPERTY_KEY, guid);
+
+            cache.putVertex(guid, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Finds the vertices of the entities with the guids, with one graph query for the guids not read earlier in the
+     * request. Vertices found are cached for the rest of the request.
+     *
+     * @return vertex of each guid, in the order of the guids
+     * @throws EntityNotFoundException if any of the entities is not found
+     */
+    public Map<String, AtlasVertex> getVerticesForGUIDs(Collection<String> guids) throws EntityNotFoundException {
+        RequestGraphCache        cache    = RequestGraphCache.get();
+        Map<String, AtlasVertex> ret      = new LinkedHashMap<>();
+        Set<String>              uncached = new HashSet<>();
+
+        for (String guid : guids) {
+            AtlasVertex vertex = cache.getVertex(guid);
+
+            ret.put(guid, vertex);
+
+            if (vertex == null) {
+                uncached.add(guid);
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            LOG.debug("Finding vertices of {} guids", uncached.size());
+
+            for (AtlasVertex vertex : graph.query().in(Constants.GUID_PROPERTY_KEY, uncached).vertices()) {
+                String guid = getIdFromVertex(vertex);
+
+                ret.put(guid, vertex);
+                cache.putVertex(guid, vertex);
+            }
+
+            for (String guid : uncached) {
+                if (ret.get(guid) == null) {
+                    throw new EntityNotFoundException("Could not find an entity in the repository with "
+                            + Constants.GUID_PROPERTY_KEY + " = " + guid);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    public UniqueAttributeVertexCache getUniqueAttributeVertexCache() {
+        return uniqueAttributeVertexCache;
+    }
+
+    /**
+     * Finds the vertex of the active entity of the type with the given unique attribute value. Vertices found are
+     * cached until entities are written in the request, and in the unique attribute cache shared by the requests
+     * once the transaction commits.
+     *
+     * @param typeName     entity type name
+     * @param propertyKey  vertex property of the unique attribute
+     * @param value        attribute value
+     * @return the vertex of the entity
+     * @throws EntityNotFoundException if there is no active entity with the attribute value
+     */
+    public AtlasVertex findVertexByUniqueAttribute(String typeName, String propertyKey, Object value)
+        throws EntityNotFoundException {
+        RequestGraphCache cache = RequestGraphCache.get();
+        String            key   = typeName + "." + propertyKey + "=" + value;
+        AtlasVertex       ret   = cache.getVertexByUniqueAttribute(key);
+
+        if (ret == null) {
+            ret = uniqueAttributeVertexCache.get(typeName, propertyKey, value);
+
+            if (ret == null) {
+                ret = findVertex(propertyKey, value,
+                        Constants.ENTITY_TYPE_PROPERTY_KEY, typeName,
+                        Constants.STATE_PROPERTY_KEY, Id.EntityState.ACTIVE.name());
+
+                uniqueAttributeVertexCache.putAfterCommit(typeName, propertyKey, value, ret);
+            }
+
+            cache.putVertexByUniqueAttribute(key, ret);
+        }
+
+        return ret;
     }
 
     public static String getQualifiedNameForMapKey(String prefix, String key) {
@@ -557,9 +669,8 @@ public final class GraphHelper {
             if (attributeInfo.isUnique) {
                 String propertyKey = getQualifiedFieldName(classType, attributeInfo.name);
                 try {
-                    result = findVertex(propertyKey, instance.get(attributeInfo.name),
-                            Constants.ENTITY_TYPE_PROPERTY_KEY, classType.getName(),
-                            Constants.STATE_PROPERTY_KEY, Id.EntityState.ACTIVE.name());
+                    result = findVertexByUniqueAttribute(classType.getName(), propertyKey,
+                            instance.get(attributeInfo.name));
                     LOG.debug("Found vertex by unique attribute : " + propertyKey + "=" + instance.get(attributeInfo.name));
                 } catch (EntityNotFoundException e) {
                     //Its ok if there is no entity with the same unique value
@@ -570,6 +681,27 @@ public final class GraphHelper {
         return result;
     }
 
+    /**
+     * To be called before the entity is deleted or its unique attributes are updated: drops the entries of its
+     * current unique attribute values from the unique attribute cache.
+     */
+    public void invalidateUniqueAttributes(AtlasVertex instanceVertex) throws AtlasException {
+        if (!uniqueAttributeVertexCache.isEnabled()) {
+            return;
+        }
+
+        String    typeName  = getTypeName(instanceVertex);
+        ClassType classType = typeSystem.getDataType(ClassType.class, typeName);
+
+        for (AttributeInfo attributeInfo : classType.fieldMapping().fields.values()) {
+            if (attributeInfo.isUnique) {
+                String propertyKey = getQualifiedFieldName(classType, attributeInfo.name);
+
+                uniqueAttributeVertexCache.invalidate(typeName, propertyKey, getProperty(instanceVertex, propertyKey));
+            }
+        }
+    }
+
     /**
      * Guid and AtlasVertex combo
      */
@@ -632,75 +764,120 @@ public final class GraphHelper {
      * @throws AtlasException
      */
     public Set<VertexInfo> getCompositeVertices(AtlasVertex entityVertex) throws AtlasException {
-        Set<VertexInfo> result = new HashSet<>();
-        Stack<AtlasVertex> vertices = new Stack<>();
-        vertices.push(entityVertex);
-        while (vertices.size() > 0) {
-            AtlasVertex vertex = vertices.pop();
-            String typeName = GraphHelper.getTypeName(vertex);
-            String guid = GraphHelper.getIdFromVertex(vertex);
+        return getCompositeVertices(Collections.singletonList(entityVertex));
+    }
+
+    /**
+     * Get the GUIDs and vertices for all composite entities owned/contained by the specified root entity vertices,
+     * with a single traversal of their containment graphs. Each vertex is visited once, and its composite references
+     * are read with one scan of its outgoing edges, whatever the number of composite attributes of its type.
+     *
+     * @param entityVertices the root entity vertices
+     * @return set of VertexInfo for all composite entities, in traversal order
+     * @throws AtlasException
+     */
+    public Set<VertexInfo> getCompositeVertices(Collection<AtlasVertex> entityVertices) throws AtlasException {
+        Set<VertexInfo>                  result              = new LinkedHashSet<>();
+        Set<String>                      visitedVertexIds    = new HashSet<>();
+        Map<String, CompositeEdgeLabels> compositeEdgeLabels = new HashMap<>();
+        Deque<AtlasVertex>               vertices            = new ArrayDeque<>(entityVertices);
+
+        while (!vertices.isEmpty()) {
+            AtlasVertex vertex = vertices.poll();
+
+            if (!visitedVertexIds.add(vertex.getId().toString())) {
+                continue;
+            }
+
             Id.EntityState state = GraphHelper.getState(vertex);
             if (state == Id.EntityState.DELETED) {
                 //If the reference vertex is marked for deletion, skip it
                 continue;
             }
+
+            String typeName = GraphHelper.getTypeName(vertex);
+            String guid     = GraphHelper.getIdFromVertex(vertex);
+
             result.add(new VertexInfo(guid, vertex, typeName));
-            ClassType classType = typeSystem.getDataType(ClassType.class, typeName);
+
+            CompositeEdgeLabels edgeLabels = compositeEdgeLabels.get(typeName);
+            if (edgeLabels == null) {
+                edgeLabels = new CompositeEdgeLabels(typeSystem.getDataType(ClassType.class, typeName));
+
+                compositeEdgeLabels.put(typeName, edgeLabels);
+            }
+
+            if (edgeLabels.isEmpty()) {
+                continue;
+            }
+
+            for (AtlasEdge edge : (Iterable<AtlasEdge>) vertex.getEdges(AtlasEdgeDirection.OUT)) {
+                if (edgeLabels.contains(edge.getLabel()) && GraphHelper.getState(edge) == Id.EntityState.ACTIVE) {
+                    vertices.add(edge.getInVertex());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Labels of the edges from an entity of a class type to the entities it owns: the edges of its composite
+     * class and array of class attributes, and the key edges of its composite map of class attributes.
+     */
+    private static class CompositeEdgeLabels {
+        private final Set<String> labels           = new HashSet<>();
+        private final Set<String> mapLabelPrefixes = new HashSet<>();
+
+        CompositeEdgeLabels(ClassType classType) throws AtlasException {
             for (AttributeInfo attributeInfo : classType.fieldMapping().fields.values()) {
                 if (!attributeInfo.isComposite) {
                     continue;
                 }
+
                 String edgeLabel = GraphHelper.getEdgeLabel(classType, attributeInfo);
+
                 switch (attributeInfo.dataType().getTypeCategory()) {
-                    case CLASS:
-                        AtlasEdge edge = getEdgeForLabel(vertex, edgeLabel);
-                        if (edge != null && GraphHelper.getState(edge) == Id.EntityState.ACTIVE) {
-                            AtlasVertex compositeVertex = edge.getInVertex();
-                            vertices.push(compositeVertex);
-                        }
-                        break;
-                    case ARRAY:
-                        IDataType elementType = ((DataTypes.ArrayType) attributeInfo.dataType()).getElemType();
-                        DataTypes.TypeCategory elementTypeCategory = elementType.getTypeCategory();
-                        if (elementTypeCategory != TypeCategory.CLASS) {
-                            continue;
-                        }
-                        Iterator<AtlasEdge> edges = getOutGoingEdgesByLabel(vertex, edgeLabel);
-                        if (edges != null) {
-                            while (edges.hasNext()) {
-                                edge = edges.next();
-                                if (edge != null && GraphHelper.getState(edge) == Id.EntityState.ACTIVE) {
-                                    AtlasVertex compositeVertex = edge.getInVertex();
-                                    vertices.push(compositeVertex);
-                                }
-                            }
-                        }
-                        break;
-                    case MAP:
-                        DataTypes.MapType mapType = (DataTypes.MapType) attributeInfo.dataType();
-                        DataTypes.TypeCategory valueTypeCategory = mapType.getValueType().getTypeCategory();
-                        if (valueTypeCategory != TypeCategory.CLASS) {
-                            continue;
-                        }
-                        String propertyName = GraphHelper.getQualifiedFieldName(classType, attributeInfo.name);
-                        List<String> keys = vertex.getProperty(propertyName, List.class);
-                        if (keys != null) {
-                            for (String key : keys) {
-                                String mapEdgeLabel = GraphHelper.getQualifiedNameForMapKey(edgeLabel, key);
-                                edge = getEdgeForLabel(vertex, mapEdgeLabel);
-                                if (edge != null && GraphHelper.getState(edge) == Id.EntityState.ACTIVE) {
-                                    AtlasVertex compositeVertex = edge.getInVertex();
-                                    vertices.push(compositeVertex);
-                                }
-                            }
-                        }
-                        break;
-                    default:
-                        continue;
+                case CLASS:
+                    labels.add(edgeLabel);
+                    break;
+
+                case ARRAY:
+                    IDataType elementType = ((DataTypes.ArrayType) attributeInfo.dataType()).getElemType();
+                    if (elementType.getTypeCategory() == TypeCategory.CLASS) {
+                        labels.add(edgeLabel);
+                    }
+                    break;
+
+                case MAP:
+                    IDataType valueType = ((DataTypes.MapType) attributeInfo.dataType()).getValueType();
+                    if (valueType.getTypeCategory() == TypeCategory.CLASS) {
+                        mapLabelPrefixes.add(GraphHelper.getQualifiedNameForMapKey(edgeLabel, ""));
+                    }
+                    break;
+
+                default:
+                    break;
                 }
             }
         }
-        return result;
+
+        boolean isEmpty() {
+            return labels.isEmpty() && mapLabelPrefixes.isEmpty();
+        }
+
+        boolean contains(String edgeLabel) {
+            if (labels.contains(edgeLabel)) {
+                return true;
+            }
+
+            for (String prefix : mapLabelPrefixes) {
+                if (edgeLabel.startsWith(prefix)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
     }
 
     public static ITypedReferenceableInstance[] deserializeClassInstances(TypeSystem typeSystem, String entityInstanceDefinition)
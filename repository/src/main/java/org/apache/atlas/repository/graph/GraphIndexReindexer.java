@@ -0,0 +1,652 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphIndex;
+import org.apache.atlas.repository.graphdb.AtlasGraphManagement;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Backfills the graph indexes created for property keys that already had values, e.g. when a type update makes an
+ * existing attribute indexable. The graph doesn't enable such indexes: only values written after an index is
+ * registered are added to it, and queries only use it once it is enabled.
+ *
+ * A job registers the pending indexes of the property keys of a type, writes again the values of these keys on the
+ * vertices of the type and of its subtypes, in chunks processed in parallel, and then enables the indexes. Jobs are
+ * saved in the graph, with the position of the last chunk completed in order; a job interrupted by a restart resumes
+ * from that position once the instance is active again.
+ */
+@Singleton
+public class GraphIndexReindexer {
+    private static final Logger LOG = LoggerFactory.getLogger(GraphIndexReindexer.class);
+
+    static final String JOB_VERTEX_TYPE       = "reindexJob";
+    static final String JOB_TYPE_NAME_KEY     = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "reindex.typeName";
+    static final String JOB_PROPERTY_KEYS_KEY = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "reindex.propertyKeys";
+    static final String JOB_CHECKPOINT_KEY    = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "reindex.checkpoint";
+    static final String JOB_PROCESSED_KEY     = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "reindex.processed";
+
+    private static final String PROPERTY_KEY_SEPARATOR = ",";
+    private static final int    MAX_FINISHED_JOBS      = 100;
+    private static final long   REGISTER_TIMEOUT_MS    = TimeUnit.MINUTES.toMillis(10);
+    private static final long   REGISTER_POLL_MS       = 1000;
+    private static final int    MAX_REWRITE_ATTEMPTS   = 5;
+
+    // shorter ids first, so that numeric ids are in numeric order
+    private static final Comparator<String> ID_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String id1, String id2) {
+            return id1.length() != id2.length() ? id1.length() - id2.length() : id1.compareTo(id2);
+        }
+    };
+
+    public enum State { QUEUED, REGISTERING, BACKFILLING, ENABLING, COMPLETE, FAILED }
+
+    private final IAtlasGraphProvider provider;
+    private final int                 threads;
+    private final int                 chunkSize;
+    private final List<ReindexJob>    jobs = new CopyOnWriteArrayList<>();
+    private ExecutorService           jobExecutor;
+    private ExecutorService           chunkExecutor;
+
+    @Inject
+    public GraphIndexReindexer() {
+        this(new AtlasGraphProvider(), AtlasConfiguration.GRAPH_REINDEX_THREADS.getInt(),
+                AtlasConfiguration.GRAPH_REINDEX_CHUNK_SIZE.getInt());
+    }
+
+    GraphIndexReindexer(IAtlasGraphProvider provider, int threads, int chunkSize) {
+        this.provider  = provider;
+        this.threads   = Math.max(threads, 1);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * @return names of the indexes GraphBackedSearchIndexer creates for the given property key
+     */
+    public static List<String> getIndexNames(String propertyKey) {
+        return Arrays.asList(propertyKey,
+                             propertyKey + Constants.ENTITY_TYPE_PROPERTY_KEY,
+                             propertyKey + Constants.SUPER_TYPES_PROPERTY_KEY);
+    }
+
+    /**
+     * Queues a job that backfills the pending indexes of the given property keys, for the vertices of the given type
+     * and of its subtypes. Jobs run one at a time, in the order they are submitted.
+     */
+    public void submit(String typeName, Collection<String> propertyKeys) {
+        ReindexJob job = new ReindexJob(null, typeName, new ArrayList<>(propertyKeys), null, 0);
+
+        LOG.info("Queueing reindex of {} for type {}", propertyKeys, typeName);
+
+        addJob(job);
+    }
+
+    /**
+     * Queues the jobs saved in the graph that did not complete, e.g. because the server stopped.
+     */
+    public void resume() {
+        getJobExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    loadJobs();
+                } catch (Exception e) {
+                    LOG.error("Failed to load the saved reindex jobs", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return queued, running and recently finished jobs
+     */
+    public List<ReindexJob> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * Waits until no job is queued or running.
+     *
+     * @return false if the timeout elapsed first
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMs;
+
+        while (isActive()) {
+            if (System.currentTimeMillis() >= end) {
+                return false;
+            }
+
+            Thread.sleep(100);
+        }
+
+        return true;
+    }
+
+    private boolean isActive() {
+        for (ReindexJob job : jobs) {
+            if (!job.isFinished()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void loadJobs() {
+        AtlasGraph            graph    = provider.get();
+        Iterable<AtlasVertex> vertices = graph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, JOB_VERTEX_TYPE).vertices();
+
+        try {
+            for (AtlasVertex vertex : vertices) {
+                String vertexId = vertex.getId().toString();
+
+                if (isQueued(vertexId)) {
+                    continue;
+                }
+
+                String typeName     = vertex.getProperty(JOB_TYPE_NAME_KEY, String.class);
+                String propertyKeys = vertex.getProperty(JOB_PROPERTY_KEYS_KEY, String.class);
+                String checkpoint   = vertex.getProperty(JOB_CHECKPOINT_KEY, String.class);
+                Long   processed    = vertex.getProperty(JOB_PROCESSED_KEY, Long.class);
+
+                LOG.info("Resuming reindex of {} for type {} after {} vertices", propertyKeys, typeName, processed);
+
+                addJob(new ReindexJob(vertexId, typeName,
+                                      Arrays.asList(StringUtils.split(propertyKeys, PROPERTY_KEY_SEPARATOR)), checkpoint,
+                                      processed != null ? processed : 0));
+            }
+        } finally {
+            graph.rollback();
+        }
+    }
+
+    private boolean isQueued(String vertexId) {
+        for (ReindexJob job : jobs) {
+            if (vertexId.equals(job.vertexId) && !job.isFinished()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void addJob(final ReindexJob job) {
+        jobs.add(job);
+
+        for (ReindexJob finished : jobs) {
+            if (jobs.size() <= MAX_FINISHED_JOBS) {
+                break;
+            }
+
+            if (finished.isFinished()) {
+                jobs.remove(finished);
+            }
+        }
+
+        getJobExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                runJob(job);
+            }
+        });
+    }
+
+    private void runJob(ReindexJob job) {
+        AtlasGraph graph = provider.get();
+
+        try {
+            job.startTime = System.currentTimeMillis();
+
+            if (job.vertexId == null) {
+                saveJob(graph, job);
+            }
+
+            job.state = State.REGISTERING;
+
+            List<String> indexNames = registerIndexes(graph, job.propertyKeys);
+
+            awaitRegistered(graph, indexNames);
+
+            job.state = State.BACKFILLING;
+
+            backfill(graph, job);
+
+            job.state = State.ENABLING;
+
+            enableIndexes(graph, indexNames);
+            deleteJob(graph, job);
+
+            job.endTime = System.currentTimeMillis();
+            job.state   = State.COMPLETE;
+
+            LOG.info("Reindexed {} for type {}: {} vertices in {} ms", job.propertyKeys, job.typeName,
+                    job.getProcessedCount(), job.endTime - job.startTime);
+        } catch (Exception e) {
+            LOG.error("Reindex of {} for type {} failed; it will be resumed after a restart", job.propertyKeys,
+                    job.typeName, e);
+
+            graph.rollback();
+
+            job.endTime = System.currentTimeMillis();
+            job.error   = e.toString();
+            job.state   = State.FAILED;
+        }
+    }
+
+    private List<String> registerIndexes(AtlasGraph graph, List<String> propertyKeys) {
+        AtlasGraphManagement management = graph.getManagementSystem();
+        List<String>         ret        = new ArrayList<>();
+
+        try {
+            for (String propertyKey : propertyKeys) {
+                for (String indexName : getIndexNames(propertyKey)) {
+                    AtlasGraphIndex index = management.getGraphIndex(indexName);
+
+                    if (index == null || index.isEnabled()) {
+                        continue;
+                    }
+
+                    if (!index.isRegistered()) {
+                        management.registerIndex(indexName);
+                    }
+
+                    ret.add(indexName);
+                }
+            }
+
+            management.commit();
+        } catch (RuntimeException e) {
+            management.rollback();
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /*
+     * An index is registered once all the instances of the graph acknowledged it, after which they add the values
+     * written for its keys to the index: only then can the existing values be backfilled.
+     */
+    private void awaitRegistered(AtlasGraph graph, List<String> indexNames) throws InterruptedException {
+        long end = System.currentTimeMillis() + REGISTER_TIMEOUT_MS;
+
+        while (true) {
+            AtlasGraphManagement management = graph.getManagementSystem();
+            boolean              registered = true;
+
+            try {
+                for (String indexName : indexNames) {
+                    if (!management.getGraphIndex(indexName).isRegistered()) {
+                        registered = false;
+
+                        break;
+                    }
+                }
+            } finally {
+                management.rollback();
+            }
+
+            if (registered) {
+                return;
+            }
+
+            if (System.currentTimeMillis() >= end) {
+                throw new IllegalStateException("Indexes " + indexNames + " were not registered by all the graph instances");
+            }
+
+            Thread.sleep(REGISTER_POLL_MS);
+        }
+    }
+
+    private void backfill(final AtlasGraph graph, final ReindexJob job) throws InterruptedException, ExecutionException {
+        List<String> vertexIds = getVertexIds(graph, job.typeName, job.checkpoint);
+
+        job.totalCount         = job.processedCount.get() + vertexIds.size();
+        job.backfillStart      = System.currentTimeMillis();
+        job.backfillStartCount = job.processedCount.get();
+
+        List<List<String>>    chunks  = Lists.partition(vertexIds, chunkSize);
+        List<Future<Integer>> futures = new ArrayList<>(chunks.size());
+
+        for (final List<String> chunk : chunks) {
+            futures.add(getChunkExecutor().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    reindexChunk(graph, job, chunk);
+
+                    return chunk.size();
+                }
+            }));
+        }
+
+        long checkpointCount = job.backfillStartCount;
+
+        try {
+            // the checkpoint only moves past chunks that completed, along with all the chunks before them
+            for (int i = 0; i < chunks.size(); i++) {
+                checkpointCount += futures.get(i).get();
+
+                List<String> chunk = chunks.get(i);
+
+                saveCheckpoint(graph, job, chunk.get(chunk.size() - 1), checkpointCount);
+            }
+        } finally {
+            for (Future<Integer> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private List<String> getVertexIds(AtlasGraph graph, String typeName, String checkpoint) {
+        Set<String> ret = new TreeSet<>(ID_ORDER);
+
+        try {
+            for (String key : Arrays.asList(Constants.ENTITY_TYPE_PROPERTY_KEY, Constants.SUPER_TYPES_PROPERTY_KEY)) {
+                for (AtlasVertex vertex : (Iterable<AtlasVertex>) graph.query().has(key, typeName).vertices()) {
+                    String vertexId = vertex.getId().toString();
+
+                    if (checkpoint == null || ID_ORDER.compare(vertexId, checkpoint) > 0) {
+                        ret.add(vertexId);
+                    }
+                }
+            }
+        } finally {
+            graph.rollback();
+        }
+
+        return new ArrayList<>(ret);
+    }
+
+    private void reindexChunk(AtlasGraph graph, ReindexJob job, List<String> vertexIds) {
+        List<String> pending = vertexIds;
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_REWRITE_ATTEMPTS) {
+                throw new IllegalStateException("Vertices " + pending + " were modified while they were reindexed, "
+                        + MAX_REWRITE_ATTEMPTS + " times");
+            }
+
+            pending = rewriteVertices(graph, job, pending);
+        }
+
+        job.processedCount.addAndGet(vertexIds.size());
+    }
+
+    /*
+     * Titan 0.5.4 can't check at commit that the values written are still current, short of locking the property keys
+     * on every update. Instead, the modification timestamp of each vertex is read again once the values are written:
+     * an update committed in the meantime may have been overwritten by the values read before it, so these vertices
+     * are written again, with the values of the update.
+     *
+     * @return ids of the vertices modified while they were written, to be written again
+     */
+    private List<String> rewriteVertices(AtlasGraph graph, ReindexJob job, List<String> vertexIds) {
+        Map<String, Long> timestamps = new HashMap<>();
+
+        try {
+            for (String vertexId : vertexIds) {
+                AtlasVertex vertex = graph.getVertex(vertexId);
+
+                if (vertex == null) {
+                    continue;
+                }
+
+                timestamps.put(vertexId, getModificationTimestamp(vertex));
+
+                for (String propertyKey : job.propertyKeys) {
+                    rewriteProperty(graph, vertex, propertyKey);
+                }
+            }
+
+            graph.commit();
+        } catch (RuntimeException e) {
+            graph.rollback();
+
+            throw e;
+        }
+
+        List<String> ret = new ArrayList<>();
+
+        try {
+            for (Map.Entry<String, Long> entry : timestamps.entrySet()) {
+                AtlasVertex vertex = graph.getVertex(entry.getKey());
+
+                if (vertex != null && !Objects.equals(getModificationTimestamp(vertex), entry.getValue())) {
+                    ret.add(entry.getKey());
+                }
+            }
+        } finally {
+            graph.rollback();
+        }
+
+        if (!ret.isEmpty()) {
+            LOG.info("Reindexing again {} vertices modified while they were reindexed", ret.size());
+        }
+
+        return ret;
+    }
+
+    private static Long getModificationTimestamp(AtlasVertex vertex) {
+        return vertex.getProperty(Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, Long.class);
+    }
+
+    /*
+     * The value is removed and set again, so that the graph writes its index entries, including those of the newly
+     * registered indexes.
+     */
+    private void rewriteProperty(AtlasGraph graph, AtlasVertex vertex, String propertyKey) {
+        if (graph.isMultiProperty(propertyKey)) {
+            Collection<Object> values = new ArrayList<>(vertex.getPropertyValues(propertyKey, Object.class));
+
+            if (!values.isEmpty()) {
+                vertex.removeProperty(propertyKey);
+
+                for (Object value : values) {
+                    vertex.addProperty(propertyKey, value);
+                }
+            }
+        } else {
+            Object value = vertex.getProperty(propertyKey, Object.class);
+
+            if (value != null) {
+                vertex.removeProperty(propertyKey);
+                vertex.setProperty(propertyKey, value);
+            }
+        }
+    }
+
+    private void enableIndexes(AtlasGraph graph, List<String> indexNames) {
+        AtlasGraphManagement management = graph.getManagementSystem();
+
+        try {
+            for (String indexName : indexNames) {
+                if (!management.getGraphIndex(indexName).isEnabled()) {
+                    management.enableIndex(indexName);
+                }
+            }
+
+            management.commit();
+        } catch (RuntimeException e) {
+            management.rollback();
+
+            throw e;
+        }
+    }
+
+    private void saveJob(AtlasGraph graph, ReindexJob job) {
+        AtlasVertex vertex = graph.addVertex();
+
+        vertex.setProperty(Constants.VERTEX_TYPE_PROPERTY_KEY, JOB_VERTEX_TYPE);
+        vertex.setProperty(JOB_TYPE_NAME_KEY, job.typeName);
+        vertex.setProperty(JOB_PROPERTY_KEYS_KEY, StringUtils.join(job.propertyKeys, PROPERTY_KEY_SEPARATOR));
+        vertex.setProperty(JOB_PROCESSED_KEY, 0L);
+
+        graph.commit();
+
+        job.vertexId = vertex.getId().toString();
+    }
+
+    private void saveCheckpoint(AtlasGraph graph, ReindexJob job, String checkpoint, long processedCount) {
+        AtlasVertex vertex = graph.getVertex(job.vertexId);
+
+        vertex.setProperty(JOB_CHECKPOINT_KEY, checkpoint);
+        vertex.setProperty(JOB_PROCESSED_KEY, processedCount);
+
+        graph.commit();
+
+        job.checkpoint = checkpoint;
+    }
+
+    private void deleteJob(AtlasGraph graph, ReindexJob job) {
+        AtlasVertex vertex = graph.getVertex(job.vertexId);
+
+        if (vertex != null) {
+            graph.removeVertex(vertex);
+            graph.commit();
+        }
+    }
+
+    private synchronized ExecutorService getJobExecutor() {
+        if (jobExecutor == null) {
+            jobExecutor = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("atlas-reindex-job").setDaemon(true).build());
+        }
+
+        return jobExecutor;
+    }
+
+    private synchronized ExecutorService getChunkExecutor() {
+        if (chunkExecutor == null) {
+            chunkExecutor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("atlas-reindex-%d").setDaemon(true).build());
+        }
+
+        return chunkExecutor;
+    }
+
+    /**
+     * Progress of the reindex of property keys for a type.
+     */
+    public static class ReindexJob {
+        private final String       typeName;
+        private final List<String> propertyKeys;
+        private final AtomicLong   processedCount;
+        private volatile String    vertexId;
+        private volatile String    checkpoint;
+        private volatile State     state = State.QUEUED;
+        private volatile long      totalCount;
+        private volatile long      startTime;
+        private volatile long      endTime;
+        private volatile long      backfillStart;
+        private volatile long      backfillStartCount;
+        private volatile String    error;
+
+        ReindexJob(String vertexId, String typeName, List<String> propertyKeys, String checkpoint, long processedCount) {
+            this.vertexId       = vertexId;
+            this.typeName       = typeName;
+            this.propertyKeys   = propertyKeys;
+            this.checkpoint     = checkpoint;
+            this.processedCount = new AtomicLong(processedCount);
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public List<String> getPropertyKeys() {
+            return propertyKeys;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return number of vertices to reindex; known once the backfill starts
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return number of vertices reindexed, including those reindexed before a restart
+         */
+        public long getProcessedCount() {
+            return processedCount.get();
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        /**
+         * @return number of vertices reindexed per second since the backfill started or resumed
+         */
+        public double getVerticesPerSecond() {
+            long end     = endTime > 0 ? endTime : System.currentTimeMillis();
+            long elapsed = backfillStart > 0 ? end - backfillStart : 0;
+
+            return elapsed > 0 ? (processedCount.get() - backfillStartCount) * 1000.0 / elapsed : 0;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        boolean isFinished() {
+            return state == State.COMPLETE || state == State.FAILED;
+        }
+    }
+}
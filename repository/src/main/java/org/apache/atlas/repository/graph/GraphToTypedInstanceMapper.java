@@ -24,6 +24,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,7 @@ import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.typesystem.ITypedInstance;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.ITypedStruct;
@@ -66,8 +68,39 @@ public final class GraphToTypedInstanceMapper {
         this.graph = graph;
     }
 
+    /**
+     * Maps the entity vertex to a typed instance. The instance is cached in the request context until entities are
+     * written, so callers must not modify it.
+     */
     public ITypedReferenceableInstance mapGraphToTypedInstance(String guid, AtlasVertex instanceVertex)
         throws AtlasException {
+        return mapGraphToTypedInstance(guid, instanceVertex, EntityProjection.ALL);
+    }
+
+    /**
+     * Maps the projected part of the entity vertex to a typed instance; only the properties and edges of the
+     * projected attributes are read. Only complete instances are cached for the request.
+     */
+    public ITypedReferenceableInstance mapGraphToTypedInstance(String guid, AtlasVertex instanceVertex,
+        EntityProjection projection) throws AtlasException {
+        if (!projection.isAll()) {
+            return mapVertexToTypedInstance(guid, instanceVertex, projection);
+        }
+
+        RequestGraphCache           cache = RequestGraphCache.get();
+        ITypedReferenceableInstance ret   = cache.getInstance(guid);
+
+        if (ret == null) {
+            ret = mapVertexToTypedInstance(guid, instanceVertex, projection);
+
+            cache.putInstance(guid, ret);
+        }
+
+        return ret;
+    }
+
+    private ITypedReferenceableInstance mapVertexToTypedInstance(String guid, AtlasVertex instanceVertex,
+        EntityProjection projection) throws AtlasException {
 
         LOG.debug("Mapping graph root vertex {} to typed instance for guid {}", instanceVertex, guid);
         String typeName = GraphHelper.getSingleValuedProperty(instanceVertex, Constants.ENTITY_TYPE_PROPERTY_KEY, String.class);
@@ -89,33 +122,61 @@ public final class GraphToTypedInstanceMapper {
         ITypedReferenceableInstance typedInstance =
             classType.createInstance(id, systemAttributes, traits.toArray(new String[traits.size()]));
 
-        mapVertexToInstance(instanceVertex, typedInstance, classType.fieldMapping().fields);
-        mapVertexToInstanceTraits(instanceVertex, typedInstance, traits);
+        Map<String, AttributeInfo> fields = classType.fieldMapping().fields;
+
+        if (projection.getAttributes() != null) {
+            // attributes the type doesn't have are ignored, as the projection may apply to entities of several types
+            Map<String, AttributeInfo> projectedFields = new LinkedHashMap<>();
+
+            for (Map.Entry<String, AttributeInfo> field : fields.entrySet()) {
+                if (projection.includesAttribute(field.getKey())) {
+                    projectedFields.put(field.getKey(), field.getValue());
+                }
+            }
+
+            fields = projectedFields;
+        }
+
+        mapVertexToInstance(instanceVertex, typedInstance, fields, projection);
+
+        if (projection.includesTraits()) {
+            mapVertexToInstanceTraits(instanceVertex, typedInstance, traits, projection);
+        }
 
         return typedInstance;
     }
 
     private void mapVertexToInstanceTraits(AtlasVertex instanceVertex, ITypedReferenceableInstance typedInstance,
-        List<String> traits) throws AtlasException {
+        List<String> traits, EntityProjection projection) throws AtlasException {
         for (String traitName : traits) {
             LOG.debug("mapping trait {} to instance", traitName);
             TraitType traitType = typeSystem.getDataType(TraitType.class, traitName);
-            mapVertexToTraitInstance(instanceVertex, typedInstance, traitName, traitType);
+            mapVertexToTraitInstance(instanceVertex, typedInstance, traitName, traitType, projection);
         }
     }
 
     public void mapVertexToInstance(AtlasVertex instanceVertex, ITypedInstance typedInstance,
         Map<String, AttributeInfo> fields) throws AtlasException {
+        mapVertexToInstance(instanceVertex, typedInstance, fields, EntityProjection.ALL);
+    }
+
+    private void mapVertexToInstance(AtlasVertex instanceVertex, ITypedInstance typedInstance,
+        Map<String, AttributeInfo> fields, EntityProjection projection) throws AtlasException {
 
         LOG.debug("Mapping vertex {} to instance {} for fields", instanceVertex, typedInstance.getTypeName(),
             fields);
         for (AttributeInfo attributeInfo : fields.values()) {
-            mapVertexToAttribute(instanceVertex, typedInstance, attributeInfo);
+            mapVertexToAttribute(instanceVertex, typedInstance, attributeInfo, projection);
         }
     }
 
-    private void mapVertexToAttribute(AtlasVertex instanceVertex, ITypedInstance typedInstance,
+    void mapVertexToAttribute(AtlasVertex instanceVertex, ITypedInstance typedInstance,
         AttributeInfo attributeInfo) throws AtlasException {
+        mapVertexToAttribute(instanceVertex, typedInstance, attributeInfo, EntityProjection.ALL);
+    }
+
+    private void mapVertexToAttribute(AtlasVertex instanceVertex, ITypedInstance typedInstance,
+        AttributeInfo attributeInfo, EntityProjection projection) throws AtlasException {
         LOG.debug("Mapping attributeInfo {}", attributeInfo.name);
         final IDataType dataType = attributeInfo.dataType();
         final String vertexPropertyName = GraphHelper.getQualifiedFieldName(typedInstance, attributeInfo);
@@ -136,16 +197,16 @@ public final class GraphToTypedInstanceMapper {
             break;
 
         case ARRAY:
-            mapVertexToArrayInstance(instanceVertex, typedInstance, attributeInfo, vertexPropertyName);
+            mapVertexToArrayInstance(instanceVertex, typedInstance, attributeInfo, vertexPropertyName, projection);
             break;
 
         case MAP:
-            mapVertexToMapInstance(instanceVertex, typedInstance, attributeInfo, vertexPropertyName);
+            mapVertexToMapInstance(instanceVertex, typedInstance, attributeInfo, vertexPropertyName, projection);
             break;
 
         case STRUCT:
             ITypedStruct structInstance = mapVertexToStructInstance(instanceVertex,
-                    (StructType) attributeInfo.dataType(), relationshipLabel, null);
+                    (StructType) attributeInfo.dataType(), relationshipLabel, null, projection);
             typedInstance.set(attributeInfo.name, structInstance);
             break;
 
@@ -156,7 +217,7 @@ public final class GraphToTypedInstanceMapper {
         case CLASS:
             AtlasEdge nullEdge = null;
             Object idOrInstance = mapVertexToClassReference(instanceVertex, attributeInfo, relationshipLabel,
-                attributeInfo.dataType(), nullEdge);
+                attributeInfo.dataType(), nullEdge, projection);
             if (idOrInstance != null) {
                 typedInstance.set(attributeInfo.name, idOrInstance);
             }
@@ -168,7 +229,8 @@ public final class GraphToTypedInstanceMapper {
     }
 
     private Object mapVertexToClassReference(AtlasVertex instanceVertex, AttributeInfo attributeInfo,
-            String relationshipLabel, IDataType dataType, AtlasEdge optionalEdge) throws AtlasException {
+            String relationshipLabel, IDataType dataType, AtlasEdge optionalEdge, EntityProjection projection)
+            throws AtlasException {
         LOG.debug("Finding edge for {} -> label {} ", instanceVertex, relationshipLabel);
 
         AtlasEdge edge = null;
@@ -182,10 +244,11 @@ public final class GraphToTypedInstanceMapper {
             final AtlasVertex referenceVertex = edge.getInVertex();
             final String guid = GraphHelper.getSingleValuedProperty(referenceVertex, Constants.GUID_PROPERTY_KEY, String.class);
             LOG.debug("Found vertex {} for label {} with guid {}", referenceVertex, relationshipLabel, guid);
-            if (attributeInfo.isComposite) {
-                //Also, when you retrieve a type's instance, you get the complete object graph of the composites
+            if (attributeInfo.isComposite && projection.followsReferences()) {
+                //Also, when you retrieve a type's instance, you get the object graph of the composites, up to the
+                //reference depth of the projection
                 LOG.debug("Found composite, mapping vertex to instance");
-                return mapGraphToTypedInstance(guid, referenceVertex);
+                return mapGraphToTypedInstance(guid, referenceVertex, projection.forReferredEntity());
             } else {
                 String state = GraphHelper.getStateAsString(referenceVertex);
                 Id referenceId =
@@ -201,7 +264,7 @@ public final class GraphToTypedInstanceMapper {
 
     @SuppressWarnings("unchecked")
     private void mapVertexToArrayInstance(AtlasVertex<?,?> instanceVertex, ITypedInstance typedInstance,
-            AttributeInfo attributeInfo, String propertyName) throws AtlasException {
+            AttributeInfo attributeInfo, String propertyName, EntityProjection projection) throws AtlasException {
         LOG.debug("mapping vertex {} to array {}", instanceVertex, attributeInfo.name);
 
         final DataTypes.ArrayType arrayType = (DataTypes.ArrayType) attributeInfo.dataType();
@@ -217,7 +280,7 @@ public final class GraphToTypedInstanceMapper {
         ArrayList values = new ArrayList();
         for (int index = 0; index < list.size(); index++) {
             values.add(mapVertexToCollectionEntry(instanceVertex, attributeInfo, elementType, list.get(index),
-                    edgeLabel));
+                    edgeLabel, projection));
         }
 
         if (values.size() > 0) {
@@ -226,7 +289,7 @@ public final class GraphToTypedInstanceMapper {
     }
 
     private Object mapVertexToCollectionEntry(AtlasVertex instanceVertex, AttributeInfo attributeInfo,
-        IDataType elementType, Object value, String edgeLabel) throws AtlasException {
+        IDataType elementType, Object value, String edgeLabel, EntityProjection projection) throws AtlasException {
         switch (elementType.getTypeCategory()) {
         case PRIMITIVE:
         case ENUM:
@@ -239,10 +302,12 @@ public final class GraphToTypedInstanceMapper {
             break;
 
         case STRUCT:
-            return mapVertexToStructInstance(instanceVertex, (StructType) elementType, edgeLabel, (AtlasEdge) value);
+            return mapVertexToStructInstance(instanceVertex, (StructType) elementType, edgeLabel, (AtlasEdge) value,
+                    projection);
 
         case CLASS:
-            return mapVertexToClassReference(instanceVertex, attributeInfo, edgeLabel, elementType, (AtlasEdge) value);
+            return mapVertexToClassReference(instanceVertex, attributeInfo, edgeLabel, elementType, (AtlasEdge) value,
+                    projection);
 
         default:
             break;
@@ -253,7 +318,7 @@ public final class GraphToTypedInstanceMapper {
 
     @SuppressWarnings("unchecked")
     private void mapVertexToMapInstance(AtlasVertex<?,?> instanceVertex, ITypedInstance typedInstance,
-            AttributeInfo attributeInfo, final String propertyName) throws AtlasException {
+            AttributeInfo attributeInfo, final String propertyName, EntityProjection projection) throws AtlasException {
         LOG.debug("mapping vertex {} to array {}", instanceVertex, attributeInfo.name);
         List<String> keys = GraphHelper.getListProperty(instanceVertex, propertyName);
         if (keys == null || keys.size() == 0) {
@@ -267,7 +332,8 @@ public final class GraphToTypedInstanceMapper {
             final String keyPropertyName = propertyName + "." + key;
             final String edgeLabel = GraphHelper.EDGE_LABEL_PREFIX + keyPropertyName;
             final Object keyValue = GraphHelper.getMapValueProperty(valueType, instanceVertex, keyPropertyName);
-            Object mapValue = mapVertexToCollectionEntry(instanceVertex, attributeInfo, valueType, keyValue, edgeLabel);
+            Object mapValue = mapVertexToCollectionEntry(instanceVertex, attributeInfo, valueType, keyValue, edgeLabel,
+                    projection);
             if (mapValue != null) {
                 values.put(key, mapValue);
             }
@@ -279,7 +345,7 @@ public final class GraphToTypedInstanceMapper {
     }
 
     private  ITypedStruct mapVertexToStructInstance(AtlasVertex instanceVertex, StructType structType,
-            String relationshipLabel, AtlasEdge optionalEdge) throws AtlasException {
+            String relationshipLabel, AtlasEdge optionalEdge, EntityProjection projection) throws AtlasException {
         LOG.debug("mapping {} to struct {}", string(instanceVertex), relationshipLabel);
         ITypedStruct structInstance = null;
 
@@ -291,25 +357,41 @@ public final class GraphToTypedInstanceMapper {
         }
 
         if (GraphHelper.elementExists(edge)) {
-            structInstance = structType.createInstance();
+            // structs are loaded for every entity that refers to them, the compact layout keeps them small.
+            // Their attributes are mapped right away, as the instance is used after the graph transaction ends
+            structInstance = structType.createCompactInstance();
             AtlasVertex structInstanceVertex = edge.getInVertex();
             LOG.debug("Found struct instance {}, mapping to instance {} ", string(structInstanceVertex),
                     structInstance.getTypeName());
-            mapVertexToInstance(structInstanceVertex, structInstance, structType.fieldMapping().fields);
+            mapVertexToInstance(structInstanceVertex, structInstance, structType.fieldMapping().fields, projection);
 
         }
         return structInstance;
     }
 
+    /**
+     * Maps only the given trait of the entity, without mapping the entity's attributes
+     */
+    ITypedStruct mapVertexToTrait(AtlasVertex instanceVertex, String typeName, String traitName)
+        throws AtlasException {
+        TraitType    traitType     = typeSystem.getDataType(TraitType.class, traitName);
+        ITypedStruct traitInstance = traitType.createInstance();
+
+        mapVertexToTraitInstance(instanceVertex, typeName, traitName, traitType, traitInstance, EntityProjection.ALL);
+
+        return traitInstance;
+    }
+
     private void mapVertexToTraitInstance(AtlasVertex instanceVertex, ITypedReferenceableInstance typedInstance,
-        String traitName, TraitType traitType) throws AtlasException {
+        String traitName, TraitType traitType, EntityProjection projection) throws AtlasException {
         ITypedStruct traitInstance = (ITypedStruct) typedInstance.getTrait(traitName);
 
-        mapVertexToTraitInstance(instanceVertex, typedInstance.getTypeName(), traitName, traitType, traitInstance);
+        mapVertexToTraitInstance(instanceVertex, typedInstance.getTypeName(), traitName, traitType, traitInstance,
+                projection);
     }
 
     private void mapVertexToTraitInstance(AtlasVertex<?,?> instanceVertex, String typedInstanceTypeName, String traitName,
-            TraitType traitType, ITypedStruct traitInstance) throws AtlasException {
+            TraitType traitType, ITypedStruct traitInstance, EntityProjection projection) throws AtlasException {
         String relationshipLabel = GraphHelper.getTraitLabel(typedInstanceTypeName, traitName);
         LOG.debug("Finding edge for {} -> label {} ", instanceVertex, relationshipLabel);
         for (AtlasEdge<?,?> edge : instanceVertex.getEdges(AtlasEdgeDirection.OUT, relationshipLabel)) {
@@ -317,7 +399,7 @@ public final class GraphToTypedInstanceMapper {
             if (traitInstanceVertex != null) {
                 LOG.debug("Found trait instance vertex {}, mapping to instance {} ", traitInstanceVertex,
                         traitInstance.getTypeName());
-                mapVertexToInstance(traitInstanceVertex, traitInstance, traitType.fieldMapping().fields);
+                mapVertexToInstance(traitInstanceVertex, traitInstance, traitType.fieldMapping().fields, projection);
                 break;
             }
         }
@@ -0,0 +1,282 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.typesystem.ITypedInstance;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.persistence.AtlasSystemAttributes;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.IConstructableType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.utils.AtlasPerfTracer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graph reads cached for the duration of a request: the vertices of entity guids, the vertices of active entities
+ * found by unique attribute value and the entities mapped from the graph. Writes invalidate the entries they may
+ * change.
+ *
+ * Entities are handed out as copies, so that a caller changing the entity it read doesn't change what the rest of
+ * the request reads.
+ */
+public final class RequestGraphCache implements RequestContext.RequestScoped {
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("RequestGraphCache");
+
+    private final Map<String, AtlasVertex>                 guidVertices            = new HashMap<>();
+    private final Map<String, AtlasVertex>                 uniqueAttributeVertices = new HashMap<>();
+    private final Map<String, ITypedReferenceableInstance> instances;
+
+    private int guidVertexHits;
+    private int guidVertexMisses;
+    private int uniqueAttributeVertexHits;
+    private int uniqueAttributeVertexMisses;
+    private int instanceHits;
+    private int instanceMisses;
+
+    private RequestGraphCache(Map<String, ITypedReferenceableInstance> instances) {
+        this.instances = instances;
+    }
+
+    /**
+     * @return the cache of the current request
+     */
+    public static RequestGraphCache get() {
+        RequestContext    context = RequestContext.get();
+        RequestGraphCache ret     = context.getRequestScoped(RequestGraphCache.class);
+
+        if (ret == null) {
+            ret = new RequestGraphCache(new HashMap<String, ITypedReferenceableInstance>());
+
+            context.setRequestScoped(RequestGraphCache.class, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Creates the cache of a thread that does part of the work of a request, in the worker context of the thread.
+     * Entities mapped by the workers of the request are shared in the given instance map, which must be thread safe;
+     * the vertices are of the worker, as vertices are bound to its graph transaction.
+     */
+    static RequestGraphCache createWorkerCache(Map<String, ITypedReferenceableInstance> sharedInstances) {
+        RequestGraphCache ret = new RequestGraphCache(sharedInstances);
+
+        RequestContext.get().setRequestScoped(RequestGraphCache.class, ret);
+
+        return ret;
+    }
+
+    /**
+     * @return vertex of the entity with the guid, if read earlier in this request; null otherwise
+     */
+    public AtlasVertex getVertex(String guid) {
+        AtlasVertex ret = guidVertices.get(guid);
+
+        if (ret != null) {
+            guidVertexHits++;
+        } else {
+            guidVertexMisses++;
+        }
+
+        return ret;
+    }
+
+    public void putVertex(String guid, AtlasVertex vertex) {
+        guidVertices.put(guid, vertex);
+    }
+
+    /**
+     * To be called when the vertex of the entity is removed from the graph
+     */
+    public void removeVertex(String guid) {
+        guidVertices.remove(guid);
+        instances.remove(guid);
+    }
+
+    /**
+     * @param key type name, unique attribute and value
+     * @return vertex of the active entity with the unique attribute value, if read earlier in this request
+     */
+    public AtlasVertex getVertexByUniqueAttribute(String key) {
+        AtlasVertex ret = uniqueAttributeVertices.get(key);
+
+        if (ret != null) {
+            uniqueAttributeVertexHits++;
+        } else {
+            uniqueAttributeVertexMisses++;
+        }
+
+        return ret;
+    }
+
+    public void putVertexByUniqueAttribute(String key, AtlasVertex vertex) {
+        uniqueAttributeVertices.put(key, vertex);
+    }
+
+    /**
+     * @return a copy of the entity mapped from the graph earlier in this request; null if not mapped or changed since
+     */
+    public ITypedReferenceableInstance getInstance(String guid) throws AtlasException {
+        ITypedReferenceableInstance ret = instances.get(guid);
+
+        if (ret != null) {
+            instanceHits++;
+
+            ret = copy(ret);
+        } else {
+            instanceMisses++;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Caches a copy of the entity; the caller keeps the given instance.
+     */
+    public void putInstance(String guid, ITypedReferenceableInstance instance) throws AtlasException {
+        instances.put(guid, copy(instance));
+    }
+
+    /**
+     * To be called after entities are written or deleted. A write can change the mapped instances of other entities
+     * too (references, composites) and the entities found by unique attribute (attribute value, state), so those
+     * entries are dropped. The vertices of guids don't change.
+     */
+    public void invalidateEntities() {
+        instances.clear();
+        uniqueAttributeVertices.clear();
+    }
+
+    /**
+     * To be called when the graph transaction is rolled back: cached vertices may not exist anymore
+     */
+    public void clear() {
+        guidVertices.clear();
+        invalidateEntities();
+    }
+
+    public Map<String, Integer> getCounts() {
+        Map<String, Integer> ret = new LinkedHashMap<>();
+
+        ret.put("guidVertexHits", guidVertexHits);
+        ret.put("guidVertexMisses", guidVertexMisses);
+        ret.put("uniqueAttributeVertexHits", uniqueAttributeVertexHits);
+        ret.put("uniqueAttributeVertexMisses", uniqueAttributeVertexMisses);
+        ret.put("instanceHits", instanceHits);
+        ret.put("instanceMisses", instanceMisses);
+
+        return ret;
+    }
+
+    @Override
+    public void release() {
+        if (guidVertexMisses + uniqueAttributeVertexMisses + instanceMisses > 0) {
+            AtlasPerfTracer.logCounts(PERF_LOG, "RequestGraphCache", getCounts());
+        }
+    }
+
+    private static ITypedReferenceableInstance copy(ITypedReferenceableInstance instance) throws AtlasException {
+        ClassType    type       = TypeSystem.getInstance().getDataType(ClassType.class, instance.getTypeName());
+        List<String> traitNames = instance.getTraits();
+
+        ITypedReferenceableInstance ret = type.createInstance(copyId(instance.getId()),
+                copySystemAttributes(instance.getSystemAttributes()), traitNames.toArray(new String[traitNames.size()]));
+
+        copyValues(instance, ret);
+
+        for (String traitName : traitNames) {
+            copyValues((ITypedInstance) instance.getTrait(traitName), (ITypedInstance) ret.getTrait(traitName));
+        }
+
+        return ret;
+    }
+
+    private static void copyValues(ITypedInstance from, ITypedInstance to) throws AtlasException {
+        for (String attrName : from.fieldMapping().fields.keySet()) {
+            Object value = from.get(attrName);
+
+            if (value != null) {
+                to.set(attrName, copyValue(value));
+            }
+        }
+    }
+
+    private static Object copyValue(Object value) throws AtlasException {
+        if (value instanceof Id) {
+            return copyId((Id) value);
+        } else if (value instanceof ITypedReferenceableInstance) {
+            return copy((ITypedReferenceableInstance) value);
+        } else if (value instanceof ITypedStruct) {
+            ITypedStruct struct = (ITypedStruct) value;
+            ITypedStruct ret    = (ITypedStruct) TypeSystem.getInstance()
+                    .getDataType(IConstructableType.class, struct.getTypeName()).createInstance();
+
+            copyValues(struct, ret);
+
+            return ret;
+        } else if (value instanceof Collection) {
+            List<Object> ret = new ArrayList<>();
+
+            for (Object element : (Collection<?>) value) {
+                ret.add(copyValue(element));
+            }
+
+            return ret;
+        } else if (value instanceof Map) {
+            Map<Object, Object> ret = new LinkedHashMap<>();
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                ret.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+
+            return ret;
+        } else if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+
+        return value;
+    }
+
+    private static Id copyId(Id id) {
+        return id == null ? null : new Id(id.id, id.version, id.typeName, id.getStateAsString());
+    }
+
+    private static AtlasSystemAttributes copySystemAttributes(AtlasSystemAttributes attributes) {
+        if (attributes == null) {
+            return null;
+        }
+
+        return new AtlasSystemAttributes(attributes.createdBy, attributes.modifiedBy,
+                attributes.createdTime == null ? null : new Date(attributes.createdTime.getTime()),
+                attributes.modifiedTime == null ? null : new Date(attributes.modifiedTime.getTime()));
+    }
+}
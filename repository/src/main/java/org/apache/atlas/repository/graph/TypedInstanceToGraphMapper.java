@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.repository.Constants;
@@ -70,14 +71,17 @@ public final class TypedInstanceToGraphMapper {
 
     private DeleteHandler deleteHandler;
     private GraphToTypedInstanceMapper graphToTypedInstanceMapper;
+    private final boolean recordPreviousVersions = AtlasConfiguration.ENTITY_AUDIT_DELTA_ENABLED.getBoolean();
+    private final FullTextMapper fulltextMapper;
 
     @Inject
     public TypedInstanceToGraphMapper(GraphToTypedInstanceMapper graphToTypedInstanceMapper, DeleteHandler deleteHandler) {
         this.graphToTypedInstanceMapper = graphToTypedInstanceMapper;
         this.deleteHandler = deleteHandler;
+        this.fulltextMapper = new FullTextMapper(graphToTypedInstanceMapper, idToVertexMap);
     }
 
-    private final String SIGNATURE_HASH_PROPERTY_KEY = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "signature";
+    public static final String SIGNATURE_HASH_PROPERTY_KEY = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "signature";
 
     public enum Operation {
         CREATE,
@@ -96,11 +100,11 @@ public final class TypedInstanceToGraphMapper {
                     createVerticesAndDiscoverInstances(newInstances);
             List<ITypedReferenceableInstance> entitiesToCreate = instancesPair.left;
             List<ITypedReferenceableInstance> entitiesToUpdate = instancesPair.right;
-            FullTextMapper fulltextMapper = new FullTextMapper(graphToTypedInstanceMapper);
             switch (operation) {
             case CREATE:
                 List<String> ids = addOrUpdateAttributesAndTraits(operation, entitiesToCreate);
-                addFullTextProperty(entitiesToCreate, fulltextMapper);
+                RequestGraphCache.get().invalidateEntities();
+                addFullTextProperty(entitiesToCreate, Operation.CREATE);
                 requestContext.recordEntityCreate(ids);
                 break;
 
@@ -108,11 +112,16 @@ public final class TypedInstanceToGraphMapper {
             case UPDATE_PARTIAL:
                 ids = addOrUpdateAttributesAndTraits(Operation.CREATE, entitiesToCreate);
                 requestContext.recordEntityCreate(ids);
+                if (recordPreviousVersions) {
+                    recordPreviousVersions(entitiesToUpdate);
+                }
+                invalidateUniqueAttributes(entitiesToUpdate);
                 ids = addOrUpdateAttributesAndTraits(operation, entitiesToUpdate);
                 requestContext.recordEntityUpdate(ids);
+                RequestGraphCache.get().invalidateEntities();
 
-                addFullTextProperty(entitiesToCreate, fulltextMapper);
-                addFullTextProperty(entitiesToUpdate, fulltextMapper);
+                addFullTextProperty(entitiesToCreate, Operation.CREATE);
+                addFullTextProperty(entitiesToUpdate, operation);
                 break;
 
             default:
@@ -121,6 +130,33 @@ public final class TypedInstanceToGraphMapper {
         }
     }
 
+    /**
+     * The unique attributes of the entities may change: their current values are dropped from the unique attribute
+     * cache
+     */
+    private void invalidateUniqueAttributes(List<ITypedReferenceableInstance> instances) throws AtlasException {
+        for (ITypedReferenceableInstance instance : instances) {
+            graphHelper.invalidateUniqueAttributes(getClassVertex(instance));
+        }
+    }
+
+    /**
+     * Records the current version of the entities, before they are updated, for delta audit events
+     */
+    private void recordPreviousVersions(List<ITypedReferenceableInstance> instances) throws AtlasException {
+        RequestContext requestContext = RequestContext.get();
+
+        for (ITypedReferenceableInstance instance : instances) {
+            AtlasVertex instanceVertex = idToVertexMap.get(instance.getId());
+            String      guid           = GraphHelper.getIdFromVertex(instanceVertex);
+
+            if (!requestContext.hasEntityPreviousVersion(guid)) {
+                requestContext.recordEntityPreviousVersion(guid,
+                        graphToTypedInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex));
+            }
+        }
+    }
+
     private Collection<IReferenceableInstance> walkClassInstances(ITypedReferenceableInstance typedInstance)
             throws RepositoryException {
 
@@ -291,14 +327,51 @@ public final class TypedInstanceToGraphMapper {
         return TypeUtils.Pair.of(instancesToCreate, instancesToUpdate);
     }
 
-    private void addFullTextProperty(List<ITypedReferenceableInstance> instances, FullTextMapper fulltextMapper) throws AtlasException {
+    private void addFullTextProperty(List<ITypedReferenceableInstance> instances, Operation operation) throws AtlasException {
+        if (instances.isEmpty()) {
+            return;
+        }
+
+        if (FullTextIndexer.isEnabled()) {
+            List<AtlasVertex> vertices = new ArrayList<>(instances.size());
+
+            for (ITypedReferenceableInstance typedInstance : instances) {
+                vertices.add(getClassVertex(typedInstance));
+            }
+
+            FullTextIndexer.getInstance().addAfterCommit(vertices);
+
+            return;
+        }
+
+        // only the attributes written by this operation are mapped to full text from the instances; on updates
+        // the traits of the entities are unchanged
+        boolean traitsWritten = operation == Operation.CREATE;
+
         for (ITypedReferenceableInstance typedInstance : instances) { // Traverse
             AtlasVertex instanceVertex = getClassVertex(typedInstance);
-            String fullText = fulltextMapper.mapRecursive(instanceVertex, true);
+            Collection<String> writtenAttributes =
+                    operation == Operation.UPDATE_PARTIAL ? getNonNullAttributes(typedInstance) : null;
+            String fullText = fulltextMapper.mapInstance(typedInstance, instanceVertex, writtenAttributes, traitsWritten);
             GraphHelper.setProperty(instanceVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
         }
     }
 
+    /**
+     * @return names of the attributes written by a partial update, see mapAttributeToVertex()
+     */
+    private static Collection<String> getNonNullAttributes(ITypedInstance typedInstance) throws AtlasException {
+        List<String> ret = new ArrayList<>();
+
+        for (AttributeInfo attributeInfo : typedInstance.fieldMapping().fields.values()) {
+            if (typedInstance.get(attributeInfo.name) != null) {
+                ret.add(attributeInfo.name);
+            }
+        }
+
+        return ret;
+    }
+
     private void addTraits(ITypedReferenceableInstance typedInstance, AtlasVertex instanceVertex, ClassType classType)
             throws AtlasException {
         for (String traitName : typedInstance.getTraits()) {
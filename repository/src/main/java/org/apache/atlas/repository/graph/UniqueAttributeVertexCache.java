@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache, shared by all requests, of the ids of the vertices of active entities found by unique attribute
+ * value, keyed by type name, vertex property of the attribute and value.
+ *
+ * Entries are added when the transaction that found the vertex commits, and are removed when the entity is deleted
+ * or its unique attributes are updated. As another transaction may add an entry it read before such a change
+ * committed, a cached vertex is checked against the graph - still active, of the type and with the value - before
+ * it is used; an entry that doesn't match anymore is dropped and counted as stale.
+ */
+public class UniqueAttributeVertexCache {
+    private static final Logger LOG = LoggerFactory.getLogger(UniqueAttributeVertexCache.class);
+
+    private final AtlasGraph            graph;
+    private final Cache<String, String> vertexIds;
+    private final AtomicLong            staleCount = new AtomicLong();
+
+    UniqueAttributeVertexCache(AtlasGraph graph, boolean enabled, int maxSize) {
+        this.graph = graph;
+
+        if (enabled && maxSize > 0) {
+            this.vertexIds = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+
+            AtlasMetrics.registerGauge("UniqueAttributeVertexCache.hitRate", new AtlasMetrics.Gauge() {
+                @Override
+                public Object getValue() {
+                    return getStats().hitRate();
+                }
+            });
+        } else {
+            LOG.info("Unique attribute vertex cache is disabled (enabled={}, maxSize={})", enabled, maxSize);
+
+            this.vertexIds = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return vertexIds != null;
+    }
+
+    /**
+     * @return vertex of the active entity with the unique attribute value, read in the current transaction, if
+     * cached; null otherwise
+     */
+    public AtlasVertex get(String typeName, String propertyKey, Object value) {
+        if (vertexIds == null) {
+            return null;
+        }
+
+        String key      = getKey(typeName, propertyKey, value);
+        String vertexId = vertexIds.getIfPresent(key);
+
+        if (vertexId == null) {
+            return null;
+        }
+
+        AtlasVertex ret = graph.getVertex(vertexId);
+
+        if (ret == null || GraphHelper.getState(ret) != Id.EntityState.ACTIVE
+                || !typeName.equals(GraphHelper.getTypeName(ret))
+                || !value.equals(GraphHelper.getProperty(ret, propertyKey))) {
+            LOG.debug("Dropping stale unique attribute cache entry {} -> {}", key, vertexId);
+
+            vertexIds.invalidate(key);
+            staleCount.incrementAndGet();
+
+            return null;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Caches the vertex found by the unique attribute value when the current graph transaction commits
+     */
+    public void putAfterCommit(String typeName, String propertyKey, Object value, final AtlasVertex vertex) {
+        if (vertexIds == null) {
+            return;
+        }
+
+        final String key = getKey(typeName, propertyKey, value);
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    vertexIds.put(key, vertex.getId().toString());
+                }
+            }
+        };
+    }
+
+    /**
+     * To be called before the entity with the unique attribute value is deleted, or the value is updated
+     */
+    public void invalidate(String typeName, String propertyKey, Object value) {
+        if (vertexIds == null || value == null) {
+            return;
+        }
+
+        final String key = getKey(typeName, propertyKey, value);
+
+        vertexIds.invalidate(key);
+
+        // an entry added by a transaction that read the entity before this one commits is dropped as well
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                vertexIds.invalidate(key);
+            }
+        };
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the cache. Stale entries found are counted as hits; see getStaleCount()
+     */
+    public CacheStats getStats() {
+        return vertexIds != null ? vertexIds.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return number of cached vertices that didn't match the entry anymore when read
+     */
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    public long size() {
+        return vertexIds != null ? vertexIds.size() : 0;
+    }
+
+    public void clear() {
+        if (vertexIds != null) {
+            vertexIds.invalidateAll();
+        }
+    }
+
+    private static String getKey(String typeName, String propertyKey, Object value) {
+        return typeName + "." + propertyKey + "=" + value;
+    }
+}
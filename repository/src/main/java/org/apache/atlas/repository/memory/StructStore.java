@@ -20,7 +20,9 @@ package org.apache.atlas.repository.memory;
 
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
+import org.apache.atlas.AtlasException;
 import org.apache.atlas.repository.RepositoryException;
+import org.apache.atlas.typesystem.ITypedStruct;
 import org.apache.atlas.typesystem.persistence.StructInstance;
 import org.apache.atlas.typesystem.types.AttributeInfo;
 import org.apache.atlas.typesystem.types.StructType;
@@ -47,7 +49,7 @@ public class StructStore extends AttributeStores.AbstractAttributeStore implemen
 
     @Override
     protected void store(StructInstance instance, int colPos, int pos) throws RepositoryException {
-        StructInstance s = instance.structs[colPos];
+        StructInstance s = toStructInstance(instance.structs[colPos]);
         for (Map.Entry<AttributeInfo, IAttributeStore> e : attrStores.entrySet()) {
             IAttributeStore attributeStore = e.getValue();
             attributeStore.store(pos, structType, s);
@@ -71,7 +73,35 @@ public class StructStore extends AttributeStores.AbstractAttributeStore implemen
 
     @Override
     protected void load(StructInstance instance, int colPos, Object val) {
-        instance.structs[colPos] = (StructInstance) val;
+        instance.structs[colPos] = (ITypedStruct) val;
+    }
+
+    /*
+     * The attribute stores read the field arrays of StructInstance; structs of other layouts, like
+     * CompactStructInstance, are copied to a StructInstance first.
+     */
+    private StructInstance toStructInstance(ITypedStruct struct) throws RepositoryException {
+        if (struct == null || struct instanceof StructInstance) {
+            return (StructInstance) struct;
+        }
+
+        StructInstance ret = (StructInstance) structType.createInstance();
+
+        try {
+            for (String attrName : structType.fieldMapping.fields.keySet()) {
+                Object value = struct.get(attrName);
+
+                if (value != null) {
+                    ret.set(attrName, value);
+                } else {
+                    ret.setNull(attrName);
+                }
+            }
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+
+        return ret;
     }
 
     @Override
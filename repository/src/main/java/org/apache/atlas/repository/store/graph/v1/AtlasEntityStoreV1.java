@@ -18,25 +18,58 @@
 package org.apache.atlas.repository.store.graph.v1;
 
 
+import com.google.inject.Inject;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.GraphTransaction;
+import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.SearchFilter;
 import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasEntityWithAssociations;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.instance.EntityMutations;
+import org.apache.atlas.model.instance.EntityMutations.EntityMutation;
+import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.DeleteHandler;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.RequestGraphCache;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.exception.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class AtlasEntityStoreV1 implements AtlasEntityStore {
+    private static final Logger LOG = LoggerFactory.getLogger(AtlasEntityStoreV1.class);
+
+    private static final GraphHelper graphHelper = GraphHelper.getInstance();
+
+    private final AtlasGraph    graph;
+    private final DeleteHandler deleteHandler;
+
+    @Inject
+    public AtlasEntityStoreV1(DeleteHandler deleteHandler) {
+        this.graph         = AtlasGraphProvider.getGraphInstance();
+        this.deleteHandler = deleteHandler;
+    }
+
     @Override
     public void init() throws AtlasBaseException {
     }
 
     @Override
-    public EntityMutationResponse createOrUpdate(final AtlasEntity entity) {
-        return null;
+    @GraphTransaction
+    public EntityMutationResponse createOrUpdate(final AtlasEntity entity) throws AtlasBaseException {
+        return createOrUpdate(Collections.singletonList(entity));
     }
 
     @Override
@@ -54,9 +87,24 @@ public class AtlasEntityStoreV1 implements AtlasEntityStore {
         return null;
     }
 
+    /**
+     * Writes the entities, and the entities nested in their attributes, in one transaction. An entity without an
+     * assigned guid updates the entity with the same unique attribute value, if there is one.
+     */
     @Override
+    @GraphTransaction
     public EntityMutationResponse createOrUpdate(final List<AtlasEntity> entities) throws AtlasBaseException {
-        return null;
+        LOG.debug("Creating/updating {} entities", entities.size());
+
+        EntityGraphMapper mapper = new EntityGraphMapper(graph, deleteHandler);
+
+        for (AtlasEntity entity : entities) {
+            mapper.addEntity(entity, false);
+        }
+
+        mapper.mapToGraph();
+
+        return toEntityMutationResponse(mapper);
     }
 
     @Override
@@ -94,9 +142,88 @@ public class AtlasEntityStoreV1 implements AtlasEntityStore {
         return null;
     }
 
+    /**
+     * Applies the mutations in one transaction: the entities of all CREATE_OR_UPDATE and PARTIAL_UPDATE mutations
+     * are written as one batch, then the entities of the DELETE mutations are deleted.
+     */
     @Override
+    @GraphTransaction
     public EntityMutationResponse batchMutate(final EntityMutations mutations) throws AtlasBaseException {
-        return null;
+        EntityGraphMapper mapper        = new EntityGraphMapper(graph, deleteHandler);
+        List<String>      guidsToDelete = new ArrayList<>();
+
+        for (EntityMutation mutation : mutations.getEntityMutations()) {
+            switch (mutation.getOp()) {
+            case CREATE:
+            case UPDATE:
+            case CREATE_OR_UPDATE:
+                mapper.addEntity(mutation.getEntity(), false);
+                break;
+
+            case PARTIAL_UPDATE:
+                mapper.addEntity(mutation.getEntity(), true);
+                break;
+
+            case DELETE:
+                guidsToDelete.add(mutation.getEntity().getGuid());
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown entity operation " + mutation.getOp());
+            }
+        }
+
+        mapper.mapToGraph();
+
+        if (!guidsToDelete.isEmpty()) {
+            deleteEntities(guidsToDelete);
+        }
+
+        return toEntityMutationResponse(mapper);
+    }
+
+    private void deleteEntities(List<String> guids) throws AtlasBaseException {
+        List<AtlasVertex> vertices = new ArrayList<>(guids.size());
+
+        for (String guid : guids) {
+            try {
+                vertices.add(graphHelper.getVertexForGUID(guid));
+            } catch (EntityNotFoundException e) {
+                // the entity is already gone, which is what the caller wanted
+                LOG.info("Deletion request ignored for non-existent entity with guid " + guid);
+            }
+        }
+
+        try {
+            deleteHandler.deleteEntities(vertices);
+        } catch (AtlasException e) {
+            throw new AtlasBaseException(e);
+        } finally {
+            RequestGraphCache.get().invalidateEntities();
+        }
+    }
+
+    private EntityMutationResponse toEntityMutationResponse(EntityGraphMapper mapper) {
+        EntityMutationResponse ret = new EntityMutationResponse();
+
+        for (AtlasEntityHeader header : mapper.getCreatedEntityHeaders()) {
+            ret.addEntity(EntityOperation.CREATE, header);
+        }
+
+        for (AtlasEntityHeader header : mapper.getUpdatedEntityHeaders()) {
+            ret.addEntity(EntityOperation.UPDATE, header);
+        }
+
+        for (ITypedReferenceableInstance deletedEntity : RequestContext.get().getDeletedEntities()) {
+            AtlasEntityHeader header = new AtlasEntityHeader(deletedEntity.getTypeName());
+
+            header.setGuid(deletedEntity.getId()._getId());
+            header.setStatus(AtlasEntity.Status.STATUS_DELETED);
+
+            ret.addEntity(EntityOperation.DELETE, header);
+        }
+
+        return ret;
     }
 
 
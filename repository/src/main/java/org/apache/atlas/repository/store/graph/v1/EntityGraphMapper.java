@@ -0,0 +1,863 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v1;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasStruct;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.DeleteHandler;
+import org.apache.atlas.repository.graph.FullTextIndexer;
+import org.apache.atlas.repository.graph.FullTextMapper;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.GraphToTypedInstanceMapper;
+import org.apache.atlas.repository.graph.RequestGraphCache;
+import org.apache.atlas.repository.graph.TypedInstanceToGraphMapper;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasSchemaViolationException;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.typesystem.exception.EntityNotFoundException;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.AttributeInfo;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.EnumValue;
+import org.apache.atlas.typesystem.types.IDataType;
+import org.apache.atlas.typesystem.types.StructType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.commons.collections.MapUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.atlas.repository.graph.GraphHelper.string;
+
+/**
+ * Writes a batch of AtlasEntity instances to the graph, without converting them to ITypedReferenceableInstance.
+ *
+ * The batch is written in three steps:
+ * - the vertices of the entities with a guid, of the entities they refer to and of the entities matched by a unique
+ *   attribute value are looked up in a single graph query
+ * - vertices are created for the entities not found, before any attribute is written
+ * - the attributes are written; references to entities of the batch resolve to the vertices of the first two steps
+ *
+ * The graph layout is the one of TypedInstanceToGraphMapper: property names, edge labels and value conversions come
+ * from the TypeSystem, so that entities written here read back the same as those written by the v1 repository.
+ */
+public class EntityGraphMapper {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityGraphMapper.class);
+
+    private static final GraphHelper graphHelper = GraphHelper.getInstance();
+
+    private static final String ATTRIBUTES_KEY = "attributes";
+
+    private final AtlasGraph                 graph;
+    private final DeleteHandler              deleteHandler;
+    private final GraphToTypedInstanceMapper graphToTypedInstanceMapper;
+    private final FullTextMapper             fullTextMapper;
+    private final TypeSystem                 typeSystem             = TypeSystem.getInstance();
+    private final boolean                    recordPreviousVersions = AtlasConfiguration.ENTITY_AUDIT_DELTA_ENABLED.getBoolean();
+
+    // entities of the batch in the order added; nested entities are also found by the value that holds them
+    private final List<EntityToWrite>        entities        = new ArrayList<>();
+    private final Map<String, EntityToWrite> entitiesByGuid  = new HashMap<>();
+    private final Map<Object, EntityToWrite> entitiesByValue = new IdentityHashMap<>();
+    private final Set<String>                referencedGuids = new HashSet<>();
+
+    public EntityGraphMapper(AtlasGraph graph, DeleteHandler deleteHandler) {
+        this.graph                      = graph;
+        this.deleteHandler              = deleteHandler;
+        this.graphToTypedInstanceMapper = new GraphToTypedInstanceMapper(graph);
+        this.fullTextMapper             = new FullTextMapper(graphToTypedInstanceMapper);
+    }
+
+    /**
+     * Adds the entity, and the entities nested in its attributes, to the batch.
+     *
+     * @param isPartialUpdate if true, attributes without a value in the entity are left unchanged on an existing
+     *                        entity; otherwise they are cleared
+     */
+    public void addEntity(AtlasEntity entity, boolean isPartialUpdate) throws AtlasBaseException {
+        addEntity(entity, entity.getGuid(), entity.getTypeName(), entity.getAttributes(), isPartialUpdate);
+    }
+
+    /**
+     * Writes the entities added to the batch. The entities created and updated are recorded in the RequestContext.
+     */
+    public void mapToGraph() throws AtlasBaseException {
+        try {
+            resolveVertices();
+
+            List<EntityToWrite> createdEntities = new ArrayList<>();
+            List<EntityToWrite> updatedEntities = new ArrayList<>();
+
+            for (EntityToWrite entity : entities) {
+                if (entity.vertex == null) {
+                    createVertex(entity);
+
+                    createdEntities.add(entity);
+                } else {
+                    updatedEntities.add(entity);
+                }
+            }
+
+            if (recordPreviousVersions) {
+                recordPreviousVersions(updatedEntities);
+            }
+
+            // the unique attributes of the updated entities may change
+            for (EntityToWrite entity : updatedEntities) {
+                graphHelper.invalidateUniqueAttributes(entity.vertex);
+            }
+
+            for (EntityToWrite entity : entities) {
+                LOG.debug("Writing entity {} to vertex {}", entity.guid, string(entity.vertex));
+
+                mapAttributes(entity.vertex, entity.classType, entity.classType.fieldMapping().fields,
+                        entity.attributes, entity.isUpdateFull(), !entity.isPartialUpdate || entity.isCreated);
+            }
+
+            RequestContext requestContext = RequestContext.get();
+
+            requestContext.recordEntityCreate(getGuids(createdEntities));
+            requestContext.recordEntityUpdate(getGuids(updatedEntities));
+            RequestGraphCache.get().invalidateEntities();
+
+            addFullTextProperty(createdEntities);
+            addFullTextProperty(updatedEntities);
+        } catch (AtlasSchemaViolationException e) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ALREADY_EXISTS, e, e.getMessage());
+        } catch (EntityNotFoundException e) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, e, e.getMessage());
+        } catch (AtlasException e) {
+            throw new AtlasBaseException(e);
+        }
+    }
+
+    /**
+     * @return headers of the entities written that were created
+     */
+    public List<AtlasEntityHeader> getCreatedEntityHeaders() {
+        return getEntityHeaders(true);
+    }
+
+    /**
+     * @return headers of the entities written that existed before
+     */
+    public List<AtlasEntityHeader> getUpdatedEntityHeaders() {
+        return getEntityHeaders(false);
+    }
+
+    private List<AtlasEntityHeader> getEntityHeaders(boolean created) {
+        List<AtlasEntityHeader> ret = new ArrayList<>();
+
+        for (EntityToWrite entity : entities) {
+            if (entity.isCreated == created) {
+                AtlasEntityHeader header = new AtlasEntityHeader(entity.classType.getName());
+
+                header.setGuid(GraphHelper.getIdFromVertex(entity.vertex));
+                header.setStatus(AtlasEntity.Status.STATUS_ACTIVE);
+
+                ret.add(header);
+            }
+        }
+
+        return ret;
+    }
+
+    /******************************************** BATCH **************************************************/
+
+    private void addEntity(Object value, String guid, String typeName, Map<String, Object> attributes,
+                           boolean isPartialUpdate) throws AtlasBaseException {
+        if ((guid != null && entitiesByGuid.containsKey(guid)) || entitiesByValue.containsKey(value)) {
+            LOG.debug("Entity {} is already in the batch", guid);
+
+            return;
+        }
+
+        ClassType     classType = getClassType(typeName);
+        EntityToWrite entity    = new EntityToWrite(guid, classType, attributes, isPartialUpdate);
+
+        entities.add(entity);
+        entitiesByValue.put(value, entity);
+
+        if (guid != null) {
+            entitiesByGuid.put(guid, entity);
+        }
+
+        if (attributes != null) {
+            for (AttributeInfo attributeInfo : classType.fieldMapping().fields.values()) {
+                discoverEntities(attributeInfo.dataType(), attributes.get(attributeInfo.name), isPartialUpdate);
+            }
+        }
+    }
+
+    /*
+     * Adds the entities nested in the attribute value to the batch, and collects the guids of the entities it refers
+     * to. A nested entity is an AtlasEntity, or its JSON map, with attributes; without attributes it is a reference.
+     */
+    private void discoverEntities(IDataType type, Object value, boolean isPartialUpdate) throws AtlasBaseException {
+        if (value == null) {
+            return;
+        }
+
+        switch (type.getTypeCategory()) {
+        case CLASS:
+            if (value instanceof AtlasEntity && MapUtils.isNotEmpty(((AtlasEntity) value).getAttributes())) {
+                AtlasEntity entity = (AtlasEntity) value;
+
+                addEntity(entity, entity.getGuid(), entity.getTypeName(), entity.getAttributes(), isPartialUpdate);
+            } else if (value instanceof Map && MapUtils.isNotEmpty(getMap((Map) value, ATTRIBUTES_KEY))) {
+                Map    map      = (Map) value;
+                String typeName = (String) map.get(AtlasObjectId.KEY_TYPENAME);
+
+                addEntity(map, (String) map.get(AtlasObjectId.KEY_GUID), typeName != null ? typeName : type.getName(),
+                        getMap(map, ATTRIBUTES_KEY), isPartialUpdate);
+            } else {
+                String guid = getGuid(value);
+
+                if (AtlasEntity.isAssigned(guid)) {
+                    referencedGuids.add(guid);
+                }
+            }
+            break;
+
+        case STRUCT:
+            Map<String, Object> structAttributes = getStructAttributes(value);
+
+            if (structAttributes != null) {
+                for (AttributeInfo attributeInfo : ((StructType) type).fieldMapping().fields.values()) {
+                    discoverEntities(attributeInfo.dataType(), structAttributes.get(attributeInfo.name), isPartialUpdate);
+                }
+            }
+            break;
+
+        case ARRAY:
+            if (value instanceof Collection) {
+                IDataType elementType = ((DataTypes.ArrayType) type).getElemType();
+
+                for (Object element : (Collection) value) {
+                    discoverEntities(elementType, element, isPartialUpdate);
+                }
+            }
+            break;
+
+        case MAP:
+            if (value instanceof Map) {
+                IDataType valueType = ((DataTypes.MapType) type).getValueType();
+
+                for (Object element : ((Map) value).values()) {
+                    discoverEntities(valueType, element, isPartialUpdate);
+                }
+            }
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    /*
+     * Finds, in one graph query, the vertices of the entities of the batch with an assigned guid, of the entities
+     * they refer to, and of the entities of the batch matched by a unique attribute value.
+     */
+    private void resolveVertices() throws AtlasBaseException, AtlasException {
+        RequestGraphCache                          cache         = RequestGraphCache.get();
+        Set<String>                                guids         = new LinkedHashSet<>();
+        Map<UniqueKey, Map<Object, EntityToWrite>> uniqueLookups = new HashMap<>();
+
+        for (EntityToWrite entity : entities) {
+            if (AtlasEntity.isAssigned(entity.guid)) {
+                guids.add(entity.guid);
+            } else if (entity.attributes != null) {
+                for (AttributeInfo attributeInfo : entity.classType.fieldMapping().fields.values()) {
+                    Object value = entity.attributes.get(attributeInfo.name);
+
+                    if (attributeInfo.isUnique && value != null) {
+                        UniqueKey key = new UniqueKey(entity.classType.getName(),
+                                GraphHelper.getQualifiedFieldName(entity.classType, attributeInfo.name));
+
+                        Map<Object, EntityToWrite> lookup = uniqueLookups.get(key);
+
+                        if (lookup == null) {
+                            lookup = new HashMap<>();
+
+                            uniqueLookups.put(key, lookup);
+                        }
+
+                        Object        propertyValue = toPropertyValue(entity.classType, attributeInfo,
+                                                                      attributeInfo.dataType(), value);
+                        EntityToWrite other         = lookup.put(propertyValue, entity);
+
+                        // both would be written to the vertex found by the value, or create a vertex with it
+                        if (other != null) {
+                            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_UNIQUE_ATTRIBUTE_DUPLICATE,
+                                    entity.classType.getName(), attributeInfo.name, String.valueOf(value));
+                        }
+                    }
+                }
+            }
+        }
+
+        guids.addAll(referencedGuids);
+
+        for (String guid : new ArrayList<>(guids)) {
+            if (cache.getVertex(guid) != null) {
+                guids.remove(guid);
+            }
+        }
+
+        if (!guids.isEmpty() || !uniqueLookups.isEmpty()) {
+            AtlasGraphQuery       query        = graph.query();
+            List<AtlasGraphQuery> childQueries = new ArrayList<>();
+
+            if (!guids.isEmpty()) {
+                childQueries.add(query.createChildQuery().in(Constants.GUID_PROPERTY_KEY, guids));
+            }
+
+            for (Map.Entry<UniqueKey, Map<Object, EntityToWrite>> lookup : uniqueLookups.entrySet()) {
+                childQueries.add(query.createChildQuery()
+                        .has(Constants.ENTITY_TYPE_PROPERTY_KEY, lookup.getKey().typeName)
+                        .has(Constants.STATE_PROPERTY_KEY, Id.EntityState.ACTIVE.name())
+                        .in(lookup.getKey().propertyKey, lookup.getValue().keySet()));
+            }
+
+            query.or(childQueries);
+
+            Iterable<AtlasVertex> vertices = query.vertices();
+
+            for (AtlasVertex vertex : vertices) {
+                String guid = GraphHelper.getIdFromVertex(vertex);
+
+                if (guids.contains(guid)) {
+                    cache.putVertex(guid, vertex);
+                }
+
+                if (GraphHelper.getState(vertex) != Id.EntityState.ACTIVE) {
+                    continue;
+                }
+
+                String typeName = GraphHelper.getTypeName(vertex);
+
+                for (Map.Entry<UniqueKey, Map<Object, EntityToWrite>> lookup : uniqueLookups.entrySet()) {
+                    if (lookup.getKey().typeName.equals(typeName)) {
+                        Object        value  = GraphHelper.getProperty(vertex, lookup.getKey().propertyKey);
+                        EntityToWrite entity = value != null ? lookup.getValue().get(value) : null;
+
+                        if (entity != null) {
+                            LOG.debug("Found vertex {} by unique attribute {}={}", string(vertex),
+                                    lookup.getKey().propertyKey, value);
+
+                            entity.vertex = vertex;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (EntityToWrite entity : entities) {
+            if (AtlasEntity.isAssigned(entity.guid)) {
+                entity.vertex = graphHelper.getVertexForGUID(entity.guid);
+            }
+        }
+    }
+
+    private void createVertex(EntityToWrite entity) {
+        ClassType classType = entity.classType;
+
+        entity.vertex    = graphHelper.createVertexWithIdentity(classType.getName(), 0, classType.getAllSuperTypeNames());
+        entity.isCreated = true;
+
+        RequestGraphCache.get().putVertex(GraphHelper.getIdFromVertex(entity.vertex), entity.vertex);
+
+        LOG.debug("Created vertex {} for entity {}", string(entity.vertex), entity.guid);
+    }
+
+    /**
+     * Records the current version of the entities, before they are updated, for delta audit events
+     */
+    private void recordPreviousVersions(List<EntityToWrite> entities) throws AtlasException {
+        RequestContext requestContext = RequestContext.get();
+
+        for (EntityToWrite entity : entities) {
+            String guid = GraphHelper.getIdFromVertex(entity.vertex);
+
+            if (!requestContext.hasEntityPreviousVersion(guid)) {
+                requestContext.recordEntityPreviousVersion(guid,
+                        graphToTypedInstanceMapper.mapGraphToTypedInstance(guid, entity.vertex));
+            }
+        }
+    }
+
+    private void addFullTextProperty(List<EntityToWrite> entities) throws AtlasException {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        if (FullTextIndexer.isEnabled()) {
+            List<AtlasVertex> vertices = new ArrayList<>(entities.size());
+
+            for (EntityToWrite entity : entities) {
+                vertices.add(entity.vertex);
+            }
+
+            FullTextIndexer.getInstance().addAfterCommit(vertices);
+
+            return;
+        }
+
+        // only the attributes written to the vertices are read back for the full text; partial updates write the
+        // attributes given in the entity, creates and full updates write all attributes
+        for (EntityToWrite entity : entities) {
+            Collection<String> writtenAttributes = null;
+
+            if (entity.isPartialUpdate && !entity.isCreated) {
+                writtenAttributes = entity.attributes != null ? entity.attributes.keySet()
+                                                              : Collections.<String>emptySet();
+            }
+
+            String fullText = fullTextMapper.mapVertex(entity.vertex, writtenAttributes);
+
+            GraphHelper.setProperty(entity.vertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
+        }
+    }
+
+    /******************************************** ATTRIBUTES **************************************************/
+
+    private void mapAttributes(AtlasVertex vertex, IDataType ownerType, Map<String, AttributeInfo> fields,
+                               Map<String, Object> attributes, boolean clearMissing, boolean checkRequired)
+            throws AtlasBaseException, AtlasException {
+        for (AttributeInfo attributeInfo : fields.values()) {
+            Object value = attributes != null ? attributes.get(attributeInfo.name) : null;
+
+            if (value == null) {
+                if (checkRequired && attributeInfo.multiplicity.lower > 0) {
+                    throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ATTRIBUTE_VALUE_INVALID, ownerType.getName(),
+                            attributeInfo.name, "mandatory attribute value missing");
+                }
+
+                if (!clearMissing) {
+                    continue;
+                }
+            }
+
+            mapAttribute(vertex, ownerType, attributeInfo, value);
+        }
+
+        GraphHelper.setProperty(vertex, Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY,
+                RequestContext.get().getRequestTime());
+        GraphHelper.setProperty(vertex, Constants.MODIFIED_BY_KEY, RequestContext.get().getUser());
+    }
+
+    private void mapAttribute(AtlasVertex vertex, IDataType ownerType, AttributeInfo attributeInfo, Object value)
+            throws AtlasBaseException, AtlasException {
+        IDataType type         = attributeInfo.dataType();
+        String    propertyName = GraphHelper.getQualifiedFieldName(ownerType, attributeInfo.name);
+
+        switch (type.getTypeCategory()) {
+        case PRIMITIVE:
+        case ENUM:
+            GraphHelper.setProperty(vertex, propertyName, toPropertyValue(ownerType, attributeInfo, type, value));
+            break;
+
+        case ARRAY:
+            mapArray(vertex, ownerType, attributeInfo, value, propertyName);
+            break;
+
+        case MAP:
+            mapMap(vertex, ownerType, attributeInfo, value, propertyName);
+            break;
+
+        case STRUCT:
+        case CLASS:
+            String    edgeLabel   = GraphHelper.EDGE_LABEL_PREFIX + propertyName;
+            AtlasEdge currentEdge = graphHelper.getEdgeForLabel(vertex, edgeLabel);
+            AtlasEdge newEdge     = value != null ?
+                    addOrUpdateReference(vertex, ownerType, attributeInfo, type, value, currentEdge, edgeLabel) : null;
+
+            if (currentEdge != null && !currentEdge.equals(newEdge)) {
+                deleteHandler.deleteEdgeReference(currentEdge, type.getTypeCategory(), attributeInfo.isComposite, true);
+            }
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    private void mapArray(AtlasVertex vertex, IDataType ownerType, AttributeInfo attributeInfo, Object value,
+                          String propertyName) throws AtlasBaseException, AtlasException {
+        if (value != null && !(value instanceof Collection)) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ATTRIBUTE_VALUE_INVALID, ownerType.getName(),
+                    attributeInfo.name, String.valueOf(value));
+        }
+
+        IDataType    elementType     = ((DataTypes.ArrayType) attributeInfo.dataType()).getElemType();
+        List<Object> currentElements = GraphHelper.getArrayElementsProperty(elementType, vertex, propertyName);
+        List<Object> newElements     = new ArrayList<>();
+
+        if (value != null) {
+            int index = 0;
+
+            for (Object element : (Collection) value) {
+                Object currentElement = (currentElements != null && index < currentElements.size()) ?
+                        currentElements.get(index) : null;
+                Object newElement     = addOrUpdateCollectionEntry(vertex, ownerType, attributeInfo, elementType,
+                        element, currentElement, propertyName);
+
+                if (newElement != null || !GraphHelper.isReference(elementType)) {
+                    newElements.add(newElement);
+
+                    index++;
+                }
+            }
+        }
+
+        if (GraphHelper.isReference(elementType) && currentElements != null) {
+            for (Object currentElement : currentElements) {
+                AtlasEdge currentEdge = (AtlasEdge) currentElement;
+
+                if (!newElements.contains(currentEdge) && !deleteHandler.deleteEdgeReference(currentEdge,
+                        elementType.getTypeCategory(), attributeInfo.isComposite, true)) {
+                    newElements.add(currentEdge);
+                }
+            }
+        }
+
+        GraphHelper.setArrayElementsProperty(elementType, vertex, propertyName, newElements);
+    }
+
+    private void mapMap(AtlasVertex vertex, IDataType ownerType, AttributeInfo attributeInfo, Object value,
+                        String propertyName) throws AtlasBaseException, AtlasException {
+        if (value != null && !(value instanceof Map)) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ATTRIBUTE_VALUE_INVALID, ownerType.getName(),
+                    attributeInfo.name, String.valueOf(value));
+        }
+
+        IDataType           elementType = ((DataTypes.MapType) attributeInfo.dataType()).getValueType();
+        Map<String, Object> currentMap  = new HashMap<>();
+        Map<String, Object> newMap      = new HashMap<>();
+        List<String>        currentKeys = GraphHelper.getListProperty(vertex, propertyName);
+
+        if (currentKeys != null) {
+            for (String key : currentKeys) {
+                String propertyNameForKey = GraphHelper.getQualifiedNameForMapKey(propertyName, key);
+
+                currentMap.put(key, GraphHelper.getMapValueProperty(elementType, vertex, propertyNameForKey));
+            }
+        }
+
+        if (value != null) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                String key                = entry.getKey().toString();
+                String propertyNameForKey = GraphHelper.getQualifiedNameForMapKey(propertyName, key);
+                Object newEntry           = addOrUpdateCollectionEntry(vertex, ownerType, attributeInfo, elementType,
+                        entry.getValue(), currentMap.get(key), propertyNameForKey);
+
+                GraphHelper.setMapValueProperty(elementType, vertex, propertyNameForKey, newEntry);
+                newMap.put(key, newEntry);
+            }
+        }
+
+        Set<String> newKeys = new LinkedHashSet<>(newMap.keySet());
+
+        for (Map.Entry<String, Object> currentEntry : currentMap.entrySet()) {
+            String  key             = currentEntry.getKey();
+            boolean shouldDeleteKey = !newMap.containsKey(key);
+
+            if (GraphHelper.isReference(elementType)) {
+                AtlasEdge currentEdge = (AtlasEdge) currentEntry.getValue();
+
+                if (!newMap.values().contains(currentEdge) && !deleteHandler.deleteEdgeReference(currentEdge,
+                        elementType.getTypeCategory(), attributeInfo.isComposite, true)) {
+                    newKeys.add(key);
+
+                    shouldDeleteKey = false;
+                }
+            }
+
+            if (shouldDeleteKey) {
+                GraphHelper.setProperty(vertex, GraphHelper.getQualifiedNameForMapKey(propertyName, key), null);
+            }
+        }
+
+        GraphHelper.setListProperty(vertex, propertyName, new ArrayList<>(newKeys));
+    }
+
+    private Object addOrUpdateCollectionEntry(AtlasVertex vertex, IDataType ownerType, AttributeInfo attributeInfo,
+                                              IDataType elementType, Object value, Object currentValue,
+                                              String propertyName) throws AtlasBaseException, AtlasException {
+        switch (elementType.getTypeCategory()) {
+        case PRIMITIVE:
+        case ENUM:
+            // collection elements are stored as converted, like TypedInstanceToGraphMapper does
+            return convert(ownerType, attributeInfo, elementType, value);
+
+        case STRUCT:
+        case CLASS:
+            return value != null ? addOrUpdateReference(vertex, ownerType, attributeInfo, elementType, value,
+                    (AtlasEdge) currentValue, GraphHelper.EDGE_LABEL_PREFIX + propertyName) : null;
+
+        default:
+            // nested collections are not supported
+            return null;
+        }
+    }
+
+    private AtlasEdge addOrUpdateReference(AtlasVertex vertex, IDataType ownerType, AttributeInfo attributeInfo,
+                                           IDataType type, Object value, AtlasEdge currentEdge, String edgeLabel)
+            throws AtlasBaseException, AtlasException {
+        if (type.getTypeCategory() == DataTypes.TypeCategory.STRUCT) {
+            StructType          structType = (StructType) type;
+            Map<String, Object> attributes = getStructAttributes(value);
+
+            if (attributes == null) {
+                throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ATTRIBUTE_VALUE_INVALID, ownerType.getName(),
+                        attributeInfo.name, String.valueOf(value));
+            }
+
+            if (GraphHelper.elementExists(currentEdge)) {
+                AtlasVertex structVertex = currentEdge.getInVertex();
+
+                mapAttributes(structVertex, structType, structType.fieldMapping().fields, attributes, true, true);
+
+                // the signature is of the struct last written by TypedInstanceToGraphMapper; drop it so that it
+                // rewrites the struct on its next update
+                GraphHelper.setProperty(structVertex, TypedInstanceToGraphMapper.SIGNATURE_HASH_PROPERTY_KEY, null);
+
+                return currentEdge;
+            }
+
+            AtlasVertex structVertex = graphHelper.createVertexWithoutIdentity(structType.getName(), null,
+                    Collections.<String>emptySet());
+
+            mapAttributes(structVertex, structType, structType.fieldMapping().fields, attributes, false, true);
+
+            return graphHelper.getOrCreateEdge(vertex, structVertex, edgeLabel);
+        }
+
+        AtlasVertex referencedVertex = getReferencedVertex(ownerType, attributeInfo, (ClassType) type, value);
+
+        if (GraphHelper.elementExists(currentEdge) && currentEdge.getInVertex().equals(referencedVertex)) {
+            return currentEdge;
+        }
+
+        return graphHelper.getOrCreateEdge(vertex, referencedVertex, edgeLabel);
+    }
+
+    /*
+     * Vertex of the entity referred to by the value, which must be of the type of the attribute, or of a subtype
+     */
+    private AtlasVertex getReferencedVertex(IDataType ownerType, AttributeInfo attributeInfo, ClassType type,
+                                            Object value) throws AtlasBaseException {
+        EntityToWrite entity = entitiesByValue.get(value);
+        String        guid   = getGuid(value);
+        AtlasVertex   ret;
+        String        typeName;
+
+        if (entity == null && guid != null) {
+            entity = entitiesByGuid.get(guid);
+        }
+
+        if (entity != null) {
+            ret      = entity.vertex;
+            typeName = entity.classType.getName();
+        } else if (!AtlasEntity.isAssigned(guid)) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, String.valueOf(guid));
+        } else {
+            try {
+                ret = graphHelper.getVertexForGUID(guid);
+            } catch (EntityNotFoundException e) {
+                throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, e, guid);
+            }
+
+            typeName = GraphHelper.getTypeName(ret);
+        }
+
+        boolean isValidType;
+
+        try {
+            isValidType = type.isSubType(typeName);
+        } catch (AtlasException e) {
+            isValidType = false;
+        }
+
+        if (!isValidType) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_REFERENCE_TYPE_INVALID, ownerType.getName(),
+                    attributeInfo.name, GraphHelper.getIdFromVertex(ret), typeName, type.getName());
+        }
+
+        return ret;
+    }
+
+    /******************************************** VALUES **************************************************/
+
+    private Object convert(IDataType ownerType, AttributeInfo attributeInfo, IDataType type, Object value)
+            throws AtlasBaseException {
+        try {
+            return type.convert(value, attributeInfo.multiplicity);
+        } catch (AtlasException e) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_ATTRIBUTE_VALUE_INVALID, e, ownerType.getName(),
+                    attributeInfo.name, String.valueOf(value));
+        }
+    }
+
+    /*
+     * Value of a primitive or enum attribute as stored in the vertex property, see
+     * TypedInstanceToGraphMapper.mapPrimitiveOrEnumToVertex()
+     */
+    private Object toPropertyValue(IDataType ownerType, AttributeInfo attributeInfo, IDataType type, Object value)
+            throws AtlasBaseException {
+        if (value == null) {
+            return null;
+        }
+
+        Object ret = convert(ownerType, attributeInfo, type, value);
+
+        if (ret instanceof Date) {
+            ret = ((Date) ret).getTime();
+        } else if (ret instanceof EnumValue) {
+            ret = ((EnumValue) ret).value;
+        }
+
+        return ret;
+    }
+
+    private ClassType getClassType(String typeName) throws AtlasBaseException {
+        try {
+            return typeSystem.getDataType(ClassType.class, typeName);
+        } catch (AtlasException e) {
+            throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_NOT_FOUND, e, typeName);
+        }
+    }
+
+    private static String getGuid(Object value) {
+        if (value instanceof AtlasObjectId) {
+            return ((AtlasObjectId) value).getGuid();
+        } else if (value instanceof AtlasEntity) {
+            return ((AtlasEntity) value).getGuid();
+        } else if (value instanceof Map) {
+            return (String) ((Map) value).get(AtlasObjectId.KEY_GUID);
+        } else if (value instanceof String) {
+            return (String) value;
+        }
+
+        return null;
+    }
+
+    /*
+     * Attributes of a struct value: an AtlasStruct, or its JSON map with or without the "attributes" wrapper
+     */
+    private static Map<String, Object> getStructAttributes(Object value) {
+        if (value instanceof AtlasStruct) {
+            return ((AtlasStruct) value).getAttributes();
+        } else if (value instanceof Map) {
+            Map<String, Object> ret = getMap((Map) value, ATTRIBUTES_KEY);
+
+            return ret != null ? ret : (Map<String, Object>) value;
+        }
+
+        return null;
+    }
+
+    private static Map<String, Object> getMap(Map map, String key) {
+        Object ret = map.get(key);
+
+        return ret instanceof Map ? (Map<String, Object>) ret : null;
+    }
+
+    private static List<String> getGuids(List<EntityToWrite> entities) {
+        List<String> ret = new ArrayList<>(entities.size());
+
+        for (EntityToWrite entity : entities) {
+            ret.add(GraphHelper.getIdFromVertex(entity.vertex));
+        }
+
+        return ret;
+    }
+
+    private static class EntityToWrite {
+        final String              guid;
+        final ClassType           classType;
+        final Map<String, Object> attributes;
+        final boolean             isPartialUpdate;
+        AtlasVertex               vertex;
+        boolean                   isCreated;
+
+        EntityToWrite(String guid, ClassType classType, Map<String, Object> attributes, boolean isPartialUpdate) {
+            this.guid            = guid;
+            this.classType       = classType;
+            this.attributes      = attributes;
+            this.isPartialUpdate = isPartialUpdate;
+        }
+
+        // attributes without a value are cleared on a full update of an existing entity
+        boolean isUpdateFull() {
+            return !isCreated && !isPartialUpdate;
+        }
+    }
+
+    private static class UniqueKey {
+        final String typeName;
+        final String propertyKey;
+
+        UniqueKey(String typeName, String propertyKey) {
+            this.typeName    = typeName;
+            this.propertyKey = propertyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof UniqueKey)) {
+                return false;
+            }
+
+            UniqueKey that = (UniqueKey) o;
+
+            return typeName.equals(that.typeName) && propertyKey.equals(that.propertyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * typeName.hashCode() + propertyKey.hashCode();
+        }
+    }
+}
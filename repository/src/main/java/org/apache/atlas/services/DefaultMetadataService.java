@@ -37,6 +37,7 @@ import org.apache.atlas.listener.TypeDefChangeListener;
 import org.apache.atlas.listener.TypesChangeListener;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.RepositoryException;
+import org.apache.atlas.repository.audit.EntityAuditDeltas;
 import org.apache.atlas.repository.audit.EntityAuditRepository;
 import org.apache.atlas.repository.graph.GraphHelper;
 import org.apache.atlas.repository.typestore.ITypeStore;
@@ -285,6 +286,25 @@ public class DefaultMetadataService implements MetadataService, ActiveStateChang
         return GraphHelper.getTypedReferenceableInstance(typeSystem, entityInstance);
     }
 
+    @Override
+    public ITypedReferenceableInstance[] getTypedReferenceableInstances(List<Referenceable> entities) throws AtlasException {
+        ITypedReferenceableInstance[] ret = new ITypedReferenceableInstance[entities.size()];
+
+        for (int index = 0; index < ret.length; index++) {
+            Referenceable entity = entities.get(index);
+            Id            origId = entity.getId();
+
+            try {
+                ret[index] = getTypedReferenceableInstance(entity);
+            } finally {
+                // conversion assigns a temporary id to the entity; restore it, the caller may retry with the same entity
+                entity.replaceWithNewId(origId);
+            }
+        }
+
+        return ret;
+    }
+
     /**
      * Return the definition for the given guid.
      *
@@ -293,9 +313,19 @@ public class DefaultMetadataService implements MetadataService, ActiveStateChang
      */
     @Override
     public String getEntityDefinitionJson(String guid) throws AtlasException {
-        guid = ParamChecker.notEmpty(guid, "entity id");
+        return getEntityDefinitionJson(guid, EntityProjection.ALL);
+    }
 
-        final ITypedReferenceableInstance instance = repository.getEntityDefinition(guid);
+    /**
+     * Return the projected part of the definition for the given guid.
+     *
+     * @param guid guid
+     * @param projection attributes, traits and depth of composite entities to read
+     * @return entity definition as JSON
+     */
+    @Override
+    public String getEntityDefinitionJson(String guid, EntityProjection projection) throws AtlasException {
+        final ITypedReferenceableInstance instance = getEntityDefinition(guid, projection);
         return InstanceSerialization.toJson(instance, true);
     }
 
@@ -307,12 +337,30 @@ public class DefaultMetadataService implements MetadataService, ActiveStateChang
      */
     @Override
     public ITypedReferenceableInstance getEntityDefinition(String guid) throws AtlasException {
+        return getEntityDefinition(guid, EntityProjection.ALL);
+    }
+
+    @Override
+    public ITypedReferenceableInstance getEntityDefinition(String guid, EntityProjection projection)
+            throws AtlasException {
         guid = ParamChecker.notEmpty(guid, "entity id");
 
-        final ITypedReferenceableInstance instance = repository.getEntityDefinition(guid);
+        final ITypedReferenceableInstance instance = repository.getEntityDefinition(guid, projection);
         return instance;
     }
 
+    @Override
+    public List<ITypedReferenceableInstance> getEntityDefinitions(List<String> guids, EntityProjection projection)
+            throws AtlasException {
+        ParamChecker.notEmpty(guids, "entity id list");
+
+        for (String guid : guids) {
+            ParamChecker.notEmpty(guid, "entity id");
+        }
+
+        return repository.getEntityDefinitions(guids, projection);
+    }
+
     @Override
     public ITypedReferenceableInstance getEntityDefinitionReference(String entityType, String attribute, String value)
             throws AtlasException {
@@ -384,6 +432,11 @@ public class DefaultMetadataService implements MetadataService, ActiveStateChang
         return entityResult;
     }
 
+    @Override
+    public void onEntitiesMutated(AtlasClient.EntityResult entityResult) throws AtlasException {
+        onEntitiesAddedUpdated(entityResult);
+    }
+
     private void onEntitiesAddedUpdated(AtlasClient.EntityResult entityResult) throws AtlasException {
         onEntitiesAdded(entityResult.getCreatedEntities());
         onEntitiesUpdated(entityResult.getUpdateEntities());
@@ -681,11 +734,19 @@ public class DefaultMetadataService implements MetadataService, ActiveStateChang
 
     @Override
     public List<EntityAuditEvent> getAuditEvents(String guid, String startKey, short count) throws AtlasException {
+        return getAuditEvents(guid, startKey, count, false);
+    }
+
+    @Override
+    public List<EntityAuditEvent> getAuditEvents(String guid, String startKey, short count, boolean fullView)
+            throws AtlasException {
         guid     = ParamChecker.notEmpty(guid, "entity id");
         startKey = ParamChecker.notEmptyIfNotNull(startKey, "start key");
         ParamChecker.lessThan(count, maxAuditResults, "count");
 
-        return auditRepository.listEvents(guid, startKey, count);
+        List<EntityAuditEvent> events = auditRepository.listEvents(guid, startKey, count);
+
+        return fullView ? EntityAuditDeltas.toFullView(auditRepository, events) : events;
     }
 
     /* (non-Javadoc)
@@ -25,6 +25,7 @@ import org.apache.atlas.query.TypeUtils.ResultWithPathStruct
 import org.apache.atlas.typesystem.json._
 import org.apache.atlas.typesystem.types._
 import org.json4s._
+import org.json4s.native.JsonMethods._
 import org.json4s.native.Serialization._
 import scala.language.existentials
 import org.apache.atlas.query.Expressions._
@@ -78,47 +79,48 @@ class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceS
 
     def evaluate(): GremlinQueryResult = {
         import scala.collection.JavaConversions._
-         val debug:Boolean = false
-        val rType = qry.expr.dataType
+        GremlinQueryResult(qry.expr.toString, qry.expr.dataType, evaluateRows().toList)
+    }
+
+    /**
+     * Runs the query, and returns the result rows. Each row is constructed from the Gremlin result when it is read
+     * from the iterator, so that the rows of a large result don't have to be held in memory together.
+     */
+    def evaluateRows(): java.util.Iterator[Any] = {
+        import scala.collection.JavaConversions._
+        val rawRes = g.executeGremlinScript(qry.queryStr, qry.queryParams, qry.isPathExpression)
+        asJavaIterator(rawRes.asInstanceOf[java.util.List[AnyRef]].iterator().map(toRow))
+    }
+
+    private def toRow(r: AnyRef): Any = {
         val oType = if (qry.isPathExpression) {
             qry.expr.children(0).dataType
         }
         else {
-            rType
-        }
-        val rawRes = g.executeGremlinScript(qry.queryStr, qry.isPathExpression);
-        if(debug) {
-            println(" rawRes " +rawRes)
+            qry.expr.dataType
         }
         if (!qry.hasSelectList) {
-            val rows = rawRes.asInstanceOf[java.util.List[AnyRef]].map { v =>
-                val instObj = instanceObject(v)
-                val o = persistenceStrategy.constructInstance(oType, instObj)
-                addPathStruct(v, o)
-            }
-            GremlinQueryResult(qry.expr.toString, rType, rows.toList)
+            val instObj = instanceObject(r)
+            val o = persistenceStrategy.constructInstance(oType, instObj)
+            addPathStruct(r, o)
         } else {
             val sType = oType.asInstanceOf[StructType]
-            val rows = rawRes.asInstanceOf[java.util.List[AnyRef]].map { r =>
-                val rV = instanceObject(r)
-                val sInstance = sType.createInstance()
-                val selObj = SelectExpressionHelper.extractSelectExpression(qry.expr)
-                if (selObj.isDefined) {
-                    val selExpr = selObj.get.asInstanceOf[Expressions.SelectExpression]
-                    selExpr.selectListWithAlias.foreach { aE =>
-                        val cName = aE.alias
-                        val (src, idx) = qry.resultMaping(cName)
-                        val v = getColumnValue(rV, src, idx)
-                        sInstance.set(cName, persistenceStrategy.constructInstance(aE.dataType, v))
-                    }
-                }               
-                addPathStruct(r, sInstance)
+            val rV = instanceObject(r)
+            val sInstance = sType.createInstance()
+            val selObj = SelectExpressionHelper.extractSelectExpression(qry.expr)
+            if (selObj.isDefined) {
+                val selExpr = selObj.get.asInstanceOf[Expressions.SelectExpression]
+                selExpr.selectListWithAlias.foreach { aE =>
+                    val cName = aE.alias
+                    val (src, idx) = qry.resultMaping(cName)
+                    val v = getColumnValue(rV, src, idx)
+                    sInstance.set(cName, persistenceStrategy.constructInstance(aE.dataType, v))
+                }
             }
-            GremlinQueryResult(qry.expr.toString, rType, rows.toList)
+            addPathStruct(r, sInstance)
         }
-
     }
-    
+
     private def getColumnValue(rowValue: AnyRef, colName: String, idx: Integer) : AnyRef  = {
 
         var rawColumnValue: AnyRef = null;
@@ -168,4 +170,18 @@ object JsonHelper {
     def toJson(r: GremlinQueryResult): String = {
         writePretty(r)
     }
+
+    /**
+     * @return JSON of a row of a GremlinQueryResult, as written in the rows of toJson(), without the indentation
+     */
+    def rowToJson(row: Any): String = {
+        compact(render(Extraction.decompose(row)))
+    }
+
+    /**
+     * @return JSON of the data type of the rows of a GremlinQueryResult, as written in toJson()
+     */
+    def dataTypeToJson(rT: IDataType[_]): String = {
+        compact(render(TypesSerialization.toJsonValue(rT)))
+    }
 }
@@ -78,12 +78,52 @@ trait IntSequence {
     def next: Int
 }
 
-case class GremlinQuery(expr: Expression, queryStr: String, resultMaping: Map[String, (String, Int)]) {
+/**
+ * @param queryParams values of the literal parameters referenced by queryStr; they are passed to
+ *                    the graph as script bindings, so that the compiled script can be reused
+ * @param limitParams limits of the query that are script bindings too, when translated with
+ *                    parameterized limits; their values are set by withLimits
+ */
+case class GremlinQuery(expr: Expression, queryStr: String, resultMaping: Map[String, (String, Int)],
+                        queryParams: java.util.Map[String, AnyRef] = java.util.Collections.emptyMap[String, AnyRef](),
+                        limitParams: List[LimitParameter] = Nil) {
 
     def hasSelectList = resultMaping != null
 
     def isPathExpression = expr.isInstanceOf[PathExpression]
 
+    /**
+     * @return this query with the limit bindings set for the limit and offset of the request, combined
+     *         with those in the query text the same way QueryParser does
+     */
+    def withLimits(params: QueryParams): GremlinQuery = {
+        if (limitParams.isEmpty) {
+            return this
+        }
+
+        val bindings = new java.util.HashMap[String, AnyRef](queryParams)
+
+        limitParams.foreach { lp =>
+            val offset = lp.offsetFor(params)
+
+            bindings.put(lp.offsetParam, Integer.valueOf(offset))
+            bindings.put(lp.endParam, Integer.valueOf(offset + lp.limitFor(params)))
+        }
+
+        copy(queryParams = bindings)
+    }
+}
+
+/**
+ * Limit of a query translated with parameterized limits. limit and offset are those of the query text; the
+ * translated query reads the offset and end of the range from the offsetParam and endParam bindings.
+ */
+case class LimitParameter(offsetParam: String, endParam: String, limit: Int, offset: Int) {
+
+    def limitFor(params: QueryParams): Int =
+        if (params == null) limit else scala.math.min(params.limit, scala.math.max(limit - params.offset, 0))
+
+    def offsetFor(params: QueryParams): Int = if (params == null) offset else params.offset + offset
 }
 
 
@@ -178,12 +218,21 @@ trait SelectExpressionHandling {
 class GremlinTranslationException(expr: Expression, reason: String) extends
 ExpressionException(expr, s"Unsupported Gremlin translation: $reason")
 
+/**
+ * @param parameterizeLimits if true, the offset and end of the limits are script bindings instead of
+ *                           literals, so that the query can be reused with other limits; see GremlinQuery.withLimits
+ */
 class GremlinTranslator(expr: Expression,
-                        gPersistenceBehavior: GraphPersistenceStrategies)
+                        gPersistenceBehavior: GraphPersistenceStrategies,
+                        parameterizeLimits: scala.Boolean)
     extends SelectExpressionHandling {
 
+    def this(expr: Expression, gPersistenceBehavior: GraphPersistenceStrategies) =
+        this(expr, gPersistenceBehavior, false)
+
     val preStatements = ArrayBuffer[GroovyExpression]()
     val postStatements = ArrayBuffer[GroovyExpression]()
+    val limitParams = ArrayBuffer[LimitParameter]()
 
     val wrapAndRule: PartialFunction[Expression, Expression] = {
         case f: FilterExpression if !f.condExpr.isInstanceOf[LogicalExpression] =>
@@ -423,6 +472,13 @@ class GremlinTranslator(expr: Expression,
         }
         case limitOffset@LimitExpression(child, limit, offset) => {
             val childExpr = genQuery(parent, child, inSelect);
+            if (parameterizeLimits) {
+                val lp = LimitParameter("limitOffset" + limitParams.size, "limitEnd" + limitParams.size,
+                    limit.value, offset.value)
+                limitParams += lp
+                return GremlinExpressionFactory.INSTANCE.generateLimitExpression(childExpr,
+                    new IdentifierExpression(lp.offsetParam), new IdentifierExpression(lp.endParam));
+            }
             val totalResultRows = limit.value + offset.value;
             return GremlinExpressionFactory.INSTANCE.generateLimitExpression(childExpr, offset.value, totalResultRows);
         }
@@ -491,7 +547,7 @@ class GremlinTranslator(expr: Expression,
        }
     }
 
-    def genFullQuery(expr: Expression, hasSelect: Boolean): String = {
+    def genFullQuery(expr: Expression, hasSelect: Boolean): (String, java.util.Map[String, AnyRef]) = {
 
         var q : GroovyExpression = new FunctionCallExpression(new IdentifierExpression("g"),"V");
 
@@ -511,21 +567,21 @@ class GremlinTranslator(expr: Expression,
         overallExpression.addStatement(q)
         overallExpression.addStatements(postStatements);
 
-        var qryStr = generateGremlin(overallExpression);
+        val ctx = generateGremlin(overallExpression);
 
         if(debug) {
-          println(" query " + qryStr)
+          println(" query " + ctx.getQuery + " params " + ctx.getParameters)
         }
 
-        qryStr;
+        (ctx.getQuery, ctx.getParameters);
 
     }
 
-    def generateGremlin(expr: GroovyExpression) : String = {
+    def generateGremlin(expr: GroovyExpression) : GroovyGenerationContext = {
          val ctx : GroovyGenerationContext = new GroovyGenerationContext();
-         ctx.setParametersAllowed(false);
+         ctx.setParametersAllowed(true);
          expr.generateGroovy(ctx);
-         return ctx.getQuery;
+         return ctx;
     }
 
     def translate(): GremlinQuery = {
@@ -543,9 +599,11 @@ class GremlinTranslator(expr: Expression,
         val se = SelectExpressionHelper.extractSelectExpression(e1)
         if (se.isDefined) {
           val rMap = buildResultMapping(se.get)
-          GremlinQuery(e1, genFullQuery(e1, true), rMap)
+          val (qryStr, qryParams) = genFullQuery(e1, true)
+          GremlinQuery(e1, qryStr, rMap, qryParams, limitParams.toList)
         } else {
-            GremlinQuery(e1, genFullQuery(e1, false), null)
+            val (qryStr, qryParams) = genFullQuery(e1, false)
+            GremlinQuery(e1, qryStr, null, qryParams, limitParams.toList)
         }
 
     }
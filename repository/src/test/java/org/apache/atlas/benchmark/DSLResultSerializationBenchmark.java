@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.benchmark;
+
+import org.apache.atlas.query.GremlinQueryResult;
+import org.apache.atlas.query.JsonHelper;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.StructType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import scala.collection.JavaConversions;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serialization of the rows of a DSL search response:
+ * - inMemory: the rows are collected in a GremlinQueryResult, rendered to one json string and then written, as
+ *   MetadataDiscoveryResource did before
+ * - streaming: each row is rendered and written to a JsonGenerator on the response stream as it is read, as the
+ *   DSL search of MetadataDiscoveryResource does now
+ *
+ * Rows are struct instances like those of a select query over hive_table. The peak heap usage of each iteration is
+ * logged after the iteration; the in memory serialization grows with the number of rows, the streaming one doesn't.
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.benchmark.DSLResultSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class DSLResultSerializationBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(DSLResultSerializationBenchmark.class);
+
+    private static final String ROW_TYPE = "benchmark_table_row";
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    private StructType  rowType;
+    private JsonFactory jsonFactory;
+
+    @Setup
+    public void setup() throws Exception {
+        TypeSystem ts = TypeSystem.getInstance();
+        ts.reset();
+
+        rowType = ts.defineStructType(ROW_TYPE, true,
+                TypesUtil.createOptionalAttrDef("name", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("qualifiedName", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("owner", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("description", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("createTime", DataTypes.LONG_TYPE));
+
+        jsonFactory = new JsonFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakUsage() {
+        System.gc();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void logPeakUsage() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        LOG.info("rows={}: peak heap {} MB", rows, peak / (1024 * 1024));
+    }
+
+    @Benchmark
+    public void inMemory() throws Exception {
+        List<Object> result = new ArrayList<>(rows);
+
+        for (int i = 0; i < rows; i++) {
+            result.add(createRow(i));
+        }
+
+        String json = new GremlinQueryResult(ROW_TYPE, rowType,
+                JavaConversions.asScalaBuffer(result).toList()).toJson();
+
+        NULL_OUTPUT.write(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void streaming() throws Exception {
+        JsonGenerator generator = jsonFactory.createJsonGenerator(NULL_OUTPUT, JsonEncoding.UTF8);
+
+        generator.writeStartObject();
+        generator.writeStringField("query", ROW_TYPE);
+        generator.writeFieldName("dataType");
+        generator.writeRawValue(JsonHelper.dataTypeToJson(rowType));
+        generator.writeArrayFieldStart("rows");
+
+        for (int i = 0; i < rows; i++) {
+            generator.writeRawValue(JsonHelper.rowToJson(createRow(i)));
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private ITypedStruct createRow(int i) throws Exception {
+        ITypedStruct ret = rowType.createInstance();
+
+        ret.set("name", "table_" + i);
+        ret.set("qualifiedName", "default.table_" + i + "@cluster");
+        ret.set("owner", "benchmark");
+        ret.set("description", "table " + i + " of the DSL result serialization benchmark");
+        ret.set("createTime", System.currentTimeMillis());
+
+        return ret;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(DSLResultSerializationBenchmark.class.getSimpleName()).build();
+
+        new Runner(options).run();
+    }
+}
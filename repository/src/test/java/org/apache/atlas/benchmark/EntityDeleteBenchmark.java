@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.benchmark;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.TestUtils;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.DeleteHandler;
+import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.HardDeleteHandler;
+import org.apache.atlas.repository.graph.SoftDeleteHandler;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the deletion of a database with its tables and their columns, in one request. The deleted entities are
+ * also reached through the composite columns attribute of the tables, as when the Hive hook drops a database.
+ *
+ * The database is created again before each iteration; each iteration deletes it once.
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.benchmark.EntityDeleteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class EntityDeleteBenchmark {
+    private static final int CREATE_BATCH_SIZE = 100;
+
+    @Param({"1000", "10000"})
+    private int numTables;
+
+    @Param({"5"})
+    private int numColumns;
+
+    @Param({"soft", "hard"})
+    private String deleteMode;
+
+    private TypeSystem                    typeSystem;
+    private AtlasGraph                    graph;
+    private GraphBackedMetadataRepository repository;
+    private List<String>                  guids;
+
+    @Setup
+    public void setup() throws Exception {
+        typeSystem = TypeSystem.getInstance();
+        graph      = AtlasGraphProvider.getGraphInstance();
+
+        TestUtils.createHiveTypes(typeSystem);
+
+        DeleteHandler deleteHandler = "hard".equals(deleteMode) ? new HardDeleteHandler(typeSystem)
+                                                                : new SoftDeleteHandler(typeSystem);
+
+        repository = new GraphBackedMetadataRepository(deleteHandler);
+    }
+
+    @Setup(Level.Iteration)
+    public void createDatabase() throws Exception {
+        RequestContext.createContext();
+
+        Referenceable db   = TestUtils.createDBEntity();
+        String        dbId = repository.createEntities(toTypedInstance(db)).get(0);
+
+        guids = new ArrayList<>(numTables * (numColumns + 1) + 1);
+
+        for (int i = 0; i < numTables; i += CREATE_BATCH_SIZE) {
+            int                           batchSize = Math.min(CREATE_BATCH_SIZE, numTables - i);
+            ITypedReferenceableInstance[] tables    = new ITypedReferenceableInstance[batchSize];
+
+            for (int j = 0; j < batchSize; j++) {
+                Referenceable       table   = TestUtils.createTableEntity(dbId);
+                List<Referenceable> columns = new ArrayList<>(numColumns);
+
+                for (int k = 0; k < numColumns; k++) {
+                    columns.add(TestUtils.createColumnEntity());
+                }
+
+                table.set(TestUtils.COLUMNS_ATTR_NAME, columns);
+                tables[j] = toTypedInstance(table);
+            }
+
+            RequestContext.createContext();
+
+            guids.addAll(repository.createEntities(tables));
+
+            graph.commit();
+        }
+
+        guids.add(dbId);
+
+        graph.commit();
+    }
+
+    @Benchmark
+    public AtlasClient.EntityResult deleteDatabase() throws Exception {
+        RequestContext.createContext();
+
+        AtlasClient.EntityResult ret = repository.deleteEntities(guids);
+
+        graph.commit();
+
+        return ret;
+    }
+
+    private ITypedReferenceableInstance toTypedInstance(Referenceable entity) throws Exception {
+        return GraphHelper.getTypedReferenceableInstance(typeSystem, entity);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(EntityDeleteBenchmark.class.getSimpleName()).build();
+
+        new Runner(options).run();
+    }
+}
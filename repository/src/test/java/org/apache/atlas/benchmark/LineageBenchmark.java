@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.benchmark;
+
+import org.apache.atlas.discovery.LineageTraversal;
+import org.apache.atlas.model.lineage.AtlasLineageInfo;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.commons.lang.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the computation of the input lineage of a DataSet:
+ * - gremlinPaths: the Gremlin query that lists all lineage paths, used by EntityLineageService before
+ * - traversal: LineageTraversal, the breadth-first traversal used by EntityLineageService now
+ *
+ * The lineage is a layered DAG: every DataSet of a layer is produced by a process that reads fanIn DataSets of the
+ * next layer, so the number of paths grows as fanIn^layers while the number of edges grows linearly.
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.benchmark.LineageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LineageBenchmark {
+    private static final String LINEAGE_QUERY = "g.V('__guid', guid).as('src').in(inEdge).out(outEdge)." +
+                                                "loop('src', {it.loops <= depth}, {((it.object.'__superTypeNames') ? " +
+                                                "(it.object.'__superTypeNames'.contains('DataSet')) : false)})." +
+                                                "path().toList()";
+
+    @Param({"3", "5", "7"})
+    private int layers;
+
+    @Param({"2", "3"})
+    private int fanIn;
+
+    private AtlasGraph          graph;
+    private LineageTraversal    lineageTraversal;
+    private AtlasVertex         baseVertex;
+    private String              baseGuid;
+    private Map<String, Object> bindings;
+
+    @Setup
+    public void setup() throws Exception {
+        graph            = AtlasGraphProvider.getGraphInstance();
+        lineageTraversal = new LineageTraversal(0);
+
+        // each layer has fanIn DataSets more than the previous one, shared by the processes of the previous layer
+        List<AtlasVertex> layer = new ArrayList<>();
+
+        baseVertex = createVertex("DataSet", true);
+        baseGuid   = baseVertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class);
+
+        layer.add(baseVertex);
+
+        for (int i = 0; i < layers; i++) {
+            List<AtlasVertex> nextLayer = new ArrayList<>();
+
+            for (int j = 0; j < layer.size() + fanIn - 1; j++) {
+                nextLayer.add(createVertex("DataSet", true));
+            }
+
+            for (int j = 0; j < layer.size(); j++) {
+                AtlasVertex process = createVertex("Process", false);
+
+                graph.addEdge(process, layer.get(j), LineageTraversal.OUTPUT_PROCESS_EDGE);
+
+                for (int k = 0; k < fanIn; k++) {
+                    graph.addEdge(process, nextLayer.get(j + k), LineageTraversal.INPUT_PROCESS_EDGE);
+                }
+            }
+
+            layer = nextLayer;
+        }
+
+        graph.commit();
+
+        bindings = new HashMap<>();
+        bindings.put("guid", baseGuid);
+        bindings.put("inEdge", LineageTraversal.OUTPUT_PROCESS_EDGE);
+        bindings.put("outEdge", LineageTraversal.INPUT_PROCESS_EDGE);
+        bindings.put("depth", layers);
+    }
+
+    @Benchmark
+    public Object gremlinPaths() throws Exception {
+        return graph.executeGremlinScript(LINEAGE_QUERY, bindings, true);
+    }
+
+    @Benchmark
+    public AtlasLineageInfo traversal() {
+        return lineageTraversal.getLineageInfo(baseGuid, baseVertex, LineageDirection.INPUT, layers);
+    }
+
+    private AtlasVertex createVertex(String typeName, boolean isDataSet) {
+        AtlasVertex vertex = graph.addVertex();
+        String      guid   = RandomStringUtils.randomAlphanumeric(16);
+
+        vertex.setProperty(Constants.GUID_PROPERTY_KEY, guid);
+        vertex.setProperty(Constants.TYPE_NAME_PROPERTY_KEY, typeName);
+        vertex.setProperty(Constants.STATE_PROPERTY_KEY, "ACTIVE");
+        vertex.setProperty(Constants.QUALIFIED_NAME, guid + "@benchmark");
+
+        if (isDataSet) {
+            vertex.addProperty(Constants.SUPER_TYPES_PROPERTY_KEY, "DataSet");
+        }
+
+        return vertex;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(LineageBenchmark.class.getSimpleName()).build();
+
+        new Runner(options).run();
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.atlas.BaseRepositoryTest;
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.TestUtils;
+import org.apache.atlas.discovery.graph.DSLQueryPlanCache;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
 import org.apache.atlas.query.QueryParams;
 import org.apache.atlas.repository.Constants;
@@ -79,6 +80,10 @@ public class GraphBackedDiscoveryServiceTest extends BaseRepositoryTest {
 
     @Inject
     private GraphBackedDiscoveryService discoveryService;
+
+    @Inject
+    private DSLQueryPlanCache queryPlanCache;
+
     private QueryParams queryParams = new QueryParams(40, 0);
 
     @Override
@@ -822,6 +827,18 @@ public class GraphBackedDiscoveryServiceTest extends BaseRepositoryTest {
         System.out.println("query [" + dslQuery + "] returned [" + rows.length() + "] rows");
     }
 
+    @Test
+    public void testDSLQueryPlanCache() throws Exception {
+        runQuery("hive_column  where  name != \"a  b\"", 37, 40, 0);
+
+        long hitCount = queryPlanCache.getStats().hitCount();
+
+        //same plan, with the limit and offset of the request
+        runQuery("hive_column where name != \"a  b\"", 10, 10, 5);
+        runQuery("hive_column where name != \"a  b\" ", 7, 10, 30);
+        assertEquals(queryPlanCache.getStats().hitCount(), hitCount + 2);
+    }
+
     @Test(dataProvider = "dslLimitQueriesProvider")
     public void  testSearchByDSLQueriesWithLimit(String dslQuery, Integer expectedNumRows) throws Exception {
         runQuery(dslQuery, expectedNumRows, 40, 0);
@@ -839,6 +856,35 @@ public class GraphBackedDiscoveryServiceTest extends BaseRepositoryTest {
         Assert.fail();
     }
 
+    @Test(dataProvider = "invalidDslQueriesProvider", expectedExceptions = DiscoveryException.class)
+    public void testStartDSLSearchInvalidQueries(String dslQuery) throws Exception {
+        discoveryService.startDSLSearch(dslQuery, new QueryParams(10, 0));
+        Assert.fail();
+    }
+
+    @Test
+    public void testStartDSLSearchReturnsRowsOfSearchByDSL() throws Exception {
+        String     dslQuery = "hive_column where name != \"a  b\"";
+        JSONObject expected = new JSONObject(discoveryService.searchByDSL(dslQuery, new QueryParams(10, 5)));
+
+        DiscoveryService.DSLResults results = discoveryService.startDSLSearch(dslQuery, new QueryParams(10, 5));
+        JSONArray                   rows    = new JSONArray();
+
+        try {
+            for (Iterator<String> iter = results.getRows(); iter.hasNext(); ) {
+                rows.put(new JSONObject(iter.next()));
+            }
+
+            assertEquals(new JSONObject(results.getDataTypeJson()).getString("typeName"),
+                         expected.getJSONObject("dataType").getString("typeName"));
+        } finally {
+            results.close();
+        }
+
+        assertEquals(rows.length(), 10);
+        assertEquals(rows.toString(), expected.getJSONArray("rows").toString());
+    }
+
     @Test
     public void testSearchForTypeInheritance() throws Exception {
         createTypesWithMultiLevelInheritance();
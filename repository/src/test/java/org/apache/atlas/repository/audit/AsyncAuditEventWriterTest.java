@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.audit;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.EntityAuditEvent;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.utils.AtlasMetrics;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.RandomStringUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class AsyncAuditEventWriterTest {
+    private File spillDir;
+
+    @BeforeMethod
+    public void setup() {
+        spillDir = new File(System.getProperty("java.io.tmpdir"), "atlas-audit-" + RandomStringUtils.randomAlphanumeric(8));
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        FileUtils.deleteQuietly(spillDir);
+    }
+
+    @Test
+    public void testEventsAreWrittenInBatches() throws Exception {
+        RecordingSink         sink   = new RecordingSink();
+        AsyncAuditEventWriter writer = new AsyncAuditEventWriter(sink, 100, 2, 50, null);
+
+        writer.add(createEvents(5));
+        writer.start();
+        writer.stop();
+
+        assertEquals(sink.events.size(), 5);
+        assertTrue(sink.batchSizes.size() >= 3);
+        for (int batchSize : sink.batchSizes) {
+            assertTrue(batchSize <= 2);
+        }
+        assertEquals(writer.getWrittenCount(), 5);
+        assertEquals(writer.getQueueSize(), 0);
+        assertEquals(writer.getLagMs(), 0);
+    }
+
+    @Test
+    public void testOverflowIsDroppedWithoutSpillDir() throws Exception {
+        RecordingSink         sink   = new RecordingSink();
+        AsyncAuditEventWriter writer = new AsyncAuditEventWriter(sink, 2, 10, 50, null);
+
+        writer.add(createEvents(5));
+
+        assertEquals(writer.getEnqueuedCount(), 2);
+        assertEquals(writer.getDroppedCount(), 3);
+        assertEquals(writer.getQueueSize(), 2);
+    }
+
+    @Test
+    public void testFailureListenerIsToldOfEventsNotWritten() throws Exception {
+        RecordingSink                sink       = new RecordingSink();
+        AsyncAuditEventWriter        writer     = new AsyncAuditEventWriter(sink, 2, 10, 50, null);
+        final List<EntityAuditEvent> notWritten = new ArrayList<>();
+        List<EntityAuditEvent>       events     = createEvents(5);
+
+        writer.setFailureListener(new AsyncAuditEventWriter.FailureListener() {
+            @Override
+            public void onEventsNotWritten(List<EntityAuditEvent> events) {
+                notWritten.addAll(events);
+            }
+        });
+
+        // dropped from the full buffer
+        writer.add(events);
+        assertEquals(notWritten, events.subList(2, 5));
+
+        // the batch with the buffered events fails
+        sink.fail = true;
+        writer.start();
+        writer.stop();
+        assertEquals(notWritten.size(), 5);
+        assertTrue(notWritten.containsAll(events));
+        assertEquals(writer.getDroppedCount(), 5);
+    }
+
+    @Test
+    public void testFailedEventsAreSpilledAndReplayed() throws Exception {
+        RecordingSink         sink   = new RecordingSink();
+        AsyncAuditEventWriter writer = new AsyncAuditEventWriter(sink, 2, 10, 50, spillDir.getAbsolutePath());
+        List<EntityAuditEvent> events = createEvents(5);
+
+        // 3 events don't fit in the buffer
+        writer.add(events);
+        assertEquals(writer.getSpilledCount(), 3);
+        assertEquals(writer.getDroppedCount(), 0);
+        assertTrue(new File(spillDir, AsyncAuditEventWriter.SPILL_FILE_NAME).exists());
+
+        // replayed events are written; failing writes are spilled again
+        sink.fail = true;
+        writer.replaySpilledEvents();
+        assertTrue(sink.events.isEmpty());
+        assertEquals(writer.getSpilledCount(), 6);
+
+        sink.fail = false;
+        writer.replaySpilledEvents();
+        assertEquals(sink.events.size(), 3);
+        assertEquals(sink.events.get(0).getEntityId(), events.get(2).getEntityId());
+        assertEquals(sink.events.get(0).getDetails(), events.get(2).getDetails());
+        assertFalse(new File(spillDir, AsyncAuditEventWriter.SPILL_FILE_NAME).exists());
+        assertFalse(new File(spillDir, AsyncAuditEventWriter.REPLAY_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testSpilledEventsAreReplayedUnderSteadyLoad() throws Exception {
+        RecordingSink          sink    = new RecordingSink();
+        AsyncAuditEventWriter  writer  = new AsyncAuditEventWriter(sink, 2, 10, 50, spillDir.getAbsolutePath());
+        List<EntityAuditEvent> spilled = createEvents(5);
+
+        writer.add(spilled);
+        assertEquals(writer.getSpilledCount(), 3);
+
+        writer.start();
+
+        try {
+            // new events keep arriving faster than the flush interval, so the writer is never idle
+            for (int i = 0; i < 100 && !sink.events.contains(spilled.get(4)); i++) {
+                writer.add(createEvents(1));
+
+                Thread.sleep(10);
+            }
+
+            assertTrue(sink.events.containsAll(spilled));
+        } finally {
+            writer.stop();
+        }
+    }
+
+    @Test
+    public void testGaugesAreRegistered() throws Exception {
+        AsyncAuditEventWriter writer = new AsyncAuditEventWriter(new RecordingSink(), 2, 10, 50, null);
+
+        writer.add(createEvents(3));
+        writer.registerGauges();
+
+        Map<String, Object> gauges = AtlasMetrics.snapshot().get(AtlasMetrics.GAUGES);
+
+        assertEquals(gauges.get("AsyncAuditEventWriter.queueSize"), 2);
+        assertEquals(gauges.get("AsyncAuditEventWriter.dropped"), 1L);
+        assertTrue(gauges.containsKey("AsyncAuditEventWriter.lagMs"));
+        assertTrue(gauges.containsKey("AsyncAuditEventWriter.spilled"));
+    }
+
+    private List<EntityAuditEvent> createEvents(int count) throws AtlasException {
+        List<EntityAuditEvent> ret = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(new EntityAuditEvent(RandomStringUtils.randomAlphanumeric(10), System.currentTimeMillis(), "user",
+                    EntityAuditEvent.EntityAuditAction.ENTITY_CREATE, "details" + i, new Referenceable("type")));
+        }
+
+        return ret;
+    }
+
+    private static class RecordingSink implements AsyncAuditEventWriter.EventSink {
+        final List<EntityAuditEvent> events     = Collections.synchronizedList(new ArrayList<EntityAuditEvent>());
+        final List<Integer>          batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        volatile boolean             fail;
+
+        @Override
+        public void write(List<EntityAuditEvent> batch) throws AtlasException {
+            if (fail) {
+                throw new AtlasException("write failed");
+            }
+
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.audit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.atlas.EntityAuditEvent;
+import org.apache.atlas.typesystem.IStruct;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.Multiplicity;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
+import org.apache.commons.lang.RandomStringUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EntityAuditDeltasTest {
+    private static final String TYPE_NAME      = "audit_delta_type";
+    private static final String PII_TRAIT_NAME = "audit_delta_pii";
+    private static final String TAG_TRAIT_NAME = "audit_delta_tag";
+
+    private ClassType classType;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+
+        if (!typeSystem.isRegistered(TYPE_NAME)) {
+            typeSystem.defineClassType(TypesUtil.createClassTypeDef(TYPE_NAME, ImmutableSet.<String>of(),
+                    TypesUtil.createUniqueRequiredAttrDef("name", DataTypes.STRING_TYPE),
+                    TypesUtil.createOptionalAttrDef("description", DataTypes.STRING_TYPE),
+                    TypesUtil.createOptionalAttrDef("owner", DataTypes.STRING_TYPE),
+                    TypesUtil.createOptionalAttrDef("lastAccessTime", DataTypes.LONG_TYPE)));
+        }
+
+        if (!typeSystem.isRegistered(PII_TRAIT_NAME)) {
+            typeSystem.defineTraitType(TypesUtil.createTraitTypeDef(PII_TRAIT_NAME, ImmutableSet.<String>of(),
+                    TypesUtil.createOptionalAttrDef("level", DataTypes.STRING_TYPE)));
+        }
+
+        if (!typeSystem.isRegistered(TAG_TRAIT_NAME)) {
+            typeSystem.defineTraitType(TypesUtil.createTraitTypeDef(TAG_TRAIT_NAME, ImmutableSet.<String>of()));
+        }
+
+        classType = typeSystem.getDataType(ClassType.class, TYPE_NAME);
+    }
+
+    @Test
+    public void testDeltaContainsOnlyChangedAttributes() throws Exception {
+        String                      guid     = RandomStringUtils.randomAlphanumeric(10);
+        ITypedReferenceableInstance previous = createInstance(guid, "d1", "o1", 1L);
+        ITypedReferenceableInstance current  = createInstance(guid, "d1", null, 2L);
+
+        String details = EntityAuditDeltas.getDeltaDetails(previous, current, 1L, 1);
+
+        assertTrue(details.startsWith(EntityAuditDeltas.UPDATE_DELTA_PREFIX));
+        assertTrue(details.contains("lastAccessTime"));
+        assertTrue(details.contains("owner"));
+        assertFalse(details.contains("description"));
+    }
+
+    @Test
+    public void testFullViewIsRebuiltFromDeltas() throws Exception {
+        String                      guid       = RandomStringUtils.randomAlphanumeric(10);
+        ITypedReferenceableInstance v1         = createInstance(guid, "d1", "o1", 1L);
+        ITypedReferenceableInstance v2         = createInstance(guid, "d2", "o1", 1L);
+        ITypedReferenceableInstance v3         = createInstance(guid, "d2", null, 3L);
+        EntityAuditRepository       repository = new InMemoryEntityAuditRepository();
+        long                        ts         = System.currentTimeMillis();
+
+        repository.putEvents(createEvent(guid, ts, EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
+                        EntityAuditDeltas.CREATE_PREFIX + InstanceSerialization.toJson(v1, true)),
+                createEvent(guid, ts + 1, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v1, v2, ts, 1)),
+                createEvent(guid, ts + 2, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v2, v3, ts, 2)));
+
+        List<EntityAuditEvent> events = repository.listEvents(guid, null, (short) 10);
+        assertTrue(EntityAuditDeltas.isDelta(events.get(0)));
+
+        List<EntityAuditEvent> fullView = EntityAuditDeltas.toFullView(repository, events);
+        assertEquals(fullView.size(), 3);
+        assertEntity(fullView.get(0), "d2", null, 3L);
+        assertEntity(fullView.get(1), "d2", "o1", 1L);
+        assertEquals(fullView.get(2), events.get(2));
+
+        // only the latest event is in the page: the complete entity is found in the older events
+        fullView = EntityAuditDeltas.toFullView(repository, events.subList(0, 1));
+        assertEntity(fullView.get(0), "d2", null, 3L);
+    }
+
+    @Test
+    public void testFullViewIncludesTraitChanges() throws Exception {
+        String                      guid       = RandomStringUtils.randomAlphanumeric(10);
+        ITypedReferenceableInstance v1         = createInstance(guid, Collections.<String, String>singletonMap(PII_TRAIT_NAME, "low"));
+        ITypedReferenceableInstance v2         = createInstance(guid, ImmutableMap.of(PII_TRAIT_NAME, "high", TAG_TRAIT_NAME, ""));
+        ITypedReferenceableInstance v3         = createInstance(guid, Collections.<String, String>singletonMap(TAG_TRAIT_NAME, ""));
+        EntityAuditRepository       repository = new InMemoryEntityAuditRepository();
+        long                        ts         = System.currentTimeMillis();
+
+        // only the traits change
+        String details = EntityAuditDeltas.getDeltaDetails(v2, v3, ts, 2);
+
+        assertTrue(details.contains(PII_TRAIT_NAME));
+        assertFalse(details.contains(TAG_TRAIT_NAME));
+
+        repository.putEvents(createEvent(guid, ts, EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
+                        EntityAuditDeltas.CREATE_PREFIX + InstanceSerialization.toJson(v1, true)),
+                createEvent(guid, ts + 1, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v1, v2, ts, 1)),
+                createEvent(guid, ts + 2, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE, details));
+
+        List<EntityAuditEvent> fullView = EntityAuditDeltas.toFullView(repository,
+                repository.listEvents(guid, null, (short) 10));
+
+        Referenceable latest = getEntity(fullView.get(0));
+        Referenceable middle = getEntity(fullView.get(1));
+
+        assertEquals(latest.getTraits(), Collections.singletonList(TAG_TRAIT_NAME));
+        assertEquals(middle.getTraits().size(), 2);
+        assertEquals(middle.getTrait(PII_TRAIT_NAME).get("level"), "high");
+        assertEquals(latest.get("description"), "d1");
+    }
+
+    @Test
+    public void testDeltaIsNotAppliedToAnotherSnapshot() throws Exception {
+        String                      guid       = RandomStringUtils.randomAlphanumeric(10);
+        ITypedReferenceableInstance v1         = createInstance(guid, "d1", "o1", 1L);
+        ITypedReferenceableInstance v2         = createInstance(guid, "d2", "o1", 1L);
+        ITypedReferenceableInstance v3         = createInstance(guid, "d2", "o3", 1L);
+        ITypedReferenceableInstance v4         = createInstance(guid, "d2", "o3", 4L);
+        EntityAuditRepository       repository = new InMemoryEntityAuditRepository();
+        long                        ts         = System.currentTimeMillis();
+
+        // the snapshot of v2, at ts + 1, was not written
+        repository.putEvents(createEvent(guid, ts, EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
+                        EntityAuditDeltas.CREATE_PREFIX + InstanceSerialization.toJson(v1, true)),
+                createEvent(guid, ts + 2, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v2, v3, ts + 1, 1)),
+                createEvent(guid, ts + 3, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v3, v4, ts + 1, 2)));
+
+        List<EntityAuditEvent> events   = repository.listEvents(guid, null, (short) 10);
+        List<EntityAuditEvent> fullView = EntityAuditDeltas.toFullView(repository, events);
+
+        assertTrue(EntityAuditDeltas.isDelta(fullView.get(0)));
+        assertTrue(EntityAuditDeltas.isDelta(fullView.get(1)));
+        assertTrue(EntityAuditDeltas.isDelta(EntityAuditDeltas.toFullView(repository, events.subList(0, 1)).get(0)));
+
+        // the first delta since the v1 snapshot was not written
+        repository = new InMemoryEntityAuditRepository();
+        repository.putEvents(createEvent(guid, ts, EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
+                        EntityAuditDeltas.CREATE_PREFIX + InstanceSerialization.toJson(v1, true)),
+                createEvent(guid, ts + 2, EntityAuditEvent.EntityAuditAction.ENTITY_UPDATE,
+                        EntityAuditDeltas.getDeltaDetails(v2, v3, ts, 2)));
+
+        events = repository.listEvents(guid, null, (short) 10);
+        assertTrue(EntityAuditDeltas.isDelta(EntityAuditDeltas.toFullView(repository, events).get(0)));
+    }
+
+    @Test
+    public void testDeferredDetailsEventComparesByDetails() throws Exception {
+        String                      guid  = RandomStringUtils.randomAlphanumeric(10);
+        ITypedReferenceableInstance v1    = createInstance(guid, "d1", "o1", 1L);
+        long                        ts    = System.currentTimeMillis();
+        EntityAuditEvent            plain = new EntityAuditEvent(guid, ts, "user",
+                EntityAuditEvent.EntityAuditAction.ENTITY_CREATE,
+                EntityAuditDeltas.CREATE_PREFIX + InstanceSerialization.toJson(v1, true), v1);
+
+        // the details of the deferred events are not read before they are compared
+        assertEquals(plain, new EntityAuditListener.DeferredDetailsEvent(guid, ts, "user",
+                EntityAuditEvent.EntityAuditAction.ENTITY_CREATE, EntityAuditDeltas.CREATE_PREFIX, v1, null, 0, 0, v1));
+        assertEquals(new EntityAuditListener.DeferredDetailsEvent(guid, ts, "user",
+                EntityAuditEvent.EntityAuditAction.ENTITY_CREATE, EntityAuditDeltas.CREATE_PREFIX, v1, null, 0, 0, v1), plain);
+        assertTrue(new EntityAuditListener.DeferredDetailsEvent(guid, ts, "user",
+                EntityAuditEvent.EntityAuditAction.ENTITY_CREATE, EntityAuditDeltas.CREATE_PREFIX, v1, null, 0, 0, v1)
+                .toString().contains(EntityAuditDeltas.CREATE_PREFIX));
+    }
+
+    private void assertEntity(EntityAuditEvent event, String description, String owner, long lastAccessTime) {
+        Referenceable entity = getEntity(event);
+
+        assertEquals(entity.get("description"), description);
+        assertEquals(entity.get("owner"), owner);
+        assertEquals(((Number) entity.get("lastAccessTime")).longValue(), lastAccessTime);
+    }
+
+    private Referenceable getEntity(EntityAuditEvent event) {
+        assertFalse(EntityAuditDeltas.isDelta(event));
+        assertTrue(event.getDetails().startsWith(EntityAuditDeltas.UPDATE_PREFIX));
+
+        return InstanceSerialization.fromJsonReferenceable(
+                event.getDetails().substring(EntityAuditDeltas.UPDATE_PREFIX.length()), true);
+    }
+
+    private EntityAuditEvent createEvent(String guid, long ts, EntityAuditEvent.EntityAuditAction action,
+                                         String details) throws Exception {
+        return new EntityAuditEvent(guid, ts, "user", action, details, null);
+    }
+
+    private ITypedReferenceableInstance createInstance(String guid, String description, String owner,
+                                                       long lastAccessTime) throws Exception {
+        Referenceable entity = new Referenceable(guid, TYPE_NAME, new HashMap<String, Object>());
+
+        entity.set("name", "name1");
+        entity.set("description", description);
+        entity.set("owner", owner);
+        entity.set("lastAccessTime", lastAccessTime);
+
+        return classType.convert(entity, Multiplicity.REQUIRED);
+    }
+
+    /**
+     * @param traitLevels level of each trait, by trait name; empty for the trait without attributes
+     */
+    private ITypedReferenceableInstance createInstance(String guid, Map<String, String> traitLevels) throws Exception {
+        Map<String, IStruct> traits = new HashMap<>();
+
+        for (Map.Entry<String, String> entry : traitLevels.entrySet()) {
+            Struct trait = new Struct(entry.getKey());
+
+            if (!entry.getValue().isEmpty()) {
+                trait.set("level", entry.getValue());
+            }
+
+            traits.put(entry.getKey(), trait);
+        }
+
+        Map<String, Object> values = new HashMap<>();
+
+        values.put("name", "name1");
+        values.put("description", "d1");
+
+        Referenceable entity = new Referenceable(guid, TYPE_NAME, values, new ArrayList<>(traitLevels.keySet()), traits);
+
+        return classType.convert(entity, Multiplicity.REQUIRED);
+    }
+}
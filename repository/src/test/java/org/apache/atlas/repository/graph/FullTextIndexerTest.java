@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.RepositoryMetadataModule;
+import org.apache.atlas.TestUtils;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.Multiplicity;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+@Guice(modules = RepositoryMetadataModule.class)
+public class FullTextIndexerTest {
+
+    @Inject
+    private GraphBackedMetadataRepository repositoryService;
+
+    private TypeSystem typeSystem;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        typeSystem = TypeSystem.getInstance();
+        typeSystem.reset();
+
+        new GraphBackedSearchIndexer(new AtlasTypeRegistry());
+
+        TestUtils.createHiveTypes(typeSystem);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        TypeSystem.getInstance().reset();
+        AtlasGraphProvider.cleanup();
+    }
+
+    @Test
+    public void testPendingEntitiesAreIndexedOnStartAndStop() throws Exception {
+        TestUtils.resetRequestContext();
+
+        ClassType                   dbType = typeSystem.getDataType(ClassType.class, TestUtils.DATABASE_TYPE);
+        ITypedReferenceableInstance db     = dbType.convert(TestUtils.createDBEntity(), Multiplicity.REQUIRED);
+        List<String>                guids  = repositoryService.createEntities(db);
+        AtlasGraph                  graph  = TestUtils.getGraph();
+        AtlasVertex                 vertex = GraphHelper.getInstance().getVertexForGUID(guids.get(0));
+
+        // full text not computed before the previous run stopped
+        GraphHelper.setProperty(vertex, Constants.ENTITY_TEXT_PROPERTY_KEY, "stale");
+        GraphHelper.setProperty(vertex, Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY, Boolean.TRUE);
+        graph.commit();
+
+        FullTextIndexer indexer = new FullTextIndexer(graph, Long.MAX_VALUE, 5, 0);
+
+        indexer.start();
+        assertEquals(indexer.getPendingCount(), 1);
+
+        indexer.stop();
+        assertEquals(indexer.getPendingCount(), 0);
+
+        vertex = GraphHelper.getInstance().getVertexForGUID(guids.get(0));
+        assertNotEquals(vertex.getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY, String.class), "stale");
+        assertNull(vertex.getProperty(Constants.ENTITY_TEXT_PENDING_PROPERTY_KEY, Boolean.class));
+    }
+
+    @Test
+    public void testEntitiesThatKeepFailingAreDropped() throws Exception {
+        TestUtils.resetRequestContext();
+
+        ClassType                   dbType = typeSystem.getDataType(ClassType.class, TestUtils.DATABASE_TYPE);
+        ITypedReferenceableInstance db     = dbType.convert(TestUtils.createDBEntity(), Multiplicity.REQUIRED);
+        String                      dbGuid = repositoryService.createEntities(db).get(0);
+        AtlasGraph                  graph  = TestUtils.getGraph();
+        AtlasVertex                 vertex = GraphHelper.getInstance().getVertexForGUID(dbGuid);
+
+        GraphHelper.setProperty(vertex, Constants.ENTITY_TEXT_PROPERTY_KEY, "stale");
+
+        // entity of a type that isn't defined, whose full text can't be computed
+        String      badGuid   = UUID.randomUUID().toString();
+        AtlasVertex badVertex = graph.addVertex();
+
+        GraphHelper.setProperty(badVertex, Constants.GUID_PROPERTY_KEY, badGuid);
+        GraphHelper.setProperty(badVertex, Constants.ENTITY_TYPE_PROPERTY_KEY, "undefined_type");
+        graph.commit();
+
+        FullTextIndexer indexer = new FullTextIndexer(graph, Long.MAX_VALUE, 2, 0);
+
+        indexer.add(Arrays.asList(dbGuid, badGuid));
+
+        // the failing entity doesn't hold back the others, and is queued for a retry
+        indexer.indexPending();
+        assertEquals(indexer.getPendingCount(), 1);
+        assertEquals(indexer.getDroppedCount(), 0);
+
+        TestUtils.resetRequestContext();
+        vertex = GraphHelper.getInstance().getVertexForGUID(dbGuid);
+        assertNotEquals(vertex.getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY, String.class), "stale");
+
+        // dropped after maxAttempts failures
+        indexer.indexPending();
+        assertEquals(indexer.getPendingCount(), 0);
+        assertEquals(indexer.getDroppedCount(), 1);
+    }
+}
@@ -25,6 +25,8 @@ import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.TestUtils;
+import org.apache.atlas.discovery.DiscoveryService;
+import org.apache.atlas.discovery.FullTextCursor;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
 import org.apache.atlas.query.QueryParams;
 import org.apache.atlas.repository.Constants;
@@ -35,6 +37,7 @@ import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery.ComparisionOperator;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.typesystem.IStruct;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
@@ -64,6 +67,7 @@ import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -83,6 +87,8 @@ import static org.apache.atlas.typesystem.types.utils.TypesUtil.createUniqueRequ
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -215,6 +221,66 @@ public class GraphBackedMetadataRepositoryTest {
         Assert.assertNotNull(systemAttributes.modifiedTime);
     }
 
+    @Test(dependsOnMethods = "testSubmitEntity")
+    public void testGetEntityDefinitionWithProjection() throws Exception {
+        ITypedReferenceableInstance header = repositoryService.getEntityDefinition(guid,
+                new EntityProjection(ImmutableList.<String>of(), false, EntityProjection.UNLIMITED_DEPTH));
+        assertEquals(header.getTypeName(), TestUtils.DEPARTMENT_TYPE);
+        assertEquals(header.getId()._getId(), guid);
+        assertNull(header.get("name"));
+        assertNull(header.get("employees"));
+
+        // composite employees are mapped to their ids at depth 0
+        ITypedReferenceableInstance dept = repositoryService.getEntityDefinition(guid,
+                new EntityProjection(ImmutableList.of("employees"), true, 0));
+        assertNull(dept.get("name"));
+        List<?> employees = (List<?>) dept.get("employees");
+        assertEquals(employees.size(), 4);
+        for (Object employee : employees) {
+            assertEquals(employee.getClass(), Id.class);
+        }
+
+        // projected instances are not cached in the request context
+        ITypedReferenceableInstance complete = repositoryService.getEntityDefinition(guid);
+        assertEquals(complete.get("name"), "hr");
+        assertNotEquals(((List<?>) complete.get("employees")).get(0).getClass(), Id.class);
+    }
+
+    @Test(dependsOnMethods = "testSubmitEntity")
+    public void testGetEntityDefinitions() throws Exception {
+        List<?> employees = (List<?>) repositoryService.getEntityDefinition(guid,
+                new EntityProjection(ImmutableList.of("employees"), false, 0)).get("employees");
+        String employee1 = ((Id) employees.get(0))._getId();
+        String employee2 = ((Id) employees.get(1))._getId();
+
+        List<ITypedReferenceableInstance> entities = repositoryService.getEntityDefinitions(
+                ImmutableList.of(employee2, guid, employee1, employee2), EntityProjection.ALL);
+
+        // in the order of the guids, including repeated guids
+        assertEquals(entities.size(), 4);
+        assertEquals(entities.get(0).getId()._getId(), employee2);
+        assertEquals(entities.get(1).getId()._getId(), guid);
+        assertEquals(entities.get(2).getId()._getId(), employee1);
+        assertEquals(entities.get(3).getId()._getId(), employee2);
+
+        // mapped on the multi-get threads like in the request thread
+        TestUtils.resetRequestContext();
+        ITypedReferenceableInstance dept = repositoryService.getEntityDefinition(guid);
+        assertNotSame(entities.get(1), dept);
+        assertEquals(entities.get(1).toString(), dept.toString());
+
+        List<ITypedReferenceableInstance> headers = repositoryService.getEntityDefinitions(
+                ImmutableList.of(guid, employee1),
+                new EntityProjection(ImmutableList.<String>of(), false, EntityProjection.UNLIMITED_DEPTH));
+        assertNull(headers.get(0).get("name"));
+        assertEquals(headers.get(1).getId()._getId(), employee1);
+    }
+
+    @Test(dependsOnMethods = "testSubmitEntity", expectedExceptions = EntityNotFoundException.class)
+    public void testGetEntityDefinitionsNonExistent() throws Exception {
+        repositoryService.getEntityDefinitions(ImmutableList.of(guid, "blah"), EntityProjection.ALL);
+    }
+
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void testGetEntityDefinitionNonExistent() throws Exception {
         repositoryService.getEntityDefinition("blah");
@@ -632,6 +698,88 @@ public class GraphBackedMetadataRepositoryTest {
         //higher offset shouldn't return any rows
         results = new JSONArray(discoveryService.searchByFullText("Department", new QueryParams(2, 6)));
         assertEquals(results.length(), 0);
+
+        //cursor should return the next page, and no cursor after the last page
+        final JSONArray pages = new JSONArray();
+        DiscoveryService.FullTextResultHandler handler = new DiscoveryService.FullTextResultHandler() {
+            @Override
+            public void onResult(JSONObject row) {
+                pages.put(row);
+            }
+        };
+        String cursor = discoveryService.searchByFullText("Department", new QueryParams(3, 0), null, handler);
+        assertEquals(pages.length(), 3);
+        assertNotNull(cursor);
+        cursor = discoveryService.searchByFullText("Department", new QueryParams(3, 0), cursor, handler);
+        assertEquals(pages.length(), 5);
+        assertNull(cursor);
+
+        //offset cursors handed out before index cursors are still accepted
+        cursor = discoveryService.searchByFullText("Department", new QueryParams(3, 0), FullTextCursor.toCursor(3), handler);
+        assertEquals(pages.length(), 7);
+        assertNull(cursor);
+    }
+
+    @Test
+    public void testFullTextOnPartialUpdate() throws Exception {
+        Referenceable databaseInstance = new Referenceable(TestUtils.DATABASE_TYPE);
+        databaseInstance.set("name", randomString());
+        databaseInstance.set("description", "foo database");
+        databaseInstance.set("created", new Date(TestUtils.TEST_DATE_IN_LONG));
+        String dbId = createEntity(databaseInstance).get(0);
+
+        ClassType dbType = typeSystem.getDataType(ClassType.class, TestUtils.DATABASE_TYPE);
+        ITypedReferenceableInstance update = dbType.createInstance(new Id(dbId, 0, TestUtils.DATABASE_TYPE));
+        update.set("description", "updated database");
+        RequestContext.createContext();
+        repositoryService.updatePartial(update);
+
+        //full text computed from the updated attributes should match the full text computed from the graph
+        AtlasVertex dbVertex = GraphHelper.getInstance().getVertexForGUID(dbId);
+        String fullText = GraphHelper.getSingleValuedProperty(dbVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, String.class);
+        assertTrue(fullText.contains("updated database"));
+        assertTrue(fullText.contains(databaseInstance.get("name").toString()));
+        assertEquals(fullText,
+                new FullTextMapper(repositoryService.getGraphToInstanceMapper()).mapRecursive(dbVertex, true));
+    }
+
+    @Test
+    public void testRequestCache() throws Exception {
+        Referenceable databaseInstance = new Referenceable(TestUtils.DATABASE_TYPE);
+        String        dbName           = randomString();
+        databaseInstance.set("name", dbName);
+        databaseInstance.set("description", "foo database");
+        databaseInstance.set("created", new Date(TestUtils.TEST_DATE_IN_LONG));
+        String dbId = createEntity(databaseInstance).get(0);
+
+        RequestContext.createContext();
+        RequestGraphCache cache = RequestGraphCache.get();
+
+        ITypedReferenceableInstance db       = repositoryService.getEntityDefinition(dbId);
+        ITypedReferenceableInstance cachedDb = repositoryService.getEntityDefinition(dbId);
+        assertNotSame(cachedDb, db);
+        assertEquals(cachedDb.getId(), db.getId());
+        assertEquals(cachedDb.get("description"), "foo database");
+        assertEquals(repositoryService.getEntityDefinition(TestUtils.DATABASE_TYPE, "name", dbName).getId(), db.getId());
+        assertEquals(cache.getCounts().get("guidVertexHits"), Integer.valueOf(1));
+        assertEquals(cache.getCounts().get("instanceHits"), Integer.valueOf(2));
+
+        //the cached instance is copied, so changes made by a caller aren't seen by the next one
+        cachedDb.set("description", "changed by the caller");
+        assertEquals(repositoryService.getEntityDefinition(dbId).get("description"), "foo database");
+
+        //writes invalidate the cached instances
+        ClassType dbType = typeSystem.getDataType(ClassType.class, TestUtils.DATABASE_TYPE);
+        ITypedReferenceableInstance update = dbType.createInstance(new Id(dbId, 0, TestUtils.DATABASE_TYPE));
+        update.set("description", "updated database");
+        repositoryService.updatePartial(update);
+
+        ITypedReferenceableInstance updatedDb = repositoryService.getEntityDefinition(dbId);
+        assertEquals(updatedDb.get("description"), "updated database");
+
+        //deletes invalidate the cached instances, also when the entity is kept as deleted
+        repositoryService.deleteEntities(Collections.singletonList(dbId));
+        assertEquals(repositoryService.getEntityDefinition(dbId).getId().getState(), Id.EntityState.DELETED);
     }
 
     private ITypedReferenceableInstance createHiveTableInstance(Referenceable databaseInstance) throws Exception {
@@ -20,31 +20,39 @@ package org.apache.atlas.repository.graph;
 
 import static junit.framework.Assert.assertTrue;
 import static org.apache.atlas.typesystem.types.utils.TypesUtil.createClassTypeDef;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.TestUtils;
 import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasCardinality;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphIndex;
 import org.apache.atlas.repository.graphdb.AtlasGraphManagement;
 import org.apache.atlas.repository.graphdb.AtlasPropertyKey;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.typesystem.types.AttributeDefinition;
 import org.apache.atlas.typesystem.types.ClassType;
 import org.apache.atlas.typesystem.types.DataTypes;
 import org.apache.atlas.typesystem.types.EnumType;
 import org.apache.atlas.typesystem.types.EnumValue;
 import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
+import org.apache.atlas.typesystem.types.Multiplicity;
 import org.apache.atlas.typesystem.types.TypeSystem;
 import org.apache.atlas.typesystem.types.utils.TypesUtil;
 import org.apache.commons.lang.RandomStringUtils;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 
 @Guice(modules = RepositoryMetadataModule.class)
@@ -54,6 +62,9 @@ public class GraphBackedSearchIndexerTest {
     @Inject
     private GraphBackedSearchIndexer graphBackedSearchIndexer;
 
+    @Inject
+    private GraphIndexReindexer reindexer;
+
     @Test
     public void verifySystemMixedIndexes() {
         AtlasGraph graph = TestUtils.getGraph();
@@ -164,6 +175,103 @@ public class GraphBackedSearchIndexerTest {
         }
     }
 
+    @Test
+    public void verifyIndexOfExistingPropertyKeyIsBackfilled() throws Exception {
+        AtlasGraph graph = TestUtils.getGraph();
+        String typeName = "reindexType" + RandomStringUtils.randomAlphanumeric(10);
+        String propertyName = typeName + ".name";
+
+        AtlasGraphManagement managementSystem = graph.getManagementSystem();
+        managementSystem.makePropertyKey(propertyName, String.class, AtlasCardinality.SINGLE);
+        managementSystem.commit();
+
+        for (int i = 0; i < 5; i++) {
+            AtlasVertex vertex = graph.addVertex();
+            vertex.setProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName);
+            vertex.setProperty(propertyName, "name" + i);
+        }
+        graph.commit();
+
+        //the property key has values: the index is created but not enabled
+        managementSystem = graph.getManagementSystem();
+        managementSystem.createExactMatchIndex(propertyName, false,
+                Collections.singletonList(managementSystem.getPropertyKey(propertyName)));
+        managementSystem.commit();
+
+        managementSystem = graph.getManagementSystem();
+        try {
+            assertFalse(managementSystem.getGraphIndex(propertyName).isEnabled());
+        } finally {
+            managementSystem.rollback();
+        }
+
+        reindexer.submit(typeName, Collections.singletonList(propertyName));
+        assertTrue(reindexer.awaitIdle(60000));
+
+        List<GraphIndexReindexer.ReindexJob> jobs = reindexer.getJobs();
+        GraphIndexReindexer.ReindexJob job = jobs.get(jobs.size() - 1);
+        assertEquals(job.getState(), GraphIndexReindexer.State.COMPLETE);
+        assertEquals(job.getProcessedCount(), 5);
+
+        managementSystem = graph.getManagementSystem();
+        try {
+            assertTrue(managementSystem.getGraphIndex(propertyName).isEnabled());
+        } finally {
+            managementSystem.rollback();
+        }
+        assertFalse(graph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, GraphIndexReindexer.JOB_VERTEX_TYPE)
+                .vertices().iterator().hasNext());
+    }
+
+    @Test
+    public void verifyIndexesOfChangedTypeAreBackfilled() throws Exception {
+        AtlasGraph graph = TestUtils.getGraph();
+        String typeName = "reindexChangedType" + RandomStringUtils.randomAlphanumeric(10);
+        String propertyName = typeName + ".name";
+
+        //the property key already has values when the type makes the attribute indexable
+        AtlasGraphManagement managementSystem = graph.getManagementSystem();
+        managementSystem.makePropertyKey(propertyName, String.class, AtlasCardinality.SINGLE);
+        managementSystem.commit();
+
+        for (int i = 0; i < 5; i++) {
+            AtlasVertex vertex = graph.addVertex();
+            vertex.setProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName);
+            vertex.setProperty(Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, System.currentTimeMillis());
+            vertex.setProperty(propertyName, "name" + i);
+        }
+        graph.commit();
+
+        HierarchicalTypeDefinition<ClassType> typeDefinition = createClassTypeDef(typeName, ImmutableSet.<String>of(),
+                new AttributeDefinition("name", DataTypes.STRING_TYPE.getName(), Multiplicity.OPTIONAL, false, false,
+                        true, null));
+        ClassType type = TypeSystem.getInstance().defineClassType(typeDefinition);
+
+        graphBackedSearchIndexer.onChange(Arrays.asList(type));
+        assertTrue(reindexer.awaitIdle(60000));
+
+        //the type change submitted a job for the attribute
+        List<GraphIndexReindexer.ReindexJob> jobs = reindexer.getJobs();
+        GraphIndexReindexer.ReindexJob job = jobs.get(jobs.size() - 1);
+        assertEquals(job.getTypeName(), typeName);
+        assertEquals(job.getPropertyKeys(), Collections.singletonList(propertyName));
+        assertEquals(job.getState(), GraphIndexReindexer.State.COMPLETE);
+        assertEquals(job.getProcessedCount(), 5);
+
+        managementSystem = graph.getManagementSystem();
+        try {
+            for (String indexName : Arrays.asList(propertyName + Constants.ENTITY_TYPE_PROPERTY_KEY,
+                                                  propertyName + Constants.SUPER_TYPES_PROPERTY_KEY)) {
+                assertTrue(managementSystem.getGraphIndex(indexName).isEnabled());
+            }
+        } finally {
+            managementSystem.rollback();
+        }
+
+        assertTrue(graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName).has(propertyName, "name3")
+                .vertices().iterator().hasNext());
+    }
+
     private void verifyVertexIndexContains(AtlasGraphManagement managementSystem, String indexName) {
         AtlasGraphIndex vertexIndex = managementSystem.getGraphIndex(Constants.VERTEX_INDEX);
         Set<AtlasPropertyKey> fieldKeys = vertexIndex.getFieldKeys();
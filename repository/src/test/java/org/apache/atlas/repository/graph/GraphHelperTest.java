@@ -18,6 +18,9 @@
 
 package org.apache.atlas.repository.graph;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.TestUtils;
 import org.apache.atlas.repository.graph.GraphHelper.VertexInfo;
@@ -26,6 +29,12 @@ import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.exception.EntityNotFoundException;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
+import org.apache.atlas.typesystem.types.Multiplicity;
 import org.apache.atlas.typesystem.types.TypeSystem;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -34,6 +43,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -42,6 +52,8 @@ import java.util.Set;
 
 import javax.inject.Inject;
 
+import static org.apache.atlas.typesystem.types.utils.TypesUtil.createClassTypeDef;
+import static org.apache.atlas.typesystem.types.utils.TypesUtil.createUniqueRequiredAttrDef;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
@@ -117,6 +129,49 @@ public class GraphHelperTest {
         for (String expectedGuid : expectedGuids) {
             Assert.assertTrue(verticesByGuid.containsKey(expectedGuid));
         }
+
+        // roots that are part of the closure of another root are traversed once
+        List<AtlasVertex> roots = new ArrayList<>();
+        for (VertexInfo vertexInfo : compositeVertices) {
+            roots.add(vertexInfo.getVertex());
+        }
+        roots.add(deptVertex);
+
+        Assert.assertEquals(GraphHelper.getInstance().getCompositeVertices(roots), compositeVertices);
+    }
+
+    @Test
+    public void testUniqueAttributeVertexCache() throws Exception {
+        HierarchicalTypeDefinition<ClassType> typeDef = createClassTypeDef("unique_cache_type",
+                ImmutableSet.<String>of(), createUniqueRequiredAttrDef("qualifiedName", DataTypes.STRING_TYPE));
+        ClassType classType = typeSystem.defineClassType(typeDef);
+
+        Referenceable entity = new Referenceable(typeDef.typeName);
+        entity.set("qualifiedName", "entity1");
+        String guid = repositoryService.createEntities(classType.convert(entity, Multiplicity.REQUIRED)).get(0);
+
+        UniqueAttributeVertexCache cache = GraphHelper.getInstance().getUniqueAttributeVertexCache();
+        long hitCount = cache.getStats().hitCount();
+
+        // the vertex found by the first lookup is cached on commit, for the following requests
+        for (int i = 0; i < 2; i++) {
+            TestUtils.resetRequestContext();
+            ITypedReferenceableInstance instance =
+                    repositoryService.getEntityDefinition(typeDef.typeName, "qualifiedName", "entity1");
+            assertEquals(instance.getId()._getId(), guid);
+        }
+        assertEquals(cache.getStats().hitCount(), hitCount + 1);
+
+        TestUtils.resetRequestContext();
+        repositoryService.deleteEntities(ImmutableList.of(guid));
+
+        TestUtils.resetRequestContext();
+        try {
+            repositoryService.getEntityDefinition(typeDef.typeName, "qualifiedName", "entity1");
+            Assert.fail("Expected EntityNotFoundException for a deleted entity");
+        } catch (EntityNotFoundException e) {
+            // expected
+        }
     }
 
     @Test(dataProvider = "encodeDecodeTestData")
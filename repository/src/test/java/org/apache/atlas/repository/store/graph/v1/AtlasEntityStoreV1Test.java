@@ -0,0 +1,268 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v1;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.RepositoryMetadataModule;
+import org.apache.atlas.TestUtils;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasStruct;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.instance.EntityMutations;
+import org.apache.atlas.model.instance.EntityMutations.EntityMutation;
+import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.FullTextMapper;
+import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
+import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.atlas.TestUtils.COLUMN_TYPE;
+import static org.apache.atlas.TestUtils.DATABASE_TYPE;
+import static org.apache.atlas.TestUtils.NAME;
+import static org.apache.atlas.TestUtils.PARTITION_STRUCT_TYPE;
+import static org.apache.atlas.TestUtils.TABLE_TYPE;
+import static org.apache.atlas.TestUtils.randomString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Guice(modules = RepositoryMetadataModule.class)
+public class AtlasEntityStoreV1Test {
+
+    @Inject
+    private AtlasEntityStore entityStore;
+
+    @Inject
+    private GraphBackedMetadataRepository repositoryService;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        typeSystem.reset();
+
+        new GraphBackedSearchIndexer(new AtlasTypeRegistry());
+
+        TestUtils.createHiveTypes(typeSystem);
+    }
+
+    @BeforeMethod
+    public void setupContext() {
+        TestUtils.resetRequestContext();
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        TypeSystem.getInstance().reset();
+        AtlasGraphProvider.cleanup();
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        AtlasEntity dbEntity    = createDBEntity();
+        AtlasEntity tableEntity = createTableEntity(dbEntity);
+
+        EntityMutationResponse response = entityStore.createOrUpdate(Arrays.asList(dbEntity, tableEntity));
+
+        List<AtlasEntityHeader> headers = response.getEntitiesByOperation(EntityOperation.CREATE);
+        assertEquals(headers.size(), 3);
+
+        ITypedReferenceableInstance table = repositoryService.getEntityDefinition(getGuid(headers, TABLE_TYPE));
+        assertEquals(table.getString(NAME), tableEntity.getAttribute(NAME));
+        assertEquals(table.get("tableType").toString(), "MANAGED");
+        assertEquals(((Id) table.get("database"))._getId(), getGuid(headers, DATABASE_TYPE));
+
+        List<ITypedReferenceableInstance> columns = (List<ITypedReferenceableInstance>) table.get("columns");
+        assertEquals(columns.size(), 1);
+        assertEquals(columns.get(0).getId()._getId(), getGuid(headers, COLUMN_TYPE));
+
+        List<ITypedStruct> partitions = (List<ITypedStruct>) table.get("partitions");
+        assertEquals(partitions.size(), 1);
+        assertEquals(partitions.get(0).get(NAME), "part0");
+
+        Map<String, String> parametersMap = (Map<String, String>) table.get("parametersMap");
+        assertEquals(parametersMap.get("key1"), "value1");
+    }
+
+    @Test
+    public void testCreateResolvesUniqueAttributes() throws Exception {
+        AtlasEntity dbEntity = createDBEntity();
+
+        String guid = getGuid(entityStore.createOrUpdate(dbEntity)
+                .getEntitiesByOperation(EntityOperation.CREATE), DATABASE_TYPE);
+
+        TestUtils.resetRequestContext();
+
+        // same unique name, without a guid: the existing entity is updated
+        AtlasEntity updatedDbEntity = createDBEntity();
+        updatedDbEntity.setAttribute(NAME, dbEntity.getAttribute(NAME));
+        updatedDbEntity.setAttribute("description", "updated db");
+
+        EntityMutationResponse  response = entityStore.createOrUpdate(updatedDbEntity);
+        List<AtlasEntityHeader> headers  = response.getEntitiesByOperation(EntityOperation.UPDATE);
+        assertEquals(headers.size(), 1);
+        assertEquals(headers.get(0).getGuid(), guid);
+        assertNull(response.getEntitiesByOperation(EntityOperation.CREATE));
+
+        ITypedReferenceableInstance db = repositoryService.getEntityDefinition(guid);
+        assertEquals(db.getString("description"), "updated db");
+    }
+
+    @Test
+    public void testEntitiesWithSameUniqueAttributeAreRejected() throws Exception {
+        AtlasEntity dbEntity      = createDBEntity();
+        AtlasEntity otherDbEntity = createDBEntity();
+
+        otherDbEntity.setAttribute(NAME, dbEntity.getAttribute(NAME));
+
+        try {
+            entityStore.createOrUpdate(Arrays.asList(dbEntity, otherDbEntity));
+            fail("expected duplicate unique attribute to be rejected");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getAtlasErrorCode(), AtlasErrorCode.INSTANCE_UNIQUE_ATTRIBUTE_DUPLICATE);
+        }
+    }
+
+    @Test
+    public void testReferenceToEntityOfAnotherTypeIsRejected() throws Exception {
+        AtlasEntity dbEntity    = createDBEntity();
+        AtlasEntity tableEntity = createTableEntity(dbEntity);
+
+        String columnGuid = getGuid(entityStore.createOrUpdate(Arrays.asList(dbEntity, tableEntity))
+                .getEntitiesByOperation(EntityOperation.CREATE), COLUMN_TYPE);
+
+        TestUtils.resetRequestContext();
+
+        // the database attribute refers to the column
+        AtlasEntity otherTableEntity = createTableEntity(dbEntity);
+        otherTableEntity.setAttribute("database", new AtlasObjectId(DATABASE_TYPE, columnGuid));
+
+        try {
+            entityStore.createOrUpdate(otherTableEntity);
+            fail("expected reference to a column in the database attribute to be rejected");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getAtlasErrorCode(), AtlasErrorCode.INSTANCE_REFERENCE_TYPE_INVALID);
+        }
+    }
+
+    @Test
+    public void testBatchMutate() throws Exception {
+        AtlasEntity dbEntity    = createDBEntity();
+        AtlasEntity tableEntity = createTableEntity(dbEntity);
+
+        List<AtlasEntityHeader> headers = entityStore.createOrUpdate(Arrays.asList(dbEntity, tableEntity))
+                .getEntitiesByOperation(EntityOperation.CREATE);
+        String dbGuid     = getGuid(headers, DATABASE_TYPE);
+        String columnGuid = getGuid(headers, COLUMN_TYPE);
+
+        TestUtils.resetRequestContext();
+
+        AtlasEntity dbUpdate = new AtlasEntity(DATABASE_TYPE);
+        dbUpdate.setGuid(dbGuid);
+        dbUpdate.setAttribute("description", "partially updated db");
+
+        AtlasEntity columnDelete = new AtlasEntity(COLUMN_TYPE);
+        columnDelete.setGuid(columnGuid);
+
+        EntityMutationResponse response = entityStore.batchMutate(new EntityMutations(Arrays.asList(
+                new EntityMutation(EntityOperation.PARTIAL_UPDATE, dbUpdate),
+                new EntityMutation(EntityOperation.DELETE, columnDelete))));
+
+        assertEquals(response.getEntitiesByOperation(EntityOperation.UPDATE).size(), 1);
+        assertEquals(response.getEntitiesByOperation(EntityOperation.DELETE).get(0).getGuid(), columnGuid);
+
+        // attributes missing from a partial update are kept
+        ITypedReferenceableInstance db = repositoryService.getEntityDefinition(dbGuid);
+        assertEquals(db.getString("description"), "partially updated db");
+        assertEquals(db.getString(NAME), dbEntity.getAttribute(NAME));
+
+        // the full text is computed from the updated attribute and the other attributes of the vertex
+        AtlasVertex dbVertex = GraphHelper.getInstance().getVertexForGUID(dbGuid);
+        String      fullText = GraphHelper.getSingleValuedProperty(dbVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, String.class);
+        assertTrue(fullText.contains("partially updated db"));
+        assertEquals(fullText, new FullTextMapper(repositoryService.getGraphToInstanceMapper()).mapRecursive(dbVertex, true));
+    }
+
+    private AtlasEntity createDBEntity() {
+        AtlasEntity ret = new AtlasEntity(DATABASE_TYPE);
+
+        ret.setAttribute(NAME, randomString());
+        ret.setAttribute("description", "us db");
+
+        return ret;
+    }
+
+    private AtlasEntity createTableEntity(AtlasEntity dbEntity) {
+        AtlasEntity ret    = new AtlasEntity(TABLE_TYPE);
+        AtlasEntity column = new AtlasEntity(COLUMN_TYPE);
+
+        column.setAttribute(NAME, randomString());
+        column.setAttribute("type", "VARCHAR(32)");
+
+        Map<String, String> parametersMap = new HashMap<>();
+        parametersMap.put("key1", "value1");
+
+        ret.setAttribute(NAME, randomString());
+        ret.setAttribute("description", "random table");
+        ret.setAttribute("type", "type");
+        ret.setAttribute("tableType", "MANAGED");
+        ret.setAttribute("database", new AtlasObjectId(DATABASE_TYPE, dbEntity.getGuid()));
+        ret.setAttribute("columns", Collections.singletonList(column));
+        ret.setAttribute("partitions", Collections.singletonList(
+                new AtlasStruct(PARTITION_STRUCT_TYPE, NAME, "part0")));
+        ret.setAttribute("parametersMap", parametersMap);
+
+        return ret;
+    }
+
+    private String getGuid(List<AtlasEntityHeader> headers, String typeName) {
+        for (AtlasEntityHeader header : headers) {
+            if (typeName.equals(header.getTypeName())) {
+                return header.getGuid();
+            }
+        }
+
+        fail("no entity of type " + typeName);
+
+        return null;
+    }
+}
@@ -27,8 +27,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class RequestContext {
@@ -40,12 +42,23 @@ public class RequestContext {
     private Set<String> updatedEntityIds = new LinkedHashSet<>();
     private Set<String> deletedEntityIds = new LinkedHashSet<>();
     private List<ITypedReferenceableInstance> deletedEntities = new ArrayList<>();
+    private Map<String, ITypedReferenceableInstance> previousEntityVersions = new HashMap<>();
+
+    private final Map<Class<?>, RequestScoped> requestScoped = new HashMap<>();
 
     private String user;
     private long requestTime;
 
     TypeSystem typeSystem = TypeSystem.getInstance();
 
+    /**
+     * State kept by the modules that serve the request for its duration, like the graph reads cached by the
+     * repository. Released when the context is cleared or replaced.
+     */
+    public interface RequestScoped {
+        void release();
+    }
+
     private RequestContext() {
     }
 
@@ -63,13 +76,35 @@ public class RequestContext {
     }
 
     public static RequestContext createContext() {
+        RequestContext previous = CURRENT_CONTEXT.get();
+        if (previous != null) {
+            previous.releaseRequestScoped();
+        }
+
         RequestContext context = new RequestContext();
         context.requestTime = System.currentTimeMillis();
         CURRENT_CONTEXT.set(context);
         return context;
     }
 
+    /**
+     * Creates the context of a thread that does part of the work of a request, e.g. maps some of the entities read
+     * by a multi-get.
+     */
+    public static RequestContext createWorkerContext(String user, long requestTime) {
+        RequestContext context = new RequestContext();
+        context.user        = user;
+        context.requestTime = requestTime;
+        CURRENT_CONTEXT.set(context);
+        return context;
+    }
+
     public static void clear() {
+        RequestContext context = CURRENT_CONTEXT.get();
+        if (context != null) {
+            context.releaseRequestScoped();
+        }
+
         CURRENT_CONTEXT.remove();
     }
 
@@ -94,13 +129,57 @@ public class RequestContext {
     }
 
     public void recordEntityDelete(String entityId, String typeName) throws AtlasException {
+        if (deletedEntityIds.contains(entityId)) {
+            return;
+        }
+
         ClassType type = typeSystem.getDataType(ClassType.class, typeName);
         ITypedReferenceableInstance entity = type.createInstance(new Id(entityId, 0, typeName));
-        if (deletedEntityIds.add(entityId)) {
-            deletedEntities.add(entity);
+
+        deletedEntityIds.add(entityId);
+        deletedEntities.add(entity);
+    }
+
+    /**
+     * Records the version of the entity before its first update in this request
+     */
+    public void recordEntityPreviousVersion(String entityId, ITypedReferenceableInstance entity) {
+        if (!previousEntityVersions.containsKey(entityId)) {
+            previousEntityVersions.put(entityId, entity);
         }
     }
 
+    public boolean hasEntityPreviousVersion(String entityId) {
+        return previousEntityVersions.containsKey(entityId);
+    }
+
+    public ITypedReferenceableInstance getEntityPreviousVersion(String entityId) {
+        return previousEntityVersions.get(entityId);
+    }
+
+    /**
+     * @return the state of the given class kept for this request; null if none was set
+     */
+    public <T extends RequestScoped> T getRequestScoped(Class<T> cls) {
+        return cls.cast(requestScoped.get(cls));
+    }
+
+    public <T extends RequestScoped> void setRequestScoped(Class<T> cls, T value) {
+        requestScoped.put(cls, value);
+    }
+
+    private void releaseRequestScoped() {
+        for (RequestScoped value : requestScoped.values()) {
+            try {
+                value.release();
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to release request state {}", value, e);
+            }
+        }
+
+        requestScoped.clear();
+    }
+
     public List<String> getCreatedEntityIds() {
         return new ArrayList<>(createdEntityIds);
     }
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.services;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The part of an entity to read for the GET entity APIs. Attributes outside of the projection are not read from
+ * the graph, and are not set in the returned instance.
+ *
+ * The projected attributes apply to the requested entity. Composite entities it refers to are mapped with all
+ * their attributes, up to the reference depth; beyond that depth they are mapped to their ids, like non-composite
+ * references.
+ */
+public final class EntityProjection {
+    public static final int UNLIMITED_DEPTH = -1;
+
+    /**
+     * All attributes and traits, with the complete graph of composite entities.
+     */
+    public static final EntityProjection ALL = new EntityProjection(null, true, UNLIMITED_DEPTH);
+
+    private final Set<String> attributes;
+    private final boolean     includeTraits;
+    private final int         referenceDepth;
+
+    /**
+     * @param attributes names of the attributes to read; null to read all attributes, empty for none
+     * @param includeTraits true to read the attributes of the traits of the entity; trait names are always read
+     * @param referenceDepth levels of composite entities to map to instances; UNLIMITED_DEPTH for all levels
+     */
+    public EntityProjection(Collection<String> attributes, boolean includeTraits, int referenceDepth) {
+        this.attributes     = attributes == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(attributes));
+        this.includeTraits  = includeTraits;
+        this.referenceDepth = referenceDepth < 0 ? UNLIMITED_DEPTH : referenceDepth;
+    }
+
+    /**
+     * Creates the projection of a REST request.
+     * @param attributes comma separated attribute names; null for all attributes, empty for none
+     */
+    public static EntityProjection fromRequest(String attributes, boolean includeTraits, int referenceDepth) {
+        Set<String> attributeNames = null;
+
+        if (attributes != null) {
+            attributeNames = new LinkedHashSet<>();
+
+            for (String attribute : StringUtils.split(attributes, ',')) {
+                if (StringUtils.isNotBlank(attribute)) {
+                    attributeNames.add(attribute.trim());
+                }
+            }
+        }
+
+        return new EntityProjection(attributeNames, includeTraits, referenceDepth);
+    }
+
+    public boolean isAll() {
+        return attributes == null && includeTraits && referenceDepth == UNLIMITED_DEPTH;
+    }
+
+    /**
+     * @return names of the projected attributes; null if all attributes are projected
+     */
+    public Set<String> getAttributes() {
+        return attributes;
+    }
+
+    public boolean includesAttribute(String attributeName) {
+        return attributes == null || attributes.contains(attributeName);
+    }
+
+    public boolean includesTraits() {
+        return includeTraits;
+    }
+
+    public int getReferenceDepth() {
+        return referenceDepth;
+    }
+
+    /**
+     * @return true if composite entities are mapped to instances, false if to their ids
+     */
+    public boolean followsReferences() {
+        return referenceDepth != 0;
+    }
+
+    /**
+     * @return projection of the composite entities referred to by the entity
+     */
+    public EntityProjection forReferredEntity() {
+        if (referenceDepth == UNLIMITED_DEPTH) {
+            return ALL;
+        }
+
+        return new EntityProjection(null, true, referenceDepth - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityProjection{attributes=" + attributes + ", includeTraits=" + includeTraits
+                + ", referenceDepth=" + referenceDepth + "}";
+    }
+}
@@ -91,6 +91,17 @@ public interface MetadataService {
      */
     ITypedReferenceableInstance getTypedReferenceableInstance(Referenceable entity) throws AtlasException;
 
+    /**
+     * Get typed entity instances, e.g. for entities received in a hook notification. The typed instances can be
+     * passed to createEntities() or updateEntities() without serializing the entities to JSON first.
+     *
+     * @param entities entities
+     * @return typed entity instances, in the same order as the given entities
+     *
+     * @throws AtlasException if any failure occurs
+     */
+    ITypedReferenceableInstance[] getTypedReferenceableInstances(List<Referenceable> entities) throws AtlasException;
+
     /**
      * Create entity instances.
      *
@@ -110,8 +121,29 @@ public interface MetadataService {
      */
     String getEntityDefinitionJson(String guid) throws AtlasException;
 
+    /**
+     * Return the projected part of the definition for the given guid.
+     *
+     * @param guid guid
+     * @param projection attributes, traits and depth of composite entities to read
+     * @return entity definition as JSON
+     */
+    String getEntityDefinitionJson(String guid, EntityProjection projection) throws AtlasException;
+
     ITypedReferenceableInstance getEntityDefinition(String guid) throws AtlasException;
 
+    ITypedReferenceableInstance getEntityDefinition(String guid, EntityProjection projection) throws AtlasException;
+
+    /**
+     * Return the projected part of the definitions for the given guids.
+     *
+     * @param guids guids
+     * @param projection attributes, traits and depth of composite entities to read
+     * @return entity definitions, in the order of the guids
+     */
+    List<ITypedReferenceableInstance> getEntityDefinitions(List<String> guids, EntityProjection projection)
+            throws AtlasException;
+
 
     /**
      * Return the definition given type and attribute. The attribute has to be unique attribute for the type
@@ -178,6 +210,14 @@ public interface MetadataService {
      */
     AtlasClient.EntityResult updateEntities(ITypedReferenceableInstance[] iTypedReferenceableInstances) throws AtlasException;
 
+    /**
+     * Notifies the entity change listeners of entities created, updated or deleted without going through this
+     * service, e.g. by the v2 entity store. To be called once the changes are committed.
+     *
+     * @param entityResult guids of the entities created, updated and deleted
+     */
+    void onEntitiesMutated(AtlasClient.EntityResult entityResult) throws AtlasException;
+
     // Trait management functions
 
     /**
@@ -291,4 +331,14 @@ public interface MetadataService {
      * @return
      */
     List<EntityAuditEvent> getAuditEvents(String guid, String startKey, short count) throws AtlasException;
+
+    /**
+     * Returns entity audit events for entity id in the decreasing order of timestamp
+     * @param guid entity id
+     * @param startKey key for the first event, used for pagination
+     * @param count number of events to be returned
+     * @param fullView if true, update events stored as attribute deltas are returned with the complete entity
+     * @return
+     */
+    List<EntityAuditEvent> getAuditEvents(String guid, String startKey, short count, boolean fullView) throws AtlasException;
 }
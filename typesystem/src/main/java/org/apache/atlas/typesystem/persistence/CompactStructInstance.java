@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.typesystem.persistence;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.types.AttributeInfo;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.EnumType;
+import org.apache.atlas.typesystem.types.EnumValue;
+import org.apache.atlas.typesystem.types.FieldMapping;
+import org.apache.atlas.typesystem.types.IDataType;
+import org.apache.atlas.typesystem.types.StructType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.typesystem.types.ValueConversionException;
+import org.apache.atlas.utils.MD5Utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Struct instance that holds its attribute values in a single array, with one slot per field of the type,
+ * instead of the array per data type and the null flags allocated by StructInstance. Values are kept as
+ * converted by the data type of the attribute, and a null slot is a null value.
+ */
+public class CompactStructInstance implements ITypedStruct {
+    public final String dataTypeName;
+    public final FieldMapping fieldMapping;
+    private final Object[] values;
+
+    public CompactStructInstance(String dataTypeName, FieldMapping fieldMapping) {
+        assert dataTypeName != null;
+        this.dataTypeName = dataTypeName;
+        this.fieldMapping = fieldMapping;
+        this.values = new Object[fieldMapping.fields.size()];
+    }
+
+    @Override
+    public String getTypeName() {
+        return dataTypeName;
+    }
+
+    @Override
+    public FieldMapping fieldMapping() {
+        return fieldMapping;
+    }
+
+    @Override
+    public void set(String attrName, Object val) throws AtlasException {
+        AttributeInfo i = fieldMapping.fields.get(attrName);
+        if (i == null) {
+            throw new ValueConversionException(getTypeName(), val, "Unknown field " + attrName);
+        }
+
+        values[fieldMapping.fieldNullPos.get(attrName)] = convert(attrName, i, val);
+    }
+
+    @Override
+    public Object get(String attrName) throws AtlasException {
+        getAttributeInfo(attrName);
+
+        return values[fieldMapping.fieldNullPos.get(attrName)];
+    }
+
+    @Override
+    public void setNull(String attrName) throws AtlasException {
+        getAttributeInfo(attrName);
+
+        values[fieldMapping.fieldNullPos.get(attrName)] = null;
+    }
+
+    /*
+     * Use only for json serialization
+     * @nonpublic
+     */
+    @Override
+    public Map<String, Object> getValuesMap() throws AtlasException {
+        Map<String, Object> m = new HashMap<>();
+        for (String attr : fieldMapping.fields.keySet()) {
+            m.put(attr, get(attr));
+        }
+        return m;
+    }
+
+    @Override
+    public boolean getBoolean(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.BOOLEAN_TYPE);
+        return val == null ? DataTypes.BOOLEAN_TYPE.nullValue() : (Boolean) val;
+    }
+
+    @Override
+    public byte getByte(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.BYTE_TYPE);
+        return val == null ? DataTypes.BYTE_TYPE.nullValue() : (Byte) val;
+    }
+
+    @Override
+    public short getShort(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.SHORT_TYPE);
+        return val == null ? DataTypes.SHORT_TYPE.nullValue() : (Short) val;
+    }
+
+    @Override
+    public int getInt(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.INT_TYPE);
+        if (val == null) {
+            return DataTypes.INT_TYPE.nullValue();
+        }
+        return val instanceof EnumValue ? ((EnumValue) val).ordinal : (Integer) val;
+    }
+
+    @Override
+    public long getLong(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.LONG_TYPE);
+        return val == null ? DataTypes.LONG_TYPE.nullValue() : (Long) val;
+    }
+
+    @Override
+    public float getFloat(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.FLOAT_TYPE);
+        return val == null ? DataTypes.FLOAT_TYPE.nullValue() : (Float) val;
+    }
+
+    @Override
+    public double getDouble(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.DOUBLE_TYPE);
+        return val == null ? DataTypes.DOUBLE_TYPE.nullValue() : (Double) val;
+    }
+
+    @Override
+    public BigInteger getBigInt(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.BIGINTEGER_TYPE);
+        return val == null ? DataTypes.BIGINTEGER_TYPE.nullValue() : (BigInteger) val;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.BIGDECIMAL_TYPE);
+        return val == null ? DataTypes.BIGDECIMAL_TYPE.nullValue() : (BigDecimal) val;
+    }
+
+    @Override
+    public Date getDate(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.DATE_TYPE);
+        return val == null ? DataTypes.DATE_TYPE.nullValue() : (Date) val;
+    }
+
+    @Override
+    public String getString(String attrName) throws AtlasException {
+        Object val = getTypedValue(attrName, DataTypes.STRING_TYPE);
+        return val == null ? DataTypes.STRING_TYPE.nullValue() : (String) val;
+    }
+
+    @Override
+    public void setBoolean(String attrName, boolean val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.BOOLEAN_TYPE, val);
+    }
+
+    @Override
+    public void setByte(String attrName, byte val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.BYTE_TYPE, val);
+    }
+
+    @Override
+    public void setShort(String attrName, short val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.SHORT_TYPE, val);
+    }
+
+    @Override
+    public void setInt(String attrName, int val) throws AtlasException {
+        AttributeInfo i = setTypedValue(attrName, DataTypes.INT_TYPE, val);
+
+        if (i.dataType() instanceof EnumType) {
+            values[fieldMapping.fieldNullPos.get(attrName)] = ((EnumType) i.dataType()).fromOrdinal(val);
+        }
+    }
+
+    @Override
+    public void setLong(String attrName, long val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.LONG_TYPE, val);
+    }
+
+    @Override
+    public void setFloat(String attrName, float val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.FLOAT_TYPE, val);
+    }
+
+    @Override
+    public void setDouble(String attrName, double val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.DOUBLE_TYPE, val);
+    }
+
+    @Override
+    public void setBigInt(String attrName, BigInteger val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.BIGINTEGER_TYPE, val);
+    }
+
+    @Override
+    public void setBigDecimal(String attrName, BigDecimal val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.BIGDECIMAL_TYPE, val);
+    }
+
+    @Override
+    public void setDate(String attrName, Date val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.DATE_TYPE, val);
+    }
+
+    @Override
+    public void setString(String attrName, String val) throws AtlasException {
+        setTypedValue(attrName, DataTypes.STRING_TYPE, val);
+    }
+
+    @Override
+    public String toString() {
+        try {
+            StringBuilder buf = new StringBuilder();
+            String prefix = "";
+
+            fieldMapping.output(this, buf, prefix, null);
+            return buf.toString();
+
+        } catch (AtlasException me) {
+            throw new RuntimeException(me);
+        }
+    }
+
+    @Override
+    public String getSignatureHash(MessageDigest digester) throws AtlasException {
+        StructType structType = TypeSystem.getInstance().getDataType(StructType.class, getTypeName());
+        structType.updateSignatureHash(digester, this);
+        byte[] digest = digester.digest();
+        return MD5Utils.toString(digest);
+    }
+
+    @Override
+    public String toShortString() {
+        return String.format("struct[type=%s]", dataTypeName);
+    }
+
+    private AttributeInfo getAttributeInfo(String attrName) throws AtlasException {
+        AttributeInfo i = fieldMapping.fields.get(attrName);
+        if (i == null) {
+            throw new AtlasException(String.format("Unknown field %s for Struct %s", attrName, getTypeName()));
+        }
+        return i;
+    }
+
+    private Object getTypedValue(String attrName, IDataType dataType) throws AtlasException {
+        AttributeInfo i = getAttributeInfo(attrName);
+
+        if (!isOfType(i, dataType)) {
+            throw new AtlasException(
+                    String.format("Field %s for Struct %s is not a %s, call generic get method", attrName,
+                            getTypeName(), dataType.getName()));
+        }
+
+        return values[fieldMapping.fieldNullPos.get(attrName)];
+    }
+
+    private AttributeInfo setTypedValue(String attrName, IDataType dataType, Object val) throws AtlasException {
+        AttributeInfo i = getAttributeInfo(attrName);
+
+        if (!isOfType(i, dataType)) {
+            throw new AtlasException(
+                    String.format("Field %s for Struct %s is not a %s, call generic set method", attrName,
+                            getTypeName(), dataType.getName()));
+        }
+
+        values[fieldMapping.fieldNullPos.get(attrName)] = val;
+        return i;
+    }
+
+    private static boolean isOfType(AttributeInfo i, IDataType dataType) {
+        // like StructInstance, enum values are accessible by their ordinal
+        return i.dataType() == dataType || (dataType == DataTypes.INT_TYPE && i.dataType() instanceof EnumType);
+    }
+
+    private static Object convert(String attrName, AttributeInfo i, Object val) throws AtlasException {
+        if (val != null && val instanceof Id) {
+            ClassType clsType = TypeSystem.getInstance().getDataType(ClassType.class, i.dataType().getName());
+            clsType.validateId((Id) val);
+            return val;
+        }
+
+        try {
+            return i.dataType().convert(val, i.multiplicity);
+        } catch(ValueConversionException.NullConversionException e) {
+            throw new ValueConversionException.NullConversionException("For field '" + attrName + "'", e);
+        }
+    }
+}
@@ -58,14 +58,14 @@ public class StructInstance implements ITypedStruct {
     public final String[] strings;
     public final ImmutableList<Object>[] arrays;
     public final ImmutableMap<Object, Object>[] maps;
-    public final StructInstance[] structs;
+    public final ITypedStruct[] structs;
     public final ReferenceableInstance[] referenceables;
     public final Id[] ids;
 
     public StructInstance(String dataTypeName, FieldMapping fieldMapping, boolean[] nullFlags, boolean[] bools,
             byte[] bytes, short[] shorts, int[] ints, long[] longs, float[] floats, double[] doubles,
             BigDecimal[] bigDecimals, BigInteger[] bigIntegers, Date[] dates, String[] strings,
-            ImmutableList<Object>[] arrays, ImmutableMap<Object, Object>[] maps, StructInstance[] structs,
+            ImmutableList<Object>[] arrays, ImmutableMap<Object, Object>[] maps, ITypedStruct[] structs,
             ReferenceableInstance[] referenceables, Id[] ids) {
         assert dataTypeName != null;
         this.dataTypeName = dataTypeName;
@@ -158,7 +158,7 @@ public class StructInstance implements ITypedStruct {
             maps[pos] = (ImmutableMap) cVal;
         } else if (i.dataType().getTypeCategory() == DataTypes.TypeCategory.STRUCT
                 || i.dataType().getTypeCategory() == DataTypes.TypeCategory.TRAIT) {
-            structs[pos] = (StructInstance) cVal;
+            structs[pos] = (ITypedStruct) cVal;
         } else if (i.dataType().getTypeCategory() == DataTypes.TypeCategory.CLASS) {
             if (cVal instanceof Id) {
                 ids[pos] = (Id) cVal;
@@ -34,7 +34,6 @@ import org.apache.atlas.typesystem.Struct;
 import org.apache.atlas.typesystem.persistence.AtlasSystemAttributes;
 import org.apache.atlas.typesystem.persistence.Id;
 import org.apache.atlas.typesystem.persistence.ReferenceableInstance;
-import org.apache.atlas.typesystem.persistence.StructInstance;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -217,7 +216,7 @@ public class ClassType extends HierarchicalType<ClassType, IReferenceableInstanc
                 fieldMapping.numStrings == 0 ? null : new String[fieldMapping.numStrings],
                 fieldMapping.numArrays == 0 ? null : new ImmutableList[fieldMapping.numArrays],
                 fieldMapping.numMaps == 0 ? null : new ImmutableMap[fieldMapping.numMaps],
-                fieldMapping.numStructs == 0 ? null : new StructInstance[fieldMapping.numStructs],
+                fieldMapping.numStructs == 0 ? null : new ITypedStruct[fieldMapping.numStructs],
                 fieldMapping.numReferenceables == 0 ? null : new ReferenceableInstance[fieldMapping.numReferenceables],
                 fieldMapping.numReferenceables == 0 ? null : new Id[fieldMapping.numReferenceables], b.build());
     }
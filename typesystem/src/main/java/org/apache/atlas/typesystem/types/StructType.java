@@ -195,6 +195,13 @@ public class StructType extends AbstractDataType<IStruct> implements IConstructa
         return handler.createInstance();
     }
 
+    /**
+     * Creates an instance with the layout of CompactStructInstance, which allocates a single slot per field.
+     */
+    public ITypedStruct createCompactInstance() {
+        return handler.createCompactInstance();
+    }
+
     @Override
     public void output(IStruct s, Appendable buf, String prefix, Set<IStruct> inProcess) throws AtlasException {
         handler.output(s, buf, prefix, inProcess);
@@ -25,6 +25,7 @@ import org.apache.atlas.AtlasException;
 import org.apache.atlas.typesystem.IStruct;
 import org.apache.atlas.typesystem.ITypedStruct;
 import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.persistence.CompactStructInstance;
 import org.apache.atlas.typesystem.persistence.Id;
 import org.apache.atlas.typesystem.persistence.ReferenceableInstance;
 import org.apache.atlas.typesystem.persistence.StructInstance;
@@ -101,11 +102,15 @@ public class TypedStructHandler {
                 fieldMapping.numStrings == 0 ? null : new String[fieldMapping.numStrings],
                 fieldMapping.numArrays == 0 ? null : new ImmutableList[fieldMapping.numArrays],
                 fieldMapping.numMaps == 0 ? null : new ImmutableMap[fieldMapping.numMaps],
-                fieldMapping.numStructs == 0 ? null : new StructInstance[fieldMapping.numStructs],
+                fieldMapping.numStructs == 0 ? null : new ITypedStruct[fieldMapping.numStructs],
                 fieldMapping.numReferenceables == 0 ? null : new ReferenceableInstance[fieldMapping.numReferenceables],
                 fieldMapping.numReferenceables == 0 ? null : new Id[fieldMapping.numReferenceables]);
     }
 
+    public ITypedStruct createCompactInstance() {
+        return new CompactStructInstance(structType.getName(), fieldMapping);
+    }
+
     public void output(IStruct s, Appendable buf, String prefix, Set<IStruct> inProcess) throws AtlasException {
         fieldMapping.output(s, buf, prefix, inProcess);
     }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.typesystem.types;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.Struct;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.security.MessageDigest;
+
+public class CompactStructInstanceTest extends BaseTest {
+
+    StructType structType;
+    StructType recursiveStructType;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        super.setup();
+        structType = getTypeSystem().getDataType(StructType.class, STRUCT_TYPE_1);
+        recursiveStructType = getTypeSystem().getDataType(StructType.class, STRUCT_TYPE_2);
+    }
+
+    @Test
+    public void testMatchesStructInstance() throws Exception {
+        Struct s = createStruct();
+        ITypedStruct expected = structType.convert(s, Multiplicity.REQUIRED);
+        ITypedStruct ts = structType.createCompactInstance();
+
+        for (String attrName : structType.fieldMapping().fields.keySet()) {
+            ts.set(attrName, s.get(attrName));
+        }
+
+        Assert.assertEquals(ts.toString(), expected.toString());
+        Assert.assertEquals(ts.getValuesMap(), expected.getValuesMap());
+        Assert.assertEquals(ts.getSignatureHash(MessageDigest.getInstance("MD5")),
+                expected.getSignatureHash(MessageDigest.getInstance("MD5")));
+        Assert.assertEquals(ts.getInt("a"), 1);
+        Assert.assertEquals(ts.getLong("g"), 1L);
+        Assert.assertNull(ts.getString("q"));
+    }
+
+    @Test
+    public void testTypedAccessors() throws AtlasException {
+        ITypedStruct ts = structType.createCompactInstance();
+
+        Assert.assertFalse(ts.getBoolean("b"));
+        Assert.assertEquals(ts.getInt("e"), DataTypes.INT_TYPE.nullValue().intValue());
+
+        ts.setBoolean("b", true);
+        ts.setDouble("i", 2.5);
+        ts.setString("p", "value");
+        Assert.assertTrue(ts.getBoolean("b"));
+        Assert.assertEquals(ts.get("i"), 2.5);
+        Assert.assertEquals(ts.getString("p"), "value");
+
+        ts.setNull("p");
+        Assert.assertNull(ts.get("p"));
+
+        try {
+            ts.getString("a");
+            Assert.fail("Expected AtlasException for accessing an int field as string");
+        } catch (AtlasException e) {
+            Assert.assertEquals(e.getMessage(), "Field a for Struct t1 is not a string, call generic get method");
+        }
+
+        try {
+            ts.get("unknown");
+            Assert.fail("Expected AtlasException for an unknown field");
+        } catch (AtlasException e) {
+            Assert.assertEquals(e.getMessage(), "Unknown field unknown for Struct t1");
+        }
+    }
+
+    @Test
+    public void testNestedInStructInstance() throws AtlasException {
+        ITypedStruct inner = recursiveStructType.createCompactInstance();
+        inner.set("a", 2);
+
+        ITypedStruct outer = recursiveStructType.createInstance();
+        outer.set("a", 1);
+        outer.set("s", inner);
+
+        Assert.assertSame(outer.get("s"), inner);
+        Assert.assertEquals(outer.toString(), "{\n" +
+                "\ta : \t1\n" +
+                "\ts : \t{\n" +
+                "\t\ta : \t\t2\n" +
+                "\t\ts : <null>\n" +
+                "\n" +
+                "\t}\n" +
+                "}");
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.typesystem.types;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the footprint of a struct like hive_serde, with StructInstance and with CompactStructInstance.
+ * Each operation allocates one populated instance; the gc.alloc.rate.norm metric of the GC profiler reports the
+ * bytes allocated per instance, which include the converted attribute values that are the same for both layouts.
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.typesystem.types.StructInstanceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StructInstanceBenchmark {
+    private static final String SERDE_TYPE = "benchmark_serde";
+
+    private StructType serdeType;
+    private Map<String, String> parameters;
+
+    @Setup
+    public void setup() throws AtlasException {
+        TypeSystem ts = TypeSystem.getInstance();
+        ts.reset();
+
+        serdeType = ts.defineStructType(SERDE_TYPE, true,
+                TypesUtil.createOptionalAttrDef("name", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("serializationLib", DataTypes.STRING_TYPE),
+                TypesUtil.createOptionalAttrDef("parameters",
+                        ts.defineMapType(DataTypes.STRING_TYPE, DataTypes.STRING_TYPE)));
+
+        parameters = ImmutableMap.of("serialization.format", "1");
+    }
+
+    @Benchmark
+    public ITypedStruct structInstance() throws AtlasException {
+        return populate(serdeType.createInstance());
+    }
+
+    @Benchmark
+    public ITypedStruct compactStructInstance() throws AtlasException {
+        return populate(serdeType.createCompactInstance());
+    }
+
+    private ITypedStruct populate(ITypedStruct serde) throws AtlasException {
+        serde.set("name", "serde");
+        serde.set("serializationLib", "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe");
+        serde.set("parameters", parameters);
+        return serde;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(StructInstanceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build();
+
+        new Runner(options).run();
+    }
+}
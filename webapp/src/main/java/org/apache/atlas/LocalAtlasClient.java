@@ -19,6 +19,8 @@
 package org.apache.atlas;
 
 import com.google.inject.Inject;
+import org.apache.atlas.services.MetadataService;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.Referenceable;
 import org.apache.atlas.typesystem.TypesDef;
 import org.apache.atlas.typesystem.json.InstanceSerialization;
@@ -34,11 +36,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 /**
  * Local atlas client which calls the resource methods directly. Used by NotificationHookConsumer.
+ *
+ * When created with a MetadataService, entity create/update/delete calls skip EntityResource and pass the
+ * typed instances straight to the MetadataService, avoiding the JSON serialization round-trip. The request
+ * context and the audit log entry are the same as for the EntityResource path.
  */
 public class LocalAtlasClient extends AtlasClient {
     private static final String LOCALHOST = "localhost";
@@ -50,22 +58,30 @@ public class LocalAtlasClient extends AtlasClient {
 
     private final ServiceState serviceState;
 
-    @Inject
+    private final MetadataService metadataService;
+
     public LocalAtlasClient(ServiceState serviceState, EntityResource entityResource) {
+        this(serviceState, entityResource, null);
+    }
+
+    @Inject
+    public LocalAtlasClient(ServiceState serviceState, EntityResource entityResource, MetadataService metadataService) {
         super();
         this.serviceState = serviceState;
         this.entityResource = entityResource;
+        this.metadataService = metadataService;
     }
 
-    private String user;
+    // hook messages are applied by several consumer threads (and worker lanes) sharing this client
+    private final ThreadLocal<String> user = new ThreadLocal<>();
 
     public void setUser(String user) {
-        this.user = user;
+        this.user.set(user);
     }
 
     private void setRequestContext() {
         RequestContext requestContext = RequestContext.createContext();
-        requestContext.setUser(user);
+        requestContext.setUser(user.get());
     }
 
     @Override
@@ -73,6 +89,46 @@ public class LocalAtlasClient extends AtlasClient {
         return serviceState.getState() == ServiceState.ServiceStateValue.ACTIVE;
     }
 
+    @Override
+    public List<String> createEntity(final Collection<Referenceable> entities) throws AtlasServiceException {
+        if (metadataService == null) {
+            return super.createEntity(entities);
+        }
+
+        LOG.debug("Creating entities: {}", entities);
+        DirectEntityOperation<List<String>> entityOperation = new DirectEntityOperation<List<String>>(API.CREATE_ENTITY) {
+            @Override
+            List<String> invoke() throws AtlasException {
+                return metadataService.createEntities(toTypedInstances(entities));
+            }
+        };
+        List<String> results = entityOperation.run();
+        LOG.debug("Create entities returned results: {}", results);
+        return results;
+    }
+
+    @Override
+    public EntityResult updateEntities(final Collection<Referenceable> entities) throws AtlasServiceException {
+        if (metadataService == null) {
+            return super.updateEntities(entities);
+        }
+
+        LOG.debug("Updating entities: {}", entities);
+        DirectEntityOperation<EntityResult> entityOperation = new DirectEntityOperation<EntityResult>(API.UPDATE_ENTITY) {
+            @Override
+            EntityResult invoke() throws AtlasException {
+                return metadataService.updateEntities(toTypedInstances(entities));
+            }
+        };
+        EntityResult results = entityOperation.run();
+        LOG.debug("Update entities returned results: {}", results);
+        return results;
+    }
+
+    private ITypedReferenceableInstance[] toTypedInstances(Collection<Referenceable> entities) throws AtlasException {
+        return metadataService.getTypedReferenceableInstances(new ArrayList<>(entities));
+    }
+
     @Override
     protected List<String> createEntity(final JSONArray entities) throws AtlasServiceException {
         LOG.debug("Creating entities: {}", entities);
@@ -112,7 +168,7 @@ public class LocalAtlasClient extends AtlasClient {
 
         public JSONObject run() throws AtlasServiceException {
             setRequestContext();
-            AuditFilter.audit(user, CLASS, api.getMethod(), LOCALHOST, api.getPath(), LOCALHOST, DateTimeHelper.formatDateUTC(new Date()));
+            AuditFilter.audit(user.get(), CLASS, api.getMethod(), LOCALHOST, api.getPath(), LOCALHOST, DateTimeHelper.formatDateUTC(new Date()));
 
             try {
                 Response response = invoke();
@@ -129,9 +185,49 @@ public class LocalAtlasClient extends AtlasClient {
         abstract Response invoke();
     }
 
+    /**
+     * Same request context and audit as EntityOperation, but calls MetadataService directly.
+     */
+    private abstract class DirectEntityOperation<T> {
+        private final API api;
+
+        public DirectEntityOperation(API api) {
+            this.api = api;
+        }
+
+        public T run() throws AtlasServiceException {
+            setRequestContext();
+            AuditFilter.audit(user.get(), CLASS, api.getMethod(), LOCALHOST, api.getPath(), LOCALHOST, DateTimeHelper.formatDateUTC(new Date()));
+
+            try {
+                return invoke();
+            } catch (AtlasException | IllegalArgumentException e) {
+                throw new AtlasServiceException(api, e);
+            }
+        }
+
+        abstract T invoke() throws AtlasException;
+    }
+
     @Override
     public EntityResult updateEntity(final String entityType, final String uniqueAttributeName,
-                               final String uniqueAttributeValue, Referenceable entity) throws AtlasServiceException {
+                               final String uniqueAttributeValue, final Referenceable entity) throws AtlasServiceException {
+        if (metadataService != null) {
+            LOG.debug("Updating entity type: {}, attributeName: {}, attributeValue: {}, entity: {}", entityType,
+                    uniqueAttributeName, uniqueAttributeValue, entity);
+            DirectEntityOperation<EntityResult> entityOperation =
+                    new DirectEntityOperation<EntityResult>(API.UPDATE_ENTITY_PARTIAL) {
+                @Override
+                EntityResult invoke() throws AtlasException {
+                    return metadataService.updateEntityByUniqueAttribute(entityType, uniqueAttributeName,
+                            uniqueAttributeValue, entity);
+                }
+            };
+            EntityResult result = entityOperation.run();
+            LOG.debug("Update entity returned result: {}", result);
+            return result;
+        }
+
         final String entityJson = InstanceSerialization.toJson(entity, true);
         LOG.debug("Updating entity type: {}, attributeName: {}, attributeValue: {}, entity: {}", entityType,
                 uniqueAttributeName, uniqueAttributeValue, entityJson);
@@ -153,6 +249,18 @@ public class LocalAtlasClient extends AtlasClient {
                                      final String uniqueAttributeValue) throws AtlasServiceException {
         LOG.debug("Deleting entity type: {}, attributeName: {}, attributeValue: {}", entityType, uniqueAttributeName,
                 uniqueAttributeValue);
+        if (metadataService != null) {
+            DirectEntityOperation<EntityResult> entityOperation = new DirectEntityOperation<EntityResult>(API.DELETE_ENTITY) {
+                @Override
+                EntityResult invoke() throws AtlasException {
+                    return metadataService.deleteEntityByUniqueAttribute(entityType, uniqueAttributeName,
+                            uniqueAttributeValue);
+                }
+            };
+            EntityResult results = entityOperation.run();
+            LOG.debug("Delete entities returned results: {}", results);
+            return results;
+        }
         EntityOperation entityOperation = new EntityOperation(API.DELETE_ENTITY) {
             @Override
             Response invoke() {
@@ -243,6 +351,11 @@ public class LocalAtlasClient extends AtlasClient {
         throw new IllegalStateException("Not supported in LocalAtlasClient");
     }
 
+    @Override
+    public JSONObject searchByFullText(final String query, final int limit, final String cursor) throws AtlasServiceException {
+        throw new IllegalStateException("Not supported in LocalAtlasClient");
+    }
+
     @Override
     public JSONObject getInputGraph(String datasetName) throws AtlasServiceException {
         throw new IllegalStateException("Not supported in LocalAtlasClient");
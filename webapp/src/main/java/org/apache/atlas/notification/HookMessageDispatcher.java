@@ -0,0 +1,311 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.notification.hook.HookNotification;
+import org.apache.atlas.typesystem.Referenceable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads hook notification messages over a fixed set of worker lanes. Each entity a message writes (type name
+ * and qualifiedName, or guid) is hashed to a lane, so messages for the same entity are applied in order by a
+ * single lane, while messages for unrelated entities are applied in parallel. Entities that are only referenced by
+ * the attributes of a message, like the database of a table, don't decide its lane.
+ *
+ * A message whose entities hash to several lanes, like the create of a database with its tables, is applied once
+ * each of these lanes has applied the messages that precede it, and these lanes go on only after it has been
+ * applied. Every message is thus applied after the earlier messages for any of its entities. Lane threads never
+ * wait for each other: a message is queued on a lane only once the messages it follows have been applied, so the
+ * lanes can be shared by several consumers.
+ *
+ * {@link #dispatch(List, MessagesHandler)} returns only after every lane has finished its share of the
+ * messages, so the caller can safely commit the consumer offset afterwards.
+ */
+public class HookMessageDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(HookMessageDispatcher.class);
+
+    private static final String THREADNAME_PREFIX = HookMessageDispatcher.class.getSimpleName();
+
+    /**
+     * Applies, in order, the messages assigned to one lane.
+     */
+    public interface MessagesHandler {
+        void handle(List<HookNotification.HookNotificationMessage> messages);
+    }
+
+    private final ExecutorService[] lanes;
+
+    public HookMessageDispatcher(int numLanes) {
+        lanes = new ExecutorService[numLanes];
+
+        for (int i = 0; i < numLanes; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat(THREADNAME_PREFIX + " lane-" + i).build());
+        }
+    }
+
+    public int getNumLanes() {
+        return lanes.length;
+    }
+
+    /**
+     * Applies the messages on the worker lanes and waits until all of them have been handled.
+     */
+    public void dispatch(List<HookNotification.HookNotificationMessage> messages, MessagesHandler handler)
+        throws InterruptedException {
+        List<Task>     tasks = createTasks(messages, handler);
+        CountDownLatch done  = new CountDownLatch(tasks.size());
+
+        // the tasks are queued once all of them are linked, so that none completes before its successors are known
+        for (Task task : tasks) {
+            task.done = done;
+        }
+
+        for (Task task : tasks) {
+            if (task.pendingPredecessors.get() == 0) {
+                submit(task);
+            }
+        }
+
+        done.await();
+    }
+
+    /**
+     * @return the messages assigned to each lane, in their original relative order; a message that writes
+     * entities of several lanes is assigned to each of them
+     */
+    List<List<HookNotification.HookNotificationMessage>> partition(
+            List<HookNotification.HookNotificationMessage> messages) {
+        List<List<HookNotification.HookNotificationMessage>> ret = new ArrayList<>(lanes.length);
+
+        for (int i = 0; i < lanes.length; i++) {
+            ret.add(new ArrayList<HookNotification.HookNotificationMessage>());
+        }
+
+        for (HookNotification.HookNotificationMessage message : messages) {
+            for (Integer lane : getLanes(message)) {
+                ret.get(lane).add(message);
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * Consecutive messages of a single lane are handled together, by one task; a message of several lanes is
+     * handled by a task of its own. Each task follows the previous task of each of its lanes.
+     */
+    private List<Task> createTasks(List<HookNotification.HookNotificationMessage> messages, MessagesHandler handler) {
+        List<Task> ret       = new ArrayList<>();
+        Task[]     laneTasks = new Task[lanes.length];
+
+        for (HookNotification.HookNotificationMessage message : messages) {
+            SortedSet<Integer> messageLanes = getLanes(message);
+            Task               task;
+
+            if (messageLanes.size() == 1) {
+                int lane = messageLanes.first();
+
+                task = laneTasks[lane];
+
+                if (task == null || task.shared) {
+                    task = new Task(lane, false, handler);
+
+                    task.follow(laneTasks[lane]);
+
+                    laneTasks[lane] = task;
+                    ret.add(task);
+                }
+            } else {
+                task = new Task(messageLanes.first(), true, handler);
+
+                for (Integer lane : messageLanes) {
+                    task.follow(laneTasks[lane]);
+
+                    laneTasks[lane] = task;
+                }
+
+                ret.add(task);
+            }
+
+            task.messages.add(message);
+        }
+
+        return ret;
+    }
+
+    private void submit(Task task) {
+        try {
+            lanes[task.lane].execute(task);
+        } catch (RejectedExecutionException e) {
+            // the lanes are shutting down; the task is run here, so that the dispatch completes
+            task.run();
+        }
+    }
+
+    /**
+     * @return lanes of the entities written by the message; lane 0 if they can't be determined
+     */
+    SortedSet<Integer> getLanes(HookNotification.HookNotificationMessage message) {
+        SortedSet<Integer> ret = new TreeSet<>();
+
+        for (String key : getLaneKeys(message)) {
+            ret.add((key.hashCode() & Integer.MAX_VALUE) % lanes.length);
+        }
+
+        if (ret.isEmpty()) {
+            ret.add(0);
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return keys that identify the entities written by the message; empty if they can't be determined
+     */
+    static Set<String> getLaneKeys(HookNotification.HookNotificationMessage message) {
+        Set<String> ret = new LinkedHashSet<>();
+
+        switch (message.getType()) {
+        case ENTITY_CREATE:
+        case ENTITY_FULL_UPDATE: {
+            List<Referenceable> entities = ((HookNotification.EntityCreateRequest) message).getEntities();
+
+            if (entities != null) {
+                for (Referenceable entity : entities) {
+                    ret.add(getLaneKey(entity));
+                }
+            }
+            break;
+        }
+
+        case ENTITY_PARTIAL_UPDATE: {
+            HookNotification.EntityPartialUpdateRequest request =
+                    (HookNotification.EntityPartialUpdateRequest) message;
+
+            ret.add(request.getTypeName() + ":" + request.getAttributeValue());
+            break;
+        }
+
+        case ENTITY_DELETE: {
+            HookNotification.EntityDeleteRequest request = (HookNotification.EntityDeleteRequest) message;
+
+            ret.add(request.getTypeName() + ":" + request.getAttributeValue());
+            break;
+        }
+
+        default:
+            break;
+        }
+
+        return ret;
+    }
+
+    private static String getLaneKey(Referenceable entity) {
+        Object qualifiedName = entity.get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME);
+
+        if (qualifiedName != null) {
+            return entity.getTypeName() + ":" + qualifiedName;
+        }
+
+        if (entity.getId() != null && entity.getId().isAssigned()) {
+            return entity.getId()._getId();
+        }
+
+        return entity.getTypeName();
+    }
+
+    /**
+     * Messages handled together on a lane. Queued once the tasks it follows have completed; on completion, queues
+     * the tasks that follow it and no longer wait for any other. A failure is logged and the task completes anyway,
+     * so that the tasks that follow it still run.
+     */
+    private final class Task implements Runnable {
+        private final int                                            lane;
+        private final boolean                                        shared;
+        private final MessagesHandler                                handler;
+        private final List<HookNotification.HookNotificationMessage> messages            = new ArrayList<>();
+        private final List<Task>                                     successors          = new ArrayList<>();
+        private final AtomicInteger                                  pendingPredecessors = new AtomicInteger();
+        private CountDownLatch                                       done;
+
+        Task(int lane, boolean shared, MessagesHandler handler) {
+            this.lane    = lane;
+            this.shared  = shared;
+            this.handler = handler;
+        }
+
+        void follow(Task predecessor) {
+            if (predecessor != null && !predecessor.successors.contains(this)) {
+                predecessor.successors.add(this);
+                pendingPredecessors.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                handler.handle(messages);
+            } catch (RuntimeException e) {
+                LOG.warn("Failure in hook message lane", e);
+            } finally {
+                for (Task successor : successors) {
+                    if (successor.pendingPredecessors.decrementAndGet() == 0) {
+                        submit(successor);
+                    }
+                }
+
+                done.countDown();
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(5000, TimeUnit.MILLISECONDS)) {
+                    LOG.error("Timed out waiting for hook message lane to shut down");
+                }
+            } catch (InterruptedException e) {
+                LOG.error("Interrupted while shutting down hook message lanes");
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
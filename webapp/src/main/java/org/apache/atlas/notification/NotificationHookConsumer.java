@@ -23,19 +23,28 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import kafka.consumer.ConsumerTimeoutException;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.LocalAtlasClient;
 import org.apache.atlas.ha.HAConfiguration;
+import org.apache.atlas.kafka.KafkaNotification;
 import org.apache.atlas.listener.ActiveStateChangeHandler;
 import org.apache.atlas.notification.hook.HookNotification;
 import org.apache.atlas.service.Service;
+import org.apache.atlas.typesystem.IStruct;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.utils.AtlasMetrics;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -55,17 +64,30 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     public static final String CONSUMER_RETRIES_PROPERTY = "atlas.notification.hook.maxretries";
     public static final String CONSUMER_FAILEDCACHESIZE_PROPERTY = "atlas.notification.hook.failedcachesize";
     public static final String CONSUMER_RETRY_INTERVAL="atlas.notification.consumer.retry.interval";
+    public static final String CONSUMER_BATCH_SIZE_PROPERTY = "atlas.notification.hook.batch.size";
+    public static final String CONSUMER_BATCH_TIMEOUT_PROPERTY = "atlas.notification.hook.batch.timeout.ms";
+    public static final String CONSUMER_LANES_PROPERTY = "atlas.notification.hook.lanes";
 
     public static final int SERVER_READY_WAIT_TIME_MS = 1000;
+
+    private static final String METRIC_PROCESSING_TIME = "NotificationHookConsumer.processingTime";
+    private static final String METRIC_CONSUMER_LAG    = "NotificationHookConsumer.consumerLag";
+    private static final String METRIC_MESSAGES        = "NotificationHookConsumer.messages";
+    private static final String METRIC_FAILED_MESSAGES = "NotificationHookConsumer.failedMessages";
+
     private final LocalAtlasClient atlasClient;
     private final int maxRetries;
     private final int failedMsgCacheSize;
     private final int consumerRetryInterval;
+    private final int batchSize;
+    private final long batchTimeoutMs;
+    private final int numLanes;
 
     private NotificationInterface notificationInterface;
     private ExecutorService executors;
     private Configuration applicationProperties;
     private List<HookConsumer> consumers;
+    private HookMessageDispatcher dispatcher;
 
     @Inject
     public NotificationHookConsumer(NotificationInterface notificationInterface, LocalAtlasClient atlasClient)
@@ -77,7 +99,9 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         maxRetries = applicationProperties.getInt(CONSUMER_RETRIES_PROPERTY, 3);
         failedMsgCacheSize = applicationProperties.getInt(CONSUMER_FAILEDCACHESIZE_PROPERTY, 20);
         consumerRetryInterval = applicationProperties.getInt(CONSUMER_RETRY_INTERVAL, 500);
-
+        batchSize = applicationProperties.getInt(CONSUMER_BATCH_SIZE_PROPERTY, 1);
+        batchTimeoutMs = applicationProperties.getLong(CONSUMER_BATCH_TIMEOUT_PROPERTY, 1000);
+        numLanes = applicationProperties.getInt(CONSUMER_LANES_PROPERTY, 1);
     }
 
     @Override
@@ -107,11 +131,25 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                     new ThreadFactoryBuilder().setNameFormat(THREADNAME_PREFIX + " thread-%d").build());
         }
         executors = executorService;
+        if (numLanes > 1 && dispatcher == null) {
+            dispatcher = new HookMessageDispatcher(numLanes);
+        }
         for (final NotificationConsumer<HookNotification.HookNotificationMessage> consumer : notificationConsumers) {
             HookConsumer hookConsumer = new HookConsumer(consumer);
             consumers.add(hookConsumer);
             executors.submit(hookConsumer);
         }
+
+        if (notificationInterface instanceof KafkaNotification) {
+            final KafkaNotification kafkaNotification = (KafkaNotification) notificationInterface;
+
+            AtlasMetrics.registerGauge(METRIC_CONSUMER_LAG, new AtlasMetrics.Gauge() {
+                @Override
+                public Object getValue() {
+                    return kafkaNotification.getConsumerLag(NotificationInterface.NotificationType.HOOK);
+                }
+            });
+        }
     }
 
     @Override
@@ -126,6 +164,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 }
                 executors = null;
             }
+            if (dispatcher != null) {
+                dispatcher.shutdown();
+                dispatcher = null;
+            }
             notificationInterface.close();
         } catch (InterruptedException e) {
             LOG.error("Failure in shutting down consumers");
@@ -171,10 +213,103 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         }
     }
 
+    /**
+     * Splits the messages into groups that can be applied as a single request: runs of consecutive
+     * ENTITY_CREATE, or of consecutive ENTITY_FULL_UPDATE, messages from the same user. All other
+     * messages form a group of their own, so the relative order of the messages is preserved.
+     */
+    static List<List<HookNotification.HookNotificationMessage>> groupMergeableMessages(
+            List<HookNotification.HookNotificationMessage> messages) {
+        List<List<HookNotification.HookNotificationMessage>> groups = new ArrayList<>();
+        List<HookNotification.HookNotificationMessage> current = null;
+
+        for (HookNotification.HookNotificationMessage message : messages) {
+            if (current != null && isMergeable(message)
+                    && message.getType() == current.get(0).getType()
+                    && message.getUser().equals(current.get(0).getUser())) {
+                current.add(message);
+            } else {
+                current = new ArrayList<>();
+                current.add(message);
+                groups.add(current);
+
+                if (!isMergeable(message)) {
+                    current = null;
+                }
+            }
+        }
+
+        return groups;
+    }
+
+    private static boolean isMergeable(HookNotification.HookNotificationMessage message) {
+        return message.getType() == HookNotification.HookNotificationType.ENTITY_CREATE
+                || message.getType() == HookNotification.HookNotificationType.ENTITY_FULL_UPDATE;
+    }
+
+    /**
+     * Collects the entities of the given create/update messages. An entity that appears again in a later
+     * message, identified by type name and qualifiedName, keeps the position of its first occurrence, so that
+     * it is still created before the entities that reference it; its attributes and traits are merged, the
+     * values of the later occurrence winning.
+     */
+    static List<Referenceable> mergeEntities(List<HookNotification.HookNotificationMessage> messages) {
+        Map<Object, Referenceable> entities = new LinkedHashMap<>();
+
+        for (HookNotification.HookNotificationMessage message : messages) {
+            for (Referenceable entity : ((HookNotification.EntityCreateRequest) message).getEntities()) {
+                Object qualifiedName = entity.get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME);
+                Object key = qualifiedName != null ? entity.getTypeName() + ":" + qualifiedName : new Object();
+                Referenceable earlier = entities.get(key);
+
+                entities.put(key, earlier != null ? mergeEntity(earlier, entity) : entity);
+            }
+        }
+
+        return new ArrayList<>(entities.values());
+    }
+
+    /*
+     * The merged entity is a new instance: the entities of the messages are left as they are, to be applied one
+     * message at a time if the merged request fails.
+     */
+    private static Referenceable mergeEntity(Referenceable earlier, Referenceable later) {
+        Map<String, Object>  values     = new LinkedHashMap<>();
+        List<String>         traitNames = new ArrayList<>();
+        Map<String, IStruct> traits     = new LinkedHashMap<>();
+
+        if (earlier.getValuesMap() != null) {
+            values.putAll(earlier.getValuesMap());
+        }
+
+        if (later.getValuesMap() != null) {
+            values.putAll(later.getValuesMap());
+        }
+
+        for (Referenceable entity : Arrays.asList(earlier, later)) {
+            for (String traitName : entity.getTraits()) {
+                IStruct trait = entity.getTrait(traitName);
+
+                if (!traitNames.contains(traitName)) {
+                    traitNames.add(traitName);
+                }
+
+                if (trait != null) {
+                    traits.put(traitName, trait);
+                }
+            }
+        }
+
+        return new Referenceable(earlier.getId(), earlier.getTypeName(), values, traitNames, traits,
+                                 earlier.getSystemAttributes());
+    }
+
     class HookConsumer implements Runnable {
         private final NotificationConsumer<HookNotification.HookNotificationMessage> consumer;
         private final AtomicBoolean shouldRun = new AtomicBoolean(false);
-        private List<HookNotification.HookNotificationMessage> failedMessages = new ArrayList<>();
+        private final List<HookNotification.HookNotificationMessage> failedMessages =
+                Collections.synchronizedList(new ArrayList<HookNotification.HookNotificationMessage>());
+        private long firstReadTimeNanos;
 
         public HookConsumer(NotificationConsumer<HookNotification.HookNotificationMessage> consumer) {
             this.consumer = consumer;
@@ -198,8 +333,20 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
             while (shouldRun.get()) {
                 try {
-                    if (hasNext()) {
-                        handleMessage(consumer.next());
+                    if (batchSize > 1 || dispatcher != null) {
+                        List<HookNotification.HookNotificationMessage> messages = nextBatch();
+
+                        if (!messages.isEmpty()) {
+                            handleMessages(messages);
+                            recordProcessingTime(messages.size());
+                        }
+                    } else if (hasNext()) {
+                        HookNotification.HookNotificationMessage message = consumer.next();
+
+                        firstReadTimeNanos = System.nanoTime();
+
+                        handleMessage(message);
+                        recordProcessingTime(1);
                     }
                 } catch (Throwable t) {
                     LOG.warn("Failure in NotificationHookConsumer", t);
@@ -207,9 +354,117 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
+        /**
+         * Reads up to batchSize messages, waiting at most batchTimeoutMs after the first message for the batch to
+         * fill up. The deadline is checked before waiting for the next message; the wait itself is bounded by the
+         * consumer timeout, which KafkaNotification caps for hook consumers when batching is enabled.
+         */
+        private List<HookNotification.HookNotificationMessage> nextBatch() {
+            int maxMessages = dispatcher != null ? Math.max(batchSize, dispatcher.getNumLanes()) : batchSize;
+            List<HookNotification.HookNotificationMessage> messages = new ArrayList<>(maxMessages);
+            long deadline = 0;
+
+            while (shouldRun.get() && messages.size() < maxMessages) {
+                if (!messages.isEmpty() && System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+
+                if (!hasNext()) {
+                    break;
+                }
+
+                messages.add(consumer.next());
+
+                if (messages.size() == 1) {
+                    firstReadTimeNanos = System.nanoTime();
+                    deadline           = System.currentTimeMillis() + batchTimeoutMs;
+                }
+            }
+
+            return messages;
+        }
+
+        /**
+         * Records the time from the read of the first message of a batch to the time the batch has been applied
+         * and its offset committed. The time the messages waited in the topic is not included: hook messages carry
+         * no creation time, so the backlog of the topic is reported by the consumerLag gauge instead.
+         */
+        private void recordProcessingTime(int messageCount) {
+            AtlasMetrics.histogram(METRIC_PROCESSING_TIME).record(System.nanoTime() - firstReadTimeNanos);
+            AtlasMetrics.counter(METRIC_MESSAGES).addAndGet(messageCount);
+        }
+
+        /**
+         * Applies a batch of messages and commits the offset once for the whole batch. When worker lanes are
+         * configured, the batch is spread over the lanes and the offset is committed only after every lane
+         * has finished its share of the batch.
+         */
+        @VisibleForTesting
+        void handleMessages(List<HookNotification.HookNotificationMessage> messages) throws InterruptedException {
+            if (dispatcher != null) {
+                dispatcher.dispatch(messages, new HookMessageDispatcher.MessagesHandler() {
+                    @Override
+                    public void handle(List<HookNotification.HookNotificationMessage> laneMessages) {
+                        applyMessages(laneMessages);
+                    }
+                });
+            } else {
+                applyMessages(messages);
+            }
+            commit();
+        }
+
+        /**
+         * Consecutive create (or full update) messages from the same user are merged into a single request,
+         * so they are written in one graph transaction; if the merged request fails, its messages are retried
+         * one at a time.
+         */
+        private void applyMessages(List<HookNotification.HookNotificationMessage> messages) {
+            for (List<HookNotification.HookNotificationMessage> group : groupMergeableMessages(messages)) {
+                if (group.size() == 1) {
+                    processMessage(group.get(0));
+                    continue;
+                }
+
+                try {
+                    applyMergedMessages(group);
+                } catch (Throwable e) {
+                    LOG.warn("Failed to apply {} merged messages, retrying them one at a time", group.size(), e);
+
+                    for (HookNotification.HookNotificationMessage message : group) {
+                        processMessage(message);
+                    }
+                }
+            }
+        }
+
+        private void applyMergedMessages(List<HookNotification.HookNotificationMessage> group)
+            throws AtlasServiceException {
+            HookNotification.HookNotificationMessage first = group.get(0);
+            List<Referenceable> entities = mergeEntities(group);
+
+            LOG.debug("Applying {} messages as a single request of {} entities", group.size(), entities.size());
+
+            atlasClient.setUser(first.getUser());
+            if (first.getType() == HookNotification.HookNotificationType.ENTITY_CREATE) {
+                atlasClient.createEntity(entities);
+            } else {
+                atlasClient.updateEntities(entities);
+            }
+        }
+
         @VisibleForTesting
         void handleMessage(HookNotification.HookNotificationMessage message) throws
             AtlasServiceException, AtlasException {
+            if (processMessage(message)) {
+                commit();
+            }
+        }
+
+        /**
+         * @return false if the message could not be applied after maxRetries attempts
+         */
+        private boolean processMessage(HookNotification.HookNotificationMessage message) {
             for (int numRetries = 0; numRetries < maxRetries; numRetries++) {
                 LOG.debug("Running attempt {}", numRetries);
                 try {
@@ -259,23 +514,26 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
                     if (numRetries == (maxRetries - 1)) {
                         LOG.warn("Max retries exceeded for message {}", message, e);
+                        AtlasMetrics.counter(METRIC_FAILED_MESSAGES).incrementAndGet();
                         failedMessages.add(message);
                         if (failedMessages.size() >= failedMsgCacheSize) {
                             recordFailedMessages();
                         }
-                        return;
+                        return false;
                     }
                 }
             }
-            commit();
+            return true;
         }
 
         private void recordFailedMessages() {
             //logging failed messages
-            for (HookNotification.HookNotificationMessage message : failedMessages) {
-                FAILED_LOG.error("[DROPPED_NOTIFICATION] " + AbstractNotification.getMessageJson(message));
+            synchronized (failedMessages) {
+                for (HookNotification.HookNotificationMessage message : failedMessages) {
+                    FAILED_LOG.error("[DROPPED_NOTIFICATION] " + AbstractNotification.getMessageJson(message));
+                }
+                failedMessages.clear();
             }
-            failedMessages.clear();
         }
 
         private void commit() {
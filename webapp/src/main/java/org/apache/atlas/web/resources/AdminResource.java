@@ -20,6 +20,7 @@ package org.apache.atlas.web.resources;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Singleton;
@@ -31,6 +32,8 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.apache.atlas.AtlasClient;
+import org.apache.atlas.repository.graph.GraphIndexReindexer;
+import org.apache.atlas.utils.AtlasMetrics;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.web.filters.AtlasCSRFPreventionFilter;
 import org.apache.atlas.web.service.ServiceState;
@@ -38,6 +41,7 @@ import org.apache.atlas.web.util.Servlets;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.StringUtils;
+import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
@@ -63,10 +67,12 @@ public class AdminResource {
     
     private Response version;
     private ServiceState serviceState;
+    private GraphIndexReindexer reindexer;
 
     @Inject
-    public AdminResource(ServiceState serviceState) {
+    public AdminResource(ServiceState serviceState, GraphIndexReindexer reindexer) {
         this.serviceState = serviceState;
+        this.reindexer = reindexer;
     }
 
     /**
@@ -81,9 +87,7 @@ public class AdminResource {
         AtlasPerfTracer perf = null;
 
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getThreadDump()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getThreadDump");
 
             ThreadGroup topThreadGroup = Thread.currentThread().getThreadGroup();
 
@@ -118,9 +122,7 @@ public class AdminResource {
         AtlasPerfTracer perf = null;
 
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getVersion()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getVersion");
 
             if (version == null) {
                 try {
@@ -153,9 +155,7 @@ public class AdminResource {
         AtlasPerfTracer perf = null;
 
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getStatus()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getStatus");
 
             JSONObject responseData = new JSONObject();
             try {
@@ -170,6 +170,86 @@ public class AdminResource {
         }
     }
     
+    /**
+     * Fetches the progress of the backfill of indexes created for attributes that already had values.
+     *
+     * @return json representing the queued, running and recently finished reindex jobs.
+     */
+    @GET
+    @Path("reindex")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response getReindexProgress() {
+        AtlasPerfTracer perf = null;
+
+        try {
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getReindexProgress");
+
+            JSONArray jobs = new JSONArray();
+
+            for (GraphIndexReindexer.ReindexJob job : reindexer.getJobs()) {
+                JSONObject jobData = new JSONObject();
+
+                jobData.put("typeName", job.getTypeName());
+                jobData.put("propertyKeys", new JSONArray(job.getPropertyKeys()));
+                jobData.put("state", job.getState().name());
+                jobData.put("totalCount", job.getTotalCount());
+                jobData.put("processedCount", job.getProcessedCount());
+                jobData.put("verticesPerSecond", job.getVerticesPerSecond());
+                jobData.put("startTime", job.getStartTime());
+                jobData.put("endTime", job.getEndTime());
+                jobData.putOpt("error", job.getError());
+
+                jobs.put(jobData);
+            }
+
+            JSONObject responseData = new JSONObject();
+            responseData.put("jobs", jobs);
+
+            return Response.ok(responseData).build();
+        } catch (JSONException e) {
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    /**
+     * Fetches the server metrics: the latency histograms of the timed operations, like REST calls, graph commits
+     * and index queries, and the counters and gauges, like the hook lag and the cache hit rates.
+     *
+     * @return json representing the metrics, by kind and then by name.
+     */
+    @GET
+    @Path("metrics")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response getMetrics() {
+        AtlasPerfTracer perf = null;
+
+        try {
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getMetrics");
+
+            JSONObject responseData = new JSONObject();
+
+            for (Map.Entry<String, Map<String, Object>> kind : AtlasMetrics.snapshot().entrySet()) {
+                JSONObject metrics = new JSONObject();
+
+                for (Map.Entry<String, Object> metric : kind.getValue().entrySet()) {
+                    Object value = metric.getValue();
+
+                    metrics.put(metric.getKey(), value instanceof Map ? new JSONObject((Map) value) : value);
+                }
+
+                responseData.put(kind.getKey(), metrics);
+            }
+
+            return Response.ok(responseData).build();
+        } catch (JSONException e) {
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
     @GET
     @Path("session")
     @Produces(Servlets.JSON_MEDIA_TYPE)
@@ -178,9 +258,7 @@ public class AdminResource {
         Boolean enableTaxonomy = null;
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getUserProfile()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AdminResource.getUserProfile");
 
             PropertiesConfiguration configProperties = new PropertiesConfiguration("atlas-application.properties");
             enableTaxonomy = new Boolean(configProperties.getString(isTaxonomyEnabled, "false"));
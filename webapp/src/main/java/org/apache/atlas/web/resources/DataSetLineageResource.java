@@ -77,9 +77,7 @@ public class DataSetLineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.inputsGraph(" + tableName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.inputsGraph", tableName);
 
             final String jsonResult = lineageService.getInputsGraph(tableName);
 
@@ -117,9 +115,7 @@ public class DataSetLineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.outputsGraph(" + tableName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.outputsGraph", tableName);
 
             final String jsonResult = lineageService.getOutputsGraph(tableName);
 
@@ -157,9 +153,7 @@ public class DataSetLineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.schema(" + tableName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DataSetLineageResource.schema", tableName);
 
             final String jsonResult = lineageService.getSchema(tableName);
 
@@ -24,6 +24,7 @@ import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasConstants;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.EntityAuditEvent;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.services.MetadataService;
 import org.apache.atlas.typesystem.IStruct;
 import org.apache.atlas.typesystem.Referenceable;
@@ -112,9 +113,7 @@ public class EntityResource {
         String entityJson = null;
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.submit()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.submit");
 
             String entities = Servlets.getRequestPayload(request);
 
@@ -198,9 +197,7 @@ public class EntityResource {
         String entityJson = null;
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateEntities()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateEntities");
 
             final String entities = Servlets.getRequestPayload(request);
 
@@ -269,9 +266,7 @@ public class EntityResource {
         String entityJson = null;
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateByUniqueAttribute()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateByUniqueAttribute");
 
             entityJson = Servlets.getRequestPayload(request);
 
@@ -323,9 +318,7 @@ public class EntityResource {
                                        @Context HttpServletRequest request) {
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateEntityByGuid()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.updateEntityByGuid");
 
             if (StringUtils.isEmpty(attribute)) {
                 return updateEntityPartialByGuid(guid, request);
@@ -420,9 +413,7 @@ public class EntityResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.deleteEntities()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.deleteEntities");
 
             AtlasClient.EntityResult entityResult;
             if (guids != null && !guids.isEmpty()) {
@@ -454,23 +445,28 @@ public class EntityResource {
     }
 
     /**
-     * Fetch the complete definition of an entity given its GUID.
+     * Fetch the definition of an entity given its GUID. By default the complete definition is returned.
      *
      * @param guid GUID for the entity
+     * @param attributes comma separated names of the attributes to return; empty to return none of them
+     * @param traits false to not return the attributes of the traits
+     * @param depth levels of composite entities to return as complete definitions, instead of as ids
      */
     @GET
     @Path("{guid}")
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public Response getEntityDefinition(@PathParam("guid") String guid) {
+    public Response getEntityDefinition(@PathParam("guid") String guid,
+                                        @QueryParam("attributes") String attributes,
+                                        @QueryParam("traits") @DefaultValue("true") boolean traits,
+                                        @QueryParam("depth") @DefaultValue("-1") int depth) {
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getEntityDefinition()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getEntityDefinition");
 
             LOG.debug("Fetching entity definition for guid={} ", guid);
             guid = ParamChecker.notEmpty(guid, "guid cannot be null");
-            final String entityDefinition = metadataService.getEntityDefinitionJson(guid);
+            final String entityDefinition = metadataService.getEntityDefinitionJson(guid,
+                    EntityProjection.fromRequest(attributes, traits, depth));
 
             JSONObject response = new JSONObject();
             response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
@@ -539,9 +535,7 @@ public class EntityResource {
                               @QueryParam("value") String value) {
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getEntity(" + entityType + ", " + attribute + ", " + value + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getEntity", entityType, attribute, value);
 
             if (StringUtils.isEmpty(attribute)) {
                 //List API
@@ -612,9 +606,7 @@ public class EntityResource {
     public Response getTraitNames(@PathParam("guid") String guid) {
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitNames(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitNames", guid);
 
             LOG.debug("Fetching trait names for entity={}", guid);
             final List<String> traitNames = metadataService.getTraitNames(guid);
@@ -649,9 +641,7 @@ public class EntityResource {
     public Response getTraitDefinitionsForEntity(@PathParam("guid") String guid){
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitDefinitionsForEntity(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitDefinitionsForEntity", guid);
             LOG.debug("Fetching all trait definitions for entity={}", guid);
             final String entityDefinition = metadataService.getEntityDefinitionJson(guid);
 
@@ -695,9 +685,7 @@ public class EntityResource {
     public Response getTraitDefinitionForEntity(@PathParam("guid") String guid, @PathParam("traitName") String traitName){
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitDefinitionForEntity(" + guid + ", " + traitName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getTraitDefinitionForEntity", guid, traitName);
             LOG.debug("Fetching trait definition for entity {} and trait name {}", guid, traitName);
             final IStruct traitDefinition = metadataService.getTraitDefinition(guid, traitName);
 
@@ -734,9 +722,7 @@ public class EntityResource {
         String traitDefinition = null;
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.addTrait(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.addTrait", guid);
 
             traitDefinition = Servlets.getRequestPayload(request);
             LOG.info("Adding trait={} for entity={} ", traitDefinition, guid);
@@ -779,9 +765,7 @@ public class EntityResource {
         LOG.info("Deleting trait={} from entity={} ", traitName, guid);
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.deleteTrait(" + guid + ", " + traitName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.deleteTrait", guid, traitName);
 
             metadataService.deleteTrait(guid, traitName);
 
@@ -815,22 +799,22 @@ public class EntityResource {
      *                  with count = (number of events required + 1). Next time getAuditEvents() is called for the same entity,
      *                  startKey should be equal to the entityKey of the last event returned in the previous call.
      * @param count number of events required
+     * @param fullView if true, update events stored as attribute deltas are returned with the complete entity
      * @return
      */
     @GET
     @Path("{guid}/audit")
     @Produces(Servlets.JSON_MEDIA_TYPE)
     public Response getAuditEvents(@PathParam("guid") String guid, @QueryParam("startKey") String startKey,
-                                   @QueryParam("count") @DefaultValue("100") short count) {
+                                   @QueryParam("count") @DefaultValue("100") short count,
+                                   @QueryParam("fullView") @DefaultValue("false") boolean fullView) {
         LOG.debug("Audit events request for entity {}, start key {}, number of results required {}", guid, startKey,
                 count);
         AtlasPerfTracer perf = null;
         try {
-            if(AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getAuditEvents(" + guid + ", " + startKey + ", " + count + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityResource.getAuditEvents", guid, startKey, count);
 
-            List<EntityAuditEvent> events = metadataService.getAuditEvents(guid, startKey, count);
+            List<EntityAuditEvent> events = metadataService.getAuditEvents(guid, startKey, count, fullView);
 
             JSONObject response = new JSONObject();
             response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
@@ -55,9 +55,7 @@ public class EntityService extends BaseService {
     public Response getEntities(@Context HttpHeaders headers, @Context UriInfo ui) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntities()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntities");
 
             String queryString = decode(getQueryString(ui));
 
@@ -78,9 +76,7 @@ public class EntityService extends BaseService {
                               @PathParam("entityId") String entityId) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntity(" + entityId + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntity", entityId);
 
             BaseRequest request = new InstanceRequest(Collections.<String, Object>singletonMap("id", entityId));
             Result result = getResource(entityResourceProvider, request);
@@ -100,9 +96,7 @@ public class EntityService extends BaseService {
                                  @PathParam("tag") String tagName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntityTag(" + entityId + ", " + tagName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntityTag", entityId, tagName);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("id", entityId);
@@ -123,9 +117,7 @@ public class EntityService extends BaseService {
                                   @PathParam("entityId") String entityGuid) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntityTags(" + entityGuid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.getEntityTags", entityGuid);
 
             BaseRequest request = new CollectionRequest(Collections.<String, Object>singletonMap("id", entityGuid),
                     decode(getQueryString(ui)));
@@ -147,9 +139,7 @@ public class EntityService extends BaseService {
                               @PathParam("tag") String tagName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.tagEntity(" + entityId + ", " + tagName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.tagEntity", entityId, tagName);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("id", entityId);
@@ -170,9 +160,7 @@ public class EntityService extends BaseService {
                                 @Context UriInfo ui) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.tagEntities()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.tagEntities");
 
             Map<String, Object> properties = parsePayload(body);
 
@@ -207,9 +195,7 @@ public class EntityService extends BaseService {
                                     @PathParam("tag") String tagName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.deleteEntityTag()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityService.deleteEntityTag");
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("id", entityId);
@@ -72,9 +72,7 @@ public class LineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.inputsGraph(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.inputsGraph", guid);
 
             final String jsonResult = lineageService.getInputsGraphForEntity(guid);
 
@@ -111,9 +109,7 @@ public class LineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.outputsGraph(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.outputsGraph", guid);
 
             final String jsonResult = lineageService.getOutputsGraphForEntity(guid);
 
@@ -150,9 +146,7 @@ public class LineageResource {
 
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.schema(" + guid + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "LineageResource.schema", guid);
 
             final String jsonResult = lineageService.getSchemaForEntity(guid);
 
@@ -18,18 +18,20 @@
 
 package org.apache.atlas.web.resources;
 
-import com.google.common.base.Preconditions;
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.classification.InterfaceAudience;
 import org.apache.atlas.discovery.DiscoveryException;
 import org.apache.atlas.discovery.DiscoveryService;
+import org.apache.atlas.discovery.FullTextCursor;
 import org.apache.atlas.query.QueryParams;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.utils.ParamChecker;
 import org.apache.atlas.web.util.Servlets;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jettison.json.JSONArray;
-import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,14 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +71,8 @@ public class MetadataDiscoveryResource {
     private static final String QUERY_TYPE_FULLTEXT = "full-text";
     private static final String LIMIT_OFFSET_DEFAULT = "-1";
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final DiscoveryService discoveryService;
 
     /**
@@ -90,9 +102,7 @@ public class MetadataDiscoveryResource {
                            @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("limit") int limit,
                            @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("offset") int offset) {
         AtlasPerfTracer perf = null;
-        if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.search(" + query + ", " + limit + ", " + offset + ")");
-        }
+        perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.search", query, limit, offset);
 
         boolean dslQueryFailed = false;
         Response response = null;
@@ -107,7 +117,7 @@ public class MetadataDiscoveryResource {
         }
 
         if ( dslQueryFailed ) {
-            response = searchUsingFullText(query, limit, offset);
+            response = searchUsingFullText(query, limit, offset, null);
         }
         AtlasPerfTracer.log(perf);
         return response;
@@ -134,17 +144,16 @@ public class MetadataDiscoveryResource {
                                         @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("offset") int offset) {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingQueryDSL(" + dslQuery + ", " + limit + ", " + offset + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingQueryDSL", dslQuery, limit, offset);
 
             dslQuery = ParamChecker.notEmpty(dslQuery, "dslQuery cannot be null");
             QueryParams queryParams = validateQueryParams(limit, offset);
-            final String jsonResultStr = discoveryService.searchByDSL(dslQuery, queryParams);
 
-            JSONObject response = new DSLJSONResponseBuilder().results(jsonResultStr).query(dslQuery).build();
+            // the query runs before the response is streamed, so that its errors are reported here and search() can
+            // fall back to full text; only the rows are read while the response is written
+            DiscoveryService.DSLResults results = discoveryService.startDSLSearch(dslQuery, queryParams);
 
-            return Response.ok(response).build();
+            return Response.ok(new DSLResponseWriter(dslQuery, results)).build();
         } catch (DiscoveryException | IllegalArgumentException e) {
             LOG.error("Unable to get entity list for dslQuery {}", dslQuery, e);
             throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
@@ -192,9 +201,7 @@ public class MetadataDiscoveryResource {
     public Response searchUsingGremlinQuery(@QueryParam("query") String gremlinQuery) {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingGremlinQuery(" + gremlinQuery + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingGremlinQuery", gremlinQuery);
 
             gremlinQuery = ParamChecker.notEmpty(gremlinQuery, "gremlinQuery cannot be null or empty");
             final List<Map<String, String>> results = discoveryService.searchByGremlin(gremlinQuery);
@@ -224,12 +231,13 @@ public class MetadataDiscoveryResource {
     }
 
     /**
-     * Search using full text search.
+     * Search using full text search. The results are streamed to the response as they are read from the index.
      *
      * @param query search query.
      * @param limit number of rows to be returned in the result, used for pagination. maxlimit > limit > 0. -1 maps to atlas.search.defaultlimit property value
      * @param offset offset to the results returned, used for pagination. offset >= 0. -1 maps to offset 0
-     * @return JSON representing the type and results.
+     * @param cursor cursor returned with the previous page of results, to get the next page; used instead of offset
+     * @return JSON representing the type and results, with the cursor for the next page if there may be more results.
      */
     @GET
     @Path("search/fulltext")
@@ -237,128 +245,167 @@ public class MetadataDiscoveryResource {
     @Produces(Servlets.JSON_MEDIA_TYPE)
     public Response searchUsingFullText(@QueryParam("query") String query,
                                         @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("limit") int limit,
-                                        @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("offset") int offset) {
-        AtlasPerfTracer perf = null;
+                                        @DefaultValue(LIMIT_OFFSET_DEFAULT) @QueryParam("offset") int offset,
+                                        @QueryParam("cursor") String cursor) {
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingFullText(" + query + ", " + limit + ", " + offset + ")");
-            }
-
             query = ParamChecker.notEmpty(query, "query cannot be null or empty");
             QueryParams queryParams = validateQueryParams(limit, offset);
-            final String jsonResultStr = discoveryService.searchByFullText(query, queryParams);
-            JSONArray rowsJsonArr = new JSONArray(jsonResultStr);
+            if (cursor != null) {
+                FullTextCursor.parse(cursor);
+            }
 
-            JSONObject response = new FullTextJSonResponseBuilder().results(rowsJsonArr).query(query).build();
-            return Response.ok(response).build();
-        } catch (DiscoveryException | IllegalArgumentException e) {
+            return Response.ok(new FullTextResponseWriter(query, queryParams, cursor)).build();
+        } catch (IllegalArgumentException e) {
             LOG.error("Unable to get entity list for query {}", query, e);
             throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
-        } catch (Throwable e) {
-            LOG.error("Unable to get entity list for query {}", query, e);
-            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
-        } finally {
-            AtlasPerfTracer.log(perf);
         }
     }
 
-    private class JsonResponseBuilder {
-
-        protected int count = 0;
-        protected String query;
-        protected String queryType;
-        protected JSONObject response;
-
-        JsonResponseBuilder() {
-            this.response = new JSONObject();
-        }
-
-        protected JsonResponseBuilder count(int count) {
-            this.count = count;
-            return this;
-        }
-
-        public JsonResponseBuilder query(String query) {
-            this.query = query;
-            return this;
-        }
-
-        public JsonResponseBuilder queryType(String queryType) {
-            this.queryType = queryType;
-            return this;
-        }
-
-        protected JSONObject build() throws JSONException {
-
-            Preconditions.checkNotNull(query, "Query cannot be null");
-            Preconditions.checkNotNull(queryType, "Query Type must be specified");
-            Preconditions.checkArgument(count >= 0, "Search Result count should be > 0");
-
-            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
-            response.put(AtlasClient.QUERY, query);
-            response.put(AtlasClient.QUERY_TYPE, queryType);
-            response.put(AtlasClient.COUNT, count);
-            return response;
-        }
-    }
-
-    private class DSLJSONResponseBuilder extends JsonResponseBuilder {
-
-        DSLJSONResponseBuilder() {
-            super();
-        }
-
-        private JSONObject dslResults;
-
-        public DSLJSONResponseBuilder results(JSONObject dslResults) {
-            this.dslResults = dslResults;
-            return this;
-        }
-
-        public DSLJSONResponseBuilder results(String dslResults) throws JSONException {
-            return results(new JSONObject(dslResults));
+    /**
+     * Writes the full text search response while the rows are read from the index, instead of building
+     * the response in memory. The search runs when the response is written. Errors before the first row
+     * are returned as error responses; after that, the response is truncated.
+     */
+    private class FullTextResponseWriter implements StreamingOutput {
+        private final String      query;
+        private final QueryParams queryParams;
+        private final String      cursor;
+        private final String      requestId = Servlets.getRequestId();
+
+        FullTextResponseWriter(String query, QueryParams queryParams, String cursor) {
+            this.query       = query;
+            this.queryParams = queryParams;
+            this.cursor      = cursor;
         }
 
         @Override
-        public JSONObject build() throws JSONException {
-            Preconditions.checkNotNull(dslResults);
-            JSONArray rowsJsonArr = dslResults.getJSONArray(AtlasClient.ROWS);
-            count(rowsJsonArr.length());
-            queryType(QUERY_TYPE_DSL);
-            JSONObject response = super.build();
-            response.put(AtlasClient.RESULTS, rowsJsonArr);
-            response.put(AtlasClient.DATATYPE, dslResults.get(AtlasClient.DATATYPE));
-            return response;
-        }
-
-    }
-
-    private class FullTextJSonResponseBuilder extends JsonResponseBuilder {
-
-        private JSONArray fullTextResults;
-
-        public FullTextJSonResponseBuilder results(JSONArray fullTextResults) {
-            this.fullTextResults = fullTextResults;
-            return this;
+        public void write(OutputStream output) throws IOException {
+            AtlasPerfTracer perf = null;
+            try {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.searchUsingFullText", query, queryParams, cursor);
+
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                final int[] count = new int[1];
+
+                String nextCursor = discoveryService.searchByFullText(query, queryParams, cursor,
+                        new DiscoveryService.FullTextResultHandler() {
+                            @Override
+                            public void onResult(JSONObject row) throws DiscoveryException {
+                                try {
+                                    if (count[0] == 0) {
+                                        writeHeader(writer);
+                                    } else {
+                                        writer.write(',');
+                                    }
+
+                                    writer.write(row.toString());
+                                    count[0]++;
+                                } catch (IOException e) {
+                                    throw new DiscoveryException("Unable to write response", e);
+                                }
+                            }
+                        });
+
+                if (count[0] == 0) {
+                    writeHeader(writer);
+                }
+
+                writer.write("],");
+                writer.write(JSONObject.quote(AtlasClient.COUNT));
+                writer.write(':');
+                writer.write(String.valueOf(count[0]));
+                if (nextCursor != null) {
+                    writer.write(',');
+                    writer.write(JSONObject.quote(AtlasClient.CURSOR));
+                    writer.write(':');
+                    writer.write(JSONObject.quote(nextCursor));
+                }
+                writer.write('}');
+                writer.flush();
+            } catch (DiscoveryException | IllegalArgumentException e) {
+                LOG.error("Unable to get entity list for query {}", query, e);
+                throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
+            } catch (IOException e) {
+                throw e;
+            } catch (Throwable e) {
+                LOG.error("Unable to get entity list for query {}", query, e);
+                throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+            } finally {
+                AtlasPerfTracer.log(perf);
+            }
         }
 
-        public FullTextJSonResponseBuilder results(String dslResults) throws JSONException {
-            return results(new JSONArray(dslResults));
+        private void writeHeader(Writer writer) throws IOException {
+            writer.write('{');
+            writer.write(JSONObject.quote(AtlasClient.REQUEST_ID));
+            writer.write(':');
+            writer.write(JSONObject.quote(requestId));
+            writer.write(',');
+            writer.write(JSONObject.quote(AtlasClient.QUERY));
+            writer.write(':');
+            writer.write(JSONObject.quote(query));
+            writer.write(',');
+            writer.write(JSONObject.quote(AtlasClient.QUERY_TYPE));
+            writer.write(':');
+            writer.write(JSONObject.quote(QUERY_TYPE_FULLTEXT));
+            writer.write(',');
+            writer.write(JSONObject.quote(AtlasClient.RESULTS));
+            writer.write(":[");
         }
+    }
 
-        public FullTextJSonResponseBuilder() {
-            super();
+    /**
+     * Writes the DSL search response with a JsonGenerator on the response stream, one row at a time as the rows are
+     * read from the graph, so that the memory used doesn't grow with the number of rows. The query has already run
+     * when the response is written; errors reading the rows truncate the response.
+     */
+    private class DSLResponseWriter implements StreamingOutput {
+        private final String                      dslQuery;
+        private final DiscoveryService.DSLResults results;
+        private final String                      requestId = Servlets.getRequestId();
+
+        DSLResponseWriter(String dslQuery, DiscoveryService.DSLResults results) {
+            this.dslQuery = dslQuery;
+            this.results  = results;
         }
 
         @Override
-        public JSONObject build() throws JSONException {
-            Preconditions.checkNotNull(fullTextResults);
-            count(fullTextResults.length());
-            queryType(QUERY_TYPE_FULLTEXT);
-
-            JSONObject response = super.build();
-            response.put(AtlasClient.RESULTS, fullTextResults);
-            return response;
+        public void write(OutputStream output) throws IOException {
+            AtlasPerfTracer perf = null;
+            try {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "MetadataDiscoveryResource.writeDSLResults", dslQuery);
+
+                JsonGenerator    generator = JSON_FACTORY.createJsonGenerator(output, JsonEncoding.UTF8);
+                Iterator<String> rows      = results.getRows();
+                int              count     = 0;
+
+                generator.writeStartObject();
+                generator.writeStringField(AtlasClient.REQUEST_ID, requestId);
+                generator.writeStringField(AtlasClient.QUERY, dslQuery);
+                generator.writeStringField(AtlasClient.QUERY_TYPE, QUERY_TYPE_DSL);
+                generator.writeFieldName(AtlasClient.DATATYPE);
+                generator.writeRawValue(results.getDataTypeJson());
+                generator.writeArrayFieldStart(AtlasClient.RESULTS);
+
+                while (rows.hasNext()) {
+                    generator.writeRawValue(rows.next());
+                    count++;
+                }
+
+                generator.writeEndArray();
+                generator.writeNumberField(AtlasClient.COUNT, count);
+                generator.writeEndObject();
+                generator.flush();
+            } catch (IOException e) {
+                throw e;
+            } catch (Throwable e) {
+                LOG.error("Unable to get entity list for dslQuery {}", dslQuery, e);
+                throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+            } finally {
+                results.close();
+
+                AtlasPerfTracer.log(perf);
+            }
         }
     }
 }
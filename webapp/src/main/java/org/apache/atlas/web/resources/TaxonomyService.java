@@ -63,9 +63,7 @@ public class TaxonomyService extends BaseService {
                                 @PathParam("taxonomyName") String taxonomyName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomy(" + taxonomyName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomy", taxonomyName);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("name", taxonomyName);
@@ -81,9 +79,7 @@ public class TaxonomyService extends BaseService {
     public Response getTaxonomies(@Context HttpHeaders headers, @Context UriInfo ui) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomies()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomies");
 
             String queryString = decode(getQueryString(ui));
             Request request = new CollectionRequest(Collections.<String, Object>emptyMap(), queryString);
@@ -103,9 +99,7 @@ public class TaxonomyService extends BaseService {
                                    @PathParam("taxonomyName") String taxonomyName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createTaxonomy(" + taxonomyName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createTaxonomy", taxonomyName);
 
             Map<String, Object> properties = parsePayload(body);
             properties.put("name", taxonomyName);
@@ -128,9 +122,7 @@ public class TaxonomyService extends BaseService {
                                    @PathParam("taxonomyName") String taxonomyName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateTaxonomy(" + taxonomyName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateTaxonomy", taxonomyName);
 
             Map<String, Object> queryProperties = new HashMap<>();
             queryProperties.put("name", taxonomyName);
@@ -152,9 +144,7 @@ public class TaxonomyService extends BaseService {
                                    @PathParam("taxonomyName") String taxonomyName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteTaxonomy(" + taxonomyName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteTaxonomy", taxonomyName);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("name", taxonomyName);
@@ -177,9 +167,7 @@ public class TaxonomyService extends BaseService {
                                     @PathParam("termName") String termName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomyTerm(" + taxonomyName + ", " + termName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomyTerm", taxonomyName, termName);
 
             TermPath termPath = new TermPath(taxonomyName, termName);
             Map<String, Object> properties = new HashMap<>();
@@ -200,9 +188,7 @@ public class TaxonomyService extends BaseService {
                                      @PathParam("taxonomyName") String taxonomyName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomyTerms(" + taxonomyName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getTaxonomyTerms", taxonomyName);
 
             String queryString = decode(getQueryString(ui));
             TermPath termPath = new TermPath(taxonomyName, null);
@@ -226,9 +212,7 @@ public class TaxonomyService extends BaseService {
                             @PathParam("remainder") String remainder) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getSubTerms(" + taxonomyName + ", " + rootTerm + ", " + remainder + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.getSubTerms", taxonomyName, rootTerm, remainder);
 
             Result result;
             String termName = String.format("%s%s", rootTerm,
@@ -264,9 +248,7 @@ public class TaxonomyService extends BaseService {
                                @PathParam("termName") String termName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createTerm(" + taxonomyName + ", " + termName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createTerm", taxonomyName, termName);
 
             Map<String, Object> properties = parsePayload(body);
             validateName(termName);
@@ -291,9 +273,7 @@ public class TaxonomyService extends BaseService {
                                   @PathParam("remainder") String remainder) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createSubTerm(" + taxonomyName + ", " + termName + ", " + remainder + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.createSubTerm", taxonomyName, termName, remainder);
 
             Map<String, Object> properties = parsePayload(body);
             String[] pathTokens = remainder.split("/");
@@ -319,9 +299,7 @@ public class TaxonomyService extends BaseService {
                                @PathParam("termName") String termName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateTerm(" + taxonomyName + ", " + termName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateTerm", taxonomyName, termName);
 
             Map<String, Object> queryProperties = new HashMap<>();
             queryProperties.put("termPath", new TermPath(taxonomyName, termName));
@@ -347,9 +325,7 @@ public class TaxonomyService extends BaseService {
                                   @PathParam("remainder") String remainder) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateSubTerm(" + taxonomyName + ", " + termName + ", " + remainder + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.updateSubTerm", taxonomyName, termName, remainder);
 
             Map<String, Object> queryProperties = new HashMap<>();
             queryProperties.put("termPath", new TermPath(taxonomyName, String.format("%s%s", termName,
@@ -374,9 +350,7 @@ public class TaxonomyService extends BaseService {
                                @PathParam("termName") String termName) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteTerm(" + taxonomyName + ", " + termName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteTerm", taxonomyName, termName);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("termPath", new TermPath(taxonomyName, termName));
@@ -399,9 +373,7 @@ public class TaxonomyService extends BaseService {
                                   @PathParam("remainder") String remainder) throws CatalogException {
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteSubTerm(" + taxonomyName + ", " + termName + ", " + remainder + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TaxonomyService.deleteSubTerm", taxonomyName, termName, remainder);
 
             Map<String, Object> properties = new HashMap<>();
             properties.put("termPath", new TermPath(taxonomyName, String.format("%s%s", termName,
@@ -98,9 +98,7 @@ public class TypesResource {
         JSONArray typesResponse = new JSONArray();
 
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.submit()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.submit");
 
             final String typeDefinition = Servlets.getRequestPayload(request);
             LOG.info("Creating type with definition {} ", typeDefinition);
@@ -151,9 +149,7 @@ public class TypesResource {
         AtlasPerfTracer perf = null;
         JSONArray typesResponse = new JSONArray();
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.update()");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.update");
 
             final String typeDefinition = Servlets.getRequestPayload(request);
             LOG.info("Updating type with definition {} ", typeDefinition);
@@ -201,9 +197,7 @@ public class TypesResource {
         AtlasPerfTracer perf = null;
 
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.getDefinition(" + typeName + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.getDefinition", typeName);
 
             TypeCategory typeCategory = typeRegistry.getType(typeName).getTypeCategory();
             TypesDef typesDef = null;
@@ -273,9 +267,7 @@ public class TypesResource {
         JSONObject response  = new JSONObject();
         AtlasPerfTracer perf = null;
         try {
-            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.getTypesByFilter(" + typeCategory + ")");
-            }
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "TypesResource.getTypesByFilter", typeCategory);
 
             List<String> result = RestUtils.getTypeNames(typesRest.getTypeDefHeaders());
 
@@ -21,12 +21,14 @@ import com.google.inject.Inject;
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasEntityWithAssociations;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.services.MetadataService;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
@@ -45,6 +47,7 @@ import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -92,14 +95,16 @@ public class EntitiesREST {
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
     public EntityMutationResponse createOrUpdate(List<AtlasEntity> entities) throws AtlasBaseException {
-        EntityMutationResponse response = null;
-        ITypedReferenceableInstance[] entitiesInOldFormat = restAdapters.getITypedReferenceables(entities);
+        EntityMutationResponse response = entitiesStore.createOrUpdate(entities);
+
+        // the store has committed the changes; notify the listeners (audit, notifications) as the v1 APIs do
+        RequestContext requestContext = RequestContext.get();
 
         try {
-            final AtlasClient.EntityResult result = metadataService.updateEntities(entitiesInOldFormat);
-            response = toEntityMutationResponse(result);
+            metadataService.onEntitiesMutated(new AtlasClient.EntityResult(requestContext.getCreatedEntityIds(),
+                    requestContext.getUpdatedEntityIds(), requestContext.getDeletedEntityIds()));
         } catch (AtlasException e) {
-            LOG.error("Exception while getting a typed reference for the entity ", e);
+            LOG.error("Exception while notifying the listeners of the entity changes", e);
             throw AtlasInstanceRestAdapters.toAtlasBaseException(e);
         }
         return response;
@@ -121,7 +126,10 @@ public class EntitiesREST {
     @Path("/guids")
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public AtlasEntity.AtlasEntities getById(@QueryParam("guid") List<String> guids) throws AtlasBaseException {
+    public AtlasEntity.AtlasEntities getById(@QueryParam("guid") List<String> guids,
+                                             @QueryParam("attributes") String attributes,
+                                             @QueryParam("traits") @DefaultValue("true") boolean traits,
+                                             @QueryParam("depth") @DefaultValue("-1") int depth) throws AtlasBaseException {
 
         if (CollectionUtils.isEmpty(guids)) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guids);
@@ -130,15 +138,15 @@ public class EntitiesREST {
         AtlasEntity.AtlasEntities entities = new AtlasEntity.AtlasEntities();
 
         List<AtlasEntity> entityList = new ArrayList<>();
+        EntityProjection projection = EntityProjection.fromRequest(attributes, traits, depth);
 
-        for (String guid : guids) {
-            try {
-               ITypedReferenceableInstance ref = metadataService.getEntityDefinition(guid);
-               AtlasEntity entity = restAdapters.getAtlasEntity(ref);
-               entityList.add(entity);
-            } catch (AtlasException e) {
-                throw toAtlasBaseException(e);
+        try {
+            for (ITypedReferenceableInstance ref : metadataService.getEntityDefinitions(guids, projection)) {
+                AtlasEntity entity = restAdapters.getAtlasEntity(ref);
+                entityList.add(entity);
             }
+        } catch (AtlasException e) {
+            throw toAtlasBaseException(e);
         }
 
         entities.setList(entityList);
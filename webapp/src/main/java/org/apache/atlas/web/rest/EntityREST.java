@@ -28,6 +28,7 @@ import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntityWithAssociations;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.typedef.AtlasStructDef;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.services.MetadataService;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasType;
@@ -117,16 +118,23 @@ public class EntityREST {
 
 
     /**
-     * Fetch the complete definition of an entity given its GUID.
+     * Fetch the definition of an entity given its GUID. By default the complete definition is returned.
      *
      * @param guid GUID for the entity
+     * @param attributes comma separated names of the attributes to return; empty to return none of them
+     * @param traits false to not return the attributes of the traits
+     * @param depth levels of composite entities to return as complete definitions, instead of as ids
      */
     @GET
     @Path("/guid/{guid}")
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public AtlasEntity getById(@PathParam("guid") String guid) throws AtlasBaseException {
+    public AtlasEntity getById(@PathParam("guid") String guid,
+                               @QueryParam("attributes") String attributes,
+                               @DefaultValue("true") @QueryParam("traits") boolean traits,
+                               @DefaultValue("-1") @QueryParam("depth") int depth) throws AtlasBaseException {
         try {
-            ITypedReferenceableInstance ref = metadataService.getEntityDefinition(guid);
+            ITypedReferenceableInstance ref = metadataService.getEntityDefinition(guid,
+                    EntityProjection.fromRequest(attributes, traits, depth));
             return restAdapters.getAtlasEntity(ref);
         } catch (AtlasException e) {
             throw toAtlasBaseException(e);
@@ -20,7 +20,10 @@ package org.apache.atlas;
 
 import com.google.inject.Inject;
 import com.sun.jersey.api.client.ClientResponse;
+import org.apache.atlas.services.MetadataService;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.exception.TypeNotFoundException;
 import org.apache.atlas.web.resources.EntityResource;
 import org.apache.atlas.web.service.ServiceState;
 import org.apache.commons.lang.RandomStringUtils;
@@ -44,6 +47,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -61,6 +66,9 @@ public class LocalAtlasClientTest {
     @Mock
     private ServiceState serviceState;
 
+    @Mock
+    private MetadataService mockMetadataService;
+
     @BeforeMethod
     public void setup() {
         MockitoAnnotations.initMocks(this);
@@ -153,6 +161,33 @@ public class LocalAtlasClientTest {
         assertEquals(entityResult.getDeletedEntities(), Arrays.asList(guid));
     }
 
+    @Test
+    public void testCreateEntityWithMetadataService() throws Exception {
+        final String guid = random();
+        ITypedReferenceableInstance[] typedInstances = new ITypedReferenceableInstance[1];
+        when(mockMetadataService.getTypedReferenceableInstances(anyListOf(Referenceable.class))).thenReturn(typedInstances);
+        when(mockMetadataService.createEntities(typedInstances)).thenReturn(Arrays.asList(guid));
+
+        LocalAtlasClient atlasClient = new LocalAtlasClient(serviceState, mockEntityResource, mockMetadataService);
+        List<String> results = atlasClient.createEntity(new Referenceable(random()));
+        assertEquals(results, Arrays.asList(guid));
+        verify(mockEntityResource, never()).submit(any(HttpServletRequest.class));
+    }
+
+    @Test
+    public void testExceptionWithMetadataService() throws Exception {
+        when(mockMetadataService.getTypedReferenceableInstances(anyListOf(Referenceable.class)))
+                .thenThrow(new TypeNotFoundException("unknown type"));
+
+        LocalAtlasClient atlasClient = new LocalAtlasClient(serviceState, mockEntityResource, mockMetadataService);
+        try {
+            atlasClient.updateEntities(new Referenceable(random()));
+            fail("Expected AtlasServiceException");
+        } catch(AtlasServiceException e) {
+            assertTrue(e.getCause() instanceof TypeNotFoundException);
+        }
+    }
+
     private String random() {
         return RandomStringUtils.randomAlphanumeric(10);
     }
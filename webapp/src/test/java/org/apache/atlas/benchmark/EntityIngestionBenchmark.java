@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.LocalAtlasClient;
+import org.apache.atlas.RepositoryMetadataModule;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.services.MetadataService;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.TypesDef;
+import org.apache.atlas.typesystem.json.TypesSerialization;
+import org.apache.atlas.typesystem.types.AttributeDefinition;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.EnumTypeDefinition;
+import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
+import org.apache.atlas.typesystem.types.Multiplicity;
+import org.apache.atlas.typesystem.types.StructTypeDefinition;
+import org.apache.atlas.typesystem.types.TraitType;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
+import org.apache.atlas.web.resources.EntityResource;
+import org.apache.atlas.web.service.ServiceState;
+import org.apache.commons.lang.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways LocalAtlasClient applies the entities of a hook notification, on the same graph:
+ * - entityResource: LocalAtlasClient without a MetadataService, which serializes the entities into a JSON array and
+ *   passes it to EntityResource, which parses it back before converting the entities to typed instances
+ * - metadataService: LocalAtlasClient with a MetadataService, as injected for NotificationHookConsumer, which
+ *   converts the entities to typed instances directly
+ *
+ * Each invocation sends the same database, tables and columns, as a hook does on a full update: the entities are
+ * created during setup, then updated with unchanged values.
+ *
+ * Run with: java -cp <test classpath> org.apache.atlas.benchmark.EntityIngestionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EntityIngestionBenchmark {
+    private static final int NUM_COLUMNS = 10;
+
+    @Param({"1", "10", "100"})
+    private int numTables;
+
+    private LocalAtlasClient    entityResourceClient;
+    private LocalAtlasClient    metadataServiceClient;
+    private List<Referenceable> entities;
+
+    @Setup
+    public void setup() throws Exception {
+        Injector        injector        = Guice.createInjector(new RepositoryMetadataModule());
+        MetadataService metadataService = injector.getInstance(MetadataService.class);
+        EntityResource  entityResource  = injector.getInstance(EntityResource.class);
+        ServiceState    serviceState    = new ServiceState(ApplicationProperties.get());
+
+        entityResourceClient  = new LocalAtlasClient(serviceState, entityResource);
+        metadataServiceClient = new LocalAtlasClient(serviceState, entityResource, metadataService);
+
+        // types of their own, so that the benchmark can run against a graph that already has them
+        String suffix     = RandomStringUtils.randomAlphanumeric(5);
+        String dbType     = "bench_db_" + suffix;
+        String tableType  = "bench_table_" + suffix;
+        String columnType = "bench_column_" + suffix;
+
+        metadataService.createType(TypesSerialization.toJson(createTypesDef(dbType, tableType, columnType)));
+
+        Referenceable db = new Referenceable(dbType);
+
+        db.set(AtlasClient.NAME, "db_" + suffix);
+
+        entities = new ArrayList<>(numTables + 1);
+        entities.add(db);
+
+        for (int i = 0; i < numTables; i++) {
+            Referenceable       table   = new Referenceable(tableType);
+            List<Referenceable> columns = new ArrayList<>(NUM_COLUMNS);
+
+            for (int j = 0; j < NUM_COLUMNS; j++) {
+                Referenceable column = new Referenceable(columnType);
+
+                column.set(AtlasClient.NAME, "column_" + suffix + "_" + i + "_" + j);
+                column.set("type", "string");
+                columns.add(column);
+            }
+
+            table.set(AtlasClient.NAME, "table_" + suffix + "_" + i);
+            table.set("db", db);
+            table.set("columns", columns);
+            entities.add(table);
+        }
+
+        metadataServiceClient.createEntity(entities);
+    }
+
+    @TearDown
+    public void tearDown() {
+        AtlasGraphProvider.cleanup();
+    }
+
+    @Benchmark
+    public AtlasClient.EntityResult entityResource() throws Exception {
+        return entityResourceClient.updateEntities(entities);
+    }
+
+    @Benchmark
+    public AtlasClient.EntityResult metadataService() throws Exception {
+        return metadataServiceClient.updateEntities(entities);
+    }
+
+    private static TypesDef createTypesDef(String dbType, String tableType, String columnType) {
+        HierarchicalTypeDefinition<ClassType> dbTypeDef = TypesUtil.createClassTypeDef(dbType,
+                ImmutableSet.<String>of(),
+                TypesUtil.createUniqueRequiredAttrDef(AtlasClient.NAME, DataTypes.STRING_TYPE));
+
+        HierarchicalTypeDefinition<ClassType> columnTypeDef = TypesUtil.createClassTypeDef(columnType,
+                ImmutableSet.<String>of(),
+                TypesUtil.createUniqueRequiredAttrDef(AtlasClient.NAME, DataTypes.STRING_TYPE),
+                TypesUtil.createRequiredAttrDef("type", DataTypes.STRING_TYPE));
+
+        HierarchicalTypeDefinition<ClassType> tableTypeDef = TypesUtil.createClassTypeDef(tableType,
+                ImmutableSet.<String>of(),
+                TypesUtil.createUniqueRequiredAttrDef(AtlasClient.NAME, DataTypes.STRING_TYPE),
+                new AttributeDefinition("db", dbType, Multiplicity.REQUIRED, false, null),
+                new AttributeDefinition("columns", DataTypes.arrayTypeName(columnType), Multiplicity.OPTIONAL, true,
+                        null));
+
+        return TypesUtil.getTypesDef(ImmutableList.<EnumTypeDefinition>of(), ImmutableList.<StructTypeDefinition>of(),
+                ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(),
+                ImmutableList.of(dbTypeDef, columnTypeDef, tableTypeDef));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(EntityIngestionBenchmark.class.getSimpleName()).build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.notification.hook.HookNotification;
+import org.apache.atlas.typesystem.Referenceable;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class HookMessageDispatcherTest {
+    private HookMessageDispatcher dispatcher;
+
+    @BeforeMethod
+    public void setup() {
+        dispatcher = new HookMessageDispatcher(4);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testMessagesForSameEntityGoToSameLane() {
+        HookNotification.HookNotificationMessage create =
+                new HookNotification.EntityCreateRequest("user", createEntity("hive_table", "db.t1"));
+        HookNotification.HookNotificationMessage update =
+                new HookNotification.EntityPartialUpdateRequest("user", "hive_table",
+                        AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, "db.t1", createEntity("hive_table", "db.t1"));
+        HookNotification.HookNotificationMessage delete =
+                new HookNotification.EntityDeleteRequest("user", "hive_table",
+                        AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, "db.t1");
+
+        assertEquals(dispatcher.getLanes(create).size(), 1);
+        assertEquals(dispatcher.getLanes(update), dispatcher.getLanes(create));
+        assertEquals(dispatcher.getLanes(delete), dispatcher.getLanes(create));
+    }
+
+    @Test
+    public void testMessageForSeveralEntitiesIsAppliedBeforeLaterMessagesForAnyOfThem() throws Exception {
+        int    dbLane    = dispatcher.getLanes(createDelete("hive_db", "db")).first();
+        String tableName = null;
+
+        // a table of another lane than the database, so that the create is shared by both lanes
+        for (int i = 0; tableName == null; i++) {
+            if (dispatcher.getLanes(createDelete("hive_table", "db.t" + i)).first() != dbLane) {
+                tableName = "db.t" + i;
+            }
+        }
+
+        final HookNotification.HookNotificationMessage create =
+                new HookNotification.EntityCreateRequest("user", createEntity("hive_db", "db"),
+                        createEntity("hive_table", "db.first"), createEntity("hive_table", tableName));
+        HookNotification.HookNotificationMessage update =
+                new HookNotification.EntityPartialUpdateRequest("user", "hive_table",
+                        AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, tableName, createEntity("hive_table", tableName));
+        HookNotification.HookNotificationMessage delete = createDelete("hive_table", tableName);
+
+        assertTrue(dispatcher.getLanes(create).size() > 1);
+        assertTrue(dispatcher.getLanes(create).containsAll(dispatcher.getLanes(update)));
+        assertTrue(dispatcher.getLanes(create).containsAll(dispatcher.getLanes(delete)));
+
+        final List<HookNotification.HookNotificationMessage> handled =
+                Collections.synchronizedList(new ArrayList<HookNotification.HookNotificationMessage>());
+
+        dispatcher.dispatch(Arrays.asList(create, update, delete), new HookMessageDispatcher.MessagesHandler() {
+            @Override
+            public void handle(List<HookNotification.HookNotificationMessage> laneMessages) {
+                for (HookNotification.HookNotificationMessage message : laneMessages) {
+                    if (message == create) {
+                        // give the lane of the update a chance to run ahead
+                        Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+                    }
+
+                    handled.add(message);
+                }
+            }
+        });
+
+        assertEquals(handled.size(), 3);
+        assertSame(handled.get(0), create);
+        assertSame(handled.get(1), update);
+        assertSame(handled.get(2), delete);
+    }
+
+    @Test
+    public void testReferencedEntitiesDontDecideTheLane() {
+        Referenceable table = createEntity("hive_table", "db.t1");
+
+        table.set("db", createEntity("hive_db", "db"));
+
+        HookNotification.HookNotificationMessage create = new HookNotification.EntityCreateRequest("user", table);
+
+        assertEquals(HookMessageDispatcher.getLaneKeys(create), Collections.singleton("hive_table:db.t1"));
+    }
+
+    @Test(timeOut = 30000)
+    public void testConcurrentDispatchesOfMessagesSharedByLanesDontBlockEachOther() throws Exception {
+        final List<HookNotification.HookNotificationMessage> first  = new ArrayList<>();
+        final List<HookNotification.HookNotificationMessage> second = new ArrayList<>();
+
+        // messages that span several lanes, dispatched in opposite orders by two consumers
+        for (int i = 0; i < 50; i++) {
+            first.add(new HookNotification.EntityCreateRequest("user", createEntity("hive_table", "db.a" + i),
+                    createEntity("hive_table", "db.b" + i), createEntity("hive_table", "db.c" + i)));
+            second.add(0, new HookNotification.EntityCreateRequest("user", createEntity("hive_table", "db.c" + i),
+                    createEntity("hive_table", "db.b" + i), createEntity("hive_table", "db.a" + i)));
+        }
+
+        final AtomicInteger                         handled = new AtomicInteger();
+        final HookMessageDispatcher.MessagesHandler handler = new HookMessageDispatcher.MessagesHandler() {
+            @Override
+            public void handle(List<HookNotification.HookNotificationMessage> laneMessages) {
+                handled.addAndGet(laneMessages.size());
+            }
+        };
+
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    dispatcher.dispatch(second, handler);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        consumer.start();
+        dispatcher.dispatch(first, handler);
+        consumer.join();
+
+        assertEquals(handled.get(), first.size() + second.size());
+    }
+
+    @Test
+    public void testDispatchPreservesOrderWithinLaneAndWaitsForAllLanes() throws Exception {
+        final List<HookNotification.HookNotificationMessage> handled =
+                Collections.synchronizedList(new ArrayList<HookNotification.HookNotificationMessage>());
+        List<HookNotification.HookNotificationMessage> messages = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            messages.add(new HookNotification.EntityCreateRequest("user", createEntity("hive_table", "db.t" + (i % 5))));
+        }
+
+        dispatcher.dispatch(messages, new HookMessageDispatcher.MessagesHandler() {
+            @Override
+            public void handle(List<HookNotification.HookNotificationMessage> laneMessages) {
+                handled.addAll(laneMessages);
+            }
+        });
+
+        assertEquals(handled.size(), messages.size());
+
+        List<List<HookNotification.HookNotificationMessage>> lanes = dispatcher.partition(messages);
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            List<HookNotification.HookNotificationMessage> laneMessages = lanes.get(lane);
+
+            for (int i = 0; i < laneMessages.size(); i++) {
+                assertTrue(dispatcher.getLanes(laneMessages.get(i)).contains(lane));
+
+                // relative order of the original messages is kept within a lane
+                if (i > 0) {
+                    assertEquals(messages.indexOf(laneMessages.get(i - 1)) < messages.indexOf(laneMessages.get(i)), true);
+                }
+            }
+        }
+    }
+
+    private HookNotification.HookNotificationMessage createDelete(String typeName, String qualifiedName) {
+        return new HookNotification.EntityDeleteRequest("user", typeName, AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME,
+                                                        qualifiedName);
+    }
+
+    private Referenceable createEntity(String typeName, String qualifiedName) {
+        Referenceable entity = new Referenceable(typeName);
+        entity.set(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, qualifiedName);
+        return entity;
+    }
+}
@@ -31,6 +31,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 
@@ -41,6 +42,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
@@ -120,6 +122,106 @@ public class NotificationHookConsumerTest {
         verifyZeroInteractions(consumer);
     }
 
+    @Test
+    public void testBatchIsMergedAndCommittedOnce() throws Exception {
+        NotificationHookConsumer notificationHookConsumer =
+                new NotificationHookConsumer(notificationInterface, atlasClient);
+        NotificationConsumer consumer = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer =
+                notificationHookConsumer.new HookConsumer(consumer);
+        Referenceable db1 = createEntity("db", "db1");
+        Referenceable table = createEntity("table", "db1.t1");
+        Referenceable db1Updated = createEntity("db", "db1");
+
+        List<HookNotification.HookNotificationMessage> messages = new ArrayList<>();
+        messages.add(new HookNotification.EntityCreateRequest("user", db1, table));
+        messages.add(new HookNotification.EntityCreateRequest("user", db1Updated));
+        messages.add(new HookNotification.EntityDeleteRequest("user", "table", "qualifiedName", "db1.t0"));
+
+        hookConsumer.handleMessages(messages);
+
+        verify(atlasClient).createEntity(Arrays.asList(table, db1Updated));
+        verify(atlasClient).deleteEntity("table", "qualifiedName", "db1.t0");
+        verify(consumer, times(1)).commit();
+    }
+
+    @Test
+    public void testFailedBatchFallsBackToSingleMessages() throws Exception {
+        NotificationHookConsumer notificationHookConsumer =
+                new NotificationHookConsumer(notificationInterface, atlasClient);
+        NotificationConsumer consumer = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer =
+                notificationHookConsumer.new HookConsumer(consumer);
+        Referenceable db1 = createEntity("db", "db1");
+        Referenceable db2 = createEntity("db", "db2");
+        when(atlasClient.createEntity(Arrays.asList(db1, db2))).
+                thenThrow(new RuntimeException("Simulating exception in processing batch"));
+
+        List<HookNotification.HookNotificationMessage> messages = new ArrayList<>();
+        messages.add(new HookNotification.EntityCreateRequest("user", db1));
+        messages.add(new HookNotification.EntityCreateRequest("user", db2));
+
+        hookConsumer.handleMessages(messages);
+
+        verify(atlasClient).createEntity(Arrays.asList(db1));
+        verify(atlasClient).createEntity(Arrays.asList(db2));
+        verify(consumer, times(1)).commit();
+    }
+
+    @Test
+    public void testOnlyConsecutiveMessagesOfSameTypeAndUserAreGrouped() {
+        List<HookNotification.HookNotificationMessage> messages = new ArrayList<>();
+        messages.add(new HookNotification.EntityCreateRequest("user1", createEntity("db", "db1")));
+        messages.add(new HookNotification.EntityCreateRequest("user1", createEntity("db", "db2")));
+        messages.add(new HookNotification.EntityCreateRequest("user2", createEntity("db", "db3")));
+        messages.add(new HookNotification.EntityUpdateRequest("user2", createEntity("db", "db3")));
+        messages.add(new HookNotification.EntityDeleteRequest("user2", "db", "qualifiedName", "db3"));
+        messages.add(new HookNotification.EntityDeleteRequest("user2", "db", "qualifiedName", "db4"));
+
+        List<List<HookNotification.HookNotificationMessage>> groups =
+                NotificationHookConsumer.groupMergeableMessages(messages);
+
+        assertEquals(5, groups.size());
+        assertEquals(2, groups.get(0).size());
+        assertEquals(1, groups.get(1).size());
+        assertEquals(1, groups.get(2).size());
+        assertEquals(1, groups.get(3).size());
+        assertEquals(1, groups.get(4).size());
+    }
+
+    @Test
+    public void testMergedEntityKeepsFirstPositionAndAllAttributes() {
+        Referenceable db     = createEntity("db", "db1");
+        Referenceable table  = createEntity("table", "db1.t1");
+        Referenceable dbCopy = createEntity("db", "db1");
+
+        db.set("description", "first");
+        dbCopy.set("owner", "user2");
+        table.set("db", db);
+
+        List<HookNotification.HookNotificationMessage> messages = new ArrayList<>();
+        messages.add(new HookNotification.EntityCreateRequest("user", db, table));
+        messages.add(new HookNotification.EntityCreateRequest("user", dbCopy));
+
+        List<Referenceable> entities = NotificationHookConsumer.mergeEntities(messages);
+
+        assertEquals(2, entities.size());
+        assertEquals("db", entities.get(0).getTypeName());
+        assertEquals("table", entities.get(1).getTypeName());
+        assertEquals("first", entities.get(0).get("description"));
+        assertEquals("user2", entities.get(0).get("owner"));
+        assertEquals(db.getId(), entities.get(0).getId());
+
+        // the entities of the messages are left unchanged, for a retry one message at a time
+        assertEquals(null, db.get("owner"));
+    }
+
+    private Referenceable createEntity(String typeName, String qualifiedName) {
+        Referenceable entity = new Referenceable(typeName);
+        entity.set(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME, qualifiedName);
+        return entity;
+    }
+
     @Test
     public void testConsumerProceedsWithFalseIfInterrupted() throws Exception {
         NotificationHookConsumer notificationHookConsumer = new NotificationHookConsumer(notificationInterface, atlasClient);
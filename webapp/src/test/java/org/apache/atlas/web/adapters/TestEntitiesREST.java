@@ -30,6 +30,7 @@ import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.instance.EntityMutations;
 import org.apache.atlas.model.typedef.AtlasTypesDef;
 import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.store.AtlasTypeDefStore;
 import org.apache.atlas.web.rest.EntitiesREST;
 
@@ -96,7 +97,7 @@ public class TestEntitiesREST {
         entities.add(tableEntity);
 
         EntityMutationResponse response = entitiesREST.createOrUpdate(entities);
-        List<AtlasEntityHeader> guids = response.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE_OR_UPDATE);
+        List<AtlasEntityHeader> guids = response.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE);
 
         Assert.assertNotNull(guids);
         Assert.assertEquals(guids.size(), 3);
@@ -125,7 +126,7 @@ public class TestEntitiesREST {
         newEntities.add(newTableEntity);
         EntityMutationResponse response2 = entitiesREST.createOrUpdate(newEntities);
 
-        List<AtlasEntityHeader> newGuids = response2.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE_OR_UPDATE);
+        List<AtlasEntityHeader> newGuids = response2.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE);
         Assert.assertNotNull(newGuids);
         Assert.assertEquals(newGuids.size(), 3);
     }
@@ -133,7 +134,7 @@ public class TestEntitiesREST {
     @Test(dependsOnMethods = "testCreateOrUpdateEntities")
     public void testGetEntities() throws Exception {
 
-        final AtlasEntity.AtlasEntities response = entitiesREST.getById(createdGuids);
+        final AtlasEntity.AtlasEntities response = entitiesREST.getById(createdGuids, null, true, EntityProjection.UNLIMITED_DEPTH);
         final List<AtlasEntity> entities = response.getList();
 
         Assert.assertNotNull(entities);
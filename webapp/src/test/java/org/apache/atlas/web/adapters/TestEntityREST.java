@@ -28,6 +28,7 @@ import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.instance.EntityMutations;
 import org.apache.atlas.model.typedef.AtlasTypesDef;
 import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.services.EntityProjection;
 import org.apache.atlas.store.AtlasTypeDefStore;
 import org.apache.atlas.web.rest.EntityREST;
 import org.testng.Assert;
@@ -80,7 +81,7 @@ public class TestEntityREST {
         final EntityMutationResponse response = entityREST.createOrUpdate(dbEntity);
 
         Assert.assertNotNull(response);
-        List<AtlasEntityHeader> entitiesMutated = response.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE_OR_UPDATE);
+        List<AtlasEntityHeader> entitiesMutated = response.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE);
 
         Assert.assertNotNull(entitiesMutated);
         Assert.assertEquals(entitiesMutated.size(), 1);
@@ -92,7 +93,7 @@ public class TestEntityREST {
     @Test(dependsOnMethods = "testCreateOrUpdateEntity")
     public void testGetEntityById() throws Exception {
 
-        final AtlasEntity response = entityREST.getById(dbGuid);
+        final AtlasEntity response = entityREST.getById(dbGuid, null, true, EntityProjection.UNLIMITED_DEPTH);
 
         Assert.assertNotNull(response);
         TestEntitiesREST.verifyAttributes(response.getAttributes(), dbEntity.getAttributes());
@@ -161,7 +162,7 @@ public class TestEntityREST {
         dbEntity.setAttribute(TestUtilsV2.NAME, updatedDBName);
 
         final EntityMutationResponse response = entityREST.partialUpdateByUniqueAttribute(TestUtilsV2.DATABASE_TYPE, TestUtilsV2.NAME, prevDBName, dbEntity);
-        String dbGuid = response.getEntitiesByOperation(EntityMutations.EntityOperation.CREATE_OR_UPDATE).get(0).getGuid();
+        String dbGuid = response.getEntitiesByOperation(EntityMutations.EntityOperation.UPDATE).get(0).getGuid();
         Assert.assertTrue(AtlasEntity.isAssigned(dbGuid));
 
         //Get By unique attribute
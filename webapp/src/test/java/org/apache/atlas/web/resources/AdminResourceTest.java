@@ -18,7 +18,10 @@
 
 package org.apache.atlas.web.resources;
 
+import org.apache.atlas.repository.graph.GraphIndexReindexer;
+import org.apache.atlas.utils.AtlasMetrics;
 import org.apache.atlas.web.service.ServiceState;
+import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.mockito.Mock;
@@ -28,16 +31,22 @@ import org.testng.annotations.Test;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Response;
+import java.util.Collections;
 
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class AdminResourceTest {
 
     @Mock
     private ServiceState serviceState;
 
+    @Mock
+    private GraphIndexReindexer reindexer;
+
     @BeforeMethod
     public void setup() {
         MockitoAnnotations.initMocks(this);
@@ -48,7 +57,7 @@ public class AdminResourceTest {
 
         when(serviceState.getState()).thenReturn(ServiceState.ServiceStateValue.ACTIVE);
 
-        AdminResource adminResource = new AdminResource(serviceState);
+        AdminResource adminResource = new AdminResource(serviceState, reindexer);
         Response response = adminResource.getStatus();
         assertEquals(response.getStatus(), HttpServletResponse.SC_OK);
         JSONObject entity = (JSONObject) response.getEntity();
@@ -59,7 +68,7 @@ public class AdminResourceTest {
     public void testResourceGetsValueFromServiceState() throws JSONException {
         when(serviceState.getState()).thenReturn(ServiceState.ServiceStateValue.PASSIVE);
 
-        AdminResource adminResource = new AdminResource(serviceState);
+        AdminResource adminResource = new AdminResource(serviceState, reindexer);
         Response response = adminResource.getStatus();
 
         verify(serviceState).getState();
@@ -67,4 +76,42 @@ public class AdminResourceTest {
         assertEquals(entity.get("Status"), "PASSIVE");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReindexProgressIsReturned() throws JSONException {
+        GraphIndexReindexer.ReindexJob job = mock(GraphIndexReindexer.ReindexJob.class);
+        when(job.getTypeName()).thenReturn("hive_table");
+        when(job.getPropertyKeys()).thenReturn(Collections.singletonList("hive_table.owner"));
+        when(job.getState()).thenReturn(GraphIndexReindexer.State.BACKFILLING);
+        when(job.getTotalCount()).thenReturn(1000L);
+        when(job.getProcessedCount()).thenReturn(400L);
+        when(reindexer.getJobs()).thenReturn(Collections.singletonList(job));
+
+        AdminResource adminResource = new AdminResource(serviceState, reindexer);
+        Response response = adminResource.getReindexProgress();
+        assertEquals(response.getStatus(), HttpServletResponse.SC_OK);
+
+        JSONArray jobs = ((JSONObject) response.getEntity()).getJSONArray("jobs");
+        assertEquals(jobs.length(), 1);
+        assertEquals(jobs.getJSONObject(0).get("typeName"), "hive_table");
+        assertEquals(jobs.getJSONObject(0).get("state"), "BACKFILLING");
+        assertEquals(jobs.getJSONObject(0).getLong("processedCount"), 400L);
+        assertEquals(jobs.getJSONObject(0).getLong("totalCount"), 1000L);
+    }
+
+    @Test
+    public void testMetricsOfTimedOperationsAreReturned() throws JSONException {
+        when(serviceState.getState()).thenReturn(ServiceState.ServiceStateValue.ACTIVE);
+
+        AdminResource adminResource = new AdminResource(serviceState, reindexer);
+        adminResource.getStatus();
+
+        Response response = adminResource.getMetrics();
+        assertEquals(response.getStatus(), HttpServletResponse.SC_OK);
+
+        JSONObject histograms = ((JSONObject) response.getEntity()).getJSONObject(AtlasMetrics.HISTOGRAMS);
+        JSONObject status     = histograms.getJSONObject("AdminResource.getStatus");
+        assertTrue(status.getLong("count") >= 1);
+        assertTrue(status.getDouble("maxMs") >= status.getDouble("p50Ms"));
+    }
+}